@@ -0,0 +1,59 @@
+package org.example.bench;
+
+import org.example.engine.EngineConfig;
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Shared fixture: companies priced at 100.00 (MID ticks) and books pre-filled around that
+// price. The engine is driven on the benchmark thread with processPending(), so every
+// measured operation includes the ingress hand-off, matching and snapshot publishing.
+final class Books {
+    static final long MID = 10_000;       // 100.00 at the default 0.01 tick
+    static final int MAX_LEVELS = 1_000;  // resting orders are spread over at most this many levels per side
+    static final long SEED = 42;
+
+    private Books() {
+    }
+
+    static List<Company> companies(int count) {
+        List<Company> companies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            companies.add(new Company("Company " + i, "SYM" + i, 100.0, 100.0, 1_000_000));
+        }
+        return companies;
+    }
+
+    static TradingEngine engine(List<Company> companies) {
+        return new TradingEngine(companies, null, new EngineConfig());
+    }
+
+    // Rests `perSide` bids below MID and `perSide` asks above it on every company
+    static void fill(TradingEngine engine, List<Company> companies, int perSide, int quantity) {
+        int levels = levels(perSide);
+        for (Company company : companies) {
+            for (int i = 0; i < perSide; i++) {
+                engine.submitBuyOrder(ShareOffer.ofTicks("bench-bid", company, quantity, MID - 1 - i % levels, true));
+                engine.submitSellOrder(ShareOffer.ofTicks("bench-ask", company, quantity, MID + 1 + i % levels, false));
+                if (i % 10_000 == 0) engine.processPending();
+            }
+        }
+        engine.processPending();
+    }
+
+    static int levels(int perSide) {
+        return Math.max(1, Math.min(perSide, MAX_LEVELS));
+    }
+
+    // The engine logs every manual trade and price change to stdout; keep that out of the numbers
+    static PrintStream silenceStdout() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.bench;
+
+import org.example.engine.OrderEvent;
+import org.example.engine.OrderIngress;
+import org.example.engine.QueueIngress;
+import org.example.engine.RingBufferIngress;
+import org.example.engine.WaitStrategy;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Hand-off cost per order of the LinkedBlockingQueue ingress and of the ring buffer with each
+// wait strategy: PRODUCERS threads publish the same pre-built offer, the benchmark thread is
+// the single consumer and takes every one of them.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class IngressBenchmark {
+    private static final int PRODUCERS = 4;
+    private static final int ORDERS_PER_PRODUCER = 250_000;
+
+    // QUEUE, or the ring buffer's WaitStrategy
+    @Param({"QUEUE", "BUSY_SPIN", "YIELDING", "BLOCKING"})
+    public String ingress;
+
+    private final ShareOffer offer = new ShareOffer("B1", new Company("Apple", "AAPL", 150, 150, 1000), 1, 150, true);
+    private final OrderEvent event = new OrderEvent();
+    private OrderIngress queue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = ingress.equals("QUEUE") ? new QueueIngress() : new RingBufferIngress(1 << 16, WaitStrategy.valueOf(ingress));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PRODUCERS * ORDERS_PER_PRODUCER)
+    public long handOff() throws InterruptedException {
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < ORDERS_PER_PRODUCER; i++) queue.publish(offer);
+            });
+            producers[p].start();
+        }
+        long taken = 0;
+        for (int i = 0; i < PRODUCERS * ORDERS_PER_PRODUCER; i++) {
+            queue.take(event);
+            taken += event.getOffer().getQuantity();
+        }
+        for (Thread t : producers) t.join();
+        return taken;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.bench;
+
+import org.example.engine.Buyer;
+import org.example.engine.Seller;
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// executeManualTrade for one share against the best ask, as Buyer.run does it.
+// The ask is large enough to last the whole trial, so every call trades.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ManualTradeBenchmark {
+
+    @Param({"10", "100000"})
+    public int depth;
+
+    private TradingEngine engine;
+    private Buyer buyer;
+    private ShareOffer bestAsk;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stdout = Books.silenceStdout();
+        List<Company> companies = Books.companies(1);
+        Company company = companies.get(0);
+        engine = Books.engine(companies);
+        buyer = new Buyer("bench-buyer", 1e18, engine);
+        engine.registerBuyer(buyer);
+        engine.registerSeller(new Seller("bench-ask", engine, 0));
+        Books.fill(engine, companies, depth, 100);
+
+        bestAsk = ShareOffer.ofTicks("bench-ask", company, Integer.MAX_VALUE, Books.MID, false);
+        engine.submitSellOrder(bestAsk);
+        engine.processPending();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public boolean trade() {
+        return engine.executeManualTrade(buyer, bestAsk, 1);
+    }
+}
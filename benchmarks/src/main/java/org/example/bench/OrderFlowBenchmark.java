@@ -0,0 +1,75 @@
+package org.example.bench;
+
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Random order flow around the mid price with a given share of buys. Orders land within
+// SPREAD ticks either side of MID, so a part of them trade and the rest rest. Each new order
+// cancels the one submitted `window` orders earlier, which bounds the book size.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class OrderFlowBenchmark {
+    private static final int SPREAD = 20;
+
+    @Param({"20", "50", "80"})
+    public int buyPercent;
+
+    @Param({"1", "16"})
+    public int symbols;
+
+    @Param({"10000"})
+    public int window;
+
+    private TradingEngine engine;
+    private List<Company> companies;
+    private SplittableRandom random;
+    private long[] recent;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        companies = Books.companies(symbols);
+        engine = Books.engine(companies);
+        random = new SplittableRandom(Books.SEED);
+        recent = new long[window];
+    }
+
+    @Benchmark
+    public long order() {
+        Company company = companies.get(random.nextInt(companies.size()));
+        boolean buy = random.nextInt(100) < buyPercent;
+        long priceTicks = Books.MID + random.nextInt(-SPREAD, SPREAD + 1);
+        int quantity = 1 + random.nextInt(100);
+        ShareOffer offer = ShareOffer.ofTicks(buy ? "bench-bid" : "bench-ask", company, quantity, priceTicks, buy);
+        long orderId = buy ? engine.submitBuyOrder(offer) : engine.submitSellOrder(offer);
+
+        // a cancel of an order that has already traded away is a no-op lookup
+        if (recent[next] != 0) engine.cancelOrder(recent[next]);
+        recent[next] = orderId;
+        next = (next + 1) % recent.length;
+
+        engine.processPending();
+        return orderId;
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.bench;
+
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one order against books of different depth, with and without a trade.
+// depth is the number of resting orders per side, split evenly over `symbols` books.
+// Resting orders are large enough that the 1-share trades never use one up.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class OrderInsertBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int depth;
+
+    @Param({"1", "16"})
+    public int symbols;
+
+    private TradingEngine engine;
+    private List<Company> companies;
+    private SplittableRandom random;
+    private int levels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        companies = Books.companies(symbols);
+        engine = Books.engine(companies);
+        int perSide = Math.max(1, depth / symbols);
+        levels = Books.levels(perSide);
+        Books.fill(engine, companies, perSide, 1_000_000_000);
+        random = new SplittableRandom(Books.SEED);
+    }
+
+    // A bid that rests somewhere inside the book, then its cancel, so the depth stays put
+    @Benchmark
+    public long insertNoCross() {
+        Company company = companies.get(random.nextInt(companies.size()));
+        long priceTicks = Books.MID - 1 - random.nextInt(levels);
+        long orderId = engine.submitBuyOrder(ShareOffer.ofTicks("bench-bid", company, 10, priceTicks, true));
+        engine.processPending();
+        engine.cancelOrder(orderId);
+        engine.processPending();
+        return orderId;
+    }
+
+    // A 1-share sell at the best bid: trades against the head of the best level
+    @Benchmark
+    public long insertCross() {
+        Company company = companies.get(random.nextInt(companies.size()));
+        long orderId = engine.submitSellOrder(ShareOffer.ofTicks("bench-ask", company, 1, Books.MID - 1, false));
+        engine.processPending();
+        return orderId;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.bench;
+
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// getSellOffersForCompany (what every Buyer polls) on its own and while one thread keeps
+// changing the top of the same book, which republishes its snapshot on every change.
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ReadContentionBenchmark {
+
+    @Param({"1000", "100000"})
+    public int depth;
+
+    private TradingEngine engine;
+    private Company company;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Company> companies = Books.companies(1);
+        company = companies.get(0);
+        engine = Books.engine(companies);
+        Books.fill(engine, companies, depth, 100);
+    }
+
+    // Per-thread random source for the writer
+    @State(Scope.Thread)
+    public static class WriterState {
+        final SplittableRandom random = new SplittableRandom(Books.SEED);
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public List<ShareOffer> readAlone() {
+        return engine.getSellOffersForCompany(company);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public List<ShareOffer> read() {
+        return engine.getSellOffersForCompany(company);
+    }
+
+    // An ask at or just above the best ask, then its cancel: both change the published top levels
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public long write(WriterState state) {
+        long priceTicks = Books.MID + 1 + state.random.nextInt(3);
+        long orderId = engine.submitSellOrder(ShareOffer.ofTicks("bench-ask", company, 10, priceTicks, false));
+        engine.processPending();
+        engine.cancelOrder(orderId);
+        engine.processPending();
+        return orderId;
+    }
+}
@@ -0,0 +1,203 @@
+package org.example;
+
+import org.example.engine.EngineConfig;
+import org.example.engine.LatencyHistogram;
+import org.example.engine.LatencySnapshot;
+import org.example.engine.OrderEvent;
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop load generator for the trading engine.
+// Orders are sent on a fixed schedule (rate per second) whether or not the engine keeps up,
+// and each order's latency is measured from the time it was scheduled to be sent, not from
+// when it actually went out. A stalled engine therefore shows up as latency rather than as
+// a quietly lower send rate (no coordinated omission). Orders still unacknowledged when the
+// drain times out are recorded with their latency so far, as a lower bound, and counted.
+//
+// Arguments are key=value pairs, all optional:
+//   rate=50000 duration=30 symbols=8 threads=1 buy=45 sell=45 cancel=10 spread=0.5
+//   partitions=1 ingress=queue|ring metrics=false seed=42
+// buy/sell/cancel are relative weights; spread is the standard deviation of order prices
+// around Company.getCurrentPrice(), in percent.
+public class LoadGenerator {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+    private static final long DRAIN_TIMEOUT_NANOS = 10 * NANOS_PER_SECOND;
+
+    private final long rate;
+    private final long durationSeconds;
+    private final int symbols;
+    private final int threads;
+    private final int buyWeight;
+    private final int sellWeight;
+    private final int cancelWeight;
+    private final double spreadPercent;
+    private final long seed;
+    private final EngineConfig config;
+
+    // scheduled send time of every order that has not been acknowledged yet, keyed by the offer itself
+    private final Map<ShareOffer, Long> pending = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram("load");
+    private final AtomicLong acked = new AtomicLong();
+    private long unacknowledged;   // given up on at the drain deadline
+    private final AtomicLong lastAckNanos = new AtomicLong();
+    private final AtomicLong sentOrders = new AtomicLong();
+    private final AtomicLong sentCancels = new AtomicLong();
+    private final AtomicLong maxSendLagNanos = new AtomicLong();
+
+    public LoadGenerator(Map<String, String> args) {
+        this.rate = Long.parseLong(args.getOrDefault("rate", "50000"));
+        this.durationSeconds = Long.parseLong(args.getOrDefault("duration", "30"));
+        this.symbols = Integer.parseInt(args.getOrDefault("symbols", "8"));
+        this.threads = Integer.parseInt(args.getOrDefault("threads", "1"));
+        this.buyWeight = Integer.parseInt(args.getOrDefault("buy", "45"));
+        this.sellWeight = Integer.parseInt(args.getOrDefault("sell", "45"));
+        this.cancelWeight = Integer.parseInt(args.getOrDefault("cancel", "10"));
+        this.spreadPercent = Double.parseDouble(args.getOrDefault("spread", "0.5"));
+        this.seed = Long.parseLong(args.getOrDefault("seed", "42"));
+        if (rate < 1 || threads < 1 || symbols < 1) {
+            throw new IllegalArgumentException("rate, threads and symbols must be >= 1");
+        }
+        if (buyWeight + sellWeight < 1) throw new IllegalArgumentException("buy + sell weight must be >= 1");
+        this.config = new EngineConfig()
+                .setPartitions(Integer.parseInt(args.getOrDefault("partitions", "1")))
+                .setIngressType("ring".equalsIgnoreCase(args.get("ingress"))
+                        ? EngineConfig.IngressType.RING_BUFFER : EngineConfig.IngressType.QUEUE)
+                .setMetricsEnabled(Boolean.parseBoolean(args.getOrDefault("metrics", "false")));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> parsed = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("expected key=value, got " + arg);
+            parsed.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadGenerator(parsed).run();
+    }
+
+    public void run() throws InterruptedException {
+        List<Company> companies = new ArrayList<>();
+        for (int i = 0; i < symbols; i++) {
+            companies.add(new Company("Load " + i, "LD" + i, 100, 100, 1_000_000));
+        }
+        TradingEngine engine = new TradingEngine(companies, null, config);
+        engine.setAckListener(this::onAck);
+        Thread engineThread = new Thread(engine, "ExchangeEngine");
+        engineThread.start();
+
+        System.out.printf("[Load] %d orders/s for %ds over %d symbols, %d sender thread(s), %d partition(s)%n",
+                rate, durationSeconds, symbols, threads, config.getPartitions());
+
+        // every sender thread takes every threads-th slot of one global schedule
+        long intervalNanos = Math.max(1, NANOS_PER_SECOND / rate);
+        long start = System.nanoTime() + 100_000_000L;
+        long end = start + durationSeconds * NANOS_PER_SECOND;
+        Thread[] senders = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            senders[t] = new Thread(() -> send(engine, companies, index, start, end, intervalNanos), "LoadSender-" + t);
+            senders[t].start();
+        }
+        for (Thread sender : senders) sender.join();
+
+        // wait for the engine to acknowledge what is still queued
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (!pending.isEmpty() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        engine.setAckListener(null);
+        // leaving them out would hide the slowest orders of all; an ack racing with this takes its own
+        long gaveUp = System.nanoTime();
+        for (ShareOffer offer : pending.keySet()) {
+            Long scheduled = pending.remove(offer);
+            if (scheduled == null) continue;
+            latency.record(gaveUp - scheduled);
+            unacknowledged++;
+        }
+        engine.stop();
+        engineThread.join();
+
+        report(start, engine);
+    }
+
+    private void send(TradingEngine engine, List<Company> companies, int index, long start, long end, long intervalNanos) {
+        SplittableRandom random = new SplittableRandom(seed + index);
+        long[] recent = new long[1024]; // this sender's latest order ids, for cancels
+        int recentCount = 0;
+        int totalWeight = buyWeight + sellWeight + cancelWeight;
+        String clientId = "LG-" + index;
+
+        for (long k = 0; ; k++) {
+            long scheduled = start + (k * threads + index) * intervalNanos;
+            if (scheduled >= end) break;
+            waitUntil(scheduled);
+            long lag = System.nanoTime() - scheduled;
+            if (lag > maxSendLagNanos.get()) maxSendLagNanos.accumulateAndGet(lag, Math::max);
+
+            int pick = random.nextInt(totalWeight);
+            if (pick >= buyWeight + sellWeight && recentCount > 0) {
+                engine.cancelOrder(recent[random.nextInt(Math.min(recentCount, recent.length))]);
+                sentCancels.incrementAndGet();
+                continue;
+            }
+
+            boolean buy = pick < buyWeight || pick >= buyWeight + sellWeight;
+            Company company = companies.get(random.nextInt(companies.size()));
+            double price = Math.max(0.01, company.getCurrentPrice() * (1 + random.nextGaussian() * spreadPercent / 100));
+            ShareOffer offer = new ShareOffer(clientId, company, 1 + random.nextInt(100), price, buy);
+            pending.put(offer, scheduled);
+            long orderId = buy ? engine.submitBuyOrder(offer) : engine.submitSellOrder(offer);
+            recent[recentCount++ % recent.length] = orderId;
+            sentOrders.incrementAndGet();
+        }
+    }
+
+    // Worker-thread callback; only new orders are timed
+    private void onAck(OrderEvent event) {
+        if (event.getType() != OrderEvent.Type.NEW) return;
+        Long scheduled = pending.remove(event.getOffer());
+        if (scheduled == null) return;
+        long now = System.nanoTime();
+        latency.record(now - scheduled);
+        acked.incrementAndGet();
+        lastAckNanos.accumulateAndGet(now, Math::max);
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            else Thread.onSpinWait();
+        }
+    }
+
+    private void report(long start, TradingEngine engine) {
+        double ackSeconds = Math.max(1, lastAckNanos.get() - start) / (double) NANOS_PER_SECOND;
+        LatencySnapshot s = latency.snapshot();
+        System.out.println("\n--- Load Generator ---");
+        System.out.printf("Target rate:     %d orders/s%n", rate);
+        System.out.printf("Sent:            %d orders, %d cancels%n", sentOrders.get(), sentCancels.get());
+        System.out.printf("Acknowledged:    %d orders (%d not acknowledged by the drain deadline)%n",
+                acked.get(), unacknowledged);
+        System.out.printf("Throughput:      %.0f orders/s%n", acked.get() / ackSeconds);
+        System.out.printf("Max send lag:    %.1f ms%n", maxSendLagNanos.get() / 1e6);
+        System.out.printf("Trades:          %d%n", engine.getTransactionHistory().size());
+        System.out.printf("Latency (from scheduled send): p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                s.getP50() / 1e3, s.getP99() / 1e3, s.getP999() / 1e3, s.getMax() / 1e3);
+        if (unacknowledged > 0) {
+            System.out.printf("                 includes %d unacknowledged orders at their latency when the drain gave up%n",
+                    unacknowledged);
+        }
+    }
+}
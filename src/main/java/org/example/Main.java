@@ -1,17 +1,28 @@
 package org.example;
 
+import org.example.engine.AgentRuntime;
 import org.example.engine.Buyer;
+import org.example.engine.EngineConfig;
 import org.example.engine.Seller;
+import org.example.engine.TradeStats;
 import org.example.engine.TradingEngine;
 import org.example.model_layer.Company;
 import org.example.model_layer.Transaction;
 import org.example.engine.DatabaseManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
+        // "load [key=value ...]" runs the open-loop load generator instead of the agent simulation;
+        // "ledger" keeps agents from buying beyond their cash or selling shares they do not own
+        if (args.length > 0 && args[0].equals("load")) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         //Create Companies
         List<Company> companies = new ArrayList<>();
         companies.add(new Company("Apple", "AAPL", 150, 150, 1000));
@@ -27,10 +38,14 @@ public class Main {
 //        DatabaseManager dbManager = new DatabaseManager(mongoURI, "TradingDB", "Transactions");
 
         //Create Trading Engine and Thread
-        TradingEngine engine = new TradingEngine(companies, null);
+        boolean ledger = Arrays.asList(args).contains("ledger");
+        TradingEngine engine = new TradingEngine(companies, null, new EngineConfig().setLedgerEnabled(ledger));
         Thread engineThread = new Thread(engine, "ExchangeEngine");
         engineThread.start(); // start the engine
 
+        // Agents run on virtual threads (see AgentRuntime for the scheduled alternative)
+        AgentRuntime agents = new AgentRuntime(AgentRuntime.Mode.VIRTUAL_THREADS, 0);
+
         //Create Buyers
         Buyer buyer1 = new Buyer("B1", 10000, engine);
         Buyer buyer2 = new Buyer("B2", 15000, engine);
@@ -38,11 +53,8 @@ public class Main {
         engine.registerBuyer(buyer1);
         engine.registerBuyer(buyer2);
 
-        Thread tBuyer1 = new Thread(buyer1);
-        Thread tBuyer2 = new Thread(buyer2);
-
-        tBuyer1.start();
-        tBuyer2.start();
+        agents.start(buyer1);
+        agents.start(buyer2);
 
         //Create Sellers
         Seller seller1 = new Seller("S1", engine, 0);
@@ -58,11 +70,8 @@ public class Main {
         engine.registerSeller(seller1);
         engine.registerSeller(seller2);
 
-        Thread tSeller1 = new Thread(seller1);
-        Thread tSeller2 = new Thread(seller2);
-
-        tSeller1.start();
-        tSeller2.start();
+        agents.start(seller1);
+        agents.start(seller2);
 
         //Run simulation for some time
         try {
@@ -71,22 +80,11 @@ public class Main {
             e.printStackTrace();
         }
 
-        //Stop all threads safely
-        buyer1.stop();
-        buyer2.stop();
-        seller1.stop();
-        seller2.stop();
+        //Stop all threads safely: agents first (cancels their orders), then the engine
+        agents.shutdown(5000);
         engine.stop(); // send SYSTEM_STOP signal
 
-        try {
-            tBuyer1.join();
-            tBuyer2.join();
-            tSeller1.join();
-            tSeller2.join();
-            engineThread.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        engineThread.join();
 
 //        dbManager.close();
 
@@ -108,10 +106,26 @@ public class Main {
         System.out.println(seller1);
         System.out.println(seller2);
 
+        //Print Accounts
+        if (engine.getLedger() != null) {
+            System.out.println("\n--- Accounts ---");
+            for (String id : List.of("B1", "B2", "S1", "S2")) {
+                System.out.println(engine.getLedger().snapshot(id));
+            }
+            System.out.println("Orders rejected by the ledger: " + engine.getLedger().getRejectedOrders());
+        }
+
         //Print Companies
         System.out.println("\n--- Companies ---");
         for (Company c : companies) {
             System.out.println(c);
         }
+
+        //Print per-symbol statistics (kept incrementally, no history scan)
+        System.out.println("\n--- Statistics ---");
+        for (Company c : companies) {
+            TradeStats stats = engine.getCandles().getStats(c);
+            if (stats != null) System.out.println(stats);
+        }
     }
 }
@@ -0,0 +1,258 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cash and share positions of every client with an account, owned by the engine.
+// Accounts and symbols get dense ids, and all balances live in primitive arrays:
+// cash per account, positions per (account, symbol), each with a reserved amount beside it.
+// Accounts are allocated in pages, so opening one never moves existing balances.
+//
+// Resting orders hold a reservation: a buy reserves quantity x limit price in cash, a sell
+// reserves the shares. A fill consumes the reservation and moves cash and shares; a cancel
+// releases what is left. Clients without an account, and companies the ledger was not built
+// with, are not checked.
+//
+// Threads: a position slot belongs to one symbol and so to one shard, and only changes under
+// that shard's lock. Cash is shared by every shard the client trades on; reservations are
+// taken with a CAS on the reserved amount, and every debit is covered by a reservation and
+// applied before the reservation is released, so available cash never goes negative.
+public class AccountLedger {
+    // cash is held in 1/10000 of a currency unit
+    public static final long CASH_SCALE = 10_000;
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final Map<Company, Integer> symbolIds = new HashMap<>();
+    private final Company[] symbols;
+    private final long[] unitsPerTick;     // cash units per price tick, per symbol
+
+    private final Map<String, Integer> accountIds = new ConcurrentHashMap<>();
+    private volatile Page[] pages = new Page[0];
+    private int accountCount;              // guarded by this
+
+    private final LongAdder rejectedOrders = new LongAdder();
+
+    public AccountLedger(List<Company> companies) {
+        this.symbols = companies.toArray(new Company[0]);
+        this.unitsPerTick = new long[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            symbolIds.put(symbols[i], i);
+            unitsPerTick[i] = Math.max(1, Math.round(symbols[i].getTickSize() * CASH_SCALE));
+        }
+    }
+
+    // ---- accounts ----
+
+    // Opens the account, or resets its balances if it exists; reservations start at zero
+    public synchronized int openAccount(String clientId, double cash, Map<Company, Integer> positions) {
+        Integer existing = accountIds.get(clientId);
+        int account = existing != null ? existing : accountCount++;
+        if (account >> PAGE_BITS >= pages.length) addPage();
+        Page page = page(account);
+        int slot = account & (PAGE_SIZE - 1);
+        page.cash.set(slot, Math.round(cash * CASH_SCALE));
+        page.reservedCash.set(slot, 0);
+        for (int s = 0; s < symbols.length; s++) {
+            Integer owned = positions.get(symbols[s]);
+            page.positions.set(slot * symbols.length + s, owned == null ? 0 : owned);
+            page.reservedPositions.set(slot * symbols.length + s, 0);
+        }
+        accountIds.put(clientId, account);
+        return account;
+    }
+
+    private void addPage() {
+        Page[] grown = new Page[pages.length + 1];
+        System.arraycopy(pages, 0, grown, 0, pages.length);
+        grown[pages.length] = new Page(symbols.length);
+        pages = grown;
+    }
+
+    // Dense id of the client's account, or -1
+    public int accountOf(String clientId) {
+        Integer account = accountIds.get(clientId);
+        return account == null ? -1 : account;
+    }
+
+    // Dense id of the company, or -1 if the ledger does not track it
+    public int symbolOf(Company company) {
+        Integer symbol = symbolIds.get(company);
+        return symbol == null ? -1 : symbol;
+    }
+
+    // ---- pre-trade checks (shard worker, under the shard lock) ----
+
+    // Reserves what a new resting order needs; false = rejected
+    public boolean reserve(ShareOffer offer) {
+        return reserve(offer.getClientId(), offer.getCompany(), offer.isBuy(), offer.getQuantity(), offer.getPriceTicks());
+    }
+
+    public boolean reserve(String clientId, Company company, boolean buy, int quantity, long limitTicks) {
+        int account = accountOf(clientId);
+        int symbol = symbolOf(company);
+        if (account < 0 || symbol < 0) return true;
+        Page page = page(account);
+        int slot = account & (PAGE_SIZE - 1);
+        boolean reserved = buy
+                ? reserveCash(page, slot, quantity * limitTicks * unitsPerTick[symbol])
+                : reserveShares(page, slot * symbols.length + symbol, quantity);
+        if (!reserved) rejectedOrders.increment();
+        return reserved;
+    }
+
+    private static boolean reserveCash(Page page, int slot, long amount) {
+        while (true) {
+            long reserved = page.reservedCash.get(slot);
+            if (page.cash.get(slot) - reserved < amount) return false;
+            if (page.reservedCash.compareAndSet(slot, reserved, reserved + amount)) return true;
+        }
+    }
+
+    private static boolean reserveShares(Page page, int index, int quantity) {
+        long reserved = page.reservedPositions.get(index);
+        if (page.positions.get(index) - reserved < quantity) return false;
+        page.reservedPositions.set(index, reserved + quantity);
+        return true;
+    }
+
+    // Gives back the reservation of `quantity` units of an order that leaves the book unfilled
+    public void release(ShareOffer offer, int quantity) {
+        int account = accountOf(offer.getClientId());
+        int symbol = symbolOf(offer.getCompany());
+        if (account < 0 || symbol < 0 || quantity <= 0) return;
+        Page page = page(account);
+        int slot = account & (PAGE_SIZE - 1);
+        if (offer.isBuy()) {
+            page.reservedCash.addAndGet(slot, -quantity * offer.getPriceTicks() * unitsPerTick[symbol]);
+        } else {
+            page.reservedPositions.addAndGet(slot * symbols.length + symbol, -quantity);
+        }
+    }
+
+    // Settles one side of a fill at priceTicks against the order's reservation
+    public void fill(ShareOffer offer, int quantity, long priceTicks) {
+        fill(offer.getClientId(), offer.getCompany(), offer.isBuy(), quantity, offer.getPriceTicks(), priceTicks);
+    }
+
+    public void fill(String clientId, Company company, boolean buy, int quantity, long limitTicks, long priceTicks) {
+        int account = accountOf(clientId);
+        int symbol = symbolOf(company);
+        if (account < 0 || symbol < 0) return;
+        Page page = page(account);
+        int slot = account & (PAGE_SIZE - 1);
+        int index = slot * symbols.length + symbol;
+        long notional = quantity * priceTicks * unitsPerTick[symbol];
+        if (buy) {
+            // debit before releasing, see the class comment; a better price leaves the difference free
+            page.cash.addAndGet(slot, -notional);
+            page.reservedCash.addAndGet(slot, -quantity * limitTicks * unitsPerTick[symbol]);
+            page.positions.addAndGet(index, quantity);
+        } else {
+            page.positions.addAndGet(index, -quantity);
+            page.reservedPositions.addAndGet(index, -quantity);
+            page.cash.addAndGet(slot, notional);
+        }
+    }
+
+    // ---- reads (any thread) ----
+
+    // Cash owned, reserved or not, in currency units; 0 without an account
+    public double getCash(String clientId) {
+        int account = accountOf(clientId);
+        if (account < 0) return 0;
+        return (double) page(account).cash.get(account & (PAGE_SIZE - 1)) / CASH_SCALE;
+    }
+
+    // Shares owned, reserved or not
+    public long getPosition(String clientId, Company company) {
+        int account = accountOf(clientId);
+        int symbol = symbolOf(company);
+        if (account < 0 || symbol < 0) return 0;
+        return page(account).positions.get((account & (PAGE_SIZE - 1)) * symbols.length + symbol);
+    }
+
+    // Shares owned per company, leaving out empty positions
+    public Map<Company, Integer> getPositions(String clientId) {
+        Map<Company, Integer> positions = new HashMap<>();
+        int account = accountOf(clientId);
+        if (account < 0) return positions;
+        Page page = page(account);
+        int slot = account & (PAGE_SIZE - 1);
+        for (int s = 0; s < symbols.length; s++) {
+            long owned = page.positions.get(slot * symbols.length + s);
+            if (owned > 0) positions.put(symbols[s], (int) owned);
+        }
+        return positions;
+    }
+
+    // Cash not held by resting buy orders, in currency units; 0 without an account
+    public double getBuyingPower(String clientId) {
+        int account = accountOf(clientId);
+        if (account < 0) return 0;
+        Page page = page(account);
+        int slot = account & (PAGE_SIZE - 1);
+        return (double) (page.cash.get(slot) - page.reservedCash.get(slot)) / CASH_SCALE;
+    }
+
+    // Shares not held by resting sell orders
+    public long getAvailablePosition(String clientId, Company company) {
+        int account = accountOf(clientId);
+        int symbol = symbolOf(company);
+        if (account < 0 || symbol < 0) return 0;
+        int index = (account & (PAGE_SIZE - 1)) * symbols.length + symbol;
+        Page page = page(account);
+        return page.positions.get(index) - page.reservedPositions.get(index);
+    }
+
+    // Copy of one account, or null. Each value is read atomically; a fill landing during
+    // the copy can show in one field before the other.
+    public AccountSnapshot snapshot(String clientId) {
+        int account = accountOf(clientId);
+        if (account < 0) return null;
+        Page page = page(account);
+        int slot = account & (PAGE_SIZE - 1);
+        Map<Company, Long> positions = new HashMap<>();
+        Map<Company, Long> reserved = new HashMap<>();
+        for (int s = 0; s < symbols.length; s++) {
+            long owned = page.positions.get(slot * symbols.length + s);
+            long held = page.reservedPositions.get(slot * symbols.length + s);
+            if (owned != 0) positions.put(symbols[s], owned);
+            if (held != 0) reserved.put(symbols[s], held);
+        }
+        return new AccountSnapshot(clientId, (double) page.cash.get(slot) / CASH_SCALE,
+                (double) page.reservedCash.get(slot) / CASH_SCALE, positions, reserved);
+    }
+
+    public long getRejectedOrders() {
+        return rejectedOrders.sum();
+    }
+
+    public int getAccountCount() {
+        return accountIds.size();
+    }
+
+    private Page page(int account) {
+        return pages[account >> PAGE_BITS];
+    }
+
+    private static final class Page {
+        final AtomicLongArray cash = new AtomicLongArray(PAGE_SIZE);
+        final AtomicLongArray reservedCash = new AtomicLongArray(PAGE_SIZE);
+        final AtomicLongArray positions;
+        final AtomicLongArray reservedPositions;
+
+        Page(int symbolCount) {
+            positions = new AtomicLongArray(PAGE_SIZE * symbolCount);
+            reservedPositions = new AtomicLongArray(PAGE_SIZE * symbolCount);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+
+import java.util.Collections;
+import java.util.Map;
+
+// Copy of one AccountLedger account for agents and reports
+public class AccountSnapshot {
+    private final String clientId;
+    private final double cash;
+    private final double reservedCash;
+    private final Map<Company, Long> positions;
+    private final Map<Company, Long> reservedPositions;
+
+    AccountSnapshot(String clientId, double cash, double reservedCash,
+                    Map<Company, Long> positions, Map<Company, Long> reservedPositions) {
+        this.clientId = clientId;
+        this.cash = cash;
+        this.reservedCash = reservedCash;
+        this.positions = Collections.unmodifiableMap(positions);
+        this.reservedPositions = Collections.unmodifiableMap(reservedPositions);
+    }
+
+    public String getClientId() { return clientId; }
+    public double getCash() { return cash; }
+    public double getReservedCash() { return reservedCash; }
+    public double getBuyingPower() { return cash - reservedCash; }
+    public Map<Company, Long> getPositions() { return positions; }
+    public Map<Company, Long> getReservedPositions() { return reservedPositions; }
+
+    public long getAvailablePosition(Company company) {
+        return positions.getOrDefault(company, 0L) - reservedPositions.getOrDefault(company, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Account{id='%s', cash=%.2f, reserved=%.2f, positions=%s}",
+                clientId, cash, reservedCash, positions);
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.engine;
+
+// A simulated market participant. step() runs one round of its logic without blocking and
+// says when it wants to run again, so the same agent can be driven by its own thread
+// (run()), a virtual thread or a shared scheduler (see AgentRuntime).
+public interface Agent extends Runnable {
+    String getId();
+
+    // One round of logic; returns the delay before the next round in milliseconds
+    long step();
+
+    boolean isActive();
+
+    // Stops the agent and cancels its resting orders
+    void stop();
+}
@@ -0,0 +1,116 @@
+package org.example.engine;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs many Buyers and Sellers without a platform thread each.
+//   VIRTUAL_THREADS: one virtual thread per agent, sleeping between steps
+//   SCHEDULED:       agents' steps are tasks on a small scheduled pool; an agent that is
+//                    waiting costs one queued task, not a thread
+//
+// shutdown() is ordered: no new steps start, running steps finish, then every agent is
+// stopped (which cancels its resting orders). Stop the engine after that.
+public class AgentRuntime {
+    public enum Mode { VIRTUAL_THREADS, SCHEDULED }
+
+    private final Mode mode;
+    private final ExecutorService virtualThreads;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ConcurrentLinkedQueue<Agent> agents = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger agentCount = new AtomicInteger();
+    private volatile boolean stopping = false;
+
+    // schedulerThreads is only used in SCHEDULED mode
+    public AgentRuntime(Mode mode, int schedulerThreads) {
+        this.mode = mode;
+        if (mode == Mode.VIRTUAL_THREADS) {
+            this.virtualThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("agent-", 0).factory());
+            this.scheduler = null;
+        } else {
+            this.virtualThreads = null;
+            this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, schedulerThreads), daemonThreads());
+            // queued steps are dropped on shutdown instead of running out their delays
+            this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            this.scheduler.setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    public void start(Agent agent) {
+        if (stopping) throw new IllegalStateException("AgentRuntime is shutting down");
+        agents.add(agent);
+        agentCount.incrementAndGet();
+        if (mode == Mode.VIRTUAL_THREADS) {
+            virtualThreads.execute(() -> loop(agent));
+        } else {
+            scheduler.execute(() -> tick(agent));
+        }
+    }
+
+    private void loop(Agent agent) {
+        while (agent.isActive() && !stopping) {
+            try {
+                Thread.sleep(step(agent));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void tick(Agent agent) {
+        if (!agent.isActive() || stopping) return;
+        long delay = step(agent);
+        if (!agent.isActive() || stopping) return;
+        try {
+            scheduler.schedule(() -> tick(agent), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    // A failing step is logged and the agent tries again a second later
+    private static long step(Agent agent) {
+        try {
+            return Math.max(0, agent.step());
+        } catch (RuntimeException e) {
+            System.err.println("[Agents] " + agent.getId() + " step failed: " + e.getMessage());
+            return 1000;
+        }
+    }
+
+    // Returns false when running steps did not finish within the timeout
+    // (agents are stopped either way)
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        stopping = true;
+        ExecutorService executor = mode == Mode.VIRTUAL_THREADS ? virtualThreads : scheduler;
+        // interrupts sleeping virtual threads; drops queued scheduler ticks
+        executor.shutdownNow();
+        boolean finished = executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        for (Agent agent : agents) {
+            agent.stop();
+        }
+        return finished;
+    }
+
+    public int getAgentCount() {
+        return agentCount.get();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "agent-scheduler-" + n.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
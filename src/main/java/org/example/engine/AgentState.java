@@ -0,0 +1,23 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Balance and portfolio of a Buyer or Seller at one point in time (see EngineCheckpoint)
+public class AgentState {
+    private final String id;
+    private final double balance;
+    private final Map<Company, Integer> portfolio;
+
+    public AgentState(String id, double balance, Map<Company, Integer> portfolio) {
+        this.id = id;
+        this.balance = balance;
+        this.portfolio = new HashMap<>(portfolio);
+    }
+
+    public String getId() { return id; }
+    public double getBalance() { return balance; }
+    public Map<Company, Integer> getPortfolio() { return portfolio; }
+}
@@ -0,0 +1,96 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Immutable top-of-book view of one OrderBook, built by the shard's worker and
+// published through a volatile field. Readers never take the shard lock.
+// Offers are copies taken at publish time, so their quantities do not move under the reader.
+public class BookSnapshot {
+    private final Company company;
+    private final long version;       // book change counter at publish time
+    private final long publishedNanos;
+
+    private final long[] bidPrices;
+    private final long[] bidQuantities;
+    private final int[] bidOrderCounts;
+    private final long[] askPrices;
+    private final long[] askQuantities;
+    private final int[] askOrderCounts;
+
+    private final List<ShareOffer> bids;
+    private final List<ShareOffer> asks;
+
+    private BookSnapshot(Company company, long version, long[] bidPrices, long[] bidQuantities, int[] bidOrderCounts,
+                         long[] askPrices, long[] askQuantities, int[] askOrderCounts,
+                         List<ShareOffer> bids, List<ShareOffer> asks) {
+        this.company = company;
+        this.version = version;
+        this.publishedNanos = System.nanoTime();
+        this.bidPrices = bidPrices;
+        this.bidQuantities = bidQuantities;
+        this.bidOrderCounts = bidOrderCounts;
+        this.askPrices = askPrices;
+        this.askQuantities = askQuantities;
+        this.askOrderCounts = askOrderCounts;
+        this.bids = Collections.unmodifiableList(bids);
+        this.asks = Collections.unmodifiableList(asks);
+    }
+
+    public static BookSnapshot empty(Company company) {
+        return new BookSnapshot(company, 0, new long[0], new long[0], new int[0],
+                new long[0], new long[0], new int[0], new ArrayList<>(), new ArrayList<>());
+    }
+
+    // Copies the best `depth` levels of each side; must run on the thread that owns the book
+    static BookSnapshot of(OrderBook book, OrderStore store, long version, PriceLadder bidSide, PriceLadder askSide, int depth) {
+        int bidDepth = Math.min(depth, bidSide.size());
+        int askDepth = Math.min(depth, askSide.size());
+        long[] bidPrices = new long[bidDepth];
+        long[] bidQuantities = new long[bidDepth];
+        int[] bidOrderCounts = new int[bidDepth];
+        long[] askPrices = new long[askDepth];
+        long[] askQuantities = new long[askDepth];
+        int[] askOrderCounts = new int[askDepth];
+        List<ShareOffer> bids = new ArrayList<>();
+        List<ShareOffer> asks = new ArrayList<>();
+        copySide(store, bidSide, bidDepth, bidPrices, bidQuantities, bidOrderCounts, bids);
+        copySide(store, askSide, askDepth, askPrices, askQuantities, askOrderCounts, asks);
+        return new BookSnapshot(book.getCompany(), version, bidPrices, bidQuantities, bidOrderCounts,
+                askPrices, askQuantities, askOrderCounts, bids, asks);
+    }
+
+    private static void copySide(OrderStore store, PriceLadder side, int depth, long[] prices, long[] quantities, int[] counts,
+                                 List<ShareOffer> offers) {
+        PriceLevel level = side.best();
+        for (int i = 0; i < depth; i++, level = side.worse(level)) {
+            prices[i] = level.getPriceTicks();
+            quantities[i] = level.getTotalQuantity();
+            counts[i] = level.size();
+            for (int s = level.head(); s != OrderStore.NONE; s = store.next(s)) {
+                if (store.quantity(s) > 0) offers.add(store.copy(s));
+            }
+        }
+    }
+
+    public Company getCompany() { return company; }
+    public long getVersion() { return version; }
+    public long getPublishedNanos() { return publishedNanos; }
+
+    public int getBidDepth() { return bidPrices.length; }
+    public int getAskDepth() { return askPrices.length; }
+    public long getBidPriceTicks(int level) { return bidPrices[level]; }
+    public long getBidQuantity(int level) { return bidQuantities[level]; }
+    public int getBidOrderCount(int level) { return bidOrderCounts[level]; }
+    public long getAskPriceTicks(int level) { return askPrices[level]; }
+    public long getAskQuantity(int level) { return askQuantities[level]; }
+    public int getAskOrderCount(int level) { return askOrderCounts[level]; }
+
+    // Offers in the snapshot levels, best price first, FIFO within a level
+    public List<ShareOffer> getBids() { return bids; }
+    public List<ShareOffer> getAsks() { return asks; }
+}
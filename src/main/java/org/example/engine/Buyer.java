@@ -3,14 +3,19 @@ package org.example.engine;
 import org.example.model_layer.Company;
 import org.example.model_layer.ShareOffer;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
-public class Buyer implements Runnable {
+// With a ledger (EngineConfig.setLedgerEnabled), the buyer's account there is its balance and
+// portfolio once it is registered; the fields below only hold what it starts with.
+public class Buyer implements Agent {
     private final String id;
     private double balance;
+    // balance when registered or last restored; the shards count the cash moved since (see EngineShard)
+    private double startingBalance;
     private final Map<Company, Integer> portfolio; // owned shares per company
     private final Random random;
     private final TradingEngine engine;
@@ -19,6 +24,7 @@ public class Buyer implements Runnable {
     public Buyer(String id, double balance, TradingEngine engine) {
         this.id = id;
         this.balance = balance;
+        this.startingBalance = this.balance;
         this.engine = engine;
         this.portfolio = new HashMap<>();
         this.random = new Random();
@@ -28,34 +34,7 @@ public class Buyer implements Runnable {
     public void run() {
         while (active) {
             try {
-                Company company = engine.getRandomCompany();
-                if (company == null) {
-                    Thread.sleep(1000);
-                    continue;
-                }
-
-                // Get list of available sellers for that company
-                List<ShareOffer> offers = engine.getSellOffersForCompany(company);
-
-                if(!offers.isEmpty()) {
-                    //Choose cheapeast offer
-                    ShareOffer bestOffer = offers.get(0);
-                    int quantity = Math.min(bestOffer.getQuantity(), random.nextInt(5) + 1);
-                    boolean success = engine.executeManualTrade(this, bestOffer, quantity);
-
-                    if(success) {
-                        System.out.printf("Buyer %s manually bought %d of %s from %s @ %.2f%n",
-                                id, quantity, company.getSymbol(), bestOffer.getClientId(), bestOffer.getPricePerShare());
-                    }
-
-                } else {
-                    // No available sellers for this company
-                    System.out.printf("Buyer %s found no offers available for company %s%n",
-                            id, company.getSymbol());
-                    Thread.sleep(1000);
-                }
-
-                Thread.sleep(1500 + random.nextInt(2000));
+                Thread.sleep(step());
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
@@ -63,12 +42,47 @@ public class Buyer implements Runnable {
         }
     }
 
+    // One round of agent logic; returns how long to wait before the next round, in millis.
+    // Never blocks, so an AgentRuntime can drive it from a virtual thread or a scheduler.
+    @Override
+    public long step() {
+        Company company = engine.getRandomCompany();
+        if (company == null) {
+            return 1000;
+        }
+
+        // Get list of available sellers for that company
+        List<ShareOffer> offers = engine.getSellOffersForCompany(company);
+
+        long delay = 1500 + random.nextInt(2000);
+        if(!offers.isEmpty()) {
+            //Choose cheapeast offer
+            ShareOffer bestOffer = offers.get(0);
+            int quantity = Math.min(bestOffer.getQuantity(), random.nextInt(5) + 1);
+            boolean success = engine.executeManualTrade(this, bestOffer, quantity);
+
+            if(success) {
+                System.out.printf("Buyer %s manually bought %d of %s from %s @ %.2f%n",
+                        id, quantity, company.getSymbol(), bestOffer.getClientId(), bestOffer.getPricePerShare());
+            }
+
+        } else {
+            // No available sellers for this company
+            System.out.printf("Buyer %s found no offers available for company %s%n",
+                    id, company.getSymbol());
+            delay += 1000;
+        }
+        return delay;
+    }
+
     public void placeBuyOrder(Company company, int quantity, double pricePerShare) {
         ShareOffer offer = new ShareOffer(id, company, quantity, pricePerShare, true);
         engine.submitBuyOrder(offer);
     }
 
-    public void updateAfterTransaction(Company company, int tradedQuantity, double totalValue) {
+    // Called from the matching workers when there is no ledger; synchronized because fills on
+    // different companies can be applied by different shards at the same time
+    public synchronized void updateAfterTransaction(Company company, int tradedQuantity, double totalValue) {
         // Reduce balance
         balance -= totalValue;
 
@@ -76,24 +90,81 @@ public class Buyer implements Runnable {
         portfolio.merge(company, tradedQuantity, Integer::sum);
     }
 
+    // Stops the agent and pulls its resting orders from the book
+    @Override
     public void stop() {
         active = false;
+        engine.cancelAllOrders(id);
+    }
+
+    // Point-in-time copy, used to open a ledger account
+    synchronized AgentState captureState() {
+        return new AgentState(id, balance, portfolio);
+    }
+
+    // This agent at a checkpoint: the starting balance plus the cash the shards counted up to
+    // their cuts, and the holdings they copied
+    synchronized AgentState checkpointState(double cashMoved, Map<Company, Integer> holdings) {
+        return new AgentState(id, startingBalance + cashMoved, holdings);
     }
 
+    // Holdings in the given companies; a shard copies those of its own companies at its cut
+    synchronized void copyHoldings(Collection<Company> companies, Map<Company, Integer> into) {
+        AccountLedger ledger = ledger();
+        for (Company company : companies) {
+            if (ledger != null) {
+                long shares = ledger.getPosition(id, company);
+                if (shares != 0) into.put(company, (int) shares);
+            } else {
+                Integer shares = portfolio.get(company);
+                if (shares != null) into.put(company, shares);
+            }
+        }
+    }
+
+    // Puts back the balance and portfolio saved in a checkpoint
+    synchronized void restoreState(AgentState state) {
+        balance = state.getBalance();
+        startingBalance = balance;
+        portfolio.clear();
+        portfolio.putAll(state.getPortfolio());
+    }
+
+    @Override
     public String getId() {
         return id;
     }
 
-    public double getBalance() {
-        return balance;
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    // Ledger view of this buyer's cash and shares; null when the engine has no ledger
+    public AccountSnapshot getAccount() {
+        AccountLedger ledger = engine.getLedger();
+        return ledger == null ? null : ledger.snapshot(id);
     }
 
+    public synchronized double getBalance() {
+        AccountLedger ledger = ledger();
+        return ledger != null ? ledger.getCash(id) : balance;
+    }
+
+    // A copy from the ledger once registered with one, else the buyer's own map
     public Map<Company, Integer> getPortfolio() {
-        return portfolio;
+        AccountLedger ledger = ledger();
+        return ledger != null ? ledger.getPositions(id) : portfolio;
+    }
+
+    // The engine's ledger if it holds this buyer's account
+    private AccountLedger ledger() {
+        AccountLedger ledger = engine.getLedger();
+        return ledger != null && ledger.accountOf(id) >= 0 ? ledger : null;
     }
 
     @Override
-    public String toString() {
-        return String.format("Buyer{id='%s', balance=%.2f, portfolio=%s}", id, balance, portfolio);
+    public synchronized String toString() {
+        return String.format("Buyer{id='%s', balance=%.2f, portfolio=%s}", id, getBalance(), getPortfolio());
     }
 }
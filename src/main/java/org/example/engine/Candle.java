@@ -0,0 +1,61 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.EpochClock;
+
+import java.time.LocalDateTime;
+
+// One OHLCV bar of a symbol. Prices are in ticks of the company; see the *Price getters for money.
+public final class Candle {
+    private final Company company;
+    private final CandleAggregator.Resolution resolution;
+    private final long startNanos;     // epoch nanos (UTC) the bar starts at
+    private final long openTicks;
+    private final long highTicks;
+    private final long lowTicks;
+    private final long closeTicks;
+    private final long volume;
+    private final long notionalTicks;  // sum of quantity x price ticks
+    private final int trades;
+
+    Candle(Company company, CandleAggregator.Resolution resolution, long startNanos, long openTicks, long highTicks,
+           long lowTicks, long closeTicks, long volume, long notionalTicks, int trades) {
+        this.company = company;
+        this.resolution = resolution;
+        this.startNanos = startNanos;
+        this.openTicks = openTicks;
+        this.highTicks = highTicks;
+        this.lowTicks = lowTicks;
+        this.closeTicks = closeTicks;
+        this.volume = volume;
+        this.notionalTicks = notionalTicks;
+        this.trades = trades;
+    }
+
+    public Company getCompany() { return company; }
+    public CandleAggregator.Resolution getResolution() { return resolution; }
+    public long getStartNanos() { return startNanos; }
+    public LocalDateTime getStart() { return EpochClock.toLocalDateTime(startNanos); }
+    public long getOpenTicks() { return openTicks; }
+    public long getHighTicks() { return highTicks; }
+    public long getLowTicks() { return lowTicks; }
+    public long getCloseTicks() { return closeTicks; }
+    public long getVolume() { return volume; }
+    public int getTrades() { return trades; }
+
+    public double getOpen() { return company.toPrice(openTicks); }
+    public double getHigh() { return company.toPrice(highTicks); }
+    public double getLow() { return company.toPrice(lowTicks); }
+    public double getClose() { return company.toPrice(closeTicks); }
+
+    // Volume-weighted average price within the bar
+    public double getVwap() {
+        return volume == 0 ? 0 : company.toPrice(1) * notionalTicks / volume;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %s O=%.2f H=%.2f L=%.2f C=%.2f V=%d VWAP=%.4f",
+                company.getSymbol(), resolution, getStart(), getOpen(), getHigh(), getLow(), getClose(), volume, getVwap());
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-symbol statistics kept up to date by every fill, so queries never scan the trade history.
+// For each resolution the newest bars sit in a ring of parallel arrays; a trade either extends
+// the open bar or starts the next one, which is O(1). Intervals without trades have no bar.
+// All fills of a symbol come from its shard, so the per-symbol monitor is never contended
+// by writers, only by readers.
+public class CandleAggregator {
+    public enum Resolution {
+        SECOND_1(1_000_000_000L),
+        MINUTE_1(60_000_000_000L),
+        MINUTE_5(300_000_000_000L);
+
+        private final long nanos;
+
+        Resolution(long nanos) {
+            this.nanos = nanos;
+        }
+
+        public long getNanos() { return nanos; }
+    }
+
+    public static final int DEFAULT_BARS_KEPT = 1000;
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final int barsKept;
+    private final Map<Company, Series> series = new ConcurrentHashMap<>();
+
+    public CandleAggregator() {
+        this(DEFAULT_BARS_KEPT);
+    }
+
+    public CandleAggregator(int barsKept) {
+        if (barsKept < 1) throw new IllegalArgumentException("barsKept must be >= 1");
+        this.barsKept = barsKept;
+    }
+
+    public void onTrade(Transaction transaction) {
+        // get first: the computeIfAbsent lambda captures this and would be allocated per trade
+        Series s = series.get(transaction.getCompany());
+        if (s == null) s = series.computeIfAbsent(transaction.getCompany(), c -> new Series(c, barsKept));
+        s.add(transaction.getTimestampNanos(), transaction.getPriceTicks(), transaction.getQuantity());
+    }
+
+    // The newest `count` bars (fewer if not that many exist), oldest first; the last one may still be open
+    public List<Candle> getCandles(Company company, Resolution resolution, int count) {
+        Series s = series.get(company);
+        return s == null ? new ArrayList<>() : s.candles(resolution, count);
+    }
+
+    // The bar the next trade would extend, or null before the first trade
+    public Candle getCurrentCandle(Company company, Resolution resolution) {
+        List<Candle> last = getCandles(company, resolution, 1);
+        return last.isEmpty() ? null : last.get(0);
+    }
+
+    // Last price, volume and VWAP since start; null before the first trade
+    public TradeStats getStats(Company company) {
+        Series s = series.get(company);
+        return s == null ? null : s.stats();
+    }
+
+    private static final class Series {
+        private final Company company;
+        private final Bars[] bars = new Bars[RESOLUTIONS.length];
+        private long lastPriceTicks;
+        private long lastTradeNanos;
+        private long volume;
+        private long notionalTicks;
+        private long trades;
+
+        Series(Company company, int barsKept) {
+            this.company = company;
+            for (int i = 0; i < bars.length; i++) bars[i] = new Bars(barsKept);
+        }
+
+        synchronized void add(long nanos, long priceTicks, int quantity) {
+            lastPriceTicks = priceTicks;
+            lastTradeNanos = nanos;
+            volume += quantity;
+            notionalTicks += quantity * priceTicks;
+            trades++;
+            for (int i = 0; i < bars.length; i++) bars[i].add(RESOLUTIONS[i].nanos, nanos, priceTicks, quantity);
+        }
+
+        synchronized List<Candle> candles(Resolution resolution, int count) {
+            Bars b = bars[resolution.ordinal()];
+            int n = Math.min(count, b.count);
+            List<Candle> result = new ArrayList<>(n);
+            for (int i = b.count - n; i < b.count; i++) {
+                int idx = (b.head + i) % b.start.length;
+                result.add(new Candle(company, resolution, b.start[idx], b.open[idx], b.high[idx], b.low[idx],
+                        b.close[idx], b.volume[idx], b.notional[idx], b.trades[idx]));
+            }
+            return result;
+        }
+
+        synchronized TradeStats stats() {
+            return new TradeStats(company, lastPriceTicks, lastTradeNanos, volume, notionalTicks, trades);
+        }
+    }
+
+    // Ring of the newest bars of one resolution
+    private static final class Bars {
+        final long[] start;
+        final long[] open;
+        final long[] high;
+        final long[] low;
+        final long[] close;
+        final long[] volume;
+        final long[] notional;
+        final int[] trades;
+        int head;   // oldest bar
+        int count;
+
+        Bars(int capacity) {
+            start = new long[capacity];
+            open = new long[capacity];
+            high = new long[capacity];
+            low = new long[capacity];
+            close = new long[capacity];
+            volume = new long[capacity];
+            notional = new long[capacity];
+            trades = new int[capacity];
+        }
+
+        void add(long period, long nanos, long priceTicks, int quantity) {
+            long bucket = Math.floorDiv(nanos, period) * period;
+            int last = (head + count - 1) % start.length;
+            // a trade stamped before the open bar (clock step back) is folded into it
+            if (count == 0 || bucket > start[last]) {
+                if (count == start.length) head = (head + 1) % start.length;
+                else count++;
+                last = (head + count - 1) % start.length;
+                start[last] = bucket;
+                open[last] = priceTicks;
+                high[last] = priceTicks;
+                low[last] = priceTicks;
+                volume[last] = 0;
+                notional[last] = 0;
+                trades[last] = 0;
+            } else {
+                high[last] = Math.max(high[last], priceTicks);
+                low[last] = Math.min(low[last], priceTicks);
+            }
+            close[last] = priceTicks;
+            volume[last] += quantity;
+            notional[last] += quantity * priceTicks;
+            trades[last]++;
+        }
+    }
+}
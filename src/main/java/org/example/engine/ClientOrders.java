@@ -0,0 +1,50 @@
+package org.example.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Resting orders of each client in one shard, chained through the clientPrev/clientNext links
+// of their OrderStore slots, so a client's orders can be found (mass cancel) without walking the books.
+// A client keeps its map entry (with an empty head) when its last order goes, so a client
+// that keeps placing orders does not allocate a new map node each time.
+public class ClientOrders {
+    private static final class Head {
+        int slot = OrderStore.NONE;
+    }
+
+    private final OrderStore store;
+    private final Map<String, Head> heads = new HashMap<>();
+
+    public ClientOrders(OrderStore store) {
+        this.store = store;
+    }
+
+    public void link(int slot) {
+        String clientId = store.clientId(slot);
+        Head head = heads.get(clientId);
+        if (head == null) {
+            head = new Head();
+            heads.put(clientId, head);
+        }
+        store.setClientPrev(slot, OrderStore.NONE);
+        store.setClientNext(slot, head.slot);
+        if (head.slot != OrderStore.NONE) store.setClientPrev(head.slot, slot);
+        head.slot = slot;
+    }
+
+    public void unlink(int slot) {
+        int prev = store.clientPrev(slot);
+        int next = store.clientNext(slot);
+        if (prev != OrderStore.NONE) store.setClientNext(prev, next);
+        else heads.get(store.clientId(slot)).slot = next;
+        if (next != OrderStore.NONE) store.setClientPrev(next, prev);
+        store.setClientPrev(slot, OrderStore.NONE);
+        store.setClientNext(slot, OrderStore.NONE);
+    }
+
+    // Slot of the client's newest resting order, or OrderStore.NONE
+    public int head(String clientId) {
+        Head head = heads.get(clientId);
+        return head == null ? OrderStore.NONE : head.slot;
+    }
+}
@@ -5,11 +5,18 @@ import com.mongodb.MongoClientSettings;
 import com.mongodb.client.*;
 import com.mongodb.ConnectionString;
 import org.bson.Document;
+import org.example.model_layer.Company;
+import org.example.model_layer.Transaction;
+
+import java.util.Collection;
 
 public class DatabaseManager {
     private final MongoClient mongoClient;
     private final MongoCollection<Document> transactionsCollection;
 
+    // Trades are persisted asynchronously through this writer
+    private final TradeWriter tradeWriter;
+
     public DatabaseManager(String connectionString, String dbName, String collectionName) {
         mongoClient = MongoClients.create(
                 MongoClientSettings.builder()
@@ -18,15 +25,43 @@ public class DatabaseManager {
         );
         MongoDatabase database = mongoClient.getDatabase(dbName);
         transactionsCollection = database.getCollection(collectionName);
+        tradeWriter = new TradeWriter(new MongoTradeSink(transactionsCollection));
         System.out.println("Connected to MongoDB database: " + dbName);
+        TradeQueries.ensureIndexes(transactionsCollection);
+    }
+
+    // Without a MongoDB connection: trades go to the given sink (e.g. InMemoryTradeSink)
+    public DatabaseManager(TradeWriter tradeWriter) {
+        this.mongoClient = null;
+        this.transactionsCollection = null;
+        this.tradeWriter = tradeWriter;
+    }
+
+    // Queues the trade for the write-behind writer; never waits on the database
+    // unless the writer queue is full
+    public void recordTransaction(Transaction transaction) {
+        tradeWriter.enqueue(transaction);
     }
 
     public MongoCollection<Document> getTransactionsCollection() {
         return transactionsCollection;
     }
 
+    // Indexed, paged reads of the persisted trades; null without a MongoDB connection
+    public TradeQueries createQueries(Collection<Company> companies) {
+        return transactionsCollection == null ? null : new TradeQueries(transactionsCollection, companies);
+    }
+
+    public TradeWriter getTradeWriter() {
+        return tradeWriter;
+    }
+
+    // Flushes every queued trade before closing the connection
     public void close() {
-        mongoClient.close();
-        System.out.println("MongoDB connection closed.");
+        tradeWriter.close();
+        if (mongoClient != null) {
+            mongoClient.close();
+            System.out.println("MongoDB connection closed.");
+        }
     }
 }
@@ -0,0 +1,363 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Point-in-time state of the whole engine: every book's resting orders, company prices,
+// order id sequences, Buyer/Seller balances and portfolios, and for each shard the journal
+// sequence the state corresponds to. Recovery loads the newest checkpoint and replays only
+// the journal records after each shard's sequence.
+//
+// A CHECKPOINT event goes through every shard's ingress and each worker copies its own state
+// when it reaches the event: its books, the holdings of its companies, and the cash every agent
+// moved in its trades. Shards do not wait for each other; each cut is simply that shard's
+// journal sequence, and an agent's balance is its starting balance plus what every shard
+// counted up to its cut. The file is written afterwards by the thread that asked for the
+// checkpoint, once the journals are forced up to the cuts, and journal segments older than
+// the oldest checkpoint kept are deleted.
+public class EngineCheckpoint {
+    private static final int MAGIC = 0x434B5054; // "CKPT"
+    private static final int FORMAT_VERSION = 2;
+    private static final String PREFIX = "checkpoint-";
+    private static final String SUFFIX = ".ckpt";
+
+    // How long the caller waits for every shard to reach the checkpoint
+    static final long CAPTURE_TIMEOUT_MILLIS = 10_000;
+
+    private final long createdAtMillis;
+    private final ShardState[] shards;
+    private final List<AgentState> buyers;
+    private final List<AgentState> sellers;
+
+    EngineCheckpoint(long createdAtMillis, ShardState[] shards, List<AgentState> buyers, List<AgentState> sellers) {
+        this.createdAtMillis = createdAtMillis;
+        this.shards = shards;
+        this.buyers = buyers;
+        this.sellers = sellers;
+    }
+
+    // State of one shard, copied by its worker under the shard lock
+    static class ShardState {
+        final int index;
+        final long orderSequence;
+        final long journalSequence;   // last journal record the state includes
+        final Map<Company, Long> prices = new HashMap<>();
+        final List<ShareOffer> orders = new ArrayList<>(); // per book: bids then asks, in priority order
+        // this shard's part of each agent: cash moved in its trades, holdings of its companies
+        final Map<String, AgentState> buyers = new HashMap<>();
+        final Map<String, AgentState> sellers = new HashMap<>();
+        Runnable journalForce;        // forces the journal up to the cut; null without a journal
+
+        ShardState(int index, long orderSequence, long journalSequence) {
+            this.index = index;
+            this.orderSequence = orderSequence;
+            this.journalSequence = journalSequence;
+        }
+
+        static ShardState capture(EngineShard shard, Collection<Buyer> buyers, Collection<Seller> sellers) {
+            OrderJournal journal = shard.getJournal();
+            ShardState state = new ShardState(shard.getIndex(), shard.getOrderSequence(),
+                    journal != null ? journal.getNextSequence() - 1 : 0);
+            if (journal != null) state.journalForce = journal.forceTask();
+            List<ShareOffer> resting = new ArrayList<>();
+            for (OrderBook book : shard.getBooks().values()) {
+                state.prices.put(book.getCompany(), book.getCompany().getCurrentPriceTicks());
+                book.collect(true, resting);
+                book.collect(false, resting);
+            }
+            for (ShareOffer offer : resting) state.orders.add(offer.copy());
+
+            Set<Company> companies = shard.getBooks().keySet();
+            for (Buyer b : buyers) {
+                Map<Company, Integer> holdings = new HashMap<>();
+                b.copyHoldings(companies, holdings);
+                state.buyers.put(b.getId(), new AgentState(b.getId(), shard.getBuyerCash(b.getId()), holdings));
+            }
+            for (Seller s : sellers) {
+                Map<Company, Integer> holdings = new HashMap<>();
+                s.copyHoldings(companies, holdings);
+                state.sellers.put(s.getId(), new AgentState(s.getId(), shard.getSellerCash(s.getId()), holdings));
+            }
+            return state;
+        }
+    }
+
+    // One checkpoint in progress: what each shard captured when it reached the event
+    static class Capture {
+        private final ShardState[] shards;
+        private final CountDownLatch done;
+        private final Map<String, Buyer> buyers;
+        private final Map<String, Seller> sellers;
+        private volatile boolean failed;
+
+        Capture(int parties, Map<String, Buyer> buyers, Map<String, Seller> sellers) {
+            this.shards = new ShardState[parties];
+            this.done = new CountDownLatch(parties);
+            this.buyers = buyers;
+            this.sellers = sellers;
+        }
+
+        // Called by a shard worker holding its lock; returns at once
+        void arrive(EngineShard shard) {
+            try {
+                shards[shard.getIndex()] = ShardState.capture(shard, buyers.values(), sellers.values());
+            } catch (RuntimeException e) {
+                failed = true;
+                System.err.println("[Checkpoint] Shard " + shard.getIndex() + " could not copy its state: " + e.getMessage());
+            } finally {
+                done.countDown();
+            }
+        }
+
+        // Waits for every shard and adds up the agents' parts; null when a shard did not respond
+        EngineCheckpoint await() throws InterruptedException {
+            if (!done.await(CAPTURE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) || failed) return null;
+            List<AgentState> buyerStates = new ArrayList<>();
+            for (Buyer b : buyers.values()) {
+                AgentState whole = combine(b.getId(), true);
+                buyerStates.add(b.checkpointState(whole.getBalance(), whole.getPortfolio()));
+            }
+            List<AgentState> sellerStates = new ArrayList<>();
+            for (Seller s : sellers.values()) {
+                AgentState whole = combine(s.getId(), false);
+                sellerStates.add(s.checkpointState(whole.getBalance(), whole.getPortfolio()));
+            }
+            return new EngineCheckpoint(System.currentTimeMillis(), shards, buyerStates, sellerStates);
+        }
+
+        // Sum of the shards' cash and union of their holdings; an agent registered after a
+        // shard's cut has no part there
+        private AgentState combine(String id, boolean buyer) {
+            double cash = 0;
+            Map<Company, Integer> holdings = new HashMap<>();
+            for (ShardState shard : shards) {
+                AgentState part = (buyer ? shard.buyers : shard.sellers).get(id);
+                if (part == null) continue;
+                cash += part.getBalance();
+                holdings.putAll(part.getPortfolio());
+            }
+            return new AgentState(id, cash, holdings);
+        }
+    }
+
+    // ---- file format ----
+
+    // Writes checkpoint-<n>.ckpt with the next free n and deletes all but the newest `keep`
+    // checkpoints. The journals are forced up to the cuts and the file is written and forced
+    // under a temporary name before it is renamed, so a checkpoint on disk never refers to
+    // journal records that were lost and readers never see a partial one.
+    public Path write(Path directory, int keep) {
+        try {
+            for (ShardState shard : shards) {
+                if (shard.journalForce != null) shard.journalForce.run();
+            }
+            Files.createDirectories(directory);
+            List<Path> existing = list(directory);
+            long next = existing.isEmpty() ? 0 : numberOf(existing.get(existing.size() - 1)) + 1;
+            Path target = directory.resolve(String.format(PREFIX + "%06d" + SUFFIX, next));
+            Path tmp = directory.resolve(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                writeTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            existing.add(target);
+            for (int i = 0; i < existing.size() - Math.max(1, keep); i++) {
+                Files.deleteIfExists(existing.get(i));
+            }
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint to " + directory, e);
+        }
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(createdAtMillis);
+        out.writeInt(shards.length);
+        // the cuts come first, so pruning can read them without the rest (see oldestCut)
+        for (ShardState shard : shards) out.writeLong(shard.journalSequence);
+        for (ShardState shard : shards) {
+            out.writeInt(shard.index);
+            out.writeLong(shard.orderSequence);
+            out.writeInt(shard.prices.size());
+            for (Map.Entry<Company, Long> e : shard.prices.entrySet()) {
+                out.writeUTF(e.getKey().getSymbol());
+                out.writeLong(e.getValue());
+            }
+            out.writeInt(shard.orders.size());
+            for (ShareOffer o : shard.orders) {
+                out.writeLong(o.getOrderId());
+                out.writeUTF(o.getCompany().getSymbol());
+                out.writeUTF(o.getClientId());
+                out.writeBoolean(o.isBuy());
+                out.writeInt(o.getQuantity());
+                out.writeLong(o.getPriceTicks());
+            }
+        }
+        writeAgents(out, buyers);
+        writeAgents(out, sellers);
+    }
+
+    private static void writeAgents(DataOutputStream out, List<AgentState> agents) throws IOException {
+        out.writeInt(agents.size());
+        for (AgentState a : agents) {
+            out.writeUTF(a.getId());
+            out.writeDouble(a.getBalance());
+            out.writeInt(a.getPortfolio().size());
+            for (Map.Entry<Company, Integer> e : a.getPortfolio().entrySet()) {
+                out.writeUTF(e.getKey().getSymbol());
+                out.writeInt(e.getValue());
+            }
+        }
+    }
+
+    // Newest checkpoint in the directory, or null when there is none.
+    // Symbols are resolved against `companies`; unknown ones are skipped with a warning.
+    public static EngineCheckpoint readLatest(Path directory, Map<String, Company> companies) {
+        try {
+            if (!Files.isDirectory(directory)) return null;
+            List<Path> existing = list(directory);
+            if (existing.isEmpty()) return null;
+            Path latest = existing.get(existing.size() - 1);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(latest), 1 << 16))) {
+                return readFrom(in, companies, latest);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint from " + directory, e);
+        }
+    }
+
+    private static EngineCheckpoint readFrom(DataInputStream in, Map<String, Company> companies, Path path) throws IOException {
+        long createdAt = readHeader(in, path);
+        long[] cuts = new long[in.readInt()];
+        for (int s = 0; s < cuts.length; s++) cuts[s] = in.readLong();
+        ShardState[] shards = new ShardState[cuts.length];
+        for (int s = 0; s < shards.length; s++) {
+            ShardState shard = new ShardState(in.readInt(), in.readLong(), cuts[s]);
+            int priceCount = in.readInt();
+            for (int i = 0; i < priceCount; i++) {
+                Company c = company(companies, in.readUTF());
+                long ticks = in.readLong();
+                if (c != null) shard.prices.put(c, ticks);
+            }
+            int orderCount = in.readInt();
+            for (int i = 0; i < orderCount; i++) {
+                long orderId = in.readLong();
+                Company c = company(companies, in.readUTF());
+                String clientId = in.readUTF();
+                boolean buy = in.readBoolean();
+                int quantity = in.readInt();
+                long priceTicks = in.readLong();
+                if (c == null) continue;
+                ShareOffer offer = ShareOffer.ofTicks(clientId, c, quantity, priceTicks, buy);
+                offer.assignOrderId(orderId);
+                shard.orders.add(offer);
+            }
+            shards[s] = shard;
+        }
+        List<AgentState> buyers = readAgents(in, companies);
+        List<AgentState> sellers = readAgents(in, companies);
+        return new EngineCheckpoint(createdAt, shards, buyers, sellers);
+    }
+
+    // Returns the creation time
+    private static long readHeader(DataInputStream in, Path path) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a checkpoint file: " + path);
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) throw new IOException("Unsupported checkpoint format " + version + ": " + path);
+        return in.readLong();
+    }
+
+    // Journal sequence per shard of the oldest checkpoint in the directory: the records up to
+    // them are no longer needed by any checkpoint kept. Null when there is none.
+    public static long[] oldestCut(Path directory) {
+        try {
+            if (!Files.isDirectory(directory)) return null;
+            List<Path> existing = list(directory);
+            if (existing.isEmpty()) return null;
+            Path oldest = existing.get(0);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(oldest)))) {
+                readHeader(in, oldest);
+                long[] cuts = new long[in.readInt()];
+                for (int s = 0; s < cuts.length; s++) cuts[s] = in.readLong();
+                return cuts;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint from " + directory, e);
+        }
+    }
+
+    private static List<AgentState> readAgents(DataInputStream in, Map<String, Company> companies) throws IOException {
+        int count = in.readInt();
+        List<AgentState> agents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = in.readUTF();
+            double balance = in.readDouble();
+            Map<Company, Integer> portfolio = new HashMap<>();
+            int holdings = in.readInt();
+            for (int h = 0; h < holdings; h++) {
+                Company c = company(companies, in.readUTF());
+                int quantity = in.readInt();
+                if (c != null) portfolio.put(c, quantity);
+            }
+            agents.add(new AgentState(id, balance, portfolio));
+        }
+        return agents;
+    }
+
+    private static Company company(Map<String, Company> companies, String symbol) {
+        Company c = companies.get(symbol);
+        if (c == null) System.err.println("[Checkpoint] Unknown company " + symbol + ", skipping its state");
+        return c;
+    }
+
+    // Checkpoint files, oldest first
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static long numberOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    public long getCreatedAtMillis() { return createdAtMillis; }
+    public int getShardCount() { return shards.length; }
+    ShardState getShard(int index) { return shards[index]; }
+    List<AgentState> getBuyers() { return buyers; }
+    List<AgentState> getSellers() { return sellers; }
+}
@@ -0,0 +1,248 @@
+package org.example.engine;
+
+import java.nio.file.Path;
+
+// Optional TradingEngine settings; the defaults match the original single-threaded engine
+public class EngineConfig {
+    public enum IngressType { QUEUE, RING_BUFFER }
+    public enum OrderStoreType { HEAP, OFF_HEAP }
+
+    private int partitions = 1;
+    private IngressType ingressType = IngressType.QUEUE;
+    private int ringBufferSize = 1 << 16;
+    private WaitStrategy waitStrategy = WaitStrategy.YIELDING;
+    private int snapshotDepth = 10;
+    private int snapshotEveryChanges = 1;
+    private int historyWindow = TradeHistory.UNBOUNDED;
+    private long historyMaxAgeMillis = 0;
+    private Path historySpillDirectory;
+    private long historySegmentBytes = TradeHistory.DEFAULT_SEGMENT_BYTES;
+    private Path journalDirectory;
+    private long journalSegmentBytes = OrderJournal.DEFAULT_SEGMENT_BYTES;
+    private OrderJournal.FsyncPolicy journalFsyncPolicy = OrderJournal.FsyncPolicy.NONE;
+    private int journalFsyncEvery = 1000;
+    private Path checkpointDirectory;
+    private long checkpointIntervalMillis = 0;
+    private int checkpointsKept = 2;
+    private boolean metricsEnabled = false;
+    private long metricsLogIntervalMillis = 0;
+    private boolean marketDataEnabled = false;
+    private boolean ledgerEnabled = false;
+    private int candlesKept = CandleAggregator.DEFAULT_BARS_KEPT;
+    private boolean priceFromTrades = false;
+    private int batchSize = 256;
+    private boolean pooling = false;
+    private boolean snapshotsOnDemand = false;
+    private OrderStoreType orderStoreType = OrderStoreType.HEAP;
+
+    public EngineConfig setPartitions(int partitions) {
+        if (partitions < 1) throw new IllegalArgumentException("partitions must be >= 1");
+        this.partitions = partitions;
+        return this;
+    }
+
+    public EngineConfig setIngressType(IngressType ingressType) {
+        this.ingressType = ingressType;
+        return this;
+    }
+
+    public EngineConfig setRingBufferSize(int ringBufferSize) {
+        this.ringBufferSize = ringBufferSize;
+        return this;
+    }
+
+    public EngineConfig setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    // Price levels per side in the published book snapshots
+    public EngineConfig setSnapshotDepth(int snapshotDepth) {
+        if (snapshotDepth < 1) throw new IllegalArgumentException("snapshotDepth must be >= 1");
+        this.snapshotDepth = snapshotDepth;
+        return this;
+    }
+
+    // Republish a book after this many changes; pending changes are always
+    // published as soon as the shard has no more queued events
+    public EngineConfig setSnapshotEveryChanges(int snapshotEveryChanges) {
+        if (snapshotEveryChanges < 1) throw new IllegalArgumentException("snapshotEveryChanges must be >= 1");
+        this.snapshotEveryChanges = snapshotEveryChanges;
+        return this;
+    }
+
+    // Trades kept in memory, split evenly between the shards; older ones are spilled to disk
+    // segments when a spill directory is set, and dropped otherwise.
+    // Unset, the history keeps every trade in memory (TradeHistory.UNBOUNDED).
+    public EngineConfig setHistoryWindow(int trades) {
+        this.historyWindow = trades;
+        return this;
+    }
+
+    // Also spill trades older than this (relative to the newest trade); 0 disables
+    public EngineConfig setHistoryMaxAgeMillis(long maxAgeMillis) {
+        this.historyMaxAgeMillis = maxAgeMillis;
+        return this;
+    }
+
+    // Where spilled trade segments go (written by a background thread); without one the
+    // history keeps only the in-memory window
+    public EngineConfig setHistorySpillDirectory(Path directory) {
+        this.historySpillDirectory = directory;
+        return this;
+    }
+
+    public EngineConfig setHistorySegmentBytes(long segmentBytes) {
+        this.historySegmentBytes = segmentBytes;
+        return this;
+    }
+
+    // Turns on the order-event journal (one set of segments per shard in this directory)
+    public EngineConfig setJournalDirectory(Path directory) {
+        this.journalDirectory = directory;
+        return this;
+    }
+
+    public EngineConfig setJournalSegmentBytes(long segmentBytes) {
+        this.journalSegmentBytes = segmentBytes;
+        return this;
+    }
+
+    // fsyncEvery only applies to EVERY_N_EVENTS
+    public EngineConfig setJournalFsync(OrderJournal.FsyncPolicy policy, int fsyncEvery) {
+        this.journalFsyncPolicy = policy;
+        this.journalFsyncEvery = fsyncEvery;
+        return this;
+    }
+
+    // Where engine checkpoints are written and recovered from
+    public EngineConfig setCheckpointDirectory(Path directory) {
+        this.checkpointDirectory = directory;
+        return this;
+    }
+
+    // Take a checkpoint this often while the engine runs; 0 = only on TradingEngine.checkpoint()
+    public EngineConfig setCheckpointIntervalMillis(long intervalMillis) {
+        this.checkpointIntervalMillis = intervalMillis;
+        return this;
+    }
+
+    // Older checkpoint files are deleted once a newer one is written, and with them the journal
+    // segments only they needed
+    public EngineConfig setCheckpointsKept(int checkpointsKept) {
+        if (checkpointsKept < 1) throw new IllegalArgumentException("checkpointsKept must be >= 1");
+        this.checkpointsKept = checkpointsKept;
+        return this;
+    }
+
+    // Latency histograms and counters, registered as a JMX MBean (see EngineMetrics)
+    public EngineConfig setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
+
+    // Print the metrics summary this often while the engine runs; 0 = never.
+    // Has no effect unless metrics are enabled.
+    public EngineConfig setMetricsLogIntervalMillis(long intervalMillis) {
+        this.metricsLogIntervalMillis = intervalMillis;
+        return this;
+    }
+
+    // Incremental L2 / trade / top-of-book stream, see TradingEngine.getMarketData
+    public EngineConfig setMarketDataEnabled(boolean marketDataEnabled) {
+        this.marketDataEnabled = marketDataEnabled;
+        return this;
+    }
+
+    // Cash and position accounts for registered agents, with reservations checked on order entry
+    public EngineConfig setLedgerEnabled(boolean ledgerEnabled) {
+        this.ledgerEnabled = ledgerEnabled;
+        return this;
+    }
+
+    // Bars kept per symbol and resolution (1s, 1m, 5m)
+    public EngineConfig setCandlesKept(int bars) {
+        if (bars < 1) throw new IllegalArgumentException("candlesKept must be >= 1");
+        this.candlesKept = bars;
+        return this;
+    }
+
+    // Set each company's current price to its last execution instead of the simulated ±5% move
+    public EngineConfig setPriceFromTrades(boolean priceFromTrades) {
+        this.priceFromTrades = priceFromTrades;
+        return this;
+    }
+
+    // Most queued events a shard worker applies under one lock acquisition;
+    // market data and snapshots are published once per batch
+    public EngineConfig setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be >= 1");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    // Reuse offers of orders sent with TradingEngine.submitOrder and the trade record
+    // once an order is done, instead of leaving them to the GC (see PooledOffer)
+    public EngineConfig setPooling(boolean pooling) {
+        this.pooling = pooling;
+        return this;
+    }
+
+    // Build a book's snapshot when a reader asks for it (under the shard lock) instead of
+    // on the worker after each batch; keeps snapshot copies off the matching thread
+    public EngineConfig setSnapshotsOnDemand(boolean snapshotsOnDemand) {
+        this.snapshotsOnDemand = snapshotsOnDemand;
+        return this;
+    }
+
+    // Where resting orders are kept. OFF_HEAP puts them (and the order index) in direct
+    // memory, so heap use and GC time do not grow with book depth; the engine then keeps
+    // copies, and a submitted ShareOffer is not updated by its fills (see OffHeapOrderStore)
+    public EngineConfig setOrderStoreType(OrderStoreType orderStoreType) {
+        this.orderStoreType = orderStoreType;
+        return this;
+    }
+
+    OrderJournal createJournal(int shard) {
+        if (journalDirectory == null) return null;
+        return new OrderJournal(journalDirectory, shard, journalSegmentBytes, journalFsyncPolicy, journalFsyncEvery);
+    }
+
+    TradeHistory createTradeHistory() {
+        return new TradeHistory(partitions, historyWindow, historyMaxAgeMillis, historySpillDirectory, historySegmentBytes);
+    }
+
+    OrderIngress createIngress() {
+        return ingressType == IngressType.RING_BUFFER
+                ? new RingBufferIngress(ringBufferSize, waitStrategy, metricsEnabled)
+                : new QueueIngress(metricsEnabled);
+    }
+
+    OrderStore createOrderStore() {
+        return orderStoreType == OrderStoreType.OFF_HEAP ? new OffHeapOrderStore() : new HeapOrderStore();
+    }
+
+    public int getPartitions() { return partitions; }
+    public IngressType getIngressType() { return ingressType; }
+    public int getRingBufferSize() { return ringBufferSize; }
+    public WaitStrategy getWaitStrategy() { return waitStrategy; }
+    public int getSnapshotDepth() { return snapshotDepth; }
+    public int getSnapshotEveryChanges() { return snapshotEveryChanges; }
+    public int getHistoryWindow() { return historyWindow; }
+    public long getHistoryMaxAgeMillis() { return historyMaxAgeMillis; }
+    public Path getHistorySpillDirectory() { return historySpillDirectory; }
+    public Path getJournalDirectory() { return journalDirectory; }
+    public Path getCheckpointDirectory() { return checkpointDirectory; }
+    public long getCheckpointIntervalMillis() { return checkpointIntervalMillis; }
+    public int getCheckpointsKept() { return checkpointsKept; }
+    public boolean isMetricsEnabled() { return metricsEnabled; }
+    public long getMetricsLogIntervalMillis() { return metricsLogIntervalMillis; }
+    public boolean isMarketDataEnabled() { return marketDataEnabled; }
+    public boolean isLedgerEnabled() { return ledgerEnabled; }
+    public int getCandlesKept() { return candlesKept; }
+    public boolean isPriceFromTrades() { return priceFromTrades; }
+    public int getBatchSize() { return batchSize; }
+    public boolean isPooling() { return pooling; }
+    public boolean isSnapshotsOnDemand() { return snapshotsOnDemand; }
+    public OrderStoreType getOrderStoreType() { return orderStoreType; }
+}
@@ -0,0 +1,156 @@
+package org.example.engine;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Engine instrumentation: latency histograms for each stage of an order's life and
+// counters for what the engine has done. Only created when EngineConfig enables metrics;
+// the engine keeps a null reference otherwise, so disabled metrics cost one null check.
+//
+// submitToAck: publish to the ingress -> event applied and snapshots published
+// queueWait:   publish -> taken off the ingress by the shard worker
+// matchTime:   applying the event to the book, including any matching
+// lockHold:    shard lock held, once per batch of events (journal, apply, snapshot publishing)
+//              and once per manual trade
+// persistence: one batch write to the trade sink
+public class EngineMetrics implements EngineMetricsMXBean {
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final LatencyHistogram submitToAck = new LatencyHistogram("submitToAck");
+    private final LatencyHistogram queueWait = new LatencyHistogram("queueWait");
+    private final LatencyHistogram matchTime = new LatencyHistogram("matchTime");
+    private final LatencyHistogram lockHold = new LatencyHistogram("lockHold");
+    private final LatencyHistogram persistence = new LatencyHistogram("persistence");
+
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder cancels = new LongAdder();
+    private final LongAdder amends = new LongAdder();
+    private final LongAdder fills = new LongAdder();
+    private final LongAdder manualTrades = new LongAdder();
+
+    private final EngineShard[] shards;
+    private ObjectName objectName;
+
+    EngineMetrics(EngineShard[] shards) {
+        this.shards = shards;
+    }
+
+    // ---- recording (engine threads) ----
+
+    // publishedNanos is 0 for events that did not come through an ingress (e.g. replay)
+    void onEvent(OrderEvent event, long takenNanos, long startedNanos, long appliedNanos, long doneNanos) {
+        switch (event.getType()) {
+            case NEW -> orders.increment();
+            case CANCEL -> cancels.increment();
+            case AMEND -> amends.increment();
+            default -> { }
+        }
+        long published = event.getPublishedNanos();
+        if (published != 0) {
+            queueWait.record(takenNanos - published);
+            submitToAck.record(doneNanos - published);
+        }
+        matchTime.record(appliedNanos - startedNanos);
+    }
+
+    // lockedNanos right after the shard lock was taken, unlockedNanos right before it was released
+    void onBatch(long lockedNanos, long unlockedNanos) {
+        lockHold.record(unlockedNanos - lockedNanos);
+    }
+
+    void onFill() {
+        fills.increment();
+    }
+
+    void onManualTrade(long lockedNanos, long doneNanos) {
+        manualTrades.increment();
+        lockHold.record(doneNanos - lockedNanos);
+    }
+
+    LatencyHistogram getPersistenceHistogram() {
+        return persistence;
+    }
+
+    // ---- JMX ----
+
+    // Registers under org.example:type=EngineMetrics,id=<n>
+    void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName("org.example:type=EngineMetrics,id=" + INSTANCES.getAndIncrement());
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            System.err.println("[Metrics] JMX registration failed: " + e.getMessage());
+        }
+    }
+
+    void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.println("[Metrics] JMX unregistration failed: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    // One line for the periodic metrics log; latencies as p50/p99/p99.9/max in microseconds
+    public String summary() {
+        return String.format("[Metrics] orders=%d cancels=%d amends=%d fills=%d manual=%d queue=%d"
+                        + " | ack %s | queueWait %s | match %s | lockHold %s | persist %s",
+                getOrders(), getCancels(), getAmends(), getFills(), getManualTrades(), getQueueSize(),
+                compact(getSubmitToAck()), compact(getQueueWait()), compact(getMatchTime()),
+                compact(getLockHold()), compact(getPersistence()));
+    }
+
+    private static String compact(LatencySnapshot s) {
+        return String.format("%.1f/%.1f/%.1f/%.1fus", s.getP50() / 1000.0, s.getP99() / 1000.0,
+                s.getP999() / 1000.0, s.getMax() / 1000.0);
+    }
+
+    @Override public LatencySnapshot getSubmitToAck() { return submitToAck.snapshot(); }
+    @Override public LatencySnapshot getQueueWait() { return queueWait.snapshot(); }
+    @Override public LatencySnapshot getMatchTime() { return matchTime.snapshot(); }
+    @Override public LatencySnapshot getLockHold() { return lockHold.snapshot(); }
+    @Override public LatencySnapshot getPersistence() { return persistence.snapshot(); }
+
+    @Override public long getOrders() { return orders.sum(); }
+    @Override public long getCancels() { return cancels.sum(); }
+    @Override public long getAmends() { return amends.sum(); }
+    @Override public long getFills() { return fills.sum(); }
+    @Override public long getManualTrades() { return manualTrades.sum(); }
+
+    @Override
+    public int getQueueSize() {
+        int size = 0;
+        for (EngineShard shard : shards) size += shard.getIngress().size();
+        return size;
+    }
+
+    // Resting orders per symbol; read without the shard locks, so it may lag slightly
+    @Override
+    public Map<String, Integer> getBookDepth() {
+        Map<String, Integer> depth = new TreeMap<>();
+        for (EngineShard shard : shards) {
+            for (OrderBook book : shard.getBooks().values()) {
+                depth.put(book.getCompany().getSymbol(), book.getOrderCount());
+            }
+        }
+        return depth;
+    }
+
+    @Override
+    public void resetLatencies() {
+        submitToAck.reset();
+        queueWait.reset();
+        matchTime.reset();
+        lockHold.reset();
+        persistence.reset();
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.engine;
+
+import java.util.Map;
+
+// JMX view of EngineMetrics; latencies are in nanoseconds
+public interface EngineMetricsMXBean {
+    LatencySnapshot getSubmitToAck();
+    LatencySnapshot getQueueWait();
+    LatencySnapshot getMatchTime();
+    LatencySnapshot getLockHold();
+    LatencySnapshot getPersistence();
+
+    long getOrders();
+    long getCancels();
+    long getAmends();
+    long getFills();
+    long getManualTrades();
+
+    int getQueueSize();
+    Map<String, Integer> getBookDepth();
+
+    void resetLatencies();
+}
@@ -0,0 +1,229 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One matching partition: owns a disjoint set of company books,
+// its own ingress and its own lock. Only its worker thread matches on these books.
+public class EngineShard {
+    // Order ids carry the shard index in their low bits, so an id alone tells which shard owns it
+    public static final int SHARD_BITS = 8;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    private final int index;
+    private final AtomicLong orderSequence = new AtomicLong();
+    private final OrderStore orderStore;
+    private final OrderIndex orderIndex;
+    private final ClientOrders clientOrders;
+    private final OrderIngress ingress;
+    // concurrent so readers can reach a book's published snapshot without the lock
+    private final Map<Company, OrderBook> books = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Books changed since their last snapshot
+    private final List<OrderBook> dirtyBooks = new ArrayList<>();
+    private final int snapshotDepth;
+    private final int snapshotEveryChanges;
+
+    // null when journaling is off
+    private final OrderJournal journal;
+
+    // null when the market-data feed is off; books with levels touched by the current event
+    private final MarketDataFeed marketData;
+    private final List<MarketDataBook> marketDataBooks = new ArrayList<>();
+
+    // Snapshots built by readers (snapshotFor) rather than after each batch
+    private final boolean snapshotsOnDemand;
+
+    // Pooling (EngineConfig.setPooling): finished offers are retired here, parked until
+    // the batch's acks are out (recycle) and then handed to later orders
+    private static final int MAX_POOLED = 1 << 16;
+    private final boolean pooling;
+    private final ArrayDeque<PooledOffer> freeOffers = new ArrayDeque<>();
+    private final List<PooledOffer> retiredOffers = new ArrayList<>();
+    private final TradeRecord tradeRecord = new TradeRecord();
+
+    // Cash each registered buyer and seller paid (-) or received (+) in this shard's trades
+    // since they were registered or restored. A checkpoint adds what every shard counted up to
+    // its own cut to the agent's starting balance, so shards never wait for each other.
+    private final Map<String, double[]> buyerCash = new HashMap<>();
+    private final Map<String, double[]> sellerCash = new HashMap<>();
+
+    // Last journal sequence this shard's state includes after recovery (a checkpoint's cut or
+    // the last record replayed); a standby asks its primary for the records after it
+    private long recoveredSequence;
+
+    public EngineShard(int index, EngineConfig config) {
+        this(index, config, null);
+    }
+
+    public EngineShard(int index, EngineConfig config, MarketDataFeed marketData) {
+        this.index = index;
+        this.marketData = marketData;
+        this.orderStore = config.createOrderStore();
+        this.orderIndex = new OrderIndex(orderStore);
+        this.clientOrders = new ClientOrders(orderStore);
+        this.ingress = config.createIngress();
+        this.snapshotDepth = config.getSnapshotDepth();
+        this.snapshotEveryChanges = config.getSnapshotEveryChanges();
+        this.journal = config.createJournal(index);
+        this.snapshotsOnDemand = config.isSnapshotsOnDemand();
+        this.pooling = config.isPooling();
+    }
+
+    public OrderBook bookFor(Company company) {
+        // get first: the computeIfAbsent lambda captures this and would be allocated per call
+        OrderBook book = books.get(company);
+        return book != null ? book : books.computeIfAbsent(company, c -> new OrderBook(c, this));
+    }
+
+    void markDirty(OrderBook book) {
+        if (!snapshotsOnDemand) dirtyBooks.add(book);
+    }
+
+    void markMarketData(MarketDataBook book) {
+        marketDataBooks.add(book);
+    }
+
+    // Sends the market-data updates of the event just applied. Runs under the shard lock.
+    public void publishMarketData() {
+        for (int i = 0; i < marketDataBooks.size(); i++) {
+            marketDataBooks.get(i).flush();
+        }
+        marketDataBooks.clear();
+    }
+
+    // Publishes snapshots that are due: a book that has collected snapshotEveryChanges
+    // changes, or every changed book once the ingress has nothing more queued.
+    // Runs under the shard lock, after each event.
+    public void publishSnapshots() {
+        if (dirtyBooks.isEmpty()) return;
+        boolean idle = ingress.size() == 0;
+        for (int i = dirtyBooks.size() - 1; i >= 0; i--) {
+            OrderBook book = dirtyBooks.get(i);
+            if (idle || book.getUnpublishedChanges() >= snapshotEveryChanges) {
+                book.publishSnapshot(snapshotDepth);
+                int last = dirtyBooks.size() - 1;
+                dirtyBooks.set(i, dirtyBooks.get(last));
+                dirtyBooks.remove(last);
+            }
+        }
+    }
+
+    // Snapshot of the book as it is now; with snapshots on demand it is built here when stale
+    public BookSnapshot snapshotFor(OrderBook book) {
+        if (!snapshotsOnDemand) return book.getSnapshot();
+        lock.lock();
+        try {
+            if (book.getUnpublishedChanges() > 0) book.publishSnapshot(snapshotDepth);
+            return book.getSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- pooling (worker, under the shard lock) ----
+
+    // The offer for a NEW sent by fields
+    ShareOffer offerFor(OrderEvent event) {
+        PooledOffer offer = pooling ? freeOffers.pollLast() : null;
+        if (offer == null) offer = new PooledOffer();
+        offer.reset(event);
+        return offer;
+    }
+
+    // An order that is done; only offers the engine built itself are reused
+    void retire(ShareOffer offer) {
+        if (pooling && offer instanceof PooledOffer) retiredOffers.add((PooledOffer) offer);
+    }
+
+    // Makes what was retired so far available again, store slots included;
+    // called once the acks of a batch are out
+    public void recycle() {
+        for (int i = 0; i < retiredOffers.size(); i++) {
+            if (freeOffers.size() < MAX_POOLED) freeOffers.addLast(retiredOffers.get(i));
+        }
+        retiredOffers.clear();
+        orderStore.recycle();
+    }
+
+    // The reusable trade record; null when pooling is off
+    TradeRecord getTradeRecord() {
+        return pooling ? tradeRecord : null;
+    }
+
+    // ---- agent cash (worker, under the shard lock) ----
+
+    void addBuyerCash(String buyerId, double amount) {
+        buyerCash.computeIfAbsent(buyerId, k -> new double[1])[0] += amount;
+    }
+
+    void addSellerCash(String sellerId, double amount) {
+        sellerCash.computeIfAbsent(sellerId, k -> new double[1])[0] += amount;
+    }
+
+    double getBuyerCash(String buyerId) {
+        double[] cash = buyerCash.get(buyerId);
+        return cash == null ? 0 : cash[0];
+    }
+
+    double getSellerCash(String sellerId) {
+        double[] cash = sellerCash.get(sellerId);
+        return cash == null ? 0 : cash[0];
+    }
+
+    // The agents' balances were just reset from a checkpoint
+    void clearAgentCash() {
+        buyerCash.clear();
+        sellerCash.clear();
+    }
+
+    // Monotonically increasing within the shard; safe to call from any producer thread
+    public long nextOrderId() {
+        return (orderSequence.incrementAndGet() << SHARD_BITS) | index;
+    }
+
+    // Keeps ids assigned after a journal replay above every replayed id
+    public void advanceOrderSequence(long orderId) {
+        orderSequence.accumulateAndGet(orderId >>> SHARD_BITS, Math::max);
+    }
+
+    // Sequence saved in a checkpoint; never moves the counter backwards
+    public void restoreOrderSequence(long sequence) {
+        orderSequence.accumulateAndGet(sequence, Math::max);
+    }
+
+    public long getOrderSequence() {
+        return orderSequence.get();
+    }
+
+    long getRecoveredSequence() { return recoveredSequence; }
+    void setRecoveredSequence(long sequence) { this.recoveredSequence = sequence; }
+
+    public static int shardOf(long orderId) {
+        return (int) (orderId & (MAX_SHARDS - 1));
+    }
+
+    public OrderBook getBook(Company company) {
+        return books.get(company);
+    }
+
+    public int getIndex() { return index; }
+    public OrderStore getOrderStore() { return orderStore; }
+    public OrderIndex getOrderIndex() { return orderIndex; }
+    public ClientOrders getClientOrders() { return clientOrders; }
+    public OrderIngress getIngress() { return ingress; }
+    public OrderJournal getJournal() { return journal; }
+    public MarketDataFeed getMarketData() { return marketData; }
+    public Map<Company, OrderBook> getBooks() { return books; }
+    public ReentrantLock getLock() { return lock; }
+}
@@ -0,0 +1,117 @@
+package org.example.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Fixed-layout binary messages of the OrderGateway, big-endian.
+// Every message starts with short length (of the whole message) and byte type; the
+// rest has a fixed size per type, so each field sits at a known offset.
+// Symbols travel as up to 8 ASCII bytes packed into a long (left-aligned, zero-padded),
+// which lets the gateway look a company up without building a String.
+//
+// Client -> gateway
+//   LOGON  (19)  char[16] clientId (ASCII, zero-padded); must come first, once
+//   NEW    (32)  long requestId, long symbol, byte side (1 = buy), int quantity, long priceTicks
+//   CANCEL (19)  long requestId, long orderId
+//   AMEND  (39)  long requestId, long orderId, long symbol, int quantity, long priceTicks
+// Gateway -> client
+//   ACK    (20)  long requestId, long orderId, byte status
+//   FILL   (36)  long orderId, long symbol, byte side, int quantity, long priceTicks, int leavesQuantity
+public final class GatewayProtocol {
+    public static final byte LOGON = 1;
+    public static final byte NEW = 2;
+    public static final byte CANCEL = 3;
+    public static final byte AMEND = 4;
+    public static final byte ACK = 17;
+    public static final byte FILL = 18;
+
+    public static final int HEADER_BYTES = 2 + 1;
+    public static final int CLIENT_ID_BYTES = 16;
+    public static final int LOGON_BYTES = HEADER_BYTES + CLIENT_ID_BYTES;
+    public static final int NEW_BYTES = HEADER_BYTES + 8 + 8 + 1 + 4 + 8;
+    public static final int CANCEL_BYTES = HEADER_BYTES + 8 + 8;
+    public static final int AMEND_BYTES = HEADER_BYTES + 8 + 8 + 8 + 4 + 8;
+    public static final int ACK_BYTES = HEADER_BYTES + 8 + 8 + 1;
+    public static final int FILL_BYTES = HEADER_BYTES + 8 + 8 + 1 + 4 + 8 + 4;
+
+    // ACK status
+    public static final byte ACCEPTED = 0;
+    public static final byte NOT_LOGGED_ON = 1;
+    public static final byte UNKNOWN_SYMBOL = 2;
+    public static final byte INVALID = 3;
+    public static final byte UNKNOWN_ORDER = 4;
+    public static final byte REJECTED = 5;         // NEW the client's account cannot cover (see AccountLedger)
+
+    private GatewayProtocol() {
+    }
+
+    // Size of a client message type, or -1 if the type is unknown
+    static int inboundBytes(byte type) {
+        return switch (type) {
+            case LOGON -> LOGON_BYTES;
+            case NEW -> NEW_BYTES;
+            case CANCEL -> CANCEL_BYTES;
+            case AMEND -> AMEND_BYTES;
+            default -> -1;
+        };
+    }
+
+    public static long encodeSymbol(String symbol) {
+        if (symbol.length() > 8) throw new IllegalArgumentException("symbols are at most 8 characters: " + symbol);
+        long code = 0;
+        for (int i = 0; i < 8; i++) {
+            code = (code << 8) | (i < symbol.length() ? symbol.charAt(i) & 0x7F : 0);
+        }
+        return code;
+    }
+
+    public static String decodeSymbol(long code) {
+        StringBuilder sb = new StringBuilder(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            char c = (char) ((code >>> shift) & 0xFF);
+            if (c != 0) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // ---- encoders (client side, and the gateway's replies) ----
+
+    public static void putLogon(ByteBuffer b, String clientId) {
+        byte[] id = clientId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length == 0 || id.length > CLIENT_ID_BYTES) {
+            throw new IllegalArgumentException("client id must be 1 to " + CLIENT_ID_BYTES + " ASCII characters");
+        }
+        header(b, LOGON_BYTES, LOGON);
+        b.put(id);
+        for (int i = id.length; i < CLIENT_ID_BYTES; i++) b.put((byte) 0);
+    }
+
+    public static void putNew(ByteBuffer b, long requestId, long symbol, boolean buy, int quantity, long priceTicks) {
+        header(b, NEW_BYTES, NEW);
+        b.putLong(requestId).putLong(symbol).put((byte) (buy ? 1 : 0)).putInt(quantity).putLong(priceTicks);
+    }
+
+    public static void putCancel(ByteBuffer b, long requestId, long orderId) {
+        header(b, CANCEL_BYTES, CANCEL);
+        b.putLong(requestId).putLong(orderId);
+    }
+
+    public static void putAmend(ByteBuffer b, long requestId, long orderId, long symbol, int quantity, long priceTicks) {
+        header(b, AMEND_BYTES, AMEND);
+        b.putLong(requestId).putLong(orderId).putLong(symbol).putInt(quantity).putLong(priceTicks);
+    }
+
+    static void putAck(ByteBuffer b, long requestId, long orderId, byte status) {
+        header(b, ACK_BYTES, ACK);
+        b.putLong(requestId).putLong(orderId).put(status);
+    }
+
+    static void putFill(ByteBuffer b, long orderId, long symbol, boolean buy, int quantity, long priceTicks, int leaves) {
+        header(b, FILL_BYTES, FILL);
+        b.putLong(orderId).putLong(symbol).put((byte) (buy ? 1 : 0)).putInt(quantity).putLong(priceTicks).putInt(leaves);
+    }
+
+    private static void header(ByteBuffer b, int length, byte type) {
+        b.putShort((short) length).put(type);
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+// Default OrderStore: slots are positions in parallel heap arrays. The submitted ShareOffer
+// is kept and updated in place, so callers holding it see its fills; links are int arrays.
+// Free slots are chained through next[].
+public final class HeapOrderStore implements OrderStore {
+    private ShareOffer[] offers;
+    private int[] prev;
+    private int[] next;
+    private int[] clientPrev;
+    private int[] clientNext;
+    private int used;          // slots ever handed out
+    private int freeHead = NONE;
+    private int[] retired = new int[64];
+    private int retiredCount;
+    private int size;
+
+    public HeapOrderStore() {
+        this(1024);
+    }
+
+    public HeapOrderStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        offers = new ShareOffer[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        clientPrev = new int[capacity];
+        clientNext = new int[capacity];
+    }
+
+    @Override
+    public int add(ShareOffer offer) {
+        int slot;
+        if (freeHead != NONE) {
+            slot = freeHead;
+            freeHead = next[slot];
+        } else {
+            if (used == offers.length) grow();
+            slot = used++;
+        }
+        offers[slot] = offer;
+        prev[slot] = NONE;
+        next[slot] = NONE;
+        clientPrev[slot] = NONE;
+        clientNext[slot] = NONE;
+        size++;
+        return slot;
+    }
+
+    @Override
+    public void retire(int slot) {
+        if (retiredCount == retired.length) retired = Arrays.copyOf(retired, retiredCount * 2);
+        retired[retiredCount++] = slot;
+        size--;
+    }
+
+    @Override
+    public void recycle() {
+        for (int i = 0; i < retiredCount; i++) {
+            int slot = retired[i];
+            offers[slot] = null;
+            next[slot] = freeHead;
+            freeHead = slot;
+        }
+        retiredCount = 0;
+    }
+
+    @Override public long orderId(int slot) { return offers[slot].getOrderId(); }
+    @Override public String clientId(int slot) { return offers[slot].getClientId(); }
+    @Override public Company company(int slot) { return offers[slot].getCompany(); }
+    @Override public boolean isBuy(int slot) { return offers[slot].isBuy(); }
+    @Override public int quantity(int slot) { return offers[slot].getQuantity(); }
+    @Override public long priceTicks(int slot) { return offers[slot].getPriceTicks(); }
+
+    @Override
+    public void reduceQuantity(int slot, int amount) {
+        offers[slot].reduceQuantity(amount);
+    }
+
+    @Override public int prev(int slot) { return prev[slot]; }
+    @Override public int next(int slot) { return next[slot]; }
+    @Override public int clientPrev(int slot) { return clientPrev[slot]; }
+    @Override public int clientNext(int slot) { return clientNext[slot]; }
+    @Override public void setPrev(int slot, int value) { prev[slot] = value; }
+    @Override public void setNext(int slot, int value) { next[slot] = value; }
+    @Override public void setClientPrev(int slot, int value) { clientPrev[slot] = value; }
+    @Override public void setClientNext(int slot, int value) { clientNext[slot] = value; }
+
+    @Override
+    public ShareOffer offer(int slot) {
+        return offers[slot];
+    }
+
+    @Override
+    public ShareOffer copy(int slot) {
+        return offers[slot].copy();
+    }
+
+    @Override
+    public boolean keepsOffers() {
+        return true;
+    }
+
+    @Override
+    public IntBuffer newIntTable(int capacity) {
+        return IntBuffer.allocate(capacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = offers.length * 2;
+        offers = Arrays.copyOf(offers, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+        clientPrev = Arrays.copyOf(clientPrev, capacity);
+        clientNext = Arrays.copyOf(clientNext, capacity);
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.engine;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Local stand-in for the transactions collection
+public class InMemoryTradeSink implements TradeSink {
+    private final List<Document> documents = new ArrayList<>();
+    private int batches;
+
+    @Override
+    public synchronized void insertMany(List<Document> batch) {
+        documents.addAll(batch);
+        batches++;
+    }
+
+    public synchronized List<Document> getDocuments() {
+        return Collections.unmodifiableList(new ArrayList<>(documents));
+    }
+
+    public synchronized int getBatchCount() {
+        return batches;
+    }
+}
@@ -0,0 +1,390 @@
+package org.example.engine;
+
+import org.example.model_layer.EpochClock;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Primary side of hot-standby replication: ships the records of every shard's journal, as they
+// are written, over TCP to standby processes (StandbyReplica) that apply them to their own engine.
+// A standby's first ACK says where it starts (nothing, or a checkpoint it recovered from). It is
+// caught up from the segment files by the acceptor thread, without the shard lock, in passes
+// until it is within TAIL_RECORDS of the writer; only that short tail is sent under the lock,
+// which then switches the shard to live records, so nothing is missed or sent twice and
+// matching never waits on the standby's connection. Shipping is asynchronous: the shard worker
+// copies a record into the standby's buffer and a sender thread writes it, so a slow standby
+// never stalls matching; one that falls MAX_PENDING_BYTES behind is dropped.
+// Needs a journal on every shard (EngineConfig.setJournalDirectory), holding every record after
+// the standby's start (pruning keeps only what the kept checkpoints need).
+//
+// Primary -> standby: HELLO     byte | int partitions
+//                     RECORD    byte | int shard | long primary epoch nanos | journal record
+//                     HEARTBEAT byte | long primary epoch nanos | long last sequence per shard
+// Standby -> primary: ACK       long applied sequence per shard | long primary nanos of the last applied record
+public class JournalShipper implements OrderJournal.RecordListener, ReplicationMXBean, AutoCloseable {
+    static final byte HELLO = 1;
+    static final byte RECORD = 2;
+    static final byte HEARTBEAT = 3;
+    static final int HEARTBEAT_MILLIS = 100;
+    static final int RECORD_HEADER_BYTES = 1 + 4 + 8;
+    // catch-up switches to the locked tail this close to the writer
+    static final int TAIL_RECORDS = 1024;
+
+    private static final int MAX_PENDING_BYTES = 16 << 20;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final TradingEngine engine;
+    private final int partitions;
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final List<Link> links = new CopyOnWriteArrayList<>();
+    // last sequence written per shard; set by the shard workers
+    private final AtomicLongArray lastSequence;
+    private final LatencyHistogram lag = new LatencyHistogram("replicationLag");
+    private final LongAdder shipped = new LongAdder();
+    private volatile boolean running = true;
+    private ObjectName objectName;
+
+    public JournalShipper(TradingEngine engine, InetSocketAddress address) throws IOException {
+        this.engine = engine;
+        this.partitions = engine.getPartitionCount();
+        this.lastSequence = new AtomicLongArray(partitions);
+        for (int i = 0; i < partitions; i++) {
+            if (engine.getShard(i).getJournal() == null) {
+                throw new IllegalStateException("journal shipping needs a journal on every shard");
+            }
+        }
+        this.server = new ServerSocket();
+        server.bind(address);
+        for (int i = 0; i < partitions; i++) {
+            EngineShard shard = engine.getShard(i);
+            shard.getLock().lock();
+            try {
+                lastSequence.set(i, shard.getJournal().getNextSequence() - 1);
+                shard.getJournal().setRecordListener(this);
+            } finally {
+                shard.getLock().unlock();
+            }
+        }
+        this.acceptor = new Thread(this::acceptLoop, "journal-shipper");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        register();
+        System.out.println("[Replication] Shipping the journal on " + getAddress());
+    }
+
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    // Shard worker, under the shard lock, right after the record was written
+    @Override
+    public void onRecord(int shard, ByteBuffer segment, int offset, int length) {
+        lastSequence.lazySet(shard, segment.getLong(offset + 4));
+        if (links.isEmpty()) return;
+        long now = EpochClock.now();
+        for (Link link : links) {
+            if (link.live[shard]) link.send(shard, segment, offset, length, now, false);
+        }
+        shipped.increment();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (running) System.err.println("[Replication] Accept failed: " + e.getMessage());
+                continue;
+            }
+            try {
+                attach(new Link(socket));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[Replication] Could not attach standby " + socket.getRemoteSocketAddress()
+                        + ": " + e.getMessage());
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    // Sends each shard's records after the standby's start, then switches the shard to live
+    // records. The bulk is read without the lock and waits for room in the buffer while the
+    // sender drains it; the tail read under the lock never waits (a standby it does not fit
+    // is dropped).
+    private void attach(Link link) throws IOException {
+        long[] from = link.readStart();
+        for (int i = 0; i < partitions; i++) {
+            if (from[i] > lastSequence.get(i)) {
+                throw new IllegalStateException("standby is at sequence " + from[i] + " on shard " + i
+                        + ", the primary at " + lastSequence.get(i));
+            }
+        }
+        links.add(link);
+        link.start();
+        try {
+            for (int i = 0; i < partitions && !link.isClosed(); i++) {
+                catchUp(link, i, from[i]);
+            }
+        } catch (RuntimeException e) {
+            link.close();
+            throw e;
+        }
+    }
+
+    private void catchUp(Link link, int shardIndex, long from) {
+        EngineShard shard = engine.getShard(shardIndex);
+        OrderJournal journal = shard.getJournal();
+        try (OrderJournal.RecordCursor cursor = journal.recordsAfter(from)) {
+            long records = 0;
+            do {
+                long now = EpochClock.now();
+                records += cursor.forEach(lastSequence.get(shardIndex),
+                        (s, segment, offset, length) -> link.send(s, segment, offset, length, now, true));
+            } while (lastSequence.get(shardIndex) - cursor.getLastSequence() > TAIL_RECORDS && !link.isClosed());
+
+            ReentrantLock lock = shard.getLock();
+            lock.lock();
+            try {
+                long now = EpochClock.now();
+                records += cursor.forEach(journal.getNextSequence() - 1,
+                        (s, segment, offset, length) -> link.send(s, segment, offset, length, now, false));
+                link.live[shardIndex] = true;
+            } finally {
+                lock.unlock();
+            }
+            if (!link.isClosed()) {
+                System.out.println("[Replication] Standby " + link.name + " caught up on shard " + shardIndex
+                        + " (" + records + " records after " + from + ")");
+            }
+        }
+    }
+
+    @Override
+    public LatencySnapshot getLag() {
+        return lag.snapshot();
+    }
+
+    // Worst standby
+    @Override
+    public long getLagRecords() {
+        long worst = 0;
+        for (Link link : links) {
+            long behind = 0;
+            for (int i = 0; i < partitions; i++) behind += lastSequence.get(i) - link.acked.get(i);
+            worst = Math.max(worst, behind);
+        }
+        return worst;
+    }
+
+    @Override
+    public long getRecords() {
+        return shipped.sum();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !links.isEmpty();
+    }
+
+    public int getStandbyCount() {
+        return links.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (int i = 0; i < partitions; i++) {
+            EngineShard shard = engine.getShard(i);
+            shard.getLock().lock();
+            try {
+                shard.getJournal().setRecordListener(null);
+            } finally {
+                shard.getLock().unlock();
+            }
+        }
+        closeQuietly(server);
+        for (Link link : links) link.close();
+        unregister();
+    }
+
+    private void register() {
+        try {
+            objectName = new ObjectName("org.example:type=Replication,role=primary,id=" + INSTANCES.getAndIncrement());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            System.err.println("[Replication] JMX registration failed: " + e.getMessage());
+        }
+    }
+
+    private void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.println("[Replication] JMX unregistration failed: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    private static void closeQuietly(AutoCloseable c) {
+        try {
+            c.close();
+        } catch (Exception e) {
+            // closing anyway
+        }
+    }
+
+    // One connected standby: a double buffer filled by the shard workers and written by the
+    // sender thread, and a reader thread for its acknowledgements
+    private final class Link {
+        final String name;
+        final Socket socket;
+        final OutputStream out;
+        final DataInputStream in;
+        final boolean[] live = new boolean[partitions];   // guarded by each shard's lock
+        final AtomicLongArray acked = new AtomicLongArray(partitions);
+        ByteBuffer pending = ByteBuffer.allocate(MAX_PENDING_BYTES);
+        ByteBuffer sending = ByteBuffer.allocate(MAX_PENDING_BYTES);
+        boolean closed;
+        final Thread sender;
+        final Thread ackReader;
+
+        Link(Socket socket) throws IOException {
+            this.socket = socket;
+            this.name = String.valueOf(socket.getRemoteSocketAddress());
+            socket.setTcpNoDelay(true);
+            this.out = socket.getOutputStream();
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            // written here: the standby answers it with its start before the sender runs
+            out.write(ByteBuffer.allocate(1 + 4).put(HELLO).putInt(partitions).array());
+            out.flush();
+            this.sender = new Thread(this::sendLoop, "journal-shipper-send");
+            this.ackReader = new Thread(this::ackLoop, "journal-shipper-ack");
+            sender.setDaemon(true);
+            ackReader.setDaemon(true);
+        }
+
+        void start() {
+            sender.start();
+            ackReader.start();
+            System.out.println("[Replication] Standby connected from " + name);
+        }
+
+        // The standby's first ACK: the last sequence it holds on each shard
+        long[] readStart() throws IOException {
+            socket.setSoTimeout(StandbyReplica.PRIMARY_TIMEOUT_MILLIS);
+            long[] start = new long[partitions];
+            for (int i = 0; i < partitions; i++) {
+                start[i] = in.readLong();
+                acked.set(i, start[i]);
+            }
+            in.readLong();
+            socket.setSoTimeout(0);
+            return start;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        // Live records give up on a full buffer (the standby is dropped); catch-up waits for room
+        synchronized void send(int shard, ByteBuffer segment, int offset, int length, long nanos, boolean wait) {
+            int bytes = RECORD_HEADER_BYTES + length;
+            while (!closed && pending.remaining() < bytes) {
+                if (!wait) {
+                    System.err.println("[Replication] Standby " + name + " is too far behind, dropping it");
+                    close();
+                    return;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (closed) return;
+            pending.put(RECORD).putInt(shard).putLong(nanos);
+            pending.put(pending.position(), segment, offset, length);
+            pending.position(pending.position() + length);
+            notifyAll();
+        }
+
+        private void sendLoop() {
+            try {
+                while (true) {
+                    synchronized (this) {
+                        if (!closed && pending.position() == 0) wait(HEARTBEAT_MILLIS);
+                        if (closed) return;
+                        if (pending.position() == 0) heartbeat();
+                        ByteBuffer full = pending;
+                        pending = sending;
+                        sending = full;
+                        notifyAll();
+                    }
+                    out.write(sending.array(), 0, sending.position());
+                    out.flush();
+                    sending.clear();
+                }
+            } catch (IOException e) {
+                System.err.println("[Replication] Lost standby " + name + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        // Caller holds this
+        private void heartbeat() {
+            pending.put(HEARTBEAT).putLong(EpochClock.now());
+            for (int i = 0; i < partitions; i++) pending.putLong(lastSequence.get(i));
+        }
+
+        private void ackLoop() {
+            try {
+                while (true) {
+                    boolean advanced = false;
+                    for (int i = 0; i < partitions; i++) {
+                        long sequence = in.readLong();
+                        if (sequence > acked.get(i)) advanced = true;
+                        acked.set(i, sequence);
+                    }
+                    long primaryNanos = in.readLong();
+                    if (advanced) lag.record(EpochClock.now() - primaryNanos);
+                }
+            } catch (SocketException e) {
+                // closed
+            } catch (IOException e) {
+                if (!socket.isClosed()) System.err.println("[Replication] Standby " + name + " ack failed: " + e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+            links.remove(this);
+            closeQuietly(socket);
+        }
+    }
+}
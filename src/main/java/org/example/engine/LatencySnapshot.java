@@ -0,0 +1,37 @@
+package org.example.engine;
+
+import java.beans.ConstructorProperties;
+
+// Summary of a LatencyHistogram at one point in time, in nanoseconds.
+// Also the JMX view of a histogram (an MXBean maps it to CompositeData).
+public class LatencySnapshot {
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    @ConstructorProperties({"count", "mean", "p50", "p99", "p999", "max"})
+    public LatencySnapshot(long count, long mean, long p50, long p99, long p999, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public long getCount() { return count; }
+    public long getMean() { return mean; }
+    public long getP50() { return p50; }
+    public long getP99() { return p99; }
+    public long getP999() { return p999; }
+    public long getMax() { return max; }
+
+    @Override
+    public String toString() {
+        return String.format("p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus (n=%d)",
+                p50 / 1000.0, p99 / 1000.0, p999 / 1000.0, max / 1000.0, count);
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.engine;
+
+import org.example.model_layer.Transaction;
+
+import java.util.Arrays;
+
+// Market-data state of one OrderBook: its sequence counter and the levels touched by the
+// event being applied. Driven by the shard worker under the shard lock.
+// Each touched level is remembered once, with its quantity before the event; flush() then
+// compares it with the book and emits one update per level that really changed, so a sweep
+// that fills ten orders at one price produces one LEVEL_CHANGE, not ten.
+final class MarketDataBook {
+    private final OrderBook book;
+    private final EngineShard shard;
+    private final MarketDataFeed feed;
+    private final String symbol;
+    private long sequence;
+
+    // touch() stamps a level with epoch, flush() with epoch + 1; every flush moves on by 2
+    private long epoch = 2;
+    private int touched;
+    private boolean[] touchedBuy = new boolean[16];
+    private long[] touchedPrices = new long[16];
+    private long[] quantitiesBefore = new long[16];
+    private int[] countsBefore = new int[16];
+
+    // last top of book sent; 0 quantity = empty side
+    private long bidPrice, bidQuantity, askPrice, askQuantity;
+
+    MarketDataBook(OrderBook book, EngineShard shard, MarketDataFeed feed) {
+        this.book = book;
+        this.shard = shard;
+        this.feed = feed;
+        this.symbol = book.getCompany().getSymbol();
+    }
+
+    // Called before the level changes
+    void touch(boolean buySide, PriceLevel level) {
+        if (level.marketDataMark == epoch || !feed.hasSubscribers()) return;
+        level.marketDataMark = epoch;
+        if (touched == touchedPrices.length) grow();
+        touchedBuy[touched] = buySide;
+        touchedPrices[touched] = level.getPriceTicks();
+        quantitiesBefore[touched] = level.getTotalQuantity();
+        countsBefore[touched] = level.size();
+        if (touched++ == 0) shard.markMarketData(this);
+    }
+
+    void trade(Transaction transaction) {
+        if (!feed.hasSubscribers()) return;
+        feed.publish(MarketDataEvent.trade(symbol, ++sequence, transaction.getPriceTicks(),
+                transaction.getQuantity(), transaction.getTimestampNanos()));
+    }
+
+    // Emits the level updates of the event just applied, then the top of book if it moved
+    void flush() {
+        for (int i = 0; i < touched; i++) {
+            boolean buySide = touchedBuy[i];
+            PriceLevel level = book.side(buySide).get(touchedPrices[i]);
+            long quantity = 0;
+            int count = 0;
+            if (level != null) {
+                // a level removed and re-created within the event is recorded twice; the first entry wins
+                if (level.marketDataMark == epoch + 1) continue;
+                level.marketDataMark = epoch + 1;
+                quantity = level.getTotalQuantity();
+                count = level.size();
+            }
+            MarketDataEvent.Type type;
+            if (quantitiesBefore[i] == 0) {
+                if (quantity == 0) continue;
+                type = MarketDataEvent.Type.LEVEL_ADD;
+            } else if (quantity == 0) {
+                type = MarketDataEvent.Type.LEVEL_DELETE;
+            } else if (quantity != quantitiesBefore[i] || count != countsBefore[i]) {
+                type = MarketDataEvent.Type.LEVEL_CHANGE;
+            } else {
+                continue;
+            }
+            feed.publish(MarketDataEvent.level(type, symbol, ++sequence, buySide, touchedPrices[i], quantity, count));
+        }
+        touched = 0;
+        epoch += 2;
+
+        PriceLevel bid = book.getBestBid();
+        PriceLevel ask = book.getBestAsk();
+        long newBidPrice = bid == null ? 0 : bid.getPriceTicks();
+        long newBidQuantity = bid == null ? 0 : bid.getTotalQuantity();
+        long newAskPrice = ask == null ? 0 : ask.getPriceTicks();
+        long newAskQuantity = ask == null ? 0 : ask.getTotalQuantity();
+        if (newBidPrice != bidPrice || newBidQuantity != bidQuantity
+                || newAskPrice != askPrice || newAskQuantity != askQuantity) {
+            bidPrice = newBidPrice;
+            bidQuantity = newBidQuantity;
+            askPrice = newAskPrice;
+            askQuantity = newAskQuantity;
+            feed.publish(MarketDataEvent.topOfBook(symbol, ++sequence, bidPrice, bidQuantity, askPrice, askQuantity));
+        }
+    }
+
+    // Consistent with the sequence because both are read under the shard lock
+    MarketDataSnapshot snapshot() {
+        shard.getLock().lock();
+        try {
+            return new MarketDataSnapshot(symbol, sequence, book.side(true), book.side(false));
+        } finally {
+            shard.getLock().unlock();
+        }
+    }
+
+    String getSymbol() {
+        return symbol;
+    }
+
+    private void grow() {
+        int length = touchedPrices.length * 2;
+        touchedBuy = Arrays.copyOf(touchedBuy, length);
+        touchedPrices = Arrays.copyOf(touchedPrices, length);
+        quantitiesBefore = Arrays.copyOf(quantitiesBefore, length);
+        countsBefore = Arrays.copyOf(countsBefore, length);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.engine;
+
+// One message of the incremental market-data stream of a symbol.
+// Sequence numbers are per symbol and have no gaps: a subscriber that sees a jump has
+// missed messages and is resynchronised from a MarketDataSnapshot (see MarketDataSubscription).
+// Level updates carry the new absolute quantity and order count of the level, not a difference.
+public final class MarketDataEvent {
+    public enum Type {
+        LEVEL_ADD,
+        LEVEL_CHANGE,
+        LEVEL_DELETE,
+        TRADE,
+        TOP_OF_BOOK
+    }
+
+    private final Type type;
+    private final String symbol;
+    private final long sequence;
+
+    // LEVEL_*: side and level; TRADE: execution price and quantity
+    private final boolean buy;
+    private final long priceTicks;
+    private final long quantity;
+    private final int orderCount;
+    private final long tradeEpochNanos;
+
+    // TOP_OF_BOOK: 0 quantity means the side is empty
+    private final long bidPriceTicks;
+    private final long bidQuantity;
+    private final long askPriceTicks;
+    private final long askQuantity;
+
+    private MarketDataEvent(Type type, String symbol, long sequence, boolean buy, long priceTicks, long quantity,
+                            int orderCount, long tradeEpochNanos,
+                            long bidPriceTicks, long bidQuantity, long askPriceTicks, long askQuantity) {
+        this.type = type;
+        this.symbol = symbol;
+        this.sequence = sequence;
+        this.buy = buy;
+        this.priceTicks = priceTicks;
+        this.quantity = quantity;
+        this.orderCount = orderCount;
+        this.tradeEpochNanos = tradeEpochNanos;
+        this.bidPriceTicks = bidPriceTicks;
+        this.bidQuantity = bidQuantity;
+        this.askPriceTicks = askPriceTicks;
+        this.askQuantity = askQuantity;
+    }
+
+    static MarketDataEvent level(Type type, String symbol, long sequence, boolean buy, long priceTicks,
+                                 long quantity, int orderCount) {
+        return new MarketDataEvent(type, symbol, sequence, buy, priceTicks, quantity, orderCount, 0, 0, 0, 0, 0);
+    }
+
+    static MarketDataEvent trade(String symbol, long sequence, long priceTicks, long quantity, long epochNanos) {
+        return new MarketDataEvent(Type.TRADE, symbol, sequence, false, priceTicks, quantity, 0, epochNanos, 0, 0, 0, 0);
+    }
+
+    static MarketDataEvent topOfBook(String symbol, long sequence, long bidPriceTicks, long bidQuantity,
+                                     long askPriceTicks, long askQuantity) {
+        return new MarketDataEvent(Type.TOP_OF_BOOK, symbol, sequence, false, 0, 0, 0, 0,
+                bidPriceTicks, bidQuantity, askPriceTicks, askQuantity);
+    }
+
+    public Type getType() { return type; }
+    public String getSymbol() { return symbol; }
+    public long getSequence() { return sequence; }
+    public boolean isBuy() { return buy; }
+    public long getPriceTicks() { return priceTicks; }
+    public long getQuantity() { return quantity; }
+    public int getOrderCount() { return orderCount; }
+    public long getTradeEpochNanos() { return tradeEpochNanos; }
+    public long getBidPriceTicks() { return bidPriceTicks; }
+    public long getBidQuantity() { return bidQuantity; }
+    public long getAskPriceTicks() { return askPriceTicks; }
+    public long getAskQuantity() { return askQuantity; }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case TRADE -> symbol + " #" + sequence + " TRADE " + quantity + " @ " + priceTicks;
+            case TOP_OF_BOOK -> symbol + " #" + sequence + " TOB " + bidQuantity + " @ " + bidPriceTicks
+                    + " / " + askQuantity + " @ " + askPriceTicks;
+            default -> symbol + " #" + sequence + " " + type + " " + (buy ? "BID " : "ASK ") + priceTicks
+                    + " qty=" + quantity + " orders=" + orderCount;
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.engine;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Incremental market data for every book of an engine: level adds/changes/deletes,
+// trade prints and top-of-book changes (see MarketDataEvent), built by the shard workers
+// after each applied event.
+// Publishing never blocks a worker: each subscription has a bounded queue, and a symbol whose
+// messages no longer fit is conflated - its messages are dropped until the subscriber has
+// caught up, then it gets a fresh snapshot of that book instead of the backlog.
+public class MarketDataFeed {
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+
+    private final Map<String, MarketDataBook> books = new ConcurrentHashMap<>();
+    private final List<MarketDataSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    void register(MarketDataBook book) {
+        books.put(book.getSymbol(), book);
+    }
+
+    // No symbols = every book; the subscription starts with a snapshot of each of its books
+    public MarketDataSubscription subscribe(MarketDataListener listener, String... symbols) {
+        return subscribe(listener, DEFAULT_QUEUE_CAPACITY, symbols);
+    }
+
+    public MarketDataSubscription subscribe(MarketDataListener listener, int queueCapacity, String... symbols) {
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be >= 1");
+        Set<String> filter = symbols.length == 0 ? null : new HashSet<>(Arrays.asList(symbols));
+        MarketDataSubscription subscription = new MarketDataSubscription(this, listener, queueCapacity, filter,
+                filter == null ? books.keySet() : filter);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    // Full-depth snapshot of one book with its current sequence; null for an unknown symbol
+    public MarketDataSnapshot snapshot(String symbol) {
+        MarketDataBook book = books.get(symbol);
+        return book == null ? null : book.snapshot();
+    }
+
+    public Set<String> getSymbols() {
+        return books.keySet();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    // Lets the workers skip building messages nobody reads
+    boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    // Shard worker, under the shard lock
+    void publish(MarketDataEvent event) {
+        for (MarketDataSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    void unsubscribe(MarketDataSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+}
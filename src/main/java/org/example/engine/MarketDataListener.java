@@ -0,0 +1,10 @@
+package org.example.engine;
+
+// Receives one subscription's market data on its delivery thread, never on a shard worker.
+// For each symbol the listener first gets a snapshot, then the messages that follow it;
+// after falling behind it gets a fresh snapshot instead of the messages it missed.
+public interface MarketDataListener {
+    void onSnapshot(MarketDataSnapshot snapshot);
+
+    void onEvent(MarketDataEvent event);
+}
@@ -0,0 +1,50 @@
+package org.example.engine;
+
+// Full-depth view of one book, taken under the shard lock, with the sequence number of the
+// last market-data message it includes. Messages with a higher sequence apply on top of it.
+public final class MarketDataSnapshot {
+    private final String symbol;
+    private final long sequence;
+
+    private final long[] bidPrices;
+    private final long[] bidQuantities;
+    private final int[] bidOrderCounts;
+    private final long[] askPrices;
+    private final long[] askQuantities;
+    private final int[] askOrderCounts;
+
+    MarketDataSnapshot(String symbol, long sequence, PriceLadder bidSide, PriceLadder askSide) {
+        this.symbol = symbol;
+        this.sequence = sequence;
+        this.bidPrices = new long[bidSide.size()];
+        this.bidQuantities = new long[bidSide.size()];
+        this.bidOrderCounts = new int[bidSide.size()];
+        this.askPrices = new long[askSide.size()];
+        this.askQuantities = new long[askSide.size()];
+        this.askOrderCounts = new int[askSide.size()];
+        copySide(bidSide, bidPrices, bidQuantities, bidOrderCounts);
+        copySide(askSide, askPrices, askQuantities, askOrderCounts);
+    }
+
+    private static void copySide(PriceLadder side, long[] prices, long[] quantities, int[] counts) {
+        PriceLevel level = side.best();
+        for (int i = 0; i < prices.length; i++, level = side.worse(level)) {
+            prices[i] = level.getPriceTicks();
+            quantities[i] = level.getTotalQuantity();
+            counts[i] = level.size();
+        }
+    }
+
+    public String getSymbol() { return symbol; }
+    public long getSequence() { return sequence; }
+
+    // level 0 is the best price
+    public int getBidDepth() { return bidPrices.length; }
+    public int getAskDepth() { return askPrices.length; }
+    public long getBidPriceTicks(int level) { return bidPrices[level]; }
+    public long getBidQuantity(int level) { return bidQuantities[level]; }
+    public int getBidOrderCount(int level) { return bidOrderCounts[level]; }
+    public long getAskPriceTicks(int level) { return askPrices[level]; }
+    public long getAskQuantity(int level) { return askQuantities[level]; }
+    public int getAskOrderCount(int level) { return askOrderCounts[level]; }
+}
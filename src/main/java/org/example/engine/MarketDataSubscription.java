@@ -0,0 +1,118 @@
+package org.example.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// One subscriber's view of the MarketDataFeed, delivered on its own virtual thread.
+// Workers only ever offer() into the bounded queue. When it is full the symbol is marked
+// stale and its messages are dropped; once the queue has drained, the delivery thread
+// clears the mark, takes a snapshot (under the shard lock, so it lines up with the sequence)
+// and skips queued messages the snapshot already covers.
+public class MarketDataSubscription implements AutoCloseable {
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final MarketDataFeed feed;
+    private final MarketDataListener listener;
+    private final Set<String> symbols;   // null = all
+    private final BlockingQueue<MarketDataEvent> queue;
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // last sequence handed to the listener per symbol; delivery thread only
+    private final Map<String, Long> delivered = new HashMap<>();
+
+    MarketDataSubscription(MarketDataFeed feed, MarketDataListener listener, int queueCapacity,
+                           Set<String> symbols, Set<String> initial) {
+        this.feed = feed;
+        this.listener = listener;
+        this.symbols = symbols;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // a late subscriber starts from snapshots, exactly like one that fell behind
+        this.stale.addAll(initial);
+        this.thread = Thread.ofVirtual().name("market-data-" + IDS.incrementAndGet()).unstarted(this::deliver);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    // Shard worker; never blocks
+    void offer(MarketDataEvent event) {
+        String symbol = event.getSymbol();
+        if (symbols != null && !symbols.contains(symbol)) return;
+        if (stale.contains(symbol) || !queue.offer(event)) {
+            stale.add(symbol);
+            conflated.increment();
+        }
+    }
+
+    private void deliver() {
+        while (!closed) {
+            MarketDataEvent event;
+            try {
+                event = queue.poll(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (event != null) {
+                Long last = delivered.get(event.getSymbol());
+                if (last != null && event.getSequence() <= last) continue;
+                delivered.put(event.getSymbol(), event.getSequence());
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    System.err.println("[MarketData] Subscriber failed on " + event + ": " + e.getMessage());
+                }
+            }
+            if (queue.isEmpty() && !stale.isEmpty()) resync();
+        }
+    }
+
+    private void resync() {
+        for (String symbol : new ArrayList<>(stale)) {
+            // clear the mark first: messages published from here on either reach the queue
+            // or are already in the snapshot taken below
+            stale.remove(symbol);
+            MarketDataSnapshot snapshot = feed.snapshot(symbol);
+            if (snapshot == null) continue;
+            delivered.put(symbol, snapshot.getSequence());
+            snapshots.increment();
+            try {
+                listener.onSnapshot(snapshot);
+            } catch (RuntimeException e) {
+                System.err.println("[MarketData] Subscriber failed on snapshot of " + symbol + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Messages dropped because the subscriber was behind
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    public long getSnapshotCount() {
+        return snapshots.sum();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        feed.unsubscribe(this);
+        thread.interrupt();
+    }
+}
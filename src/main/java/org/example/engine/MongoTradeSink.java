@@ -0,0 +1,32 @@
+package org.example.engine;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+
+import java.util.List;
+
+public class MongoTradeSink implements TradeSink {
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoCollection<Document> collection;
+
+    public MongoTradeSink(MongoCollection<Document> collection) {
+        this.collection = collection;
+    }
+
+    @Override
+    public void insertMany(List<Document> documents) {
+        try {
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            // documents carry their own _id, so on a retry the ones that already
+            // made it in come back as duplicate keys and can be ignored
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// OrderStore that keeps resting orders outside the Java heap, in direct ByteBuffer chunks of
+// fixed 64-byte slots, so a deep book adds no objects for the GC to trace or copy.
+// The submitted ShareOffer is not kept: its fields are copied into the slot, client ids and
+// companies become int references into small tables, and offer(slot) is a shared view.
+// Chunks are allocated as the store grows and kept; free slots are chained through NEXT.
+//
+// Slot layout: long orderId | long priceTicks | long timestampNanos | int quantity
+//              | int client | int company | int buy | int prev | int next | int clientPrev | int clientNext
+public final class OffHeapOrderStore implements OrderStore {
+    private static final int SLOT_BYTES = 64;
+    private static final int CHUNK_SHIFT = 14; // 16384 slots, 1 MB per chunk
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+
+    private static final int ORDER_ID = 0;
+    private static final int PRICE = 8;
+    private static final int TIMESTAMP = 16;
+    private static final int QUANTITY = 24;
+    private static final int CLIENT = 28;
+    private static final int COMPANY = 32;
+    private static final int BUY = 36;
+    private static final int PREV = 40;
+    private static final int NEXT = 44;
+    private static final int CLIENT_PREV = 48;
+    private static final int CLIENT_NEXT = 52;
+
+    private ByteBuffer[] chunks = new ByteBuffer[16];
+    private int chunkCount;
+    private int used;          // slots ever handed out
+    private int freeHead = NONE;
+    private int[] retired = new int[64];
+    private int retiredCount;
+    private int size;
+
+    // one entry per distinct client / company, not per order
+    private final Map<String, Integer> clientRefs = new HashMap<>();
+    private String[] clients = new String[64];
+    private final Map<Company, Integer> companyRefs = new HashMap<>();
+    private Company[] companies = new Company[16];
+
+    private final View view = new View();
+
+    @Override
+    public int add(ShareOffer offer) {
+        int slot;
+        if (freeHead != NONE) {
+            slot = freeHead;
+            freeHead = next(slot);
+        } else {
+            if (used == chunkCount << CHUNK_SHIFT) addChunk();
+            slot = used++;
+        }
+        ByteBuffer b = chunk(slot);
+        int at = offset(slot);
+        b.putLong(at + ORDER_ID, offer.getOrderId());
+        b.putLong(at + PRICE, offer.getPriceTicks());
+        b.putLong(at + TIMESTAMP, offer.getTimestampNanos());
+        b.putInt(at + QUANTITY, offer.getQuantity());
+        b.putInt(at + CLIENT, clientRef(offer.getClientId()));
+        b.putInt(at + COMPANY, companyRef(offer.getCompany()));
+        b.putInt(at + BUY, offer.isBuy() ? 1 : 0);
+        b.putInt(at + PREV, NONE);
+        b.putInt(at + NEXT, NONE);
+        b.putInt(at + CLIENT_PREV, NONE);
+        b.putInt(at + CLIENT_NEXT, NONE);
+        size++;
+        return slot;
+    }
+
+    @Override
+    public void retire(int slot) {
+        if (retiredCount == retired.length) retired = Arrays.copyOf(retired, retiredCount * 2);
+        retired[retiredCount++] = slot;
+        size--;
+    }
+
+    @Override
+    public void recycle() {
+        for (int i = 0; i < retiredCount; i++) {
+            int slot = retired[i];
+            setNext(slot, freeHead);
+            freeHead = slot;
+        }
+        retiredCount = 0;
+    }
+
+    @Override public long orderId(int slot) { return chunk(slot).getLong(offset(slot) + ORDER_ID); }
+    @Override public String clientId(int slot) { return clients[getInt(slot, CLIENT)]; }
+    @Override public Company company(int slot) { return companies[getInt(slot, COMPANY)]; }
+    @Override public boolean isBuy(int slot) { return getInt(slot, BUY) == 1; }
+    @Override public int quantity(int slot) { return getInt(slot, QUANTITY); }
+    @Override public long priceTicks(int slot) { return chunk(slot).getLong(offset(slot) + PRICE); }
+
+    @Override
+    public void reduceQuantity(int slot, int amount) {
+        putInt(slot, QUANTITY, Math.max(0, quantity(slot) - amount));
+    }
+
+    @Override public int prev(int slot) { return getInt(slot, PREV); }
+    @Override public int next(int slot) { return getInt(slot, NEXT); }
+    @Override public int clientPrev(int slot) { return getInt(slot, CLIENT_PREV); }
+    @Override public int clientNext(int slot) { return getInt(slot, CLIENT_NEXT); }
+    @Override public void setPrev(int slot, int value) { putInt(slot, PREV, value); }
+    @Override public void setNext(int slot, int value) { putInt(slot, NEXT, value); }
+    @Override public void setClientPrev(int slot, int value) { putInt(slot, CLIENT_PREV, value); }
+    @Override public void setClientNext(int slot, int value) { putInt(slot, CLIENT_NEXT, value); }
+
+    @Override
+    public ShareOffer offer(int slot) {
+        ByteBuffer b = chunk(slot);
+        int at = offset(slot);
+        view.set(b.getLong(at + ORDER_ID), clients[b.getInt(at + CLIENT)], companies[b.getInt(at + COMPANY)],
+                b.getInt(at + QUANTITY), b.getLong(at + PRICE), b.getInt(at + BUY) == 1, b.getLong(at + TIMESTAMP));
+        return view;
+    }
+
+    @Override
+    public ShareOffer copy(int slot) {
+        return offer(slot).copy();
+    }
+
+    @Override
+    public boolean keepsOffers() {
+        return false;
+    }
+
+    @Override
+    public IntBuffer newIntTable(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Direct memory taken by the slot chunks
+    public long getReservedBytes() {
+        return (long) chunkCount * CHUNK_SLOTS * SLOT_BYTES;
+    }
+
+    private int getInt(int slot, int field) {
+        return chunk(slot).getInt(offset(slot) + field);
+    }
+
+    private void putInt(int slot, int field, int value) {
+        chunk(slot).putInt(offset(slot) + field, value);
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int slot) {
+        return (slot & CHUNK_MASK) * SLOT_BYTES;
+    }
+
+    private void addChunk() {
+        if (chunkCount == chunks.length) chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        chunks[chunkCount++] = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    private int clientRef(String clientId) {
+        Integer ref = clientRefs.get(clientId);
+        if (ref != null) return ref;
+        int next = clientRefs.size();
+        if (next == clients.length) clients = Arrays.copyOf(clients, next * 2);
+        clients[next] = clientId;
+        clientRefs.put(clientId, next);
+        return next;
+    }
+
+    private int companyRef(Company company) {
+        Integer ref = companyRefs.get(company);
+        if (ref != null) return ref;
+        int next = companyRefs.size();
+        if (next == companies.length) companies = Arrays.copyOf(companies, next * 2);
+        companies[next] = company;
+        companyRefs.put(company, next);
+        return next;
+    }
+
+    // What offer(slot) hands out; never a PooledOffer, so the shard does not take it for its pool
+    private static final class View extends ShareOffer {
+        View() {
+            super(null, null, 0, 0.0, true);
+        }
+
+        void set(long orderId, String clientId, Company company, int quantity, long priceTicks,
+                 boolean buy, long timestampNanos) {
+            reuse(orderId, clientId, company, quantity, priceTicks, buy, timestampNanos);
+        }
+    }
+}
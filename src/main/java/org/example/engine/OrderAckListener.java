@@ -0,0 +1,10 @@
+package org.example.engine;
+
+// Told by a shard worker that an event has been applied to its book, or that it was
+// rejected (OrderEvent.isRejected: the ledger could not cover the order, which is dropped).
+// Runs on the worker while it holds the shard lock, so it must be quick, and must not keep
+// the event: the worker reuses it for the next one.
+@FunctionalInterface
+public interface OrderAckListener {
+    void onAck(OrderEvent event);
+}
@@ -0,0 +1,161 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.example.model_layer.Transaction;
+
+import java.util.List;
+
+// Price-time priority book for a single company.
+// Each side is a PriceLadder indexed by long price ticks; the ladders keep their best
+// level at hand, so reading the top of book is O(1).
+// Orders live in the shard's OrderStore and are referred to by slot. Every resting order
+// is also registered in the shard's OrderIndex, so finding, partially filling or
+// removing an order by id does not depend on book depth.
+// Only the owning shard mutates a book; other threads read its published BookSnapshot.
+public class OrderBook {
+    private final Company company;
+    private final EngineShard shard;
+    private final OrderStore store;
+    private final OrderIndex index;
+    private final ClientOrders clientOrders;
+    private final PriceLadder bids;
+    private final PriceLadder asks;
+    private int orderCount;
+
+    private long version;            // bumped on every change
+    private int unpublishedChanges;
+    private volatile BookSnapshot snapshot;
+
+    // null when the engine has no market-data feed
+    private final MarketDataBook marketData;
+
+    public OrderBook(Company company, EngineShard shard) {
+        this.company = company;
+        this.shard = shard;
+        this.store = shard.getOrderStore();
+        this.bids = new PriceLadder(true, store);
+        this.asks = new PriceLadder(false, store);
+        this.index = shard.getOrderIndex();
+        this.clientOrders = shard.getClientOrders();
+        this.snapshot = BookSnapshot.empty(company);
+        MarketDataFeed feed = shard.getMarketData();
+        this.marketData = feed == null ? null : new MarketDataBook(this, shard, feed);
+        if (feed != null) feed.register(marketData);
+    }
+
+    // Puts an offer in the book and returns its OrderStore slot
+    public int add(ShareOffer offer) {
+        int slot = store.add(offer);
+        PriceLevel level = side(offer.isBuy()).getOrCreate(offer.getPriceTicks());
+        if (marketData != null) marketData.touch(offer.isBuy(), level);
+        level.append(slot);
+        index.put(slot);
+        clientOrders.link(slot);
+        orderCount++;
+        changed();
+        return slot;
+    }
+
+    public void remove(int slot) {
+        boolean buy = store.isBuy(slot);
+        PriceLevel level = levelOf(slot);
+        if (level == null) return; // already out of the book
+        if (marketData != null) marketData.touch(buy, level);
+        level.unlink(slot);
+        if (level.isEmpty()) side(buy).remove(level.getPriceTicks());
+        index.remove(store.orderId(slot));
+        clientOrders.unlink(slot);
+        orderCount--;
+        changed();
+        store.retire(slot);
+    }
+
+    // Applies a (partial) fill; the order leaves the book once nothing is left
+    public void fill(int slot, int quantity) {
+        PriceLevel level = levelOf(slot);
+        if (marketData != null) marketData.touch(store.isBuy(slot), level);
+        store.reduceQuantity(slot, quantity);
+        level.onFill(quantity);
+        if (store.quantity(slot) == 0) remove(slot);
+        else changed();
+    }
+
+    // Shrinks an order in place; it stays where it is in the level (keeps time priority)
+    public void reduce(int slot, int newQuantity) {
+        fill(slot, store.quantity(slot) - newQuantity);
+    }
+
+    // Slot of a resting order of this book, or OrderStore.NONE
+    public int get(long orderId) {
+        int slot = index.get(orderId);
+        return slot != OrderStore.NONE && store.company(slot) == company ? slot : OrderStore.NONE;
+    }
+
+    public boolean contains(long orderId) {
+        return get(orderId) != OrderStore.NONE;
+    }
+
+    // Level of a resting order; fills nearly always hit the best level, so that is tried first
+    private PriceLevel levelOf(int slot) {
+        PriceLadder side = side(store.isBuy(slot));
+        long priceTicks = store.priceTicks(slot);
+        PriceLevel best = side.best();
+        return best != null && best.getPriceTicks() == priceTicks ? best : side.get(priceTicks);
+    }
+
+    // True while the best bid is priced at or above the best ask
+    public boolean isCrossed() {
+        PriceLevel bid = bids.best();
+        PriceLevel ask = asks.best();
+        return bid != null && ask != null && bid.getPriceTicks() >= ask.getPriceTicks();
+    }
+
+    // Appends resting orders of one side to the list, best price first, FIFO within a level;
+    // these are the live offers when the store keeps them, copies otherwise
+    public void collect(boolean buySide, List<ShareOffer> into) {
+        PriceLadder side = side(buySide);
+        for (PriceLevel level = side.best(); level != null; level = side.worse(level)) {
+            for (int s = level.head(); s != OrderStore.NONE; s = store.next(s)) {
+                if (store.quantity(s) > 0) into.add(store.keepsOffers() ? store.offer(s) : store.copy(s));
+            }
+        }
+    }
+
+    private void changed() {
+        version++;
+        if (unpublishedChanges++ == 0) shard.markDirty(this);
+    }
+
+    // Builds and publishes a new snapshot of the best `depth` levels per side
+    public void publishSnapshot(int depth) {
+        snapshot = BookSnapshot.of(this, store, version, bids, asks, depth);
+        unpublishedChanges = 0;
+    }
+
+    // Trade print for the market-data feed, if there is one
+    void onTrade(Transaction transaction) {
+        if (marketData != null) marketData.trade(transaction);
+    }
+
+    // Latest published snapshot; safe to call from any thread without locking
+    public BookSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int getUnpublishedChanges() {
+        return unpublishedChanges;
+    }
+
+    PriceLadder side(boolean buySide) {
+        return buySide ? bids : asks;
+    }
+
+    public Company getCompany() { return company; }
+    public PriceLevel getBestBid() { return bids.best(); }
+    public PriceLevel getBestAsk() { return asks.best(); }
+    public int getOrderCount() { return orderCount; }
+    public long getVersion() { return version; }
+    public int getBidLevelCount() { return bids.size(); }
+    public int getAskLevelCount() { return asks.size(); }
+}
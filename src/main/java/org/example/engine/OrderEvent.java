@@ -0,0 +1,131 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+// Mutable slot passed from the producers to a shard's worker.
+// The ring buffer preallocates these; the worker copies each one into its own instance.
+// A NEW carries either a caller-built offer, or just the order's fields (setNew), in which
+// case the worker turns them into an offer of its own before applying the event.
+public class OrderEvent {
+    public enum Type { NEW, CANCEL, AMEND, MASS_CANCEL, CHECKPOINT }
+
+    private Type type;
+    private ShareOffer offer;   // NEW
+    private long orderId;       // CANCEL, AMEND, NEW by fields
+    private int quantity;       // AMEND, NEW by fields
+    private double price;       // AMEND, converted to ticks by the worker
+    private String clientId;    // MASS_CANCEL, NEW by fields
+    private Company company;    // NEW by fields
+    private long priceTicks;    // NEW by fields
+    private boolean buy;        // NEW by fields
+    private long timestampNanos; // NEW by fields
+    private EngineCheckpoint.Capture checkpoint; // CHECKPOINT
+    private long publishedNanos;  // System.nanoTime() at publish when metrics are on, else 0
+    private boolean rejected;     // outcome, set by the worker: the order was dropped, not applied
+
+    public void set(ShareOffer offer) {
+        clear();
+        this.type = Type.NEW;
+        this.offer = offer;
+    }
+
+    public void setNew(long orderId, String clientId, Company company, int quantity, long priceTicks,
+                       boolean buy, long timestampNanos) {
+        clear();
+        this.type = Type.NEW;
+        this.orderId = orderId;
+        this.clientId = clientId;
+        this.company = company;
+        this.quantity = quantity;
+        this.priceTicks = priceTicks;
+        this.buy = buy;
+        this.timestampNanos = timestampNanos;
+    }
+
+    // The worker's offer for a NEW sent by fields
+    void attachOffer(ShareOffer offer) {
+        this.offer = offer;
+    }
+
+    public void setCancel(long orderId) {
+        clear();
+        this.type = Type.CANCEL;
+        this.orderId = orderId;
+    }
+
+    public void setAmend(long orderId, int quantity, double price) {
+        clear();
+        this.type = Type.AMEND;
+        this.orderId = orderId;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    public void setMassCancel(String clientId) {
+        clear();
+        this.type = Type.MASS_CANCEL;
+        this.clientId = clientId;
+    }
+
+    public void setCheckpoint(EngineCheckpoint.Capture checkpoint) {
+        clear();
+        this.type = Type.CHECKPOINT;
+        this.checkpoint = checkpoint;
+    }
+
+    // The ledger could not cover a NEW or an AMEND, so the order is not (or no longer) in the book
+    void reject() {
+        this.rejected = true;
+    }
+
+    public void setPublishedNanos(long publishedNanos) {
+        this.publishedNanos = publishedNanos;
+    }
+
+    public void copyFrom(OrderEvent other) {
+        this.type = other.type;
+        this.offer = other.offer;
+        this.orderId = other.orderId;
+        this.quantity = other.quantity;
+        this.price = other.price;
+        this.clientId = other.clientId;
+        this.checkpoint = other.checkpoint;
+        this.company = other.company;
+        this.priceTicks = other.priceTicks;
+        this.buy = other.buy;
+        this.timestampNanos = other.timestampNanos;
+        this.publishedNanos = other.publishedNanos;
+        this.rejected = other.rejected;
+    }
+
+    public void clear() {
+        this.type = null;
+        this.offer = null;
+        this.orderId = 0;
+        this.quantity = 0;
+        this.price = 0;
+        this.clientId = null;
+        this.checkpoint = null;
+        this.company = null;
+        this.priceTicks = 0;
+        this.buy = false;
+        this.timestampNanos = 0;
+        this.publishedNanos = 0;
+        this.rejected = false;
+    }
+
+    public Type getType() { return type; }
+    public ShareOffer getOffer() { return offer; }
+    public long getOrderId() { return orderId; }
+    public int getQuantity() { return quantity; }
+    public double getPrice() { return price; }
+    public String getClientId() { return clientId; }
+    public EngineCheckpoint.Capture getCheckpoint() { return checkpoint; }
+    public Company getCompany() { return company; }
+    public long getPriceTicks() { return priceTicks; }
+    public boolean isBuy() { return buy; }
+    public long getTimestampNanos() { return timestampNanos; }
+    public long getPublishedNanos() { return publishedNanos; }
+    public boolean isRejected() { return rejected; }
+}
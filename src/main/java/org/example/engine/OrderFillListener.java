@@ -0,0 +1,11 @@
+package org.example.engine;
+
+import org.example.model_layer.ShareOffer;
+
+// Told about every execution of an order: one call per order side of each fill.
+// The offer's quantity is already reduced, so it is what is left open (0 = fully filled).
+// Runs on the shard worker under the shard lock, like OrderAckListener, and must not keep the offer.
+@FunctionalInterface
+public interface OrderFillListener {
+    void onFill(ShareOffer order, int quantity, long priceTicks);
+}
@@ -0,0 +1,614 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Non-blocking TCP order entry for clients outside the JVM, speaking GatewayProtocol.
+// Connections are spread over a few reactor threads, each with its own Selector. A reactor
+// decodes messages in place from the connection's direct buffer and submits them to the
+// engine on its own thread as plain fields (TradingEngine.submitOrder), with no per-message
+// strings, buffers or offers. Everything sent to a client is queued on its connection and
+// written by the connection's reactor, never by a shard worker: the workers only append fills
+// (OrderFillListener) and the ACK of each NEW once the engine has applied it (OrderAckListener),
+// or ahead of its first fill; a NEW the ledger rejects is answered with REJECTED instead.
+// A client whose outbound queue overflows is disconnected.
+//
+// A client logs on once per connection with a unique id, can only cancel or amend orders
+// it entered on that connection, and has its resting orders cancelled when it disconnects.
+// The gateway takes over the engine's fill and ack listeners.
+public class OrderGateway implements AutoCloseable {
+    public static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+
+    private final TradingEngine engine;
+    private final SymbolTable symbols = new SymbolTable();
+    private final ServerSocketChannel server;
+    private final Reactor[] reactors;
+    private final int bufferBytes;
+    private final Map<String, Connection> sessions = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    private int nextReactor;   // accepting reactor only
+
+    // read -> submitted to the engine, per NEW; set by callers that want it measured
+    private volatile LatencyHistogram decodeLatency;
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder rejects = new LongAdder();
+
+    public OrderGateway(TradingEngine engine, InetSocketAddress address, int reactorThreads) throws IOException {
+        this(engine, address, reactorThreads, DEFAULT_BUFFER_BYTES);
+    }
+
+    public OrderGateway(TradingEngine engine, InetSocketAddress address, int reactorThreads, int bufferBytes)
+            throws IOException {
+        if (reactorThreads < 1) throw new IllegalArgumentException("reactorThreads must be >= 1");
+        this.engine = engine;
+        this.bufferBytes = bufferBytes;
+        for (Company c : engine.getCompanies()) {
+            symbols.put(GatewayProtocol.encodeSymbol(c.getSymbol()), c);
+        }
+        this.reactors = new Reactor[reactorThreads];
+        for (int i = 0; i < reactorThreads; i++) reactors[i] = new Reactor(i);
+        this.server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.bind(address, 1024);
+        server.register(reactors[0].selector, SelectionKey.OP_ACCEPT);
+        engine.setFillListener(this::onFill);
+        engine.setAckListener(this::onAck);
+        for (Reactor r : reactors) r.thread.start();
+        System.out.println("[Gateway] Listening on " + getAddress());
+    }
+
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) server.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void setDecodeLatency(LatencyHistogram decodeLatency) {
+        this.decodeLatency = decodeLatency;
+    }
+
+    public int getSessionCount() { return sessions.size(); }
+    public long getMessageCount() { return messages.sum(); }
+    public long getRejectCount() { return rejects.sum(); }
+
+    // Shard worker, under the shard lock
+    private void onFill(ShareOffer order, int quantity, long priceTicks) {
+        Connection connection = sessions.get(order.getClientId());
+        if (connection != null) connection.queueFill(order, quantity, priceTicks);
+    }
+
+    // Shard worker, under the shard lock, once a NEW has been applied or rejected
+    private void onAck(OrderEvent event) {
+        if (event.getType() != OrderEvent.Type.NEW) return;
+        ShareOffer order = event.getOffer();
+        Connection connection = sessions.get(order.getClientId());
+        if (connection == null) return;
+        if (event.isRejected()) connection.queueRejected(order.getOrderId());
+        else connection.queueAccepted(order.getOrderId());
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        engine.setFillListener(null);
+        engine.setAckListener(null);
+        try {
+            server.close();
+        } catch (IOException e) {
+            System.err.println("[Gateway] Failed to close listener: " + e.getMessage());
+        }
+        for (Reactor r : reactors) r.selector.wakeup();
+        for (Reactor r : reactors) {
+            try {
+                r.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // One selector thread; owns the connections registered with it
+    private final class Reactor implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        final Queue<Connection> pending = new ConcurrentLinkedQueue<>();
+
+        Reactor(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "gateway-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select(this::ready);
+                    registerAccepted();
+                    serviceWrites();
+                } catch (IOException e) {
+                    System.err.println("[Gateway] Selector failed: " + e.getMessage());
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) ((Connection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void ready(SelectionKey key) {
+            if (!key.isValid()) return;
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) connection.read();
+                if (key.isValid() && key.isWritable()) connection.writeReady();
+            } catch (IOException e) {
+                connection.close();
+            }
+        }
+
+        private void accept() {
+            try {
+                SocketChannel channel;
+                while ((channel = server.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    Reactor target = reactors[nextReactor++ % reactors.length];
+                    target.accepted.add(channel);
+                    if (target != this) target.selector.wakeup();
+                }
+            } catch (IOException e) {
+                System.err.println("[Gateway] Accept failed: " + e.getMessage());
+            }
+        }
+
+        private void registerAccepted() {
+            SocketChannel channel;
+            while ((channel = accepted.poll()) != null) {
+                try {
+                    Connection connection = new Connection(channel, this);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch (IOException e) {
+                    System.err.println("[Gateway] Cannot register connection: " + e.getMessage());
+                }
+            }
+        }
+
+        // Connections with queued output or that must be dropped
+        private void serviceWrites() {
+            Connection connection;
+            while ((connection = pending.poll()) != null) {
+                if (connection.overflowed) {
+                    System.err.println("[Gateway] Disconnecting slow client " + connection.clientId);
+                    connection.close();
+                } else if (connection.key != null && connection.key.isValid()) {
+                    try {
+                        connection.write();
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            }
+        }
+
+        void requestWrite(Connection connection) {
+            pending.add(connection);
+            if (Thread.currentThread() != thread) selector.wakeup();
+        }
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final Reactor reactor;
+        SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocateDirect(bufferBytes);
+        final byte[] logonBytes = new byte[GatewayProtocol.CLIENT_ID_BYTES];
+        String clientId;
+        final OrderIdMap live = new OrderIdMap();   // reactor thread only
+
+        // Outbound queue: filled by any thread under outLock, swapped with `sending` and written
+        // by the reactor. Also guarded by outLock: the request id of every NEW not yet
+        // acknowledged, and ids of orders that filled completely.
+        final Object outLock = new Object();
+        ByteBuffer queued = ByteBuffer.allocateDirect(bufferBytes);
+        ByteBuffer sending = ByteBuffer.allocateDirect(bufferBytes).limit(0);   // reactor thread only
+        boolean writeRequested;
+        volatile boolean overflowed;
+        final OrderIdMap unacked = new OrderIdMap();
+        long[] finished = new long[64];
+        int finishedCount;
+        boolean closed;
+
+        Connection(SocketChannel channel, Reactor reactor) {
+            this.channel = channel;
+            this.reactor = reactor;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            long readNanos = decodeLatency != null ? System.nanoTime() : 0;
+            in.flip();
+            while (in.remaining() >= GatewayProtocol.HEADER_BYTES) {
+                int start = in.position();
+                int length = in.getShort(start) & 0xFFFF;
+                byte type = in.get(start + 2);
+                if (length != GatewayProtocol.inboundBytes(type)) {
+                    System.err.println("[Gateway] Protocol error from " + channel.getRemoteAddress() + ": type " + type);
+                    close();
+                    return;
+                }
+                if (in.remaining() < length) break;
+                in.position(start + GatewayProtocol.HEADER_BYTES);
+                messages.increment();
+                handle(type, readNanos);
+                if (!channel.isOpen()) return;
+                in.position(start + length);
+            }
+            in.compact();
+        }
+
+        private void handle(byte type, long readNanos) {
+            switch (type) {
+                case GatewayProtocol.LOGON -> logon();
+                case GatewayProtocol.NEW -> newOrder(readNanos);
+                case GatewayProtocol.CANCEL -> cancel();
+                case GatewayProtocol.AMEND -> amend();
+                default -> { }
+            }
+        }
+
+        private void logon() {
+            in.get(logonBytes);
+            int length = 0;
+            while (length < logonBytes.length && logonBytes[length] != 0) length++;
+            String id = new String(logonBytes, 0, length, StandardCharsets.US_ASCII);
+            if (clientId != null || length == 0 || sessions.putIfAbsent(id, this) != null) {
+                reject(0, 0, GatewayProtocol.INVALID);
+                close();
+                return;
+            }
+            clientId = id;
+            sendAck(0, 0, GatewayProtocol.ACCEPTED);
+        }
+
+        private void newOrder(long readNanos) {
+            long requestId = in.getLong();
+            long symbol = in.getLong();
+            boolean buy = in.get() == 1;
+            int quantity = in.getInt();
+            long priceTicks = in.getLong();
+            if (clientId == null) {
+                reject(requestId, 0, GatewayProtocol.NOT_LOGGED_ON);
+                return;
+            }
+            Company company = symbols.get(symbol);
+            if (company == null) {
+                reject(requestId, 0, GatewayProtocol.UNKNOWN_SYMBOL);
+                return;
+            }
+            if (quantity <= 0 || priceTicks <= 0) {
+                reject(requestId, 0, GatewayProtocol.INVALID);
+                return;
+            }
+            long orderId = engine.nextOrderId(company);
+            live.add(orderId, 0);
+            // acknowledged by the shard worker once applied, see queueAccepted
+            synchronized (outLock) {
+                unacked.add(orderId, requestId);
+            }
+            engine.submitOrder(orderId, clientId, company, quantity, priceTicks, buy);
+            LatencyHistogram latency = decodeLatency;
+            if (latency != null && readNanos != 0) latency.record(System.nanoTime() - readNanos);
+        }
+
+        private void cancel() {
+            long requestId = in.getLong();
+            long orderId = in.getLong();
+            if (!owns(requestId, orderId)) return;
+            live.remove(orderId);
+            engine.cancelOrder(orderId);
+            sendAck(requestId, orderId, GatewayProtocol.ACCEPTED);
+        }
+
+        // The symbol must be the order's own; it gives the tick size of the new price
+        private void amend() {
+            long requestId = in.getLong();
+            long orderId = in.getLong();
+            long symbol = in.getLong();
+            int quantity = in.getInt();
+            long priceTicks = in.getLong();
+            if (!owns(requestId, orderId)) return;
+            Company company = symbols.get(symbol);
+            if (company == null || quantity < 0 || priceTicks <= 0) {
+                reject(requestId, orderId, company == null ? GatewayProtocol.UNKNOWN_SYMBOL : GatewayProtocol.INVALID);
+                return;
+            }
+            if (quantity == 0) live.remove(orderId);
+            engine.amendOrder(orderId, quantity, company.toPrice(priceTicks));
+            sendAck(requestId, orderId, GatewayProtocol.ACCEPTED);
+        }
+
+        private boolean owns(long requestId, long orderId) {
+            if (clientId == null) {
+                reject(requestId, orderId, GatewayProtocol.NOT_LOGGED_ON);
+                return false;
+            }
+            synchronized (outLock) {
+                for (int i = 0; i < finishedCount; i++) live.remove(finished[i]);
+                finishedCount = 0;
+            }
+            if (live.indexOf(orderId) < 0) {
+                reject(requestId, orderId, GatewayProtocol.UNKNOWN_ORDER);
+                return false;
+            }
+            return true;
+        }
+
+        private void reject(long requestId, long orderId, byte status) {
+            rejects.increment();
+            sendAck(requestId, orderId, status);
+        }
+
+        // Reactor thread
+        void sendAck(long requestId, long orderId, byte status) {
+            synchronized (outLock) {
+                if (closed || !reserve(GatewayProtocol.ACK_BYTES)) return;
+                GatewayProtocol.putAck(queued, requestId, orderId, status);
+                requestWrite();
+            }
+        }
+
+        // Shard worker, once the engine applied a NEW entered here (unless its first fill already acked it)
+        void queueAccepted(long orderId) {
+            synchronized (outLock) {
+                if (!closed) ackAccepted(orderId);
+            }
+        }
+
+        // Shard worker. The ACK of a NEW goes out ahead of its first fill.
+        void queueFill(ShareOffer order, int quantity, long priceTicks) {
+            synchronized (outLock) {
+                if (closed) return;
+                ackAccepted(order.getOrderId());
+                if (!reserve(GatewayProtocol.FILL_BYTES)) return;
+                int leaves = order.getQuantity();
+                GatewayProtocol.putFill(queued, order.getOrderId(), GatewayProtocol.encodeSymbol(order.getCompany().getSymbol()),
+                        order.isBuy(), quantity, priceTicks, leaves);
+                if (leaves == 0) finished(order.getOrderId());
+                requestWrite();
+            }
+        }
+
+        // Shard worker: the ledger rejected a NEW entered here, so it never rested
+        void queueRejected(long orderId) {
+            synchronized (outLock) {
+                if (closed) return;
+                int i = unacked.indexOf(orderId);
+                if (i >= 0) {
+                    long requestId = unacked.valueAt(i);
+                    unacked.remove(orderId);
+                    rejects.increment();
+                    if (reserve(GatewayProtocol.ACK_BYTES)) {
+                        GatewayProtocol.putAck(queued, requestId, orderId, GatewayProtocol.REJECTED);
+                        requestWrite();
+                    }
+                }
+                finished(orderId);
+            }
+        }
+
+        // Caller holds outLock. The reactor drops the id from `live` before its next cancel or amend.
+        private void finished(long orderId) {
+            if (finishedCount == finished.length) finished = Arrays.copyOf(finished, finishedCount * 2);
+            finished[finishedCount++] = orderId;
+        }
+
+        // Caller holds outLock
+        private void ackAccepted(long orderId) {
+            int i = unacked.indexOf(orderId);
+            if (i < 0) return;
+            long requestId = unacked.valueAt(i);
+            unacked.remove(orderId);
+            if (!reserve(GatewayProtocol.ACK_BYTES)) return;
+            GatewayProtocol.putAck(queued, requestId, orderId, GatewayProtocol.ACCEPTED);
+            requestWrite();
+        }
+
+        // Caller holds outLock. False (and the connection marked for closing) when the client is too far behind.
+        private boolean reserve(int bytes) {
+            if (queued.remaining() >= bytes) return true;
+            if (!overflowed) {
+                overflowed = true;
+                reactor.requestWrite(this);
+            }
+            return false;
+        }
+
+        // Caller holds outLock
+        private void requestWrite() {
+            if (writeRequested) return;
+            writeRequested = true;
+            reactor.requestWrite(this);
+        }
+
+        // Reactor thread: writes the queue until it is empty or the socket is full (then waits for OP_WRITE)
+        void write() throws IOException {
+            while (true) {
+                if (!sending.hasRemaining()) {
+                    synchronized (outLock) {
+                        writeRequested = false;
+                        if (queued.position() == 0) break;
+                        ByteBuffer full = queued;
+                        queued = sending.clear();
+                        sending = full;
+                    }
+                    sending.flip();
+                }
+                channel.write(sending);
+                if (sending.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        // Reactor thread, socket writable again
+        void writeReady() throws IOException {
+            write();
+        }
+
+        void close() {
+            synchronized (outLock) {
+                if (closed) return;
+                closed = true;
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            if (clientId != null && sessions.remove(clientId, this)) {
+                engine.cancelAllOrders(clientId);
+            }
+        }
+    }
+
+    // long symbol code -> Company, open addressing; filled once at start
+    private static final class SymbolTable {
+        private long[] keys = new long[16];
+        private Company[] values = new Company[16];
+        private int size;
+
+        void put(long key, Company value) {
+            if ((size + 1) * 2 > keys.length) resize();
+            int i = slot(key, keys.length);
+            while (values[i] != null && keys[i] != key) i = (i + 1) & (keys.length - 1);
+            if (values[i] == null) size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        Company get(long key) {
+            int i = slot(key, keys.length);
+            while (values[i] != null) {
+                if (keys[i] == key) return values[i];
+                i = (i + 1) & (keys.length - 1);
+            }
+            return null;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Company[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Company[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    // Order id (never 0) -> long, open addressing with backward-shift deletion
+    private static final class OrderIdMap {
+        private long[] ids = new long[64];
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long id, long value) {
+            if ((size + 1) * 2 > ids.length) resize();
+            int i = slot(id, ids.length);
+            while (ids[i] != 0) {
+                if (ids[i] == id) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & (ids.length - 1);
+            }
+            ids[i] = id;
+            values[i] = value;
+            size++;
+        }
+
+        // Slot of the id, or -1
+        int indexOf(long id) {
+            int i = slot(id, ids.length);
+            while (ids[i] != 0) {
+                if (ids[i] == id) return i;
+                i = (i + 1) & (ids.length - 1);
+            }
+            return -1;
+        }
+
+        long valueAt(int index) {
+            return values[index];
+        }
+
+        void remove(long id) {
+            int mask = ids.length - 1;
+            int i = slot(id, ids.length);
+            while (ids[i] != id) {
+                if (ids[i] == 0) return;
+                i = (i + 1) & mask;
+            }
+            // pull later entries of the probe run back into the hole
+            int hole = i;
+            for (int j = (hole + 1) & mask; ids[j] != 0; j = (j + 1) & mask) {
+                int home = slot(ids[j], ids.length);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    ids[hole] = ids[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            ids[hole] = 0;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldIds = ids;
+            long[] oldValues = values;
+            ids = new long[oldIds.length * 2];
+            values = new long[oldIds.length * 2];
+            size = 0;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != 0) add(oldIds[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int slot(long key, int length) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (length - 1);
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.engine;
+
+import java.nio.IntBuffer;
+
+// Open-addressing hash map from long order id to the order's OrderStore slot, without boxing.
+// The table holds slot + 1 (0 marks an empty entry) and the keys are read back from the store,
+// so an entry is one int, kept wherever the store allocates its tables.
+// Linear probing; deletes shift the following entries back so no tombstones build up.
+public class OrderIndex {
+    private final OrderStore store;
+    private IntBuffer table;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public OrderIndex(OrderStore store) {
+        this(store, 1024);
+    }
+
+    public OrderIndex(OrderStore store, int initialCapacity) {
+        this.store = store;
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+        allocate(capacity);
+    }
+
+    // The order's slot, or OrderStore.NONE
+    public int get(long id) {
+        int i = home(id);
+        int entry;
+        while ((entry = table.get(i)) != 0) {
+            if (store.orderId(entry - 1) == id) return entry - 1;
+            i = (i + 1) & mask;
+        }
+        return OrderStore.NONE;
+    }
+
+    public boolean contains(long id) {
+        return get(id) != OrderStore.NONE;
+    }
+
+    // Registers the order in `slot` under its id
+    public void put(int slot) {
+        long id = store.orderId(slot);
+        if (id == 0) throw new IllegalArgumentException("order id 0 is reserved");
+        int i = home(id);
+        int entry;
+        while ((entry = table.get(i)) != 0) {
+            if (store.orderId(entry - 1) == id) {
+                table.put(i, slot + 1);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        table.put(i, slot + 1);
+        if (++size >= resizeAt) rehash(table.capacity() << 1);
+    }
+
+    public int remove(long id) {
+        int i = home(id);
+        int entry;
+        while ((entry = table.get(i)) != 0) {
+            if (store.orderId(entry - 1) == id) {
+                shiftBack(i);
+                size--;
+                return entry - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return OrderStore.NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Fills the hole at `free` with a later entry of the same probe chain, until the chain ends
+    private void shiftBack(int free) {
+        int i = free;
+        while (true) {
+            i = (i + 1) & mask;
+            int entry = table.get(i);
+            if (entry == 0) break;
+            int home = home(store.orderId(entry - 1));
+            // move the entry if its home slot is not inside (free, i]
+            boolean movable = free <= i ? (home <= free || home > i) : (home <= free && home > i);
+            if (movable) {
+                table.put(free, entry);
+                free = i;
+            }
+        }
+        table.put(free, 0);
+    }
+
+    private int home(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        table = store.newIntTable(capacity);
+        mask = capacity - 1;
+        resizeAt = capacity / 2;
+    }
+
+    private void rehash(int capacity) {
+        IntBuffer old = table;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < old.capacity(); i++) {
+            if (old.get(i) != 0) put(old.get(i) - 1);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.util.Collection;
+
+// Hand-off of orders and order commands from Buyer/Seller threads to one shard worker.
+// Everything published to the same ingress is processed in publish order.
+// publish*() may be called from any thread, take() only from the worker.
+public interface OrderIngress {
+    void publish(ShareOffer offer);
+
+    // A new order given by its fields; the worker builds (or reuses) the offer
+    void publishNew(long orderId, String clientId, Company company, int quantity, long priceTicks,
+                    boolean buy, long timestampNanos);
+
+    // Publishes the offers in iteration order
+    void publishAll(Collection<? extends ShareOffer> offers);
+
+    void publishCancel(long orderId);
+
+    void publishAmend(long orderId, int newQuantity, double newPrice);
+
+    void publishMassCancel(String clientId);
+
+    // Marker that makes the worker take its part of an engine checkpoint
+    void publishCheckpoint(EngineCheckpoint.Capture checkpoint);
+
+    // Waits for the next event and copies it into the worker-owned `into`
+    void take(OrderEvent into) throws InterruptedException;
+
+    // Copies up to max events that are already published into into[offset..] without waiting;
+    // returns how many were copied
+    int drainTo(OrderEvent[] into, int offset, int max);
+
+    int size();
+}
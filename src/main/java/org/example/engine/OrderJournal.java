@@ -0,0 +1,518 @@
+package org.example.engine;
+
+import org.example.model_layer.ShareOffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Append-only journal of every event a shard applies to its books, written by the
+// shard's worker into memory-mapped segment files (shard-<n>-<segment>.journal).
+//
+// Record layout: int bodyLength | long sequence | byte type | payload
+// A zero length marks the end of the written part of a segment (mapped files start zeroed).
+// Strings are stored as short byte length + UTF-8 bytes.
+public class OrderJournal implements AutoCloseable {
+    public enum FsyncPolicy {
+        // leave flushing to the OS page cache
+        NONE,
+        // force the mapped segment every fsyncEvery records
+        EVERY_N_EVENTS,
+        // force after every record
+        EVERY_EVENT
+    }
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    static final byte NEW = 1;
+    static final byte CANCEL = 2;
+    static final byte AMEND = 3;
+    static final byte MASS_CANCEL = 4;
+    static final byte MANUAL_TRADE = 5;
+    static final byte PRICE = 6;
+    static final byte STOP = 7;
+
+    static final int HEADER_BYTES = 4 + 8 + 1;
+    // longest symbol or client id a record can hold, in UTF-8 bytes
+    static final int MAX_STRING_BYTES = 0xFFFF;
+    private static final String SUFFIX = ".journal";
+
+    // Receives decoded records during replay
+    public interface Handler {
+        void onNew(long sequence, long orderId, String symbol, String clientId, boolean buy, int quantity, long priceTicks);
+        void onCancel(long sequence, long orderId);
+        void onAmend(long sequence, long orderId, int quantity, double price);
+        void onMassCancel(long sequence, String clientId);
+        void onManualTrade(long sequence, String buyerId, long orderId, int quantity);
+        void onPrice(long sequence, String symbol, long priceTicks);
+        void onStop(long sequence);
+    }
+
+    // Sees every record right after it is written (see JournalShipper). The bytes are
+    // segment[offset, offset + length), a whole record from its length field on, and are
+    // only valid during the call. Runs on the writing thread.
+    public interface RecordListener {
+        void onRecord(int shard, ByteBuffer segment, int offset, int length);
+    }
+
+    private final Path directory;
+    private final int shard;
+    private final int segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final int fsyncEvery;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int segmentIndex;
+    private long nextSequence = 1;
+    private int unsynced;
+    private int recordStart;
+    private volatile RecordListener listener;
+
+    // UTF-8 bytes of client ids and symbols, encoded once
+    private final Map<String, byte[]> encoded = new HashMap<>();
+
+    public OrderJournal(Path directory, int shard, long segmentBytes, FsyncPolicy fsyncPolicy, int fsyncEvery) {
+        if (segmentBytes > Integer.MAX_VALUE || segmentBytes < 4096) {
+            throw new IllegalArgumentException("journal segment size must be between 4 KB and 2 GB");
+        }
+        this.directory = directory;
+        this.shard = shard;
+        this.segmentBytes = (int) segmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncEvery = Math.max(1, fsyncEvery);
+        try {
+            Files.createDirectories(directory);
+            List<Integer> existing = segmentIndices();
+            if (existing.isEmpty()) {
+                openSegment(0);
+            } else {
+                // continue after the last record of the newest segment
+                openSegment(existing.get(existing.size() - 1));
+                long last = scan(buffer, null);
+                if (last > 0) nextSequence = last + 1;
+                else if (existing.size() > 1) nextSequence = lastSequenceOf(segmentPath(existing.get(existing.size() - 2))) + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open order journal in " + directory, e);
+        }
+    }
+
+    // ---- writing (shard worker only) ----
+
+    public void appendNew(ShareOffer offer) {
+        byte[] symbol = bytes(offer.getCompany().getSymbol());
+        byte[] client = bytes(offer.getClientId());
+        MappedByteBuffer b = begin(NEW, 8 + 2 + symbol.length + 2 + client.length + 1 + 4 + 8);
+        b.putLong(offer.getOrderId());
+        putString(b, symbol);
+        putString(b, client);
+        b.put((byte) (offer.isBuy() ? 1 : 0));
+        b.putInt(offer.getQuantity());
+        b.putLong(offer.getPriceTicks());
+        end();
+    }
+
+    public void appendCancel(long orderId) {
+        begin(CANCEL, 8).putLong(orderId);
+        end();
+    }
+
+    public void appendAmend(long orderId, int quantity, double price) {
+        MappedByteBuffer b = begin(AMEND, 8 + 4 + 8);
+        b.putLong(orderId);
+        b.putInt(quantity);
+        b.putDouble(price);
+        end();
+    }
+
+    public void appendMassCancel(String clientId) {
+        byte[] client = bytes(clientId);
+        putString(begin(MASS_CANCEL, 2 + client.length), client);
+        end();
+    }
+
+    public void appendManualTrade(String buyerId, long orderId, int quantity) {
+        byte[] buyer = bytes(buyerId);
+        MappedByteBuffer b = begin(MANUAL_TRADE, 2 + buyer.length + 8 + 4);
+        putString(b, buyer);
+        b.putLong(orderId);
+        b.putInt(quantity);
+        end();
+    }
+
+    public void appendPrice(String symbol, long priceTicks) {
+        byte[] s = bytes(symbol);
+        MappedByteBuffer b = begin(PRICE, 2 + s.length + 8);
+        putString(b, s);
+        b.putLong(priceTicks);
+        end();
+    }
+
+    public void appendStop() {
+        begin(STOP, 0);
+        end();
+        force();
+    }
+
+    private MappedByteBuffer begin(byte type, int payloadBytes) {
+        int recordBytes = HEADER_BYTES + payloadBytes;
+        if (recordBytes + 4 > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + recordBytes + " bytes does not fit a journal segment of "
+                    + segmentBytes);
+        }
+        // keep 4 zero bytes after every record as the end marker
+        if (buffer.remaining() < recordBytes + 4) roll();
+        recordStart = buffer.position();
+        buffer.putInt(recordBytes - 4);
+        buffer.putLong(nextSequence++);
+        buffer.put(type);
+        return buffer;
+    }
+
+    // Copies a record written by another journal (a primary's, see StandbyReplica) with its
+    // sequence, so this journal continues the same sequence
+    public void appendRecord(ByteBuffer source, int offset, int length) {
+        long sequence = source.getLong(offset + 4);
+        if (sequence != nextSequence) {
+            throw new IllegalStateException("journal expects sequence " + nextSequence + ", got " + sequence);
+        }
+        if (buffer.remaining() < length + 4) roll();
+        recordStart = buffer.position();
+        buffer.put(recordStart, source, offset, length);
+        buffer.position(recordStart + length);
+        nextSequence++;
+        end();
+    }
+
+    private void end() {
+        RecordListener l = listener;
+        if (l != null) l.onRecord(shard, buffer, recordStart, buffer.position() - recordStart);
+        switch (fsyncPolicy) {
+            case EVERY_EVENT -> force();
+            case EVERY_N_EVENTS -> {
+                if (++unsynced >= fsyncEvery) force();
+            }
+            case NONE -> { }
+        }
+    }
+
+    public void force() {
+        buffer.force();
+        unsynced = 0;
+    }
+
+    // Forces the records written so far when run, from any thread, so a checkpoint can make
+    // the journal durable up to its cut without holding up the writer. Segments rolled in the
+    // meantime were forced by roll().
+    public Runnable forceTask() {
+        MappedByteBuffer segment = buffer;
+        int end = segment.position();
+        return () -> segment.force(0, end);
+    }
+
+    private void roll() {
+        force();
+        try {
+            channel.close();
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll order journal segment", e);
+        }
+    }
+
+    private void openSegment(int index) throws IOException {
+        segmentIndex = index;
+        channel = FileChannel.open(segmentPath(index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    // Checked before the record is begun, as is the record's size in begin(), so an over-long
+    // string leaves the journal untouched
+    private byte[] bytes(String s) {
+        byte[] b = encoded.get(s);
+        if (b != null) return b;
+        b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String of " + b.length + " bytes is too long for the order journal (max "
+                    + MAX_STRING_BYTES + ")");
+        }
+        encoded.put(s, b);
+        return b;
+    }
+
+    // the length is written as an unsigned 16-bit value
+    private static void putString(MappedByteBuffer b, byte[] bytes) {
+        b.putShort((short) bytes.length);
+        b.put(bytes);
+    }
+
+    // null removes the listener
+    public void setRecordListener(RecordListener listener) {
+        this.listener = listener;
+    }
+
+    // ---- reading ----
+
+    // Replays every record written so far, oldest first. Returns the number of records.
+    public long replay(Handler handler) {
+        return replayAfter(0, handler);
+    }
+
+    // Replays the records after `sequence` (a checkpoint's cut), oldest first. Segments that a
+    // later segment shows to end at or before it are not read. Fails when the first record
+    // needed is gone (pruned after a checkpoint).
+    public long replayAfter(long sequence, Handler handler) {
+        long records = 0;
+        try {
+            List<Integer> segments = segmentIndices();
+            for (int i = 0; i < segments.size(); i++) {
+                if (i + 1 < segments.size()) {
+                    long next = firstSequenceOf(segmentPath(segments.get(i + 1)));
+                    if (next != 0 && next <= sequence + 1) continue;
+                }
+                try (FileChannel ch = FileChannel.open(segmentPath(segments.get(i)), StandardOpenOption.READ)) {
+                    MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                    while (true) {
+                        int start = b.position();
+                        long seq = readRecord(b, null);
+                        if (seq == 0) break;
+                        if (seq <= sequence) continue;
+                        if (records == 0 && seq != sequence + 1) throw missing(sequence + 1);
+                        b.position(start);
+                        readRecord(b, handler);
+                        records++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay order journal in " + directory, e);
+        }
+        return records;
+    }
+
+    private IllegalStateException missing(long needed) {
+        return new IllegalStateException("journal of shard " + shard + " no longer holds record "
+                + needed + " (pruned after a checkpoint?)");
+    }
+
+    // A journal that was started from a checkpoint taken elsewhere (a standby's, see
+    // StandbyReplica) has none of the records up to the cut; its numbering continues after it
+    public void continueAfter(long sequence) {
+        if (nextSequence <= sequence) nextSequence = sequence + 1;
+    }
+
+    // The records after `sequence` as the raw bytes JournalShipper sends, read from the segment
+    // files while the writer keeps appending. Any thread; close it when done.
+    public RecordCursor recordsAfter(long sequence) {
+        return new RecordCursor(sequence);
+    }
+
+    // Reads in passes and keeps its place (segment and offset) between them, so each pass
+    // reads only what was written since
+    public final class RecordCursor implements AutoCloseable {
+        private long last;
+        private int segment = -1;
+        private FileChannel segmentChannel;
+        private MappedByteBuffer segmentBuffer;
+
+        private RecordCursor(long after) {
+            this.last = after;
+        }
+
+        // Hands the records up to `upTo` to the listener, oldest first, and returns how many.
+        // Every record up to `upTo` must be completely written (the writer's lastSequence).
+        public long forEach(long upTo, RecordListener into) {
+            long records = 0;
+            try {
+                while (last < upTo) {
+                    if (segmentBuffer == null) open();
+                    int start = segmentBuffer.position();
+                    long seq = readRecord(segmentBuffer, null);
+                    if (seq == 0) {
+                        // the writer rolled to the next segment after this one
+                        openSegmentAt(segment + 1);
+                        continue;
+                    }
+                    if (seq <= last) continue;
+                    if (seq != last + 1) throw missing(last + 1);
+                    into.onRecord(shard, segmentBuffer, start, segmentBuffer.position() - start);
+                    last = seq;
+                    records++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read order journal in " + directory, e);
+            }
+            return records;
+        }
+
+        public long getLastSequence() { return last; }
+
+        // Positions on the newest segment starting at or before the record after `last`
+        private void open() throws IOException {
+            int from = -1;
+            for (int index : segmentIndices()) {
+                long first = firstSequenceOf(segmentPath(index));
+                if (first == 0 || first > last + 1) break;
+                from = index;
+            }
+            if (from < 0) throw missing(last + 1);
+            openSegmentAt(from);
+        }
+
+        private void openSegmentAt(int index) throws IOException {
+            close();
+            segment = index;
+            segmentChannel = FileChannel.open(segmentPath(index), StandardOpenOption.READ);
+            segmentBuffer = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+        }
+
+        @Override
+        public void close() {
+            if (segmentChannel == null) return;
+            try {
+                segmentChannel.close();
+            } catch (IOException e) {
+                System.err.println("[Journal] Failed to close segment: " + e.getMessage());
+            }
+            segmentChannel = null;
+            segmentBuffer = null;
+        }
+    }
+
+    // Deletes the segments that hold only records up to `sequence`, which a checkpoint covers.
+    // The segment being written is never deleted. Any thread. Returns the number deleted.
+    public int pruneThrough(long sequence) {
+        int deleted = 0;
+        try {
+            List<Integer> segments = segmentIndices();
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                long next = firstSequenceOf(segmentPath(segments.get(i + 1)));
+                if (next == 0 || next > sequence + 1) break;
+                Files.deleteIfExists(segmentPath(segments.get(i)));
+                deleted++;
+            }
+        } catch (IOException e) {
+            System.err.println("[Journal] Failed to prune segments of shard " + shard + ": " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    // Moves the buffer to the end of the written records and returns the last sequence (0 when empty)
+    private static long scan(ByteBuffer b, Handler handler) {
+        long last = 0;
+        while (true) {
+            int start = b.position();
+            long seq = readRecord(b, handler);
+            if (seq == 0) {
+                b.position(start);
+                return last;
+            }
+            last = seq;
+        }
+    }
+
+    // Sequence of the segment's first record; 0 when it has none yet
+    private static long firstSequenceOf(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            int read;
+            do {
+                read = ch.read(header, header.position());
+            } while (read > 0 && header.hasRemaining());
+            return header.hasRemaining() || header.getInt(0) <= 0 ? 0 : header.getLong(4);
+        }
+    }
+
+    private long lastSequenceOf(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return scan(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()), null);
+        }
+    }
+
+    // Decodes one record at the buffer position; returns its sequence, or 0 at the end marker
+    static long readRecord(ByteBuffer b, Handler handler) {
+        if (b.remaining() < HEADER_BYTES) return 0;
+        int bodyLength = b.getInt();
+        if (bodyLength <= 0 || bodyLength > b.remaining()) return 0;
+        int end = b.position() + bodyLength;
+        long seq = b.getLong();
+        byte type = b.get();
+        if (handler == null) {
+            b.position(end);
+            return seq;
+        }
+        switch (type) {
+            case NEW -> {
+                long orderId = b.getLong();
+                String symbol = getString(b);
+                String client = getString(b);
+                boolean buy = b.get() == 1;
+                handler.onNew(seq, orderId, symbol, client, buy, b.getInt(), b.getLong());
+            }
+            case CANCEL -> handler.onCancel(seq, b.getLong());
+            case AMEND -> handler.onAmend(seq, b.getLong(), b.getInt(), b.getDouble());
+            case MASS_CANCEL -> handler.onMassCancel(seq, getString(b));
+            case MANUAL_TRADE -> {
+                String buyer = getString(b);
+                handler.onManualTrade(seq, buyer, b.getLong(), b.getInt());
+            }
+            case PRICE -> {
+                String symbol = getString(b);
+                handler.onPrice(seq, symbol, b.getLong());
+            }
+            case STOP -> handler.onStop(seq);
+            default -> System.err.println("[Journal] Skipping unknown record type " + type + " at sequence " + seq);
+        }
+        b.position(end);
+        return seq;
+    }
+
+    private static String getString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getShort() & 0xFFFF];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Indices of this shard's segment files, oldest first; the oldest may have been pruned
+    private List<Integer> segmentIndices() throws IOException {
+        String prefix = "shard-" + shard + "-";
+        List<Integer> indices = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(SUFFIX))
+                    .forEach(name -> indices.add(Integer.parseInt(name.substring(prefix.length(), name.length() - SUFFIX.length()))));
+        }
+        Collections.sort(indices);
+        return indices;
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("shard-%d-%06d" + SUFFIX, shard, index));
+    }
+
+    public long getNextSequence() { return nextSequence; }
+
+    @Override
+    public void close() {
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[Journal] Failed to close segment: " + e.getMessage());
+        }
+    }
+}
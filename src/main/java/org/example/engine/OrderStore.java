@@ -0,0 +1,59 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.nio.IntBuffer;
+
+// Storage for the resting orders of one shard. Every order sits in a fixed-size slot named by
+// an int; price levels, the OrderIndex and the client chains refer to orders by slot, and the
+// links between orders (level FIFO, client chain) are kept in the slots as well.
+// A removed order's slot is retired and only handed out again after recycle(), so what it
+// held can still be read until the end of the batch that removed it.
+// Used by the shard worker only, under the shard lock (see EngineConfig.setOrderStoreType).
+public interface OrderStore {
+    int NONE = -1;
+
+    // Takes in a new resting order and returns its slot, with every link set to NONE
+    int add(ShareOffer offer);
+
+    // The order has left the book; its slot becomes free at the next recycle()
+    void retire(int slot);
+
+    void recycle();
+
+    long orderId(int slot);
+    String clientId(int slot);
+    Company company(int slot);
+    boolean isBuy(int slot);
+    int quantity(int slot);
+    long priceTicks(int slot);
+
+    void reduceQuantity(int slot, int amount);
+
+    int prev(int slot);
+    int next(int slot);
+    int clientPrev(int slot);
+    int clientNext(int slot);
+    void setPrev(int slot, int prev);
+    void setNext(int slot, int next);
+    void setClientPrev(int slot, int clientPrev);
+    void setClientNext(int slot, int clientNext);
+
+    // The order as a ShareOffer: the submitted offer itself when the store keeps offers,
+    // otherwise one shared view refilled on every call (valid until the next call)
+    ShareOffer offer(int slot);
+
+    // Independent point-in-time copy, for snapshots and checkpoints
+    ShareOffer copy(int slot);
+
+    // True when offer(slot) returns the submitted offer, which then follows its fills
+    boolean keepsOffers();
+
+    // An int table for structures that grow with the number of orders (see OrderIndex),
+    // allocated where the store keeps its slots
+    IntBuffer newIntTable(int capacity);
+
+    // Orders currently in the store
+    int size();
+}
@@ -0,0 +1,17 @@
+package org.example.engine;
+
+import org.example.model_layer.ShareOffer;
+
+// Offer the engine builds from the fields of a submitOrder call. With pooling on, its shard
+// takes it back once the order is done (filled, cancelled or rejected) and reuses it for a
+// later order, so callers must not keep one past the fill or ack callback that hands it out.
+final class PooledOffer extends ShareOffer {
+    PooledOffer() {
+        super(null, null, 0, 0.0, true);
+    }
+
+    void reset(OrderEvent event) {
+        reuse(event.getOrderId(), event.getClientId(), event.getCompany(), event.getQuantity(),
+                event.getPriceTicks(), event.isBuy(), event.getTimestampNanos());
+    }
+}
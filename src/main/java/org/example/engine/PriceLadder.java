@@ -0,0 +1,169 @@
+package org.example.engine;
+
+// Price levels of one book side, keyed by primitive long ticks.
+// The levels themselves are the nodes of an AVL tree ordered by price, so looking up,
+// adding or removing a level is O(log levels) at any depth. They are also chained in
+// price order, which keeps the best level at hand (O(1)) and lets readers walk the side
+// from the best price outwards with worse(). Emptied levels are kept (up to
+// MAX_FREE_LEVELS) and reused for new prices.
+public class PriceLadder {
+    private static final int MAX_FREE_LEVELS = 64;
+
+    private final boolean bidSide;
+    private final OrderStore store;
+    private PriceLevel root;
+    private PriceLevel best;
+    private int size;
+    private final PriceLevel[] free = new PriceLevel[MAX_FREE_LEVELS];
+    private int freeCount;
+
+    public PriceLadder(boolean bidSide, OrderStore store) {
+        this.bidSide = bidSide;
+        this.store = store;
+    }
+
+    public PriceLevel get(long priceTicks) {
+        PriceLevel node = root;
+        while (node != null) {
+            long p = node.getPriceTicks();
+            if (priceTicks == p) return node;
+            node = priceTicks < p ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public PriceLevel getOrCreate(long priceTicks) {
+        // the neighbours in price order fall out of the search path
+        PriceLevel lower = null, higher = null;
+        PriceLevel node = root;
+        while (node != null) {
+            long p = node.getPriceTicks();
+            if (priceTicks == p) return node;
+            if (priceTicks < p) {
+                higher = node;
+                node = node.left;
+            } else {
+                lower = node;
+                node = node.right;
+            }
+        }
+
+        PriceLevel level;
+        if (freeCount > 0) {
+            level = free[--freeCount];
+            free[freeCount] = null;
+            level.reset(priceTicks);
+        } else {
+            level = new PriceLevel(store, priceTicks);
+        }
+        root = insert(root, level);
+        level.lower = lower;
+        level.higher = higher;
+        if (lower != null) lower.higher = level;
+        if (higher != null) higher.lower = level;
+        if ((bidSide ? higher : lower) == null) best = level;
+        size++;
+        return level;
+    }
+
+    public void remove(long priceTicks) {
+        PriceLevel level = get(priceTicks);
+        if (level == null) return;
+        // the tree uses the price chain to find a successor, so unchain afterwards
+        root = delete(root, priceTicks);
+        if (level.lower != null) level.lower.higher = level.higher;
+        if (level.higher != null) level.higher.lower = level.lower;
+        if (level == best) best = worse(level);
+        level.left = level.right = level.lower = level.higher = null;
+        size--;
+        if (freeCount < free.length && level.isEmpty()) free[freeCount++] = level;
+    }
+
+    public PriceLevel best() {
+        return best;
+    }
+
+    // Next level away from the touch, or null after the worst price
+    public PriceLevel worse(PriceLevel level) {
+        return bidSide ? level.lower : level.higher;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static PriceLevel insert(PriceLevel node, PriceLevel level) {
+        if (node == null) {
+            level.left = level.right = null;
+            level.height = 1;
+            return level;
+        }
+        if (level.getPriceTicks() < node.getPriceTicks()) node.left = insert(node.left, level);
+        else node.right = insert(node.right, level);
+        return balance(node);
+    }
+
+    private static PriceLevel delete(PriceLevel node, long priceTicks) {
+        long p = node.getPriceTicks();
+        if (priceTicks < p) {
+            node.left = delete(node.left, priceTicks);
+        } else if (priceTicks > p) {
+            node.right = delete(node.right, priceTicks);
+        } else {
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            // the in-order successor (leftmost of the right subtree) takes the node's place
+            PriceLevel successor = node.higher;
+            successor.right = deleteLeftmost(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private static PriceLevel deleteLeftmost(PriceLevel node) {
+        if (node.left == null) return node.right;
+        node.left = deleteLeftmost(node.left);
+        return balance(node);
+    }
+
+    private static PriceLevel balance(PriceLevel node) {
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        updateHeight(node);
+        return node;
+    }
+
+    private static PriceLevel rotateRight(PriceLevel node) {
+        PriceLevel top = node.left;
+        node.left = top.right;
+        top.right = node;
+        updateHeight(node);
+        updateHeight(top);
+        return top;
+    }
+
+    private static PriceLevel rotateLeft(PriceLevel node) {
+        PriceLevel top = node.right;
+        node.right = top.left;
+        top.left = node;
+        updateHeight(node);
+        updateHeight(top);
+        return top;
+    }
+
+    private static void updateHeight(PriceLevel node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    private static int height(PriceLevel node) {
+        return node == null ? 0 : node.height;
+    }
+}
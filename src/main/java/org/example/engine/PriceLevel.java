@@ -0,0 +1,82 @@
+package org.example.engine;
+
+// All resting orders at one price, oldest first (time priority).
+// Doubly-linked list of OrderStore slots, linked through the slots' prev/next:
+// append, unlink and head are O(1).
+public class PriceLevel {
+    private final OrderStore store;
+    private long priceTicks;
+    private int head = OrderStore.NONE;
+    private int tail = OrderStore.NONE;
+    private int size;
+    private long totalQuantity;
+
+    // change-tracking stamp owned by MarketDataBook
+    long marketDataMark;
+
+    // tree and price-order links owned by PriceLadder
+    PriceLevel left, right, lower, higher;
+    int height;
+
+    public PriceLevel(OrderStore store, long priceTicks) {
+        this.store = store;
+        this.priceTicks = priceTicks;
+    }
+
+    // Reuse by PriceLadder for another price; the level is empty by then
+    void reset(long priceTicks) {
+        this.priceTicks = priceTicks;
+        head = OrderStore.NONE;
+        tail = OrderStore.NONE;
+        size = 0;
+        totalQuantity = 0;
+        marketDataMark = 0;
+    }
+
+    public void append(int slot) {
+        store.setPrev(slot, tail);
+        store.setNext(slot, OrderStore.NONE);
+        if (tail == OrderStore.NONE) head = slot;
+        else store.setNext(tail, slot);
+        tail = slot;
+        size++;
+        totalQuantity += store.quantity(slot);
+    }
+
+    public void unlink(int slot) {
+        int prev = store.prev(slot);
+        int next = store.next(slot);
+        if (prev == OrderStore.NONE) head = next;
+        else store.setNext(prev, next);
+        if (next == OrderStore.NONE) tail = prev;
+        else store.setPrev(next, prev);
+        store.setPrev(slot, OrderStore.NONE);
+        store.setNext(slot, OrderStore.NONE);
+        size--;
+        totalQuantity -= store.quantity(slot);
+    }
+
+    // Keeps the level total in step with a partial fill of one of its orders
+    void onFill(int quantity) {
+        totalQuantity -= quantity;
+    }
+
+    // Slot of the oldest order, or OrderStore.NONE
+    public int head() {
+        return head;
+    }
+
+    public boolean isEmpty() {
+        return head == OrderStore.NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public long getPriceTicks() { return priceTicks; }
+}
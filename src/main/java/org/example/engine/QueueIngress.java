@@ -0,0 +1,96 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Default ingress: an unbounded LinkedBlockingQueue
+public class QueueIngress implements OrderIngress {
+    private final BlockingQueue<OrderEvent> queue = new LinkedBlockingQueue<>();
+    private final boolean stampTime;
+
+    public QueueIngress() {
+        this(false);
+    }
+
+    // stampTime: record the publish time in each event (for EngineMetrics)
+    public QueueIngress(boolean stampTime) {
+        this.stampTime = stampTime;
+    }
+
+    @Override
+    public void publish(ShareOffer offer) {
+        OrderEvent event = new OrderEvent();
+        event.set(offer);
+        enqueue(event);
+    }
+
+    @Override
+    public void publishNew(long orderId, String clientId, Company company, int quantity, long priceTicks,
+                           boolean buy, long timestampNanos) {
+        OrderEvent event = new OrderEvent();
+        event.setNew(orderId, clientId, company, quantity, priceTicks, buy, timestampNanos);
+        enqueue(event);
+    }
+
+    @Override
+    public void publishAll(Collection<? extends ShareOffer> offers) {
+        for (ShareOffer offer : offers) publish(offer);
+    }
+
+    @Override
+    public void publishCancel(long orderId) {
+        OrderEvent event = new OrderEvent();
+        event.setCancel(orderId);
+        enqueue(event);
+    }
+
+    @Override
+    public void publishAmend(long orderId, int newQuantity, double newPrice) {
+        OrderEvent event = new OrderEvent();
+        event.setAmend(orderId, newQuantity, newPrice);
+        enqueue(event);
+    }
+
+    @Override
+    public void publishMassCancel(String clientId) {
+        OrderEvent event = new OrderEvent();
+        event.setMassCancel(clientId);
+        enqueue(event);
+    }
+
+    @Override
+    public void publishCheckpoint(EngineCheckpoint.Capture checkpoint) {
+        OrderEvent event = new OrderEvent();
+        event.setCheckpoint(checkpoint);
+        enqueue(event);
+    }
+
+    private void enqueue(OrderEvent event) {
+        if (stampTime) event.setPublishedNanos(System.nanoTime());
+        queue.offer(event);
+    }
+
+    @Override
+    public void take(OrderEvent into) throws InterruptedException {
+        into.copyFrom(queue.take());
+    }
+
+    @Override
+    public int drainTo(OrderEvent[] into, int offset, int max) {
+        int n = 0;
+        OrderEvent event;
+        while (n < max && (event = queue.poll()) != null) {
+            into[offset + n++].copyFrom(event);
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.engine;
+
+// JMX view of journal shipping, on the primary (JournalShipper) and the standby (StandbyReplica);
+// latencies are in nanoseconds
+public interface ReplicationMXBean {
+    // Primary: from writing a record to the standby acknowledging it as applied.
+    // Standby: from the primary writing a record to applying it here (compares the two clocks).
+    LatencySnapshot getLag();
+
+    // Records written on the primary that the standby has not applied yet
+    long getLagRecords();
+
+    // Records shipped (primary) or applied (standby)
+    long getRecords();
+
+    boolean isConnected();
+}
@@ -0,0 +1,229 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Multi-producer / single-consumer ring of preallocated OrderEvent slots.
+// Producers claim a sequence with one getAndIncrement, fill the slot and mark it
+// published by writing the slot's lap number; nothing is allocated per order.
+// When the ring is full producers spin (then park briefly) until the worker catches up.
+public class RingBufferIngress implements OrderIngress {
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int SPIN_TRIES = 100;
+
+    private final OrderEvent[] slots;
+    private final int[] published; // lap number of the last event written to each slot
+    private final int mask;
+    private final int shift;
+    private final WaitStrategy waitStrategy;
+    private final boolean stampTime;
+
+    private final AtomicLong claimed = new AtomicLong(); // next sequence to hand to a producer
+    private volatile long consumed = 0;                  // next sequence the worker will read
+
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition notEmpty = waitLock.newCondition();
+    private volatile boolean consumerWaiting = false;
+
+    public RingBufferIngress(int size, WaitStrategy waitStrategy) {
+        this(size, waitStrategy, false);
+    }
+
+    // stampTime: record the publish time in each event (for EngineMetrics)
+    public RingBufferIngress(int size, WaitStrategy waitStrategy, boolean stampTime) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("ring buffer size must be a power of two, got " + size);
+        }
+        this.slots = new OrderEvent[size];
+        this.published = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new OrderEvent();
+            published[i] = -1;
+        }
+        this.mask = size - 1;
+        this.shift = Integer.numberOfTrailingZeros(size);
+        this.waitStrategy = waitStrategy;
+        this.stampTime = stampTime;
+    }
+
+    @Override
+    public void publish(ShareOffer offer) {
+        long seq = claim();
+        slots[(int) seq & mask].set(offer);
+        commit(seq);
+    }
+
+    @Override
+    public void publishNew(long orderId, String clientId, Company company, int quantity, long priceTicks,
+                           boolean buy, long timestampNanos) {
+        long seq = claim();
+        slots[(int) seq & mask].setNew(orderId, clientId, company, quantity, priceTicks, buy, timestampNanos);
+        commit(seq);
+    }
+
+    // Claims the whole run of sequences at once (at most a ring's worth per claim),
+    // so the offers sit next to each other and the worker can drain them together
+    @Override
+    public void publishAll(Collection<? extends ShareOffer> offers) {
+        Iterator<? extends ShareOffer> it = offers.iterator();
+        int left = offers.size();
+        while (left > 0) {
+            int n = Math.min(left, slots.length);
+            long first = claim(n);
+            for (long seq = first; seq < first + n; seq++) {
+                slots[(int) seq & mask].set(it.next());
+                commit(seq);
+            }
+            left -= n;
+        }
+    }
+
+    @Override
+    public void publishCancel(long orderId) {
+        long seq = claim();
+        slots[(int) seq & mask].setCancel(orderId);
+        commit(seq);
+    }
+
+    @Override
+    public void publishAmend(long orderId, int newQuantity, double newPrice) {
+        long seq = claim();
+        slots[(int) seq & mask].setAmend(orderId, newQuantity, newPrice);
+        commit(seq);
+    }
+
+    @Override
+    public void publishMassCancel(String clientId) {
+        long seq = claim();
+        slots[(int) seq & mask].setMassCancel(clientId);
+        commit(seq);
+    }
+
+    @Override
+    public void publishCheckpoint(EngineCheckpoint.Capture checkpoint) {
+        long seq = claim();
+        slots[(int) seq & mask].setCheckpoint(checkpoint);
+        commit(seq);
+    }
+
+    // Claims the next sequence, waiting for the worker to free the slot we are about to overwrite
+    private long claim() {
+        return claim(1);
+    }
+
+    // Claims n consecutive sequences and returns the first
+    private long claim(int n) {
+        long seq = claimed.getAndAdd(n);
+        int tries = 0;
+        while (seq + n - 1 - consumed >= slots.length) {
+            tries = idle(tries);
+        }
+        return seq;
+    }
+
+    private void commit(long seq) {
+        if (stampTime) slots[(int) seq & mask].setPublishedNanos(System.nanoTime());
+        // volatile (not just release) so the consumerWaiting read below cannot move ahead of it
+        PUBLISHED.setVolatile(published, (int) seq & mask, (int) (seq >>> shift));
+
+        if (consumerWaiting) {
+            waitLock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void take(OrderEvent into) throws InterruptedException {
+        long seq = consumed;
+        int idx = (int) seq & mask;
+        int lap = (int) (seq >>> shift);
+
+        int tries = 0;
+        while ((int) PUBLISHED.getAcquire(published, idx) != lap) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            tries = waitForPublish(idx, lap, tries);
+        }
+
+        OrderEvent slot = slots[idx];
+        into.copyFrom(slot);
+        slot.clear();
+        consumed = seq + 1;
+    }
+
+    @Override
+    public int drainTo(OrderEvent[] into, int offset, int max) {
+        long seq = consumed;
+        int n = 0;
+        while (n < max) {
+            int idx = (int) seq & mask;
+            if ((int) PUBLISHED.getAcquire(published, idx) != (int) (seq >>> shift)) break;
+            OrderEvent slot = slots[idx];
+            into[offset + n++].copyFrom(slot);
+            slot.clear();
+            seq++;
+        }
+        // one volatile write frees the whole run for the producers
+        if (n > 0) consumed = seq;
+        return n;
+    }
+
+    private int waitForPublish(int idx, int lap, int tries) throws InterruptedException {
+        switch (waitStrategy) {
+            case BUSY_SPIN -> Thread.onSpinWait();
+            case YIELDING -> {
+                if (tries < SPIN_TRIES) Thread.onSpinWait();
+                else Thread.yield();
+            }
+            case BLOCKING -> {
+                if (tries < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    waitLock.lock();
+                    try {
+                        consumerWaiting = true;
+                        // re-check under the lock so a publish between the check and await is not missed;
+                        // the timeout is only a safety net
+                        if ((int) PUBLISHED.getAcquire(published, idx) != lap) {
+                            notEmpty.await(1, TimeUnit.MILLISECONDS);
+                        }
+                    } finally {
+                        consumerWaiting = false;
+                        waitLock.unlock();
+                    }
+                }
+            }
+        }
+        return tries + 1;
+    }
+
+    // Producer back-off while the ring is full
+    private int idle(int tries) {
+        if (tries < SPIN_TRIES) Thread.onSpinWait();
+        else if (tries < SPIN_TRIES * 2) Thread.yield();
+        else LockSupport.parkNanos(1_000);
+        return tries + 1;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, claimed.get() - consumed);
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+}
@@ -3,16 +3,21 @@ package org.example.engine;
 import org.example.model_layer.Company;
 import org.example.model_layer.ShareOffer;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 
-public class Seller implements Runnable {
+// With a ledger, the seller's account there is its balance and portfolio once it is
+// registered, as for Buyer.
+public class Seller implements Agent {
     private final String id;
     private final Map<Company, Integer> portofolio;
     private final TradingEngine engine;
     private final Random random;
     private double balance;
+    // balance when registered or last restored; the shards count the cash moved since (see EngineShard)
+    private double startingBalance;
     private volatile boolean active = true;
 
     public Seller(String id, TradingEngine engine, double initialBalance) {
@@ -21,25 +26,14 @@ public class Seller implements Runnable {
         this.portofolio = new HashMap<>();
         this.random = new Random();
         this.balance = initialBalance;
+        this.startingBalance = this.balance;
     }
 
     @Override
     public void run() {
         while (active) {
             try {
-                if (portofolio.isEmpty()) {
-                    Thread.sleep(1000);
-                    continue;
-                }
-
-                Company[] companies = portofolio.keySet().toArray(new Company[0]);
-                Company company = companies[random.nextInt(companies.length)];
-                int quantity = random.nextInt(portofolio.get(company)) + 1;
-                double price = company.getCurrentPrice() * (0.95 + random.nextDouble() * 0.1);
-
-                placeSellOrder(company, quantity, price);
-
-                Thread.sleep(1000 + random.nextInt(2000));
+                Thread.sleep(step());
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
@@ -47,16 +41,50 @@ public class Seller implements Runnable {
         }
     }
 
+    // One round of agent logic; returns how long to wait before the next round, in millis
+    @Override
+    public long step() {
+        Company company;
+        int quantity;
+        synchronized (this) {
+            Map<Company, Integer> holdings = getPortfolio();
+            if (holdings.isEmpty()) {
+                return 1000;
+            }
+            Company[] companies = holdings.keySet().toArray(new Company[0]);
+            company = companies[random.nextInt(companies.length)];
+            quantity = random.nextInt(holdings.get(company)) + 1;
+        }
+
+        // shares already offered in resting orders are reserved by the ledger
+        AccountLedger ledger = ledger();
+        if (ledger != null) {
+            long available = ledger.getAvailablePosition(id, company);
+            if (available <= 0) return 1000;
+            quantity = (int) Math.min(quantity, available);
+        }
+
+        double price = company.getCurrentPrice() * (0.95 + random.nextDouble() * 0.1);
+
+        placeSellOrder(company, quantity, price);
+
+        return 1000 + random.nextInt(2000);
+    }
+
     public void placeSellOrder(Company company, int quantity, double pricePerShare) {
         ShareOffer offer = new ShareOffer(id, company, quantity, pricePerShare, false);
         engine.submitSellOrder(offer);
     }
 
+    // Stops the agent and pulls its resting orders from the book
+    @Override
     public void stop() {
         active = false;
+        engine.cancelAllOrders(id);
     }
 
-    public void updateAfterTransaction(Company company, int tradedQuantity, double totalValue) {
+    // Called from the matching workers when there is no ledger, see Buyer.updateAfterTransaction
+    public synchronized void updateAfterTransaction(Company company, int tradedQuantity, double totalValue) {
         balance += totalValue;
         int ownedShares = portofolio.getOrDefault(company, 0);
         int remainingShares = Math.max(0, ownedShares - tradedQuantity);
@@ -67,12 +95,68 @@ public class Seller implements Runnable {
         }
     }
 
-    public String getId() { return id; }
-    public double getBalance() { return balance; }
-    public Map<Company, Integer> getPortfolio() { return portofolio; }
+    // Point-in-time copy, used to open a ledger account
+    synchronized AgentState captureState() {
+        return new AgentState(id, balance, portofolio);
+    }
+
+    // This agent at a checkpoint: the starting balance plus the cash the shards counted up to
+    // their cuts, and the holdings they copied
+    synchronized AgentState checkpointState(double cashMoved, Map<Company, Integer> holdings) {
+        return new AgentState(id, startingBalance + cashMoved, holdings);
+    }
+
+    // Holdings in the given companies; a shard copies those of its own companies at its cut
+    synchronized void copyHoldings(Collection<Company> companies, Map<Company, Integer> into) {
+        AccountLedger ledger = ledger();
+        for (Company company : companies) {
+            if (ledger != null) {
+                long shares = ledger.getPosition(id, company);
+                if (shares != 0) into.put(company, (int) shares);
+            } else {
+                Integer shares = portofolio.get(company);
+                if (shares != null) into.put(company, shares);
+            }
+        }
+    }
+
+    // Puts back the balance and portfolio saved in a checkpoint
+    synchronized void restoreState(AgentState state) {
+        balance = state.getBalance();
+        startingBalance = balance;
+        portofolio.clear();
+        portofolio.putAll(state.getPortfolio());
+    }
+
+    // Ledger view of this seller's cash and shares; null when the engine has no ledger
+    public AccountSnapshot getAccount() {
+        AccountLedger ledger = engine.getLedger();
+        return ledger == null ? null : ledger.snapshot(id);
+    }
+
+    @Override public String getId() { return id; }
+    @Override public boolean isActive() { return active; }
+
+    public synchronized double getBalance() {
+        AccountLedger ledger = ledger();
+        return ledger != null ? ledger.getCash(id) : balance;
+    }
+
+    // A copy from the ledger once registered with one, else the seller's own map
+    // (which is where its starting shares go before registering)
+    public Map<Company, Integer> getPortfolio() {
+        AccountLedger ledger = ledger();
+        return ledger != null ? ledger.getPositions(id) : portofolio;
+    }
+
+    // The engine's ledger if it holds this seller's account
+    private AccountLedger ledger() {
+        AccountLedger ledger = engine.getLedger();
+        return ledger != null && ledger.accountOf(id) >= 0 ? ledger : null;
+    }
 
     @Override
-    public String toString() {
-        return String.format("Seller{id='%s', balance=%.2f, portfolio=%s}", id, balance, portofolio);
+    public synchronized String toString() {
+        return String.format("Seller{id='%s', balance=%.2f, portfolio=%s}", id, getBalance(), getPortfolio());
     }
 }
@@ -0,0 +1,242 @@
+package org.example.engine;
+
+import org.example.model_layer.EpochClock;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Standby side of hot-standby replication: connects to a primary's JournalShipper and applies
+// the shipped journal records to its own engine, in each shard's sequence order and through
+// the same path as journal recovery, so its books, prices, trade history and agent balances
+// follow the primary's. Records are also copied into the standby's journal, if it has one.
+//
+// The engine must be built like the primary's (companies, partition count, registered agents)
+// and must not be started or sent orders. It starts empty, or recovered (TradingEngine.recover)
+// from a copy of one of the primary's checkpoints, in which case the primary sends only the
+// records after that checkpoint's cut and may have pruned the ones before. Once the primary is gone
+// (connection closed, or no heartbeat for PRIMARY_TIMEOUT_MILLIS), takeOver() makes it a normal
+// engine holding the primary's last state; start it and point order flow at it.
+public class StandbyReplica implements ReplicationMXBean, AutoCloseable {
+    public static final int PRIMARY_TIMEOUT_MILLIS = 10 * JournalShipper.HEARTBEAT_MILLIS;
+
+    private static final long ACK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final TradingEngine engine;
+    private final int partitions;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Thread receiver;
+
+    private final AtomicLongArray applied;           // last applied sequence per shard
+    private final AtomicLongArray primarySequence;   // last sequence the primary reported per shard
+    private final LatencyHistogram lag = new LatencyHistogram("replicationLag");
+    private final LongAdder records = new LongAdder();
+    private long lastPrimaryNanos;                   // receiver thread
+    private final CountDownLatch lost = new CountDownLatch(1);
+    private volatile boolean stopping;
+    private ObjectName objectName;
+
+    public StandbyReplica(TradingEngine engine, InetSocketAddress primary) throws IOException {
+        this.engine = engine;
+        this.partitions = engine.getPartitionCount();
+        this.applied = new AtomicLongArray(partitions);
+        this.primarySequence = new AtomicLongArray(partitions);
+        for (int i = 0; i < partitions; i++) {
+            applied.set(i, engine.getShard(i).getRecoveredSequence());
+            primarySequence.set(i, applied.get(i));
+        }
+        this.socket = new Socket();
+        socket.connect(primary, PRIMARY_TIMEOUT_MILLIS);
+        socket.setSoTimeout(PRIMARY_TIMEOUT_MILLIS);
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        try {
+            if (in.readByte() != JournalShipper.HELLO) throw new IOException("not a journal shipper");
+            int primaryPartitions = in.readInt();
+            if (primaryPartitions != partitions) {
+                throw new IllegalStateException("primary has " + primaryPartitions
+                        + " partitions, standby engine has " + partitions);
+            }
+            engine.beginStandby();
+            // tells the primary where to start
+            acknowledge();
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+        this.receiver = new Thread(this::receiveLoop, "standby-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+        register();
+        System.out.println("[Standby] Replicating from " + primary);
+    }
+
+    private void receiveLoop() {
+        byte[] body = new byte[4096];
+        ByteBuffer record = ByteBuffer.wrap(body);
+        String reason = "stopped";
+        long lastAck = System.nanoTime();
+        try {
+            while (true) {
+                byte type = in.readByte();
+                if (type == JournalShipper.RECORD) {
+                    int shard = in.readInt();
+                    long primaryNanos = in.readLong();
+                    int bodyLength = in.readInt();
+                    int length = 4 + bodyLength;
+                    if (length > body.length) {
+                        body = new byte[Math.max(length, body.length * 2)];
+                        record = ByteBuffer.wrap(body);
+                    }
+                    record.putInt(0, bodyLength);
+                    in.readFully(body, 4, bodyLength);
+                    apply(shard, record, length, primaryNanos);
+                } else if (type == JournalShipper.HEARTBEAT) {
+                    in.readLong();
+                    for (int i = 0; i < partitions; i++) primarySequence.set(i, in.readLong());
+                } else {
+                    throw new IOException("unknown message type " + type);
+                }
+                // publish and acknowledge once the input is drained, and at least every
+                // ACK_NANOS during a flood so the primary's lag keeps being sampled
+                long now = System.nanoTime();
+                if (in.available() == 0 || now - lastAck >= ACK_NANOS) {
+                    engine.publishReplicated();
+                    acknowledge();
+                    lastAck = now;
+                }
+            }
+        } catch (EOFException e) {
+            reason = "primary closed the connection";
+        } catch (SocketTimeoutException e) {
+            reason = "no heartbeat for " + PRIMARY_TIMEOUT_MILLIS + " ms";
+        } catch (IOException | RuntimeException e) {
+            if (!stopping) reason = e.getMessage();
+        } finally {
+            closeSocket();
+            if (!stopping) System.err.println("[Standby] Lost the primary after " + records.sum() + " records: " + reason);
+            lost.countDown();
+        }
+    }
+
+    // A record already applied (sent again) is skipped; a missing one ends replication
+    private void apply(int shard, ByteBuffer record, int length, long primaryNanos) throws IOException {
+        long sequence = record.getLong(4);
+        long last = applied.get(shard);
+        if (sequence <= last) return;
+        if (sequence != last + 1) {
+            throw new IOException("shard " + shard + " expected sequence " + (last + 1) + ", got " + sequence);
+        }
+        engine.applyReplicated(shard, record, 0, length);
+        applied.set(shard, sequence);
+        if (sequence > primarySequence.get(shard)) primarySequence.set(shard, sequence);
+        records.increment();
+        lastPrimaryNanos = primaryNanos;
+        lag.record(EpochClock.now() - primaryNanos);
+    }
+
+    private void acknowledge() throws IOException {
+        for (int i = 0; i < partitions; i++) out.writeLong(applied.get(i));
+        out.writeLong(lastPrimaryNanos);
+        out.flush();
+    }
+
+    // True once the primary is gone; takeOver() may follow
+    public boolean awaitPrimaryLoss(long timeout, TimeUnit unit) throws InterruptedException {
+        return lost.await(timeout, unit);
+    }
+
+    // Stops replicating and hands the engine over: it journals, persists trades and moves prices
+    // itself from here on. Run the engine (and its agents) afterwards.
+    public void takeOver() throws InterruptedException {
+        stop();
+        engine.endStandby();
+        StringBuilder sequences = new StringBuilder();
+        for (int i = 0; i < partitions; i++) sequences.append(i == 0 ? "" : ", ").append(applied.get(i));
+        System.out.println("[Standby] Took over after " + records.sum() + " records, shard sequences [" + sequences + "]");
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        stop();
+    }
+
+    private void stop() throws InterruptedException {
+        stopping = true;
+        closeSocket();
+        receiver.join();
+        unregister();
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("[Standby] Failed to close the connection: " + e.getMessage());
+        }
+    }
+
+    public long getAppliedSequence(int shard) {
+        return applied.get(shard);
+    }
+
+    @Override
+    public LatencySnapshot getLag() {
+        return lag.snapshot();
+    }
+
+    @Override
+    public long getLagRecords() {
+        long behind = 0;
+        for (int i = 0; i < partitions; i++) behind += Math.max(0, primarySequence.get(i) - applied.get(i));
+        return behind;
+    }
+
+    @Override
+    public long getRecords() {
+        return records.sum();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return lost.getCount() > 0;
+    }
+
+    private void register() {
+        try {
+            objectName = new ObjectName("org.example:type=Replication,role=standby,id=" + INSTANCES.getAndIncrement());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            System.err.println("[Standby] JMX registration failed: " + e.getMessage());
+        }
+    }
+
+    private void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.println("[Standby] JMX unregistration failed: " + e.getMessage());
+        }
+        objectName = null;
+    }
+}
@@ -0,0 +1,924 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.EpochClock;
+import org.example.model_layer.Transaction;
+import org.example.model_layer.TransactionImpl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Trade history in two tiers, with one partition per shard. Unbounded (UNBOUNDED) unless
+// given a window, in which case the tiers below apply.
+// Each shard appends only to its own partition, so fills on different shards never wait for
+// each other; readers take a partition's monitor only to copy a few trades at a time. The
+// newest trades of a partition sit in a ring of parallel arrays (no per-trade objects)
+// bounded by a trade count, shared evenly between the partitions, and optionally by age.
+// Trades pushed out of the window stay in the ring until a background thread has appended
+// them to binary segment files, so the matching threads never touch the disk. Without a
+// spill directory they are discarded and counted as dropped. Iteration and range queries
+// read both tiers of every partition and merge them by timestamp, oldest first.
+//
+// In-memory trades are indexed by buyer, seller and symbol: each key has the sequence
+// numbers of its trades in append order. Timestamps are taken before the trade reaches the
+// history, so they can be slightly out of order; each slot also stores the highest timestamp
+// appended so far, which is sorted and can be binary searched, and the largest step back seen
+// bounds how far past the window end a scan has to look. Per-client net positions are kept
+// as running totals.
+//
+// Segment record: long epochNanos, int quantity, long priceTicks, UTF symbol, UTF buyerId, UTF sellerId
+public class TradeHistory implements Iterable<Transaction> {
+    // no window: every trade stays in memory, nothing is spilled or dropped
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    // evicted trades that wake the spiller; smaller backlogs are written every SPILL_INTERVAL_NANOS
+    private static final int SPILL_BATCH = 4096;
+    private static final long SPILL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // trades a reader copies out of a partition per visit
+    private static final int READ_CHUNK = 512;
+
+    private final Partition[] partitions;
+    private final long maxAgeNanos;      // 0 = no age limit
+    private final Path spillDirectory;   // null: trades leaving the window are dropped
+    private final long segmentMaxBytes;
+    private final Thread spiller;        // null without a spill directory
+    private volatile boolean closed;
+
+    // companies seen so far, to turn symbols read back from disk into Company objects
+    private final Map<String, Company> companiesBySymbol = new ConcurrentHashMap<>();
+
+    public TradeHistory() {
+        this(1, UNBOUNDED, 0, null, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public TradeHistory(int maxTrades, long maxAgeMillis, Path spillDirectory, long segmentMaxBytes) {
+        this(1, maxTrades, maxAgeMillis, spillDirectory, segmentMaxBytes);
+    }
+
+    // One partition per writer (shard); maxTrades is split between them
+    public TradeHistory(int partitions, int maxTrades, long maxAgeMillis, Path spillDirectory, long segmentMaxBytes) {
+        if (partitions < 1) throw new IllegalArgumentException("partitions must be >= 1");
+        if (maxTrades < 1) throw new IllegalArgumentException("maxTrades must be >= 1");
+        this.maxAgeNanos = maxAgeMillis * 1_000_000L;
+        this.spillDirectory = spillDirectory;
+        this.segmentMaxBytes = segmentMaxBytes;
+        int window = maxTrades == UNBOUNDED ? UNBOUNDED : (maxTrades + partitions - 1) / partitions;
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) this.partitions[i] = new Partition(i, window);
+        if (spillDirectory != null) {
+            spiller = new Thread(this::spillLoop, "trade-history-spill");
+            spiller.setDaemon(true);
+            spiller.start();
+        } else {
+            spiller = null;
+            if (maxTrades != UNBOUNDED || maxAgeMillis > 0) {
+                System.out.println("[History] No spill directory: trades older than the window are dropped");
+            }
+        }
+    }
+
+    // For a history with a single writer
+    public void add(Transaction t) {
+        add(0, t);
+    }
+
+    // Only the shard that owns `partition` may add to it
+    public void add(int partition, Transaction t) {
+        Company company = t.getCompany();
+        if (!companiesBySymbol.containsKey(company.getSymbol())) companiesBySymbol.put(company.getSymbol(), company);
+        partitions[partition].add(t);
+    }
+
+    // ---- reading ----
+
+    // All trades, oldest first, as of this call; trades can keep being added meanwhile.
+    // Reads lazily; close the cursor when stopping early so no segment file stays open.
+    @Override
+    public Cursor iterator() {
+        return cursor(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Transaction> action) {
+        try (Cursor cursor = iterator()) {
+            cursor.forEachRemaining(action);
+        }
+    }
+
+    // Trades with from <= timestamp < to, oldest first
+    public List<Transaction> range(LocalDateTime from, LocalDateTime to) {
+        List<Transaction> result = new ArrayList<>();
+        forEachInRange(from, to, result::add);
+        return result;
+    }
+
+    public void forEachInRange(LocalDateTime from, LocalDateTime to, Consumer<Transaction> action) {
+        try (Cursor cursor = cursor(boundNanos(from), boundNanos(to))) {
+            cursor.forEachRemaining(action);
+        }
+    }
+
+    private Cursor cursor(long fromNanos, long toNanos) {
+        PartitionCursor[] cursors = new PartitionCursor[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            Partition p = partitions[i];
+            synchronized (p) {
+                cursors[i] = new PartitionCursor(p, fromNanos, toNanos, p.firstSequence + p.count, null);
+            }
+        }
+        return new Cursor(cursors);
+    }
+
+    // ---- indexed queries ----
+    // Each costs a binary search plus the size of the result for the in-memory window. A window
+    // that starts before the oldest in-memory trade also reads the spilled segments.
+
+    // Trades where the client bought, with from <= timestamp < to, oldest first
+    public List<Transaction> forBuyer(String buyerId, LocalDateTime from, LocalDateTime to) {
+        return query(IndexKind.BUYER, null, buyerId, from, to, t -> t.getBuyerId().equals(buyerId));
+    }
+
+    public List<Transaction> forSeller(String sellerId, LocalDateTime from, LocalDateTime to) {
+        return query(IndexKind.SELLER, null, sellerId, from, to, t -> t.getSellerId().equals(sellerId));
+    }
+
+    // Trades on either side, each once
+    public List<Transaction> forClient(String clientId, LocalDateTime from, LocalDateTime to) {
+        return query(IndexKind.BUYER, IndexKind.SELLER, clientId, from, to,
+                t -> t.getBuyerId().equals(clientId) || t.getSellerId().equals(clientId));
+    }
+
+    public List<Transaction> forSymbol(String symbol, LocalDateTime from, LocalDateTime to) {
+        return query(IndexKind.SYMBOL, null, symbol, from, to, t -> t.getCompany().getSymbol().equals(symbol));
+    }
+
+    public List<Transaction> forSymbolSince(String symbol, LocalDateTime since) {
+        return query(IndexKind.SYMBOL, null, symbol, since, LocalDateTime.MAX, t -> t.getCompany().getSymbol().equals(symbol));
+    }
+
+    private enum IndexKind { BUYER, SELLER, SYMBOL }
+
+    private List<Transaction> query(IndexKind index, IndexKind second, String key,
+                                    LocalDateTime from, LocalDateTime to, Predicate<Transaction> onDisk) {
+        long fromNanos = boundNanos(from);
+        long toNanos = boundNanos(to);
+        List<List<Transaction>> parts = new ArrayList<>(partitions.length);
+        for (Partition p : partitions) parts.add(p.query(index, second, key, fromNanos, toNanos, onDisk));
+        return parts.size() == 1 ? parts.get(0) : mergeByTime(parts);
+    }
+
+    // Merges lists that are each oldest first
+    private static List<Transaction> mergeByTime(List<List<Transaction>> parts) {
+        int total = 0;
+        for (List<Transaction> part : parts) total += part.size();
+        List<Transaction> result = new ArrayList<>(total);
+        int[] next = new int[parts.size()];
+        while (result.size() < total) {
+            int pick = -1;
+            for (int i = 0; i < parts.size(); i++) {
+                if (next[i] == parts.get(i).size()) continue;
+                if (pick < 0 || parts.get(i).get(next[i]).getTimestampNanos()
+                        < parts.get(pick).get(next[pick]).getTimestampNanos()) {
+                    pick = i;
+                }
+            }
+            result.add(parts.get(pick).get(next[pick]++));
+        }
+        return result;
+    }
+
+    // Net shares bought minus sold per company, over every trade recorded
+    public Map<Company, Long> getPositions(String clientId) {
+        Map<Company, Long> result = new HashMap<>();
+        for (Partition p : partitions) {
+            synchronized (p) {
+                Map<Company, Position> positions = p.positions.get(clientId);
+                if (positions != null) positions.forEach((company, position) -> result.merge(company, position.shares, Long::sum));
+            }
+        }
+        return result;
+    }
+
+    public long getPosition(String clientId, Company company) {
+        long shares = 0;
+        for (Partition p : partitions) {
+            synchronized (p) {
+                Map<Company, Position> positions = p.positions.get(clientId);
+                Position position = positions == null ? null : positions.get(company);
+                if (position != null) shares += position.shares;
+            }
+        }
+        return shares;
+    }
+
+    // Mutable running total, so a trade does not box a new Long
+    private static final class Position {
+        long shares;
+    }
+
+    // Trades recorded so far, including any no longer kept (see getDroppedCount)
+    public long size() {
+        long size = 0;
+        for (Partition p : partitions) {
+            synchronized (p) {
+                size += p.firstSequence + p.count;
+            }
+        }
+        return size;
+    }
+
+    public int getInMemoryCount() {
+        int count = 0;
+        for (Partition p : partitions) {
+            synchronized (p) {
+                count += p.count;
+            }
+        }
+        return count;
+    }
+
+    public long getSpilledCount() {
+        long spilled = 0;
+        for (Partition p : partitions) {
+            synchronized (p) {
+                spilled += p.spilledCount;
+            }
+        }
+        return spilled;
+    }
+
+    // Trades that left the window without being written to disk
+    public long getDroppedCount() {
+        long dropped = 0;
+        for (Partition p : partitions) {
+            synchronized (p) {
+                dropped += p.droppedCount;
+            }
+        }
+        return dropped;
+    }
+
+    public Path getSpillDirectory() { return spillDirectory; }
+
+    public int getPartitionCount() { return partitions.length; }
+
+    // Waits until every trade that has left the window is on disk
+    public void flush() {
+        if (spiller == null) return;
+        while (spiller.isAlive() && waitingToSpill()) {
+            LockSupport.unpark(spiller);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private boolean waitingToSpill() {
+        for (Partition p : partitions) {
+            synchronized (p) {
+                if (p.evicted > 0) return true;
+            }
+        }
+        return false;
+    }
+
+    // Writes out what is waiting to be spilled and closes the segment files; call once the
+    // shards have stopped adding. The history stays readable.
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (spiller == null) return;
+        LockSupport.unpark(spiller);
+        try {
+            spiller.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- spilling ----
+
+    private void spillLoop() {
+        SpillBatch batch = new SpillBatch();
+        while (true) {
+            boolean stopping = closed;
+            boolean wrote = false;
+            for (Partition p : partitions) {
+                if (p.spill(batch)) wrote = true;
+            }
+            if (stopping && !wrote) break;
+            if (!wrote) LockSupport.parkNanos(this, SPILL_INTERVAL_NANOS);
+        }
+        for (Partition p : partitions) p.closeSegment();
+    }
+
+    // The spiller's copy of the trades it is writing, so no partition is locked during I/O
+    private static final class SpillBatch {
+        final long[] timestamps = new long[SPILL_BATCH];
+        final int[] quantities = new int[SPILL_BATCH];
+        final long[] prices = new long[SPILL_BATCH];
+        final String[] symbols = new String[SPILL_BATCH];
+        final String[] buyerIds = new String[SPILL_BATCH];
+        final String[] sellerIds = new String[SPILL_BATCH];
+    }
+
+    static long toEpochNanos(LocalDateTime time) {
+        return EpochClock.toEpochNanos(time);
+    }
+
+    // A query bound in epoch nanos; LocalDateTime.MIN and MAX, and anything else outside the
+    // years a long of nanos covers (1677-2262), saturate instead of overflowing
+    private static long boundNanos(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        if (seconds >= Long.MAX_VALUE / 1_000_000_000L) return Long.MAX_VALUE;
+        if (seconds <= Long.MIN_VALUE / 1_000_000_000L) return Long.MIN_VALUE;
+        return toEpochNanos(time);
+    }
+
+    // One shard's trades. Entries [0, evicted) of the ring have left the window and wait for
+    // the spiller; the window is [evicted, count). Sequence numbers count the partition's
+    // trades from 0; the one at head is firstSequence.
+    private final class Partition {
+        private final int index;
+        private final int window;
+
+        // ---- in-memory ring ----
+        private long[] timestamps = new long[1024];
+        private int[] quantities = new int[1024];
+        private long[] prices = new long[1024];
+        private Company[] companies = new Company[1024];
+        private String[] buyerIds = new String[1024];
+        private String[] sellerIds = new String[1024];
+        private long[] maxTimestamps = new long[1024]; // running max of timestamps up to each slot
+        private int head;   // oldest entry
+        private int count;
+        private int evicted;
+        private boolean spillRequested;
+
+        // ---- indices over the window ----
+        private long firstSequence;        // sequence number of the trade at head
+        private long latestNanos = Long.MIN_VALUE;
+        private long maxSkewNanos;         // largest amount a timestamp fell behind an earlier one
+        private final Map<String, Postings> byBuyer = new HashMap<>();
+        private final Map<String, Postings> bySeller = new HashMap<>();
+        private final Map<String, Postings> bySymbol = new HashMap<>();
+        private final Map<String, Map<Company, Position>> positions = new HashMap<>();
+
+        // ---- on-disk tier; the output stream belongs to the spiller ----
+        private final List<Segment> segments = new ArrayList<>();
+        private DataOutputStream out;
+        private int segmentFiles;
+        private long spilledCount;
+        private long droppedCount;
+
+        Partition(int index, int window) {
+            this.index = index;
+            this.window = window;
+        }
+
+        synchronized void add(Transaction t) {
+            long ts = t.getTimestampNanos();
+
+            if (count - evicted == window) evictOldest();
+            if (count == timestamps.length) grow();
+
+            int idx = (head + count) % timestamps.length;
+            timestamps[idx] = ts;
+            quantities[idx] = t.getQuantity();
+            prices[idx] = t.getPriceTicks();
+            companies[idx] = t.getCompany();
+            buyerIds[idx] = t.getBuyerId();
+            sellerIds[idx] = t.getSellerId();
+            if (ts < latestNanos) maxSkewNanos = Math.max(maxSkewNanos, latestNanos - ts);
+            else latestNanos = ts;
+            maxTimestamps[idx] = latestNanos;
+            long sequence = firstSequence + count;
+            count++;
+
+            postings(byBuyer, t.getBuyerId()).add(sequence);
+            postings(bySeller, t.getSellerId()).add(sequence);
+            postings(bySymbol, t.getCompany().getSymbol()).add(sequence);
+            position(t.getBuyerId(), t.getCompany()).shares += t.getQuantity();
+            position(t.getSellerId(), t.getCompany()).shares -= t.getQuantity();
+
+            if (maxAgeNanos > 0) {
+                while (count - evicted > 1 && timestamps[slot(evicted)] < ts - maxAgeNanos) evictOldest();
+            }
+            if (evicted >= SPILL_BATCH && !spillRequested) {
+                spillRequested = true;
+                LockSupport.unpark(spiller);
+            }
+        }
+
+        // The oldest trade of the window leaves it: it waits for the spiller, or is dropped
+        private void evictOldest() {
+            unindex(slot(evicted));
+            if (spiller != null) {
+                evicted++;
+            } else {
+                release(1);
+                droppedCount++;
+            }
+        }
+
+        // Forgets the n oldest entries of the ring
+        private void release(int n) {
+            for (int i = 0; i < n; i++) {
+                int idx = slot(i);
+                companies[idx] = null;
+                buyerIds[idx] = null;
+                sellerIds[idx] = null;
+            }
+            head = (head + n) % timestamps.length;
+            count -= n;
+            firstSequence += n;
+        }
+
+        // Spiller thread: writes the oldest evicted trades to the current segment.
+        // Returns false when there were none.
+        boolean spill(SpillBatch batch) {
+            int n;
+            long sequence;
+            synchronized (this) {
+                spillRequested = false;
+                n = Math.min(evicted, SPILL_BATCH);
+                if (n == 0) return false;
+                for (int i = 0; i < n; i++) {
+                    int idx = slot(i);
+                    batch.timestamps[i] = timestamps[idx];
+                    batch.quantities[i] = quantities[idx];
+                    batch.prices[i] = prices[idx];
+                    batch.symbols[i] = companies[idx].getSymbol();
+                    batch.buyerIds[i] = buyerIds[idx];
+                    batch.sellerIds[i] = sellerIds[idx];
+                }
+                sequence = firstSequence;
+            }
+
+            Segment opened = null;
+            boolean written = false;
+            try {
+                if (out == null || out.size() >= segmentMaxBytes) opened = openSegment(sequence);
+                for (int i = 0; i < n; i++) {
+                    out.writeLong(batch.timestamps[i]);
+                    out.writeInt(batch.quantities[i]);
+                    out.writeLong(batch.prices[i]);
+                    out.writeUTF(batch.symbols[i]);
+                    out.writeUTF(batch.buyerIds[i]);
+                    out.writeUTF(batch.sellerIds[i]);
+                }
+                // readers may open the file as soon as the segment shows these trades
+                out.flush();
+                written = true;
+            } catch (IOException e) {
+                System.err.println("[History] Failed to spill " + n + " trades to disk: " + e.getMessage());
+                closeSegment();
+            }
+
+            synchronized (this) {
+                if (written) {
+                    if (opened != null) segments.add(opened);
+                    Segment segment = segments.get(segments.size() - 1);
+                    for (int i = 0; i < n; i++) {
+                        long ts = batch.timestamps[i];
+                        if (segment.count++ == 0) {
+                            segment.firstNanos = ts;
+                            segment.lastNanos = ts;
+                        } else {
+                            segment.firstNanos = Math.min(segment.firstNanos, ts);
+                            segment.lastNanos = Math.max(segment.lastNanos, ts);
+                        }
+                    }
+                    spilledCount += n;
+                } else {
+                    droppedCount += n;
+                }
+                evicted -= n;
+                release(n);
+            }
+            return true;
+        }
+
+        // Spiller thread; a new segment starts with the trade numbered firstSequence
+        private Segment openSegment(long firstSequence) throws IOException {
+            closeSegment();
+            Files.createDirectories(spillDirectory);
+            Path path = spillDirectory.resolve(String.format("trades-%02d-%06d.seg", index, segmentFiles++));
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            return new Segment(path, firstSequence);
+        }
+
+        private void closeSegment() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException e) {
+                System.err.println("[History] Failed to close trade segment: " + e.getMessage());
+            }
+            out = null;
+        }
+
+        // First segment holding trades numbered `sequence` or later (a copy), or null; caller holds this
+        private Segment segmentFrom(long sequence) {
+            for (Segment s : segments) {
+                if (s.firstSequence + s.count > sequence) return s.copy();
+            }
+            return null;
+        }
+
+        // Copies the next chunk of ring trades into the cursor; caller holds this
+        private void copyTo(PartitionCursor cursor) {
+            int offset = Math.max((int) (cursor.sequence - firstSequence), firstInMemory(cursor.fromNanos));
+            int end = (int) Math.min(count, cursor.endSequence - firstSequence);
+            int visited = 0;
+            while (offset < end && visited++ < READ_CHUNK) {
+                int idx = slot(offset);
+                if (timestamps[idx] >= cursor.stopNanos) {
+                    offset = end;
+                    cursor.done = true;
+                    break;
+                }
+                offset++;
+                if (timestamps[idx] >= cursor.fromNanos && timestamps[idx] < cursor.toNanos) {
+                    Transaction t = materialize(idx);
+                    if (cursor.filter == null || cursor.filter.test(t)) cursor.buffer.add(t);
+                }
+            }
+            cursor.sequence = firstSequence + offset;
+        }
+
+        List<Transaction> query(IndexKind index, IndexKind second, String key, long fromNanos, long toNanos,
+                                Predicate<Transaction> olderFilter) {
+            PartitionCursor older = null;
+            List<Transaction> memory = new ArrayList<>();
+            synchronized (this) {
+                // trades before the window are no newer than the running max at its start
+                long windowStart = firstSequence + evicted;
+                if (windowStart > 0 && (count == evicted || fromNanos <= maxTimestamps[slot(evicted)])) {
+                    older = new PartitionCursor(this, fromNanos, toNanos, windowStart, olderFilter);
+                }
+                Postings first = index(index).get(key);
+                Postings other = second == null ? null : index(second).get(key);
+                int i = first == null ? 0 : lowerBound(first, fromNanos);
+                int j = other == null ? 0 : lowerBound(other, fromNanos);
+                long stopNanos = toNanos > Long.MAX_VALUE - maxSkewNanos ? Long.MAX_VALUE : toNanos + maxSkewNanos;
+                // merge the two posting lists by sequence; a trade in both is taken once
+                while (true) {
+                    long a = first != null && i < first.size ? first.get(i) : Long.MAX_VALUE;
+                    long b = other != null && j < other.size ? other.get(j) : Long.MAX_VALUE;
+                    long sequence = Math.min(a, b);
+                    if (sequence == Long.MAX_VALUE) break;
+                    if (a == sequence) i++;
+                    if (b == sequence) j++;
+                    int idx = slotOf(sequence);
+                    if (timestamps[idx] >= stopNanos) break;
+                    if (timestamps[idx] >= fromNanos && timestamps[idx] < toNanos) memory.add(materialize(idx));
+                }
+            }
+            if (older == null) return memory;
+            List<Transaction> result = new ArrayList<>();
+            try {
+                for (Transaction t = older.next(); t != null; t = older.next()) result.add(t);
+            } finally {
+                older.close();
+            }
+            result.addAll(memory);
+            return result;
+        }
+
+        private Map<String, Postings> index(IndexKind kind) {
+            return switch (kind) {
+                case BUYER -> byBuyer;
+                case SELLER -> bySeller;
+                case SYMBOL -> bySymbol;
+            };
+        }
+
+        private Position position(String clientId, Company company) {
+            Map<Company, Position> p = positions.computeIfAbsent(clientId, k -> new HashMap<>());
+            Position position = p.get(company);
+            if (position == null) {
+                position = new Position();
+                p.put(company, position);
+            }
+            return position;
+        }
+
+        // First posting whose running max timestamp reaches fromNanos; earlier ones are all older
+        private int lowerBound(Postings postings, long fromNanos) {
+            int lo = 0;
+            int hi = postings.size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (maxTimestamps[slotOf(postings.get(mid))] < fromNanos) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        // Offset from head of the first trade whose running max timestamp reaches fromNanos
+        private int firstInMemory(long fromNanos) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (maxTimestamps[slot(mid)] < fromNanos) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private int slotOf(long sequence) {
+            return slot((int) (sequence - firstSequence));
+        }
+
+        private int slot(int offset) {
+            return (head + offset) % timestamps.length;
+        }
+
+        // The oldest trade of the window is first in each of its posting lists
+        private void unindex(int idx) {
+            dropOldest(byBuyer, buyerIds[idx]);
+            dropOldest(bySeller, sellerIds[idx]);
+            dropOldest(bySymbol, companies[idx].getSymbol());
+        }
+
+        // Up to the window the ring doubles; beyond it only while the spiller is behind
+        private void grow() {
+            int newLength = count < window ? Math.min(window, timestamps.length * 2) : timestamps.length * 2;
+            long[] newTimestamps = new long[newLength];
+            int[] newQuantities = new int[newLength];
+            long[] newPrices = new long[newLength];
+            Company[] newCompanies = new Company[newLength];
+            String[] newBuyers = new String[newLength];
+            String[] newSellers = new String[newLength];
+            long[] newMaxTimestamps = new long[newLength];
+            for (int i = 0; i < count; i++) {
+                int idx = slot(i);
+                newTimestamps[i] = timestamps[idx];
+                newQuantities[i] = quantities[idx];
+                newPrices[i] = prices[idx];
+                newCompanies[i] = companies[idx];
+                newBuyers[i] = buyerIds[idx];
+                newSellers[i] = sellerIds[idx];
+                newMaxTimestamps[i] = maxTimestamps[idx];
+            }
+            timestamps = newTimestamps;
+            quantities = newQuantities;
+            prices = newPrices;
+            companies = newCompanies;
+            buyerIds = newBuyers;
+            sellerIds = newSellers;
+            maxTimestamps = newMaxTimestamps;
+            head = 0;
+        }
+
+        private Transaction materialize(int idx) {
+            return TransactionImpl.ofTicks(buyerIds[idx], sellerIds[idx], companies[idx],
+                    quantities[idx], prices[idx], timestamps[idx]);
+        }
+    }
+
+    private static Postings postings(Map<String, Postings> index, String key) {
+        return index.computeIfAbsent(key, k -> new Postings());
+    }
+
+    private static void dropOldest(Map<String, Postings> index, String key) {
+        Postings postings = index.get(key);
+        if (postings != null && postings.dropOldest()) index.remove(key);
+    }
+
+    // Sequence numbers of one key's in-memory trades, oldest first
+    private static final class Postings {
+        private long[] sequences = new long[8];
+        private int start;
+        int size;
+
+        void add(long sequence) {
+            if (start + size == sequences.length) {
+                if (start >= sequences.length / 2) {
+                    System.arraycopy(sequences, start, sequences, 0, size);
+                } else {
+                    long[] grown = new long[sequences.length * 2];
+                    System.arraycopy(sequences, start, grown, 0, size);
+                    sequences = grown;
+                }
+                start = 0;
+            }
+            sequences[start + size++] = sequence;
+        }
+
+        long get(int i) {
+            return sequences[start + i];
+        }
+
+        // Returns true once the list is empty
+        boolean dropOldest() {
+            start++;
+            return --size == 0;
+        }
+    }
+
+    // Trades [firstSequence, firstSequence + count) of one partition, in one file
+    private static class Segment {
+        final Path path;
+        final long firstSequence;
+        long count;
+        long firstNanos;
+        long lastNanos;
+
+        Segment(Path path, long firstSequence) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+        }
+
+        Segment copy() {
+            Segment s = new Segment(path, firstSequence);
+            s.count = count;
+            s.firstNanos = firstNanos;
+            s.lastNanos = lastNanos;
+            return s;
+        }
+    }
+
+    // Partitions merged by timestamp (ties go to the lower partition). Reads each partition
+    // a chunk at a time; closing it closes any segment file still open.
+    public final class Cursor implements Iterator<Transaction>, AutoCloseable {
+        private final PartitionCursor[] cursors;
+
+        private Cursor(PartitionCursor[] cursors) {
+            this.cursors = cursors;
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (PartitionCursor c : cursors) {
+                if (c.peek() != null) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Transaction next() {
+            PartitionCursor pick = null;
+            for (PartitionCursor c : cursors) {
+                Transaction t = c.peek();
+                if (t != null && (pick == null || t.getTimestampNanos() < pick.peek().getTimestampNanos())) pick = c;
+            }
+            if (pick == null) throw new NoSuchElementException();
+            return pick.next();
+        }
+
+        @Override
+        public void close() {
+            for (PartitionCursor c : cursors) c.close();
+        }
+    }
+
+    // One partition's trades with from <= timestamp < to and sequence < endSequence, in
+    // sequence order: spilled segments first, then the ring. A trade spilled while the cursor
+    // is on its way is found in its segment.
+    private final class PartitionCursor {
+        final Partition partition;
+        final long fromNanos;
+        final long toNanos;
+        final long stopNanos;
+        final long endSequence;
+        final Predicate<Transaction> filter;   // null = every trade in the range
+        final List<Transaction> buffer = new ArrayList<>();
+        int position;
+        long sequence;
+        boolean done;
+
+        private DataInputStream in;
+        private long segmentEnd;   // sequence after the last record to read from `in`
+
+        // Caller holds the partition's monitor
+        PartitionCursor(Partition partition, long fromNanos, long toNanos, long endSequence, Predicate<Transaction> filter) {
+            this.partition = partition;
+            this.fromNanos = fromNanos;
+            this.toNanos = toNanos;
+            this.stopNanos = toNanos > Long.MAX_VALUE - partition.maxSkewNanos ? Long.MAX_VALUE : toNanos + partition.maxSkewNanos;
+            this.endSequence = endSequence;
+            this.filter = filter;
+        }
+
+        Transaction peek() {
+            if (position == buffer.size()) {
+                buffer.clear();
+                position = 0;
+                refill();
+            }
+            return position < buffer.size() ? buffer.get(position) : null;
+        }
+
+        // null once there are no more
+        Transaction next() {
+            Transaction t = peek();
+            if (t != null) position++;
+            return t;
+        }
+
+        private void refill() {
+            while (buffer.isEmpty() && !done) {
+                if (in != null) {
+                    readSegment();
+                    continue;
+                }
+                Segment segment;
+                synchronized (partition) {
+                    if (sequence >= endSequence) {
+                        done = true;
+                        break;
+                    }
+                    if (sequence >= partition.firstSequence) {
+                        partition.copyTo(this);
+                        continue;
+                    }
+                    segment = partition.segmentFrom(sequence);
+                    // trades dropped instead of spilled are skipped
+                    if (segment == null) {
+                        sequence = partition.firstSequence;
+                        continue;
+                    }
+                }
+                sequence = Math.max(sequence, segment.firstSequence);
+                long end = segment.firstSequence + segment.count;
+                if (segment.lastNanos < fromNanos || segment.firstNanos >= toNanos) {
+                    sequence = end;
+                } else {
+                    open(segment, Math.min(end, endSequence));
+                }
+            }
+            if (done) close();
+        }
+
+        private void open(Segment segment, long end) {
+            try {
+                in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path), 1 << 16));
+                for (long s = segment.firstSequence; s < sequence; s++) readRecord();
+                segmentEnd = end;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void readSegment() {
+            try {
+                for (int i = 0; i < READ_CHUNK && sequence < segmentEnd; i++) {
+                    Transaction t = readRecord();
+                    sequence++;
+                    long ts = t.getTimestampNanos();
+                    if (ts >= fromNanos && ts < toNanos && (filter == null || filter.test(t))) buffer.add(t);
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            if (sequence >= segmentEnd) closeStream();
+        }
+
+        private Transaction readRecord() throws IOException {
+            long ts = in.readLong();
+            int quantity = in.readInt();
+            long priceTicks = in.readLong();
+            String symbol = in.readUTF();
+            String buyerId = in.readUTF();
+            String sellerId = in.readUTF();
+            return TransactionImpl.ofTicks(buyerId, sellerId, companiesBySymbol.get(symbol), quantity, priceTicks, ts);
+        }
+
+        void close() {
+            done = true;
+            closeStream();
+        }
+
+        private void closeStream() {
+            if (in == null) return;
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+            in = null;
+        }
+    }
+}
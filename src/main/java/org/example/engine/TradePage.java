@@ -0,0 +1,24 @@
+package org.example.engine;
+
+import org.example.model_layer.Transaction;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of a TradeQueries result, oldest first. Pass getNextCursor() back to get the next page.
+public final class TradePage {
+    private final List<Transaction> trades;
+    private final String nextCursor;
+
+    TradePage(List<Transaction> trades, String nextCursor) {
+        this.trades = Collections.unmodifiableList(trades);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getTrades() { return trades; }
+
+    // null on the last page
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+}
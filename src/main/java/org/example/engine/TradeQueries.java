@@ -0,0 +1,223 @@
+package org.example.engine;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.example.model_layer.Company;
+import org.example.model_layer.Transaction;
+import org.example.model_layer.TransactionImpl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Read side of the transactions collection.
+// Every query is served by one of three compound indexes (company, buyerId or sellerId,
+// then timestamp and _id) and reads only the fields a Transaction needs.
+// Pages are keyset-paginated: the cursor is the (timestamp, _id) of the last trade returned,
+// so a page costs the same however deep into the result it is.
+// The newest trades of recently asked-for symbols are kept in a small LRU cache for a short time.
+public class TradeQueries {
+    public static final int DEFAULT_CACHED_SYMBOLS = 64;
+    public static final long DEFAULT_CACHE_TTL_MILLIS = 1000;
+
+    private static final Bson PROJECTION =
+            Projections.include("buyerId", "sellerId", "company", "quantity", "priceTicks", "timestamp");
+    private static final Bson ASCENDING = Sorts.ascending("timestamp", "_id");
+    private static final Bson DESCENDING = Sorts.descending("timestamp", "_id");
+
+    private final MongoCollection<Document> collection;
+    private final Map<String, Company> companiesBySymbol = new ConcurrentHashMap<>();
+    private final long cacheTtlNanos;
+    private final Map<String, RecentWindow> recent; // LRU, guarded by itself
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    public TradeQueries(MongoCollection<Document> collection, Collection<Company> companies) {
+        this(collection, companies, DEFAULT_CACHED_SYMBOLS, DEFAULT_CACHE_TTL_MILLIS);
+    }
+
+    public TradeQueries(MongoCollection<Document> collection, Collection<Company> companies,
+                        int cachedSymbols, long cacheTtlMillis) {
+        this.collection = collection;
+        for (Company c : companies) companiesBySymbol.put(c.getSymbol(), c);
+        this.cacheTtlNanos = cacheTtlMillis * 1_000_000L;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecentWindow> eldest) {
+                return size() > cachedSymbols;
+            }
+        };
+    }
+
+    // Idempotent; DatabaseManager calls it when it connects
+    public static void ensureIndexes(MongoCollection<Document> collection) {
+        collection.createIndex(Indexes.ascending("company", "timestamp", "_id"), new IndexOptions().name("company_time"));
+        collection.createIndex(Indexes.ascending("buyerId", "timestamp", "_id"), new IndexOptions().name("buyer_time"));
+        collection.createIndex(Indexes.ascending("sellerId", "timestamp", "_id"), new IndexOptions().name("seller_time"));
+    }
+
+    // ---- paged queries: from <= timestamp < to, oldest first; cursor null for the first page ----
+
+    public TradePage symbolTrades(String symbol, LocalDateTime from, LocalDateTime to, int pageSize, String cursor) {
+        return page(Filters.eq("company", symbol), from, to, pageSize, cursor);
+    }
+
+    // Trades where the client was buyer or seller
+    public TradePage clientTrades(String clientId, LocalDateTime from, LocalDateTime to, int pageSize, String cursor) {
+        return page(Filters.or(Filters.eq("buyerId", clientId), Filters.eq("sellerId", clientId)),
+                from, to, pageSize, cursor);
+    }
+
+    private TradePage page(Bson key, LocalDateTime from, LocalDateTime to, int pageSize, String cursor) {
+        if (pageSize < 1) throw new IllegalArgumentException("pageSize must be >= 1");
+        Bson filter = Filters.and(key, timeRange(from, to));
+        if (cursor != null) filter = Filters.and(filter, after(cursor));
+        List<Transaction> trades = new ArrayList<>(pageSize);
+        Document last = null;
+        // one extra document tells whether another page exists
+        try (MongoCursor<Document> it = collection.find(filter).projection(PROJECTION).sort(ASCENDING)
+                .limit(pageSize + 1).iterator()) {
+            while (it.hasNext()) {
+                Document d = it.next();
+                if (trades.size() == pageSize) {
+                    return new TradePage(trades, cursorOf(last));
+                }
+                Transaction t = toTransaction(d);
+                if (t != null) trades.add(t);
+                last = d;
+            }
+        }
+        return new TradePage(trades, null);
+    }
+
+    // ---- streaming ----
+
+    // Feeds every matching trade to the action, oldest first, fetching batchSize documents at a time
+    public void streamSymbolTrades(String symbol, LocalDateTime from, LocalDateTime to, int batchSize,
+                                   Consumer<Transaction> action) {
+        stream(Filters.and(Filters.eq("company", symbol), timeRange(from, to)), batchSize, action);
+    }
+
+    public void streamClientTrades(String clientId, LocalDateTime from, LocalDateTime to, int batchSize,
+                                   Consumer<Transaction> action) {
+        stream(Filters.and(Filters.or(Filters.eq("buyerId", clientId), Filters.eq("sellerId", clientId)),
+                timeRange(from, to)), batchSize, action);
+    }
+
+    private void stream(Bson filter, int batchSize, Consumer<Transaction> action) {
+        FindIterable<Document> found = collection.find(filter).projection(PROJECTION).sort(ASCENDING).batchSize(batchSize);
+        try (MongoCursor<Document> it = found.iterator()) {
+            while (it.hasNext()) {
+                Transaction t = toTransaction(it.next());
+                if (t != null) action.accept(t);
+            }
+        }
+    }
+
+    // ---- recent trades (cached) ----
+
+    // The newest `limit` trades of the symbol, oldest first. Served from the cache while the
+    // cached window is younger than the TTL and at least as long as asked for.
+    public List<Transaction> recentTrades(String symbol, int limit) {
+        long now = System.nanoTime();
+        synchronized (recent) {
+            RecentWindow window = recent.get(symbol);
+            if (window != null && now - window.loadedNanos < cacheTtlNanos && window.limit >= limit) {
+                cacheHits.incrementAndGet();
+                List<Transaction> trades = window.trades;
+                return trades.subList(Math.max(0, trades.size() - limit), trades.size());
+            }
+        }
+        cacheMisses.incrementAndGet();
+        List<Transaction> trades = new ArrayList<>(limit);
+        try (MongoCursor<Document> it = collection.find(Filters.eq("company", symbol)).projection(PROJECTION)
+                .sort(DESCENDING).limit(limit).iterator()) {
+            while (it.hasNext()) {
+                Transaction t = toTransaction(it.next());
+                if (t != null) trades.add(t);
+            }
+        }
+        Collections.reverse(trades);
+        List<Transaction> window = Collections.unmodifiableList(trades);
+        synchronized (recent) {
+            recent.put(symbol, new RecentWindow(window, limit, now));
+        }
+        return window;
+    }
+
+    public long getCacheHits() { return cacheHits.get(); }
+    public long getCacheMisses() { return cacheMisses.get(); }
+
+    // ---- conversion ----
+
+    // Trade timestamps are UTC wall-clock times, as in TradeHistory
+    static Date toDate(LocalDateTime time) {
+        return Date.from(time.toInstant(ZoneOffset.UTC));
+    }
+
+    static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC);
+    }
+
+    private static Bson timeRange(LocalDateTime from, LocalDateTime to) {
+        return Filters.and(Filters.gte("timestamp", toDate(from)), Filters.lt("timestamp", toDate(to)));
+    }
+
+    // Strictly after the (timestamp, _id) in the cursor, in the same order as ASCENDING
+    private static Bson after(String cursor) {
+        int colon = cursor.indexOf(':');
+        if (colon < 0) throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        Date time = new Date(Long.parseLong(cursor.substring(0, colon)));
+        ObjectId id = new ObjectId(cursor.substring(colon + 1));
+        return Filters.or(Filters.gt("timestamp", time),
+                Filters.and(Filters.eq("timestamp", time), Filters.gt("_id", id)));
+    }
+
+    private static String cursorOf(Document d) {
+        return d.getDate("timestamp").getTime() + ":" + d.getObjectId("_id").toHexString();
+    }
+
+    private Transaction toTransaction(Document d) {
+        String symbol = d.getString("company");
+        Company company = companiesBySymbol.get(symbol);
+        if (company == null) {
+            System.err.println("[Queries] Skipping trade of unknown company " + symbol);
+            return null;
+        }
+        LocalDateTime time = toLocalDateTime(d.getDate("timestamp"));
+        Number priceTicks = d.get("priceTicks", Number.class);
+        return TransactionImpl.ofTicks(d.getString("buyerId"), d.getString("sellerId"), company,
+                d.getInteger("quantity"), priceTicks.longValue(), time);
+    }
+
+    private static final class RecentWindow {
+        final List<Transaction> trades;
+        final int limit;
+        final long loadedNanos;
+
+        RecentWindow(List<Transaction> trades, int limit, long loadedNanos) {
+            this.trades = trades;
+            this.limit = limit;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+}
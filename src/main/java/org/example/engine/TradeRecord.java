@@ -0,0 +1,54 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.EpochClock;
+import org.example.model_layer.Transaction;
+
+import java.time.LocalDateTime;
+
+// Mutable Transaction a shard reuses for every fill when pooling is on. The history, candles,
+// market data and ledger all read it before the next fill; anything that keeps a trade
+// (the database writer) gets TransactionImpl.copyOf instead.
+final class TradeRecord implements Transaction {
+    private String buyerId;
+    private String sellerId;
+    private Company company;
+    private int quantity;
+    private long priceTicks;
+    private long timestampNanos;
+
+    TradeRecord set(String buyerId, String sellerId, Company company, int quantity, long priceTicks,
+                    long timestampNanos) {
+        this.buyerId = buyerId;
+        this.sellerId = sellerId;
+        this.company = company;
+        this.quantity = quantity;
+        this.priceTicks = priceTicks;
+        this.timestampNanos = timestampNanos;
+        return this;
+    }
+
+    @Override
+    public String getBuyerId() { return buyerId; }
+
+    @Override
+    public String getSellerId() { return sellerId; }
+
+    @Override
+    public Company getCompany() { return company; }
+
+    @Override
+    public int getQuantity() { return quantity; }
+
+    @Override
+    public double getPricePerShare() { return company.toPrice(priceTicks); }
+
+    @Override
+    public long getPriceTicks() { return priceTicks; }
+
+    @Override
+    public LocalDateTime getTimestamp() { return EpochClock.toLocalDateTime(timestampNanos); }
+
+    @Override
+    public long getTimestampNanos() { return timestampNanos; }
+}
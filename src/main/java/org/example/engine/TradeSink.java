@@ -0,0 +1,11 @@
+package org.example.engine;
+
+import org.bson.Document;
+
+import java.util.List;
+
+// Destination for persisted trades. Implemented by the MongoDB collection and by
+// InMemoryTradeSink, which stands in for the database when running locally.
+public interface TradeSink {
+    void insertMany(List<Document> documents) throws Exception;
+}
@@ -0,0 +1,40 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+
+// Running totals of one symbol since the engine started: last trade, volume and VWAP
+public final class TradeStats {
+    private final Company company;
+    private final long lastPriceTicks;
+    private final long lastTradeNanos;
+    private final long volume;
+    private final long notionalTicks;
+    private final long trades;
+
+    TradeStats(Company company, long lastPriceTicks, long lastTradeNanos, long volume, long notionalTicks, long trades) {
+        this.company = company;
+        this.lastPriceTicks = lastPriceTicks;
+        this.lastTradeNanos = lastTradeNanos;
+        this.volume = volume;
+        this.notionalTicks = notionalTicks;
+        this.trades = trades;
+    }
+
+    public Company getCompany() { return company; }
+    public long getLastPriceTicks() { return lastPriceTicks; }
+    public double getLastPrice() { return company.toPrice(lastPriceTicks); }
+    public long getLastTradeNanos() { return lastTradeNanos; }
+    public long getVolume() { return volume; }
+    public long getTrades() { return trades; }
+    public double getNotional() { return company.toPrice(notionalTicks); }
+
+    public double getVwap() {
+        return volume == 0 ? 0 : company.toPrice(1) * notionalTicks / volume;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s last=%.2f volume=%d trades=%d VWAP=%.4f",
+                company.getSymbol(), getLastPrice(), volume, trades, getVwap());
+    }
+}
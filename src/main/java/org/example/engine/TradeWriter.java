@@ -0,0 +1,190 @@
+package org.example.engine;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.model_layer.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Write-behind pipeline for trades. Matching threads only enqueue; a dedicated writer
+// thread turns trades into documents and sends them with insertMany, either when
+// batchSize trades are waiting or when flushIntervalMillis has passed.
+// The queue is bounded: when the database falls behind, enqueue() blocks (backpressure).
+public class TradeWriter implements Runnable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    public static final int DEFAULT_MAX_RETRIES = 5;
+    public static final long DEFAULT_RETRY_BACKOFF_MILLIS = 100;
+
+    private final TradeSink sink;
+    private final BlockingQueue<Transaction> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final Thread writerThread;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong droppedAfterClose = new AtomicLong();
+    private volatile boolean closed = false;
+    // enqueue holds the read side, close the write side, so no trade gets in after the last drain
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    // batch write latency, set by the engine when metrics are enabled
+    private volatile LatencyHistogram writeLatency;
+
+    public TradeWriter(TradeSink sink) {
+        this(sink, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS,
+                DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BACKOFF_MILLIS);
+    }
+
+    public TradeWriter(TradeSink sink, int queueCapacity, int batchSize, long flushIntervalMillis,
+                       int maxRetries, long retryBackoffMillis) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be >= 1");
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.writerThread = new Thread(this, "TradeWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Hands a trade to the writer; blocks while the queue is full.
+    // False when the trade was dropped instead: the writer is closed, or the caller was interrupted.
+    // Never throws, since it runs on the matching thread under the shard lock.
+    public boolean enqueue(Transaction transaction) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                // the engine can still trade while shutting down; say so once, count every one
+                dropped.incrementAndGet();
+                if (droppedAfterClose.getAndIncrement() == 0) {
+                    System.err.println("[DB] TradeWriter is closed, dropping " + transaction + " and any later trades");
+                }
+                return false;
+            }
+            queue.put(transaction);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+            System.err.println("[DB] Interrupted while queueing, dropping " + transaction);
+            return false;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<Transaction> pending = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+
+        while (!closed || !queue.isEmpty()) {
+            try {
+                long waitNanos = deadline - System.nanoTime();
+                Transaction next = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next != null) {
+                    pending.add(next);
+                    queue.drainTo(pending, batchSize - pending.size());
+                }
+            } catch (InterruptedException e) {
+                // close() interrupts to cut the wait short; the loop condition decides
+            }
+
+            if (pending.size() >= batchSize || System.nanoTime() >= deadline || closed) {
+                if (!pending.isEmpty()) {
+                    write(pending);
+                    pending.clear();
+                }
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+            }
+        }
+        // close() may land between the flush check and the loop test
+        if (!pending.isEmpty()) write(pending);
+    }
+
+    private void write(List<Transaction> batch) {
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (Transaction t : batch) {
+            documents.add(toDocument(t));
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            // close() interrupts only to cut the poll short; it must not fail an interruptible insert
+            Thread.interrupted();
+            try {
+                long start = System.nanoTime();
+                sink.insertMany(documents);
+                LatencyHistogram latency = writeLatency;
+                if (latency != null) latency.record(System.nanoTime() - start);
+                written.addAndGet(documents.size());
+                System.out.println("[DB] Inserted " + documents.size() + " transactions");
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    dropped.addAndGet(documents.size());
+                    System.err.println("[DB] Giving up on " + documents.size() + " transactions after "
+                            + (attempt + 1) + " attempts: " + e.getMessage());
+                    return;
+                }
+                System.err.println("[DB] Insert failed, retrying: " + e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMillis * (attempt + 1));
+                } catch (InterruptedException ie) {
+                    // keep retrying, close() waits for us
+                }
+            }
+        }
+    }
+
+    void setWriteLatency(LatencyHistogram writeLatency) {
+        this.writeLatency = writeLatency;
+    }
+
+    static Document toDocument(Transaction transaction) {
+        // explicit _id so a retried batch does not insert the same trade twice
+        return new Document("_id", new ObjectId())
+                .append("buyerId", transaction.getBuyerId())
+                .append("sellerId", transaction.getSellerId())
+                .append("company", transaction.getCompany().getSymbol())
+                .append("quantity", transaction.getQuantity())
+                .append("pricePerShare", transaction.getPricePerShare())
+                .append("priceTicks", transaction.getPriceTicks())
+                .append("timestamp", TradeQueries.toDate(transaction.getTimestamp()));
+    }
+
+    // Stops accepting trades and blocks until everything queued has been written.
+    // Waits for enqueues already under way (the writer keeps draining meanwhile).
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        writerThread.interrupt();
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getWrittenCount() { return written.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public int getQueueSize() { return queue.size(); }
+}
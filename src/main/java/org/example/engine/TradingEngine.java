@@ -1,55 +1,143 @@
 package org.example.engine;
 
 import org.example.model_layer.Company;
+import org.example.model_layer.EpochClock;
 import org.example.model_layer.ShareOffer;
 import org.example.model_layer.Transaction;
 import org.example.model_layer.TransactionImpl;
-import org.bson.Document;
 
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class TradingEngine implements Runnable {
 
     private final DatabaseManager dbManager;
-    private final BlockingQueue<ShareOffer> orderQueue = new LinkedBlockingQueue<>();
 
-    // Hold all incoming buy/sell orders
+    // Matching partitions, each owning a disjoint set of companies (see shardFor)
+    private final EngineShard[] shards;
+    private final Map<Company, EngineShard> shardByCompany = new ConcurrentHashMap<>();
+    private final Map<String, Company> companiesBySymbol = new ConcurrentHashMap<>();
 
-    // List of active buy orders (sorted by descending price)
-    private final List<ShareOffer> buyOrders = new ArrayList<>();
-
-    // List of active sell orders(sorted by ascending price)
-    private final List<ShareOffer> sellOrders = new ArrayList<>();
-
-    // Record of all complete transactions
-    private final List<Transaction> transactionHistory = new ArrayList<>();
+    // Record of all complete transactions (appended by every shard);
+    // recent ones in memory, older ones spilled to disk
+    private final TradeHistory transactionHistory;
+    // OHLCV bars, VWAP and last price per symbol, updated by every fill
+    private final CandleAggregator candles;
+    // company price follows executions instead of the simulated random walk
+    private final boolean priceFromTrades;
     private final List<Company> companies;
 
     // Registered buyers participating(indexed by id)
-    private final Map<String, Buyer> buyers = new HashMap<>();
+    private final Map<String, Buyer> buyers = new ConcurrentHashMap<>();
 
     // Registered selleres participating
-    private final Map<String, Seller> sellers = new HashMap<>();
-    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Seller> sellers = new ConcurrentHashMap<>();
     private final Random random = new Random();
     private volatile boolean running = true;
 
+    // null when metrics are off (EngineConfig.setMetricsEnabled)
+    private final EngineMetrics metrics;
+    private final long metricsLogIntervalMillis;
+
+    private final Path checkpointDirectory;
+    private final long checkpointIntervalMillis;
+    private final int checkpointsKept;
+
+    // most events a worker applies under one lock acquisition
+    private final int batchSize;
+    private Batch pendingBatch; // processPending's, kept between calls
+
+    private volatile OrderAckListener ackListener;
+    private volatile OrderFillListener fillListener;
+
+    // null unless EngineConfig.setMarketDataEnabled
+    private final MarketDataFeed marketData;
+
+    // Cash and positions of registered agents; null unless EngineConfig.setLedgerEnabled
+    private final AccountLedger ledger;
+
+    // Set while journal records are re-applied: no journaling, no DB writes, prices come from the journal
+    private volatile boolean replaying = false;
+    // one per shard while the engine is a standby (beginStandby)
+    private ReplayHandler[] standbyHandlers;
+
     public TradingEngine(List<Company> companies, DatabaseManager dbManager) {
+        this(companies, dbManager, 1);
+    }
+
+    // Partitioned mode: orders are routed by company to one of `partitions` matching workers
+    public TradingEngine(List<Company> companies, DatabaseManager dbManager, int partitions) {
+        this(companies, dbManager, new EngineConfig().setPartitions(partitions));
+    }
+
+    public TradingEngine(List<Company> companies, DatabaseManager dbManager, EngineConfig config) {
         this.companies = companies;
         this.dbManager = dbManager;
+        this.transactionHistory = config.createTradeHistory();
+        this.candles = new CandleAggregator(config.getCandlesKept());
+        this.priceFromTrades = config.isPriceFromTrades();
+        this.checkpointDirectory = config.getCheckpointDirectory();
+        this.checkpointIntervalMillis = config.getCheckpointIntervalMillis();
+        this.checkpointsKept = config.getCheckpointsKept();
+        this.batchSize = config.getBatchSize();
+        int partitions = config.getPartitions();
+        if (partitions > EngineShard.MAX_SHARDS) {
+            throw new IllegalArgumentException("at most " + EngineShard.MAX_SHARDS + " partitions are supported");
+        }
+        this.marketData = config.isMarketDataEnabled() ? new MarketDataFeed() : null;
+        this.ledger = config.isLedgerEnabled() ? new AccountLedger(companies) : null;
+        this.shards = new EngineShard[partitions];
+        for (int i = 0; i < partitions; i++) {
+            shards[i] = new EngineShard(i, config, marketData);
+        }
+        this.metrics = config.isMetricsEnabled() ? new EngineMetrics(shards) : null;
+        this.metricsLogIntervalMillis = config.getMetricsLogIntervalMillis();
+        if (metrics != null) {
+            metrics.register();
+            if (dbManager != null && dbManager.getTradeWriter() != null) {
+                dbManager.getTradeWriter().setWriteLatency(metrics.getPersistenceHistogram());
+            }
+        }
+        // spread the known companies round-robin so every worker gets its share
+        for (int i = 0; i < companies.size(); i++) {
+            Company c = companies.get(i);
+            EngineShard shard = shards[i % partitions];
+            shardByCompany.put(c, shard);
+            companiesBySymbol.put(c.getSymbol(), c);
+            shard.bookFor(c);
+        }
     }
 
     // ---- Registration ----
+    // With a ledger, the agent's balance and portfolio at registration open its account
     public void registerBuyer(Buyer buyer) {
         buyers.put(buyer.getId(), buyer);
+        if (ledger != null) openAccount(buyer.captureState());
     }
 
     public void registerSeller(Seller seller) {
         sellers.put(seller.getId(), seller);
+        if (ledger != null) openAccount(seller.captureState());
+    }
+
+    private void openAccount(AgentState state) {
+        ledger.openAccount(state.getId(), state.getBalance(), state.getPortfolio());
+    }
+
+    // Called after every applied order event; null removes the listener
+    public void setAckListener(OrderAckListener listener) {
+        this.ackListener = listener;
+    }
+
+    // Called for each side of every fill; null removes the listener
+    public void setFillListener(OrderFillListener listener) {
+        this.fillListener = listener;
     }
 
     public Company getRandomCompany() {
@@ -57,40 +145,187 @@ public class TradingEngine implements Runnable {
         return companies.get(random.nextInt(companies.size()));
     }
 
-    public void submitBuyOrder(ShareOffer offer) {
-        orderQueue.offer(offer);
+    // Both return the engine-assigned order id
+    public long submitBuyOrder(ShareOffer offer) {
+        return submit(offer);
     }
 
-    public void submitSellOrder(ShareOffer offer) {
-        orderQueue.offer(offer);
+    public long submitSellOrder(ShareOffer offer) {
+        return submit(offer);
     }
 
+    // An id taken earlier with nextOrderId is kept
+    private long submit(ShareOffer offer) {
+        EngineShard shard = shardFor(offer.getCompany());
+        if (offer.getOrderId() == 0) offer.assignOrderId(shard.nextOrderId());
+        shard.getIngress().publish(offer);
+        return offer.getOrderId();
+    }
+
+    // Sends a new order as plain fields; the worker builds the offer (with pooling, reuses one),
+    // so the caller allocates nothing. Returns the order id.
+    public long submitOrder(String clientId, Company company, int quantity, long priceTicks, boolean buy) {
+        return submitOrder(0, clientId, company, quantity, priceTicks, buy);
+    }
+
+    // Same, with an id taken earlier from nextOrderId (0 = assign one now)
+    public long submitOrder(long orderId, String clientId, Company company, int quantity, long priceTicks,
+                            boolean buy) {
+        EngineShard shard = shardFor(company);
+        if (orderId == 0) orderId = shard.nextOrderId();
+        shard.getIngress().publishNew(orderId, clientId, company, quantity, priceTicks, buy, EpochClock.now());
+        return orderId;
+    }
+
+    // Submits many offers at once; returns their order ids in iteration order.
+    // Each shard's offers are published as one run, so its worker can apply them
+    // in a single batch, in the same order (and with the same fills) as one by one.
+    public long[] submitOrders(Collection<? extends ShareOffer> offers) {
+        long[] ids = new long[offers.size()];
+        List<List<ShareOffer>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) byShard.add(new ArrayList<>());
+        int i = 0;
+        for (ShareOffer offer : offers) {
+            EngineShard shard = shardFor(offer.getCompany());
+            if (offer.getOrderId() == 0) offer.assignOrderId(shard.nextOrderId());
+            ids[i++] = offer.getOrderId();
+            byShard.get(shard.getIndex()).add(offer);
+        }
+        for (int s = 0; s < shards.length; s++) {
+            if (!byShard.get(s).isEmpty()) shards[s].getIngress().publishAll(byShard.get(s));
+        }
+        return ids;
+    }
+
+    // Order id for an offer of this company that will be submitted later; lets a caller
+    // hand out the id (e.g. in an ack) before the order can trade
+    public long nextOrderId(Company company) {
+        return shardFor(company).nextOrderId();
+    }
+
+    // ---- Cancel / amend ----
+    // Sequenced through the owning shard's ingress, so they apply in order with new orders
+    public void cancelOrder(long orderId) {
+        EngineShard shard = shardForOrder(orderId);
+        if (shard != null) shard.getIngress().publishCancel(orderId);
+    }
+
+    // newQuantity is the new remaining quantity; 0 cancels the order
+    public void amendOrder(long orderId, int newQuantity, double newPrice) {
+        EngineShard shard = shardForOrder(orderId);
+        if (shard != null) shard.getIngress().publishAmend(orderId, newQuantity, newPrice);
+    }
+
+    // Cancels every resting order of the client, on all shards
+    public void cancelAllOrders(String clientId) {
+        for (EngineShard shard : shards) {
+            shard.getIngress().publishMassCancel(clientId);
+        }
+    }
+
+    private EngineShard shardForOrder(long orderId) {
+        int idx = EngineShard.shardOf(orderId);
+        return orderId > 0 && idx < shards.length ? shards[idx] : null;
+    }
+
+    private EngineShard shardFor(Company company) {
+        if (company == null) return shards[0];
+        EngineShard shard = shardByCompany.get(company);
+        if (shard != null) return shard;
+        // company not known at start-up: pin it by symbol so it always lands on the same worker
+        companiesBySymbol.putIfAbsent(company.getSymbol(), company);
+        return shardByCompany.computeIfAbsent(company,
+                c -> shards[Math.floorMod(c.getSymbol().hashCode(), shards.length)]);
+    }
+
+    // Runs shard 0 on the calling thread and one extra worker thread per remaining shard
     @Override
     public void run() {
-        while (running) {
+        Thread[] workers = new Thread[shards.length - 1];
+        for (int i = 1; i < shards.length; i++) {
+            EngineShard shard = shards[i];
+            workers[i - 1] = new Thread(() -> runShard(shard), Thread.currentThread().getName() + "-" + i);
+            workers[i - 1].start();
+        }
+
+        // periodic checkpoints and metrics log lines
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "engine-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        if (checkpointDirectory != null && checkpointIntervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::checkpointQuietly,
+                    checkpointIntervalMillis, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (metrics != null && metricsLogIntervalMillis > 0) {
+            scheduler.scheduleAtFixedRate(() -> System.out.println(metrics.summary()),
+                    metricsLogIntervalMillis, metricsLogIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        runShard(shards[0]);
+
+        scheduler.shutdownNow();
+        if (metrics != null) {
+            System.out.println(metrics.summary());
+            metrics.unregister();
+        }
+        for (Thread worker : workers) {
             try {
-                ShareOffer offer = orderQueue.take(); // waits until an order arrives
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        transactionHistory.flush();
+        for (EngineShard shard : shards) {
+            if (shard.getJournal() != null) shard.getJournal().force();
+        }
+    }
 
-                // stop signal check
-                if ("SYSTEM_STOP".equals(offer.getClientId())) {
-                    break;
-                }
+    // Waits for an event, then takes whatever else is queued behind it (up to batchSize)
+    // and applies it as one batch
+    private void runShard(EngineShard shard) {
+        ReentrantLock lock = shard.getLock();
+        Batch batch = new Batch(batchSize);
+        OrderEvent[] events = batch.events;
+        while (running) {
+            try {
+                shard.getIngress().take(events[0]); // waits until an order arrives
+                int n = 1 + shard.getIngress().drainTo(events, 1, events.length - 1);
+                long taken = metrics != null ? System.nanoTime() : 0;
 
-                lock.lock();
-                try {
-                    if (offer.isBuy()) {
-                        buyOrders.add(offer);
-                        // sort descending by price (highest first) using simple sort
-                        sortBuyOrdersDescendingByPrice();
-                    } else {
-                        sellOrders.add(offer);
-                        // sort ascending by price (lowest first) using simple sort
-                        sortSellOrdersAscendingByPrice();
+                int from = 0;
+                boolean stopped = false;
+                for (int i = 0; i < n && !stopped; i++) {
+                    OrderEvent event = events[i];
+                    if (isStop(event)) {
+                        applyBatch(shard, batch, from, i, taken);
+                        if (shard.getJournal() != null) {
+                            lock.lock();
+                            try {
+                                shard.getJournal().appendStop();
+                            } finally {
+                                lock.unlock();
+                            }
+                        }
+                        stopped = true;
+                    } else if (event.getType() == OrderEvent.Type.CHECKPOINT) {
+                        applyBatch(shard, batch, from, i, taken);
+                        lock.lock();
+                        try {
+                            // copies this shard's state; no waiting for the other shards
+                            event.getCheckpoint().arrive(shard);
+                        } finally {
+                            lock.unlock();
+                        }
+                        from = i + 1;
                     }
-                    matchOrders();
-                } finally {
-                    lock.unlock();
                 }
+                if (!stopped) applyBatch(shard, batch, from, n, taken);
+                for (int i = 0; i < n; i++) events[i].clear();
+                if (stopped) break;
 
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -99,250 +334,735 @@ public class TradingEngine implements Runnable {
         }
     }
 
-    public void stop() {
-        running = false;
-        // poison pill to unblock queue
-        ShareOffer stopSignal = new ShareOffer(
-                "SYSTEM_STOP",
-                null,
-                0,
-                0.0,
-                true
-        );
-        orderQueue.offer(stopSignal);
+    // Worker-owned event slots, plus per-event timestamps for the metrics
+    private static final class Batch {
+        final OrderEvent[] events;
+        final long[] started;
+        final long[] applied;
+
+        Batch(int size) {
+            events = new OrderEvent[size];
+            for (int i = 0; i < size; i++) events[i] = new OrderEvent();
+            started = new long[size];
+            applied = new long[size];
+        }
+    }
+
+    private static boolean isStop(OrderEvent event) {
+        return event.getType() == OrderEvent.Type.NEW && event.getOffer() != null
+                && "SYSTEM_STOP".equals(event.getOffer().getClientId());
     }
 
-    private void sortBuyOrdersDescendingByPrice() {
-        // Simple selection-sort style: highest price first
-        for (int i = 0; i < buyOrders.size() - 1; i++) {
-            int maxIdx = i;
-            for (int j = i + 1; j < buyOrders.size(); j++) {
-                if (buyOrders.get(j).getPricePerShare() > buyOrders.get(maxIdx).getPricePerShare()) {
-                    maxIdx = j;
+    // Applies every queued event on the calling thread and returns how many were applied.
+    // For driving the engine synchronously (benchmarks, tools) when run() is not active.
+    public int processPending() {
+        int processed = 0;
+        if (pendingBatch == null) pendingBatch = new Batch(batchSize);
+        Batch batch = pendingBatch;
+        OrderEvent[] events = batch.events;
+        for (EngineShard shard : shards) {
+            int n;
+            while ((n = shard.getIngress().drainTo(events, 0, events.length)) > 0) {
+                long taken = metrics != null ? System.nanoTime() : 0;
+                // control events are dropped, the rest applied in runs between them
+                int from = 0;
+                for (int i = 0; i < n; i++) {
+                    if (isStop(events[i]) || events[i].getType() == OrderEvent.Type.CHECKPOINT) {
+                        applyBatch(shard, batch, from, i, taken);
+                        processed += i - from;
+                        from = i + 1;
+                    }
                 }
+                applyBatch(shard, batch, from, n, taken);
+                processed += n - from;
+                for (int i = 0; i < n; i++) events[i].clear();
+            }
+        }
+        return processed;
+    }
+
+    // Journals and applies batch[from..to) in order under one acquisition of the shard lock,
+    // then publishes market data and due snapshots once for all the books the batch touched.
+    // Each event is matched as it is applied, so fills and priority are those of one-by-one processing.
+    private void applyBatch(EngineShard shard, Batch batch, int from, int to, long takenNanos) {
+        if (from >= to) return;
+        OrderEvent[] events = batch.events;
+        boolean timed = metrics != null;
+        ReentrantLock lock = shard.getLock();
+        long locked;
+        long unlocked;
+        lock.lock();
+        try {
+            locked = timed ? System.nanoTime() : 0;
+            for (int i = from; i < to; i++) {
+                if (timed) batch.started[i] = System.nanoTime();
+                attachOffer(shard, events[i]);
+                if (journal(shard, events[i])) process(shard, events[i]);
+                if (timed) batch.applied[i] = System.nanoTime();
             }
-            if (maxIdx != i) {
-                ShareOffer tmp = buyOrders.get(i);
-                buyOrders.set(i, buyOrders.get(maxIdx));
-                buyOrders.set(maxIdx, tmp);
+            shard.publishMarketData();
+            shard.publishSnapshots();
+            for (int i = from; i < to; i++) ack(events[i]);
+            shard.recycle();
+            unlocked = timed ? System.nanoTime() : 0;
+        } finally {
+            lock.unlock();
+        }
+        // recorded after the lock is released; the events stay the worker's until cleared
+        if (timed) {
+            metrics.onBatch(locked, unlocked);
+            for (int i = from; i < to; i++) {
+                metrics.onEvent(events[i], takenNanos, batch.started[i], batch.applied[i], unlocked);
             }
         }
     }
 
-    private void sortSellOrdersAscendingByPrice() {
-        // Simple selection-sort style: lowest price first
-        for (int i = 0; i < sellOrders.size() - 1; i++) {
-            int minIdx = i;
-            for (int j = i + 1; j < sellOrders.size(); j++) {
-                if (sellOrders.get(j).getPricePerShare() < sellOrders.get(minIdx).getPricePerShare()) {
-                    minIdx = j;
+    // A NEW sent by fields gets its offer from the shard
+    private static void attachOffer(EngineShard shard, OrderEvent event) {
+        if (event.getType() == OrderEvent.Type.NEW && event.getOffer() == null) {
+            event.attachOffer(shard.offerFor(event));
+        }
+    }
+
+    private void ack(OrderEvent event) {
+        OrderAckListener listener = ackListener;
+        if (listener != null) listener.onAck(event);
+    }
+
+    // Records the event before it is applied; caller holds the shard lock. False when the
+    // journal cannot hold it (a client id or symbol too long for a record): the event is rejected unapplied.
+    private boolean journal(EngineShard shard, OrderEvent event) {
+        OrderJournal journal = shard.getJournal();
+        if (journal == null || replaying) return true;
+        try {
+            switch (event.getType()) {
+                case NEW -> {
+                    if (event.getOffer().getCompany() != null) journal.appendNew(event.getOffer());
                 }
+                case CANCEL -> journal.appendCancel(event.getOrderId());
+                case AMEND -> journal.appendAmend(event.getOrderId(), event.getQuantity(), event.getPrice());
+                case MASS_CANCEL -> journal.appendMassCancel(event.getClientId());
+                case CHECKPOINT -> { }
             }
-            if (minIdx != i) {
-                ShareOffer tmp = sellOrders.get(i);
-                sellOrders.set(i, sellOrders.get(minIdx));
-                sellOrders.set(minIdx, tmp);
-            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.err.println("[Journal] Rejected " + event.getType() + ": " + e.getMessage());
+            if (event.getType() == OrderEvent.Type.NEW) shard.retire(event.getOffer());
+            event.reject();
+            return false;
         }
     }
 
-    private void matchOrders() {
-        Iterator<ShareOffer> buyIter = buyOrders.iterator();
-        while (buyIter.hasNext()) {
-            ShareOffer buy = buyIter.next();
-            Iterator<ShareOffer> sellIter = sellOrders.iterator();
-
-            while (sellIter.hasNext()) {
-                ShareOffer sell = sellIter.next();
-
-                // ensure valid companies
-                if (buy.getCompany() == null || sell.getCompany() == null) continue;
-                if (!buy.getCompany().equals(sell.getCompany())) continue;
-                if (buy.getPricePerShare() < sell.getPricePerShare()) continue;
-
-                // traded quantity = min of both
-                int tradedQuantity = Math.min(buy.getQuantity(), sell.getQuantity());
-                double transactionPrice = (buy.getPricePerShare() + sell.getPricePerShare()) / 2.0;
-                double totalValue = tradedQuantity * transactionPrice;
-
-                Buyer buyer = buyers.get(buy.getClientId());
-                Seller seller = sellers.get(sell.getClientId());
-
-                if (buyer != null)
-                    buyer.updateAfterTransaction(buy.getCompany(), tradedQuantity, totalValue);
-                if (seller != null)
-                    seller.updateAfterTransaction(buy.getCompany(), tradedQuantity, totalValue);
-
-                Transaction transaction = new TransactionImpl(
-                        buy.getClientId(),
-                        sell.getClientId(),
-                        buy.getCompany(),
-                        tradedQuantity,
-                        transactionPrice,
-                        LocalDateTime.now()
-                );
-
-                transactionHistory.add(transaction);
-
-                // Persist to DB if available
-                if (dbManager != null) {
-                    try {
-                        Document doc = new Document()
-                                .append("buyerId", transaction.getBuyerId())
-                                .append("sellerId", transaction.getSellerId())
-                                .append("company", transaction.getCompany().getSymbol())
-                                .append("quantity", transaction.getQuantity())
-                                .append("pricePerShare", transaction.getPricePerShare())
-                                .append("timestamp", transaction.getTimestamp().toString());
-
-                        dbManager.getTransactionsCollection().insertOne(doc);
-                        System.out.println("[DB] Inserted transaction: " + doc.toJson());
-                    } catch (Exception e) {
-                        System.err.println("[DB] Failed to insert transaction: " + e.getMessage());
-                    }
+    // Applies one ingress event to the shard's books; caller holds the shard lock
+    private void process(EngineShard shard, OrderEvent event) {
+        switch (event.getType()) {
+            case NEW -> {
+                ShareOffer offer = event.getOffer();
+                if (offer.getCompany() == null) return;
+                // pre-trade check: the order must be covered by free cash or shares
+                if (ledger != null && !ledger.reserve(offer)) {
+                    shard.retire(offer);
+                    event.reject();
+                    return;
                 }
+                OrderBook book = shard.bookFor(offer.getCompany());
+                book.add(offer);
+                // a store that copies the order no longer needs the offer once it rests
+                if (!shard.getOrderStore().keepsOffers()) shard.retire(offer);
+                matchOrders(shard, book);
+            }
+            case CANCEL -> {
+                OrderStore store = shard.getOrderStore();
+                int slot = shard.getOrderIndex().get(event.getOrderId());
+                if (slot != OrderStore.NONE) cancel(shard, shard.getBook(store.company(slot)), slot);
+            }
+            case AMEND -> {
+                if (!amend(shard, event.getOrderId(), event.getQuantity(), event.getPrice())) event.reject();
+            }
+            case MASS_CANCEL -> {
+                OrderStore store = shard.getOrderStore();
+                int slot = shard.getClientOrders().head(event.getClientId());
+                while (slot != OrderStore.NONE) {
+                    int next = store.clientNext(slot);
+                    cancel(shard, shard.getBook(store.company(slot)), slot);
+                    slot = next;
+                }
+            }
+            case CHECKPOINT -> { }
+        }
+    }
+
+    // Quantity down at the same price keeps the order's place in its level;
+    // any price change or quantity increase re-queues it at the back (loses time priority).
+    // False when the ledger cannot cover the amended order, which is then dropped.
+    private boolean amend(EngineShard shard, long orderId, int newQuantity, double newPrice) {
+        int slot = shard.getOrderIndex().get(orderId);
+        if (slot == OrderStore.NONE) return true;
+        ShareOffer offer = shard.getOrderStore().offer(slot);
+        OrderBook book = shard.getBook(offer.getCompany());
+
+        if (newQuantity <= 0) {
+            cancel(shard, book, slot);
+            return true;
+        }
 
-                // update price on company (simulate)
-                buy.getCompany().updatePrice(transactionPrice);
+        long newPriceTicks = offer.getCompany().toTicks(newPrice);
+        if (newPriceTicks == offer.getPriceTicks() && newQuantity <= offer.getQuantity()) {
+            if (ledger != null) ledger.release(offer, offer.getQuantity() - newQuantity);
+            book.reduce(slot, newQuantity);
+            return true;
+        }
 
-                // reduce quantities and remove fully filled offers
-                buy.reduceQuantity(tradedQuantity);
-                sell.reduceQuantity(tradedQuantity);
+        if (ledger != null) ledger.release(offer, offer.getQuantity());
+        book.remove(slot);
+        offer.amend(newQuantity, newPriceTicks);
+        // an amended order the account cannot cover is dropped
+        if (ledger != null && !ledger.reserve(offer)) {
+            shard.retire(offer);
+            return false;
+        }
+        book.add(offer);
+        matchOrders(shard, book);
+        return true;
+    }
 
-                if (buy.getQuantity() == 0) buyIter.remove();
-                if (sell.getQuantity() == 0) sellIter.remove();
+    // Takes an order out of its book unfilled and gives back its ledger reservation
+    private void cancel(EngineShard shard, OrderBook book, int slot) {
+        ShareOffer offer = shard.getOrderStore().offer(slot);
+        if (ledger != null) ledger.release(offer, offer.getQuantity());
+        book.remove(slot);
+        shard.retire(offer);
+    }
 
-                // after processing one sell that matched this buy, break to restart outer loop (preserve priority)
-                break;
+    public void stop() {
+        running = false;
+        // poison pill to unblock every shard queue
+        for (EngineShard shard : shards) {
+            ShareOffer stopSignal = new ShareOffer(
+                    "SYSTEM_STOP",
+                    null,
+                    0,
+                    0.0,
+                    true
+            );
+            shard.getIngress().publish(stopSignal);
+        }
+    }
+
+    // Crosses the book while the best bid is at or above the best ask.
+    // Fills follow price priority, then time priority within a level.
+    private void matchOrders(EngineShard shard, OrderBook book) {
+        OrderStore store = shard.getOrderStore();
+        while (book.isCrossed()) {
+            int buy = book.getBestBid().head();
+            int sell = book.getBestAsk().head();
+            String buyerId = store.clientId(buy);
+            String sellerId = store.clientId(sell);
+
+            Company company = book.getCompany();
+
+            // traded quantity = min of both; price = midpoint in whole ticks
+            // (an odd tick spread rounds down, in the buyer's favour)
+            int tradedQuantity = Math.min(store.quantity(buy), store.quantity(sell));
+            long transactionPriceTicks = (store.priceTicks(buy) + store.priceTicks(sell)) / 2;
+            double transactionPrice = company.toPrice(transactionPriceTicks);
+            double totalValue = company.toPrice(tradedQuantity * transactionPriceTicks);
+
+            Buyer buyer = buyers.get(buyerId);
+            Seller seller = sellers.get(sellerId);
+
+            // with a ledger, the fill below moves the agents' cash and shares
+            if (buyer != null) {
+                if (ledger == null) buyer.updateAfterTransaction(company, tradedQuantity, totalValue);
+                shard.addBuyerCash(buyerId, -totalValue);
+            }
+            if (seller != null) {
+                if (ledger == null) seller.updateAfterTransaction(company, tradedQuantity, totalValue);
+                shard.addSellerCash(sellerId, totalValue);
+            }
+
+            // with pooling the shard's one trade record is filled in again for every trade
+            TradeRecord record = shard.getTradeRecord();
+            Transaction transaction = record != null
+                    ? record.set(buyerId, sellerId, company, tradedQuantity,
+                            transactionPriceTicks, EpochClock.now())
+                    : TransactionImpl.ofTicks(buyerId, sellerId, company, tradedQuantity,
+                            transactionPriceTicks, EpochClock.now());
+
+            recordTrade(shard, transaction);
+            book.onTrade(transaction);
+
+            // update price on company (simulate)
+            updateCompanyPrice(shard, company, transactionPrice);
+
+            if (ledger != null) {
+                ledger.fill(buyerId, company, true, tradedQuantity, store.priceTicks(buy), transactionPriceTicks);
+                ledger.fill(sellerId, company, false, tradedQuantity, store.priceTicks(sell), transactionPriceTicks);
             }
+
+            // reduce quantities and remove fully filled offers; a removed order's slot
+            // keeps its contents until the shard recycles it, so it can still be reported
+            book.fill(buy, tradedQuantity);
+            book.fill(sell, tradedQuantity);
+            notifyFill(store, buy, tradedQuantity, transactionPriceTicks);
+            notifyFill(store, sell, tradedQuantity, transactionPriceTicks);
+            if (store.quantity(buy) == 0) shard.retire(store.offer(buy));
+            if (store.quantity(sell) == 0) shard.retire(store.offer(sell));
         }
     }
 
+    // Reads the book's latest snapshot (best levels only, see EngineConfig); lock-free unless snapshots are on demand
     public List<ShareOffer> getSellOffersForCompany(Company company) {
+        BookSnapshot snapshot = getBookSnapshot(company);
+        return snapshot == null ? new ArrayList<>() : snapshot.getAsks();
+    }
+
+    public BookSnapshot getBookSnapshot(Company company) {
+        if (company == null) return null;
+        EngineShard shard = shardFor(company);
+        OrderBook book = shard.getBook(company);
+        return book == null ? null : shard.snapshotFor(book);
+    }
+
+    public boolean executeManualTrade(Buyer buyer, ShareOffer sellOffer, int quantity) {
+        if (buyer == null || sellOffer == null) return false;
+        if (sellOffer.getCompany() == null) return false;
+
+        EngineShard shard = shardFor(sellOffer.getCompany());
+        ReentrantLock lock = shard.getLock();
+        Transaction transaction;
         lock.lock();
+        long locked = metrics != null ? System.nanoTime() : 0;
         try {
-            List<ShareOffer> filtered = new ArrayList<>();
-            if (company == null) return filtered;
-
-            for (ShareOffer s : sellOrders) {
-                if (s == null) continue;
-                if (s.getCompany() == null) continue;
-                if (s.getQuantity() <= 0) continue;
-                if (s.getCompany().equals(company)) {
-                    filtered.add(s);
-                }
-            }
+            // ensure the sellOffer is still present and has enough quantity;
+            // look it up by id and work on the resting order from here on
+            OrderBook book = shard.getBook(sellOffer.getCompany());
+            if (book == null) return false;
+            OrderStore store = shard.getOrderStore();
+            int resting = book.get(sellOffer.getOrderId());
+            if (resting == OrderStore.NONE || store.isBuy(resting)) return false;
+            ShareOffer offer = store.offer(resting);
+            if (quantity <= 0 || quantity > offer.getQuantity()) return false;
 
-            // sort ascending by price without Comparator
-            for (int i = 0; i < filtered.size() - 1; i++) {
-                int minIdx = i;
-                for (int j = i + 1; j < filtered.size(); j++) {
-                    if (filtered.get(j).getPricePerShare() < filtered.get(minIdx).getPricePerShare()) {
-                        minIdx = j;
-                    }
-                }
-                if (minIdx != i) {
-                    ShareOffer tmp = filtered.get(i);
-                    filtered.set(i, filtered.get(minIdx));
-                    filtered.set(minIdx, tmp);
-                }
+            Company company = offer.getCompany();
+            // with a ledger, its reservation below is the check
+            double totalPrice = company.toPrice(quantity * offer.getPriceTicks());
+            if (ledger == null && buyer.getBalance() < totalPrice) return false;
+
+            // Find seller
+            Seller seller = sellers.get(offer.getClientId());
+            if (seller == null) return false;
+
+            // the buyer's cash is reserved like a buy order at the offer price, and settled at once
+            if (ledger != null && !ledger.reserve(buyer.getId(), company, true, quantity, offer.getPriceTicks())) {
+                return false;
             }
 
-            return filtered;
+            if (shard.getJournal() != null) {
+                shard.getJournal().appendManualTrade(buyer.getId(), offer.getOrderId(), quantity);
+            }
+            transaction = applyManualTrade(shard, book, resting, buyer.getId(), quantity);
+            shard.publishMarketData();
+            shard.publishSnapshots();
+            shard.recycle();
+            if (metrics != null) metrics.onManualTrade(locked, System.nanoTime());
         } finally {
             lock.unlock();
         }
+        // logged after the lock is released, so the matching worker never waits on the console
+        System.out.println("[Manual Trade] " + transaction);
+        return true;
     }
 
-    public boolean executeManualTrade(Buyer buyer, ShareOffer sellOffer, int quantity) {
-        lock.lock();
+    // The part of a manual trade that changes state, shared with journal replay
+    private Transaction applyManualTrade(EngineShard shard, OrderBook book, int resting,
+                                         String buyerId, int quantity) {
+        OrderStore store = shard.getOrderStore();
+        String sellerId = store.clientId(resting);
+        Company company = store.company(resting);
+        long priceTicks = store.priceTicks(resting);
+        double totalPrice = company.toPrice(quantity * priceTicks);
+
+        // Perform trade: update buyer and seller
+        Buyer buyer = buyers.get(buyerId);
+        Seller seller = sellers.get(sellerId);
+        if (buyer != null) {
+            if (ledger == null) buyer.updateAfterTransaction(company, quantity, totalPrice);
+            shard.addBuyerCash(buyerId, -totalPrice);
+        }
+        if (seller != null) {
+            if (ledger == null) seller.updateAfterTransaction(company, quantity, totalPrice);
+            shard.addSellerCash(sellerId, totalPrice);
+        }
+
+        // Record transaction with the sellOffer price as execution price
+        // (built before the fill, which may drop the offer from the book)
+        Transaction transaction = TransactionImpl.ofTicks(
+                buyerId,
+                sellerId,
+                company,
+                quantity,
+                priceTicks,
+                EpochClock.now()
+        );
+
+        if (ledger != null) {
+            ledger.fill(buyerId, company, true, quantity, priceTicks, priceTicks);
+            ledger.fill(sellerId, company, false, quantity, priceTicks, priceTicks);
+        }
+
+        // Reduce the sell offer quantity and remove if empty
+        book.fill(resting, quantity);
+        notifyFill(store, resting, quantity, priceTicks);
+        if (store.quantity(resting) == 0) shard.retire(store.offer(resting));
+
+        recordTrade(shard, transaction);
+        book.onTrade(transaction);
+
+        // Optionally update company price using the executed price
+        updateCompanyPrice(shard, company, transaction.getPricePerShare());
+        return transaction;
+    }
+
+    // Replayed fills were reported when they first happened
+    private void notifyFill(OrderStore store, int slot, int quantity, long priceTicks) {
+        OrderFillListener listener = fillListener;
+        if (listener != null && !replaying) listener.onFill(store.offer(slot), quantity, priceTicks);
+    }
+
+    private void recordTrade(EngineShard shard, Transaction transaction) {
+        transactionHistory.add(shard.getIndex(), transaction);
+        candles.onTrade(transaction);
+        if (metrics != null) metrics.onFill();
+
+        // Persist to DB if available (asynchronous, see TradeWriter); replayed trades are already there
+        if (dbManager != null && !replaying) {
+            dbManager.recordTransaction(transaction instanceof TradeRecord ? TransactionImpl.copyOf(transaction) : transaction);
+        }
+    }
+
+    // The simulated price move is random, so its outcome is journaled and
+    // replay restores it from the PRICE record instead of drawing again
+    private void updateCompanyPrice(EngineShard shard, Company company, double transactionPrice) {
+        if (replaying) return;
         try {
-            if (buyer == null || sellOffer == null) return false;
+            if (priceFromTrades) company.updatePriceFromTrade(company.toTicks(transactionPrice));
+            else company.updatePrice(transactionPrice);
+        } catch (RuntimeException ex) {
+            // if company price update throws, print and continue
+            System.err.println("[Engine] Company price update failed: " + ex.getMessage());
+            return;
+        }
+        if (shard.getJournal() != null) {
+            shard.getJournal().appendPrice(company.getSymbol(), company.getCurrentPriceTicks());
+        }
+    }
 
-            // ensure the sellOffer is still present and has enough quantity
-            if (!sellOrders.contains(sellOffer)) return false;
-            if (quantity <= 0 || quantity > sellOffer.getQuantity()) return false;
+    // ---- Checkpoints ----
 
-            double totalPrice = quantity * sellOffer.getPricePerShare();
-            if (buyer.getBalance() < totalPrice) return false;
+    // Checkpoints every shard at its own cut (see EngineCheckpoint), writes the file to the
+    // checkpoint directory and deletes the journal segments no kept checkpoint needs.
+    // Blocks the caller (not the matching threads) until the file is written.
+    // Returns the file, or null when the engine is not running or a shard did not respond.
+    public Path checkpoint() throws InterruptedException {
+        if (checkpointDirectory == null) throw new IllegalStateException("no checkpoint directory configured");
+        if (!running) return null;
 
-            // Find seller
-            Seller seller = sellers.get(sellOffer.getClientId());
-            if (seller == null) return false;
+        EngineCheckpoint.Capture capture = new EngineCheckpoint.Capture(shards.length, buyers, sellers);
+        for (EngineShard shard : shards) {
+            shard.getIngress().publishCheckpoint(capture);
+        }
+        EngineCheckpoint checkpoint = capture.await();
+        if (checkpoint == null) {
+            System.err.println("[Checkpoint] Not every shard reached the checkpoint, skipped");
+            return null;
+        }
+        Path file = checkpoint.write(checkpointDirectory, checkpointsKept);
+        pruneJournals();
+        return file;
+    }
 
-            // Perform trade: update buyer and seller
-            buyer.updateAfterTransaction(sellOffer.getCompany(), quantity, totalPrice);
-            seller.updateAfterTransaction(sellOffer.getCompany(), quantity, totalPrice);
-
-            // Reduce the sell offer quantity and remove if empty
-            sellOffer.reduceQuantity(quantity);
-            if (sellOffer.getQuantity() == 0) {
-                // remove the offer from sellOrders
-                Iterator<ShareOffer> it = sellOrders.iterator();
-                while (it.hasNext()) {
-                    ShareOffer s = it.next();
-                    if (s.getOfferId().equals(sellOffer.getOfferId())) {
-                        it.remove();
-                        break;
-                    }
-                }
-            }
+    private void pruneJournals() {
+        long[] cuts = EngineCheckpoint.oldestCut(checkpointDirectory);
+        if (cuts == null || cuts.length != shards.length) return;
+        int deleted = 0;
+        for (EngineShard shard : shards) {
+            if (shard.getJournal() != null) deleted += shard.getJournal().pruneThrough(cuts[shard.getIndex()]);
+        }
+        if (deleted > 0) System.out.println("[Checkpoint] Deleted " + deleted + " journal segments covered by checkpoints");
+    }
 
-            // Record transaction with the sellOffer price as execution price
-            Transaction transaction = new TransactionImpl(
-                    buyer.getId(),
-                    seller.getId(),
-                    sellOffer.getCompany(),
-                    quantity,
-                    sellOffer.getPricePerShare(),
-                    LocalDateTime.now()
-            );
-            transactionHistory.add(transaction);
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("[Checkpoint] Failed: " + e.getMessage());
+        }
+    }
 
-            // Persist to DB if available
-            if (dbManager != null) {
+    // ---- Recovery ----
+
+    // Restores the newest checkpoint (when a checkpoint directory is configured and holds one)
+    // and replays the journal records written after it; without a checkpoint the whole journal
+    // is replayed. Call after registering buyers/sellers and before starting the engine thread;
+    // the engine must be configured with the same companies and partition count that wrote them.
+    // Returns the number of journal records replayed.
+    public long recover() {
+        EngineCheckpoint checkpoint = checkpointDirectory == null ? null
+                : EngineCheckpoint.readLatest(checkpointDirectory, companiesBySymbol);
+        if (checkpoint != null && checkpoint.getShardCount() != shards.length) {
+            throw new IllegalStateException("checkpoint has " + checkpoint.getShardCount()
+                    + " shards, engine has " + shards.length);
+        }
+        if (checkpoint != null) restore(checkpoint);
+        return replayJournal(checkpoint);
+    }
+
+    // Rebuilds books and company prices from the full order journals (see recover); fails
+    // once checkpoints have pruned the oldest segments
+    public long replayJournal() {
+        return replayJournal(null);
+    }
+
+    private long replayJournal(EngineCheckpoint from) {
+        long records = 0;
+        replaying = true;
+        try {
+            for (EngineShard shard : shards) {
+                if (shard.getJournal() == null) continue;
+                shard.getLock().lock();
                 try {
-                    Document doc = new Document()
-                            .append("buyerId", transaction.getBuyerId())
-                            .append("sellerId", transaction.getSellerId())
-                            .append("company", transaction.getCompany().getSymbol())
-                            .append("quantity", transaction.getQuantity())
-                            .append("pricePerShare", transaction.getPricePerShare())
-                            .append("timestamp", transaction.getTimestamp().toString());
-
-                    dbManager.getTransactionsCollection().insertOne(doc);
-                    System.out.println("[DB] Inserted manual transaction: " + doc.toJson());
-                } catch (Exception e) {
-                    System.err.println("[DB] Failed to insert manual transaction: " + e.getMessage());
+                    ReplayHandler handler = new ReplayHandler(shard);
+                    long after = from == null ? 0 : from.getShard(shard.getIndex()).journalSequence;
+                    records += shard.getJournal().replayAfter(after, handler);
+                    shard.getJournal().continueAfter(after);
+                    shard.setRecoveredSequence(shard.getJournal().getNextSequence() - 1);
+                    shard.publishMarketData();
+                    shard.publishSnapshots();
+                    shard.recycle();
+                } finally {
+                    shard.getLock().unlock();
                 }
             }
+        } finally {
+            replaying = false;
+        }
+        return records;
+    }
 
-            // Optionally update company price using the executed price
-            if (sellOffer.getCompany() != null) {
-                try {
-                    sellOffer.getCompany().updatePrice(sellOffer.getPricePerShare());
-                } catch (RuntimeException ex) {
-                    // if company price update throws, print and continue
-                    System.err.println("[Engine] Company price update failed: " + ex.getMessage());
+    private void restore(EngineCheckpoint checkpoint) {
+        // agents first: with a ledger their accounts are reopened from the saved balances,
+        // and the resting orders below take their reservations again
+        for (AgentState state : checkpoint.getBuyers()) {
+            Buyer buyer = buyers.get(state.getId());
+            if (buyer != null) buyer.restoreState(state);
+            if (buyer != null && ledger != null) openAccount(state);
+        }
+        for (AgentState state : checkpoint.getSellers()) {
+            Seller seller = sellers.get(state.getId());
+            if (seller != null) seller.restoreState(state);
+            if (seller != null && ledger != null) openAccount(state);
+        }
+        for (EngineShard shard : shards) {
+            EngineCheckpoint.ShardState state = checkpoint.getShard(shard.getIndex());
+            shard.getLock().lock();
+            try {
+                shard.clearAgentCash();
+                shard.setRecoveredSequence(state.journalSequence);
+                shard.restoreOrderSequence(state.orderSequence);
+                state.prices.forEach(Company::restorePriceTicks);
+                // orders were saved in priority order, so re-adding them rebuilds the same queues
+                for (ShareOffer offer : state.orders) {
+                    if (ledger != null) ledger.reserve(offer);
+                    shard.bookFor(offer.getCompany()).add(offer);
                 }
+                shard.publishMarketData();
+                shard.publishSnapshots();
+            } finally {
+                shard.getLock().unlock();
+            }
+        }
+    }
+
+    // ---- Standby (journal shipping, see JournalShipper and StandbyReplica) ----
+
+    // Puts the engine in standby: it takes no orders of its own and applies the primary's
+    // journal records the way recovery replays a journal. The engine is fresh or has just
+    // recovered (see recover), and the primary sends what came after. Must not be started
+    // until endStandby.
+    void beginStandby() {
+        for (EngineShard shard : shards) {
+            OrderJournal journal = shard.getJournal();
+            if (journal != null && journal.getNextSequence() != shard.getRecoveredSequence() + 1) {
+                throw new IllegalStateException("a standby's journal must hold nothing beyond what it recovered");
             }
+        }
+        standbyHandlers = new ReplayHandler[shards.length];
+        for (int i = 0; i < shards.length; i++) standbyHandlers[i] = new ReplayHandler(shards[i]);
+        replaying = true;
+    }
 
-            System.out.println("[Manual Trade] " + transaction);
-            return true;
+    // Applies one record of the primary's journal for shard `shardIndex`; the bytes are
+    // record[offset, offset + length). The record is copied into this engine's own journal
+    // first, so after a take-over the journal continues the primary's sequence.
+    void applyReplicated(int shardIndex, ByteBuffer record, int offset, int length) {
+        EngineShard shard = shards[shardIndex];
+        ReentrantLock lock = shard.getLock();
+        lock.lock();
+        try {
+            if (shard.getJournal() != null) shard.getJournal().appendRecord(record, offset, length);
+            record.position(offset);
+            OrderJournal.readRecord(record, standbyHandlers[shardIndex]);
         } finally {
             lock.unlock();
         }
     }
 
-    public List<Transaction> getTransactionHistory() {
-        return Collections.unmodifiableList(transactionHistory);
+    // Publishes market data and snapshots for what was applied since the last call
+    void publishReplicated() {
+        for (EngineShard shard : shards) {
+            shard.getLock().lock();
+            try {
+                shard.publishMarketData();
+                shard.publishSnapshots();
+                shard.recycle();
+            } finally {
+                shard.getLock().unlock();
+            }
+        }
+    }
+
+    // From here on the engine journals, persists and draws prices itself; start it next
+    void endStandby() {
+        publishReplicated();
+        replaying = false;
+        standbyHandlers = null;
+    }
+
+    EngineShard getShard(int index) {
+        return shards[index];
+    }
+
+    // Applies journal records to one shard through the same paths as live events
+    private class ReplayHandler implements OrderJournal.Handler {
+        private final EngineShard shard;
+        private final OrderEvent event = new OrderEvent();
+
+        ReplayHandler(EngineShard shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void onNew(long sequence, long orderId, String symbol, String clientId, boolean buy, int quantity, long priceTicks) {
+            Company company = companiesBySymbol.get(symbol);
+            if (company == null) {
+                System.err.println("[Journal] Unknown company " + symbol + " at sequence " + sequence);
+                return;
+            }
+            ShareOffer offer = ShareOffer.ofTicks(clientId, company, quantity, priceTicks, buy);
+            offer.assignOrderId(orderId);
+            shard.advanceOrderSequence(orderId);
+            event.set(offer);
+            process(shard, event);
+        }
+
+        @Override
+        public void onCancel(long sequence, long orderId) {
+            event.setCancel(orderId);
+            process(shard, event);
+        }
+
+        @Override
+        public void onAmend(long sequence, long orderId, int quantity, double price) {
+            event.setAmend(orderId, quantity, price);
+            process(shard, event);
+        }
+
+        @Override
+        public void onMassCancel(long sequence, String clientId) {
+            event.setMassCancel(clientId);
+            process(shard, event);
+        }
+
+        @Override
+        public void onManualTrade(long sequence, String buyerId, long orderId, int quantity) {
+            OrderStore store = shard.getOrderStore();
+            int resting = shard.getOrderIndex().get(orderId);
+            if (resting == OrderStore.NONE) return;
+            Company company = store.company(resting);
+            if (ledger != null) ledger.reserve(buyerId, company, true, quantity, store.priceTicks(resting));
+            applyManualTrade(shard, shard.getBook(company), resting, buyerId, quantity);
+        }
+
+        @Override
+        public void onPrice(long sequence, String symbol, long priceTicks) {
+            Company company = companiesBySymbol.get(symbol);
+            if (company != null) company.restorePriceTicks(priceTicks);
+        }
+
+        @Override
+        public void onStop(long sequence) {
+            // clean shutdown marker, nothing to apply
+        }
+    }
+
+    // Candles and running statistics per symbol; use these rather than scanning the history
+    public CandleAggregator getCandles() {
+        return candles;
+    }
+
+    // Iterable over every trade, oldest first; see TradeHistory.range for time windows
+    public TradeHistory getTransactionHistory() {
+        return transactionHistory;
     }
 
     public List<ShareOffer> getBuyOrders() {
-        return Collections.unmodifiableList(buyOrders);
+        return collectAll(true);
     }
 
     public List<ShareOffer> getSellOrders() {
-        return Collections.unmodifiableList(sellOrders);
+        return collectAll(false);
+    }
+
+    private List<ShareOffer> collectAll(boolean buySide) {
+        List<ShareOffer> all = new ArrayList<>();
+        for (EngineShard shard : shards) {
+            shard.getLock().lock();
+            try {
+                for (OrderBook book : shard.getBooks().values()) book.collect(buySide, all);
+            } finally {
+                shard.getLock().unlock();
+            }
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    public OrderBook getOrderBook(Company company) {
+        return shardFor(company).getBook(company);
+    }
+
+    // Accounts of registered agents; null unless the ledger was enabled in the EngineConfig
+    public AccountLedger getLedger() {
+        return ledger;
+    }
+
+    // Level updates, trade prints and top of book per symbol; null unless enabled in the EngineConfig
+    public MarketDataFeed getMarketData() {
+        return marketData;
+    }
+
+    // null unless metrics were enabled in the EngineConfig
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    public List<Company> getCompanies() {
+        return Collections.unmodifiableList(companies);
+    }
+
+    public int getPartitionCount() {
+        return shards.length;
     }
 }
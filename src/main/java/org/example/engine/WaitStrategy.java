@@ -0,0 +1,11 @@
+package org.example.engine;
+
+// How the ring buffer consumer waits for the next order
+public enum WaitStrategy {
+    // Spin on the CPU: lowest latency, burns a full core
+    BUSY_SPIN,
+    // Spin for a while, then Thread.yield()
+    YIELDING,
+    // Park on a condition until a producer signals
+    BLOCKING
+}
@@ -1,37 +1,79 @@
 package org.example.model_layer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
 public class Company {
+    // Smallest price increment used when none is given (one cent)
+    public static final double DEFAULT_TICK_SIZE = 0.01;
+
     private String name;
     private String symbol;
-    private double basePrice;
-    private double currentPrice;
+    // Prices are fixed-point: a whole number of ticks of tickSize each
+    private final double tickSize;
+    private long basePriceTicks;
+    private long currentPriceTicks;
     private int totalShares;
 
     public Company(String name, String symbol, double basePrice, double currentPrice, int totalShares) {
+        this(name, symbol, basePrice, currentPrice, totalShares, DEFAULT_TICK_SIZE);
+    }
+
+    public Company(String name, String symbol, double basePrice, double currentPrice, int totalShares, double tickSize) {
+        if (tickSize <= 0) throw new IllegalPriceException("Tick size must be positive");
         this.name = name;
         this.symbol = symbol;
-        this.basePrice = basePrice;
-        this.currentPrice = currentPrice;
+        this.tickSize = tickSize;
+        this.basePriceTicks = toTicks(basePrice);
+        this.currentPriceTicks = toTicks(currentPrice);
         this.totalShares = totalShares;
     }
 
     public void updatePrice(double transactionPrice) {
         // Simulate price change within ±5%
-        double changePercent = (Math.random() - 0.5) * 0.1;
-        double newPrice = currentPrice * (1 + changePercent);
+        double changePercent = (ThreadLocalRandom.current().nextDouble() - 0.5) * 0.1;
+        long newPriceTicks = Math.round(currentPriceTicks * (1 + changePercent));
+
+        if(toPrice(newPriceTicks) < 0.1) throw new IllegalPriceException("New Price modification cannot be done, share price has went down");
+        currentPriceTicks = newPriceTicks;
+    }
+
+    // Marks the company to its last execution
+    public void updatePriceFromTrade(long priceTicks) {
+        if (priceTicks <= 0) throw new IllegalPriceException("Trade price must be positive");
+        currentPriceTicks = priceTicks;
+    }
+
+    // Sets the price as recorded earlier (journal replay, snapshots)
+    public void restorePriceTicks(long priceTicks) {
+        currentPriceTicks = priceTicks;
+    }
+
+    // ---- Fixed-point conversion ----
+    public long toTicks(double price) {
+        return toTicks(price, tickSize);
+    }
+
+    public double toPrice(long ticks) {
+        return ticks * tickSize;
+    }
 
-        if(newPrice < 0.1) throw new IllegalPriceException("New Price modification cannot be done, share price has went down");
-        currentPrice = newPrice;
+    public static long toTicks(double price, double tickSize) {
+        return Math.round(price / tickSize);
     }
+
     @Override
     public String toString() {
         return String.format("Company{name='%s', symbol='%s', price='%.2f', totalShares=%d}",
-                name, symbol, currentPrice, totalShares);
+                name, symbol, getCurrentPrice(), totalShares);
     }
 
     // Getters and setters
     public String getName() { return name; }
     public String getSymbol() { return symbol; }
-    public double getBasePrice() { return basePrice; }
-    public double getCurrentPrice() { return currentPrice; }
+    public double getTickSize() { return tickSize; }
+    public long getBasePriceTicks() { return basePriceTicks; }
+    public long getCurrentPriceTicks() { return currentPriceTicks; }
+    public double getBasePrice() { return toPrice(basePriceTicks); }
+    public double getCurrentPrice() { return toPrice(currentPriceTicks); }
     public int getTotalShares() { return totalShares; }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package org.example.model_layer;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Timestamps as primitive nanoseconds since the epoch, read without allocating.
+// The wall clock is read once; after that time advances with System.nanoTime(), so stamps
+// never go backwards. Values are local wall-clock time counted as if it were UTC, the same
+// form LocalDateTime.now() had when it was stored, so old and new stamps compare directly.
+public final class EpochClock {
+    private static final long BASE_EPOCH_NANOS = toEpochNanos(LocalDateTime.now());
+    private static final long BASE_NANO_TIME = System.nanoTime();
+
+    private EpochClock() {
+    }
+
+    public static long now() {
+        return BASE_EPOCH_NANOS + (System.nanoTime() - BASE_NANO_TIME);
+    }
+
+    public static long toEpochNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                (int) Math.floorMod(epochNanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
@@ -1,36 +1,86 @@
 package org.example.model_layer;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 
 public class ShareOffer {
-    private final String offerId;
-    private final String clientId; // Buyer or Seller
-    private final Company company;
+    private long orderId; // assigned by the engine on submit, 0 until then
+    private String clientId; // Buyer or Seller
+    private Company company;
     private int quantity;
-    private double pricePerShare;
+    private long priceTicks; // fixed-point, see Company.getTickSize()
     private boolean isBuyOffer;
-    private LocalDateTime timestamp;
+    private long timestampNanos; // see EpochClock
 
     public ShareOffer(String clientId, Company company, int quantity, double pricePerShare, boolean isBuyOffer) {
-        this.offerId = UUID.randomUUID().toString();
+        this(clientId, company, quantity, isBuyOffer,
+                company != null ? company.toTicks(pricePerShare) : Company.toTicks(pricePerShare, Company.DEFAULT_TICK_SIZE));
+    }
+
+    private ShareOffer(String clientId, Company company, int quantity, boolean isBuyOffer, long priceTicks) {
+        this(clientId, company, quantity, isBuyOffer, priceTicks, EpochClock.now());
+    }
+
+    private ShareOffer(String clientId, Company company, int quantity, boolean isBuyOffer, long priceTicks, long timestampNanos) {
         this.clientId = clientId;
         this.company = company;
         this.quantity = quantity;
-        this.pricePerShare = pricePerShare;
+        this.priceTicks = priceTicks;
         this.isBuyOffer = isBuyOffer;
-        this.timestamp = LocalDateTime.now();
+        this.timestampNanos = timestampNanos;
+    }
+
+    // Point-in-time copy with the same id (used for published book snapshots);
+    // keeps the original timestamp, so no clock read per copied order
+    public ShareOffer copy() {
+        ShareOffer copy = new ShareOffer(clientId, company, quantity, isBuyOffer, priceTicks, timestampNanos);
+        copy.orderId = orderId;
+        return copy;
+    }
+
+    // Builds an offer from a price already expressed in ticks of the company's tick size
+    public static ShareOffer ofTicks(String clientId, Company company, int quantity, long priceTicks, boolean isBuyOffer) {
+        return new ShareOffer(clientId, company, quantity, isBuyOffer, priceTicks);
     }
 
     // Getters
-    public String getOfferId() { return offerId; }
+    public long getOrderId() { return orderId; }
+    // String form kept for older callers
+    public String getOfferId() { return Long.toString(orderId); }
     public String getClientId() { return clientId; }
     public Company getCompany() { return company; }
     public int getQuantity() { return quantity; }
-    public double getPricePerShare() { return pricePerShare; }
+    public long getPriceTicks() { return priceTicks; }
+    public double getPricePerShare() {
+        return company != null ? company.toPrice(priceTicks) : priceTicks * Company.DEFAULT_TICK_SIZE;
+    }
     public boolean isBuyOffer() { return isBuyOffer; }
-    public LocalDateTime getTimestamp() { return timestamp; }
+    public LocalDateTime getTimestamp() { return EpochClock.toLocalDateTime(timestampNanos); }
+    public long getTimestampNanos() { return timestampNanos; }
+
+    public void assignOrderId(long orderId) {
+        if (this.orderId != 0) throw new IllegalStateException("Offer already has id " + this.orderId);
+        this.orderId = orderId;
+    }
+
+    // Replaces quantity and price; only done by the engine while the offer is out of the book
+    public void amend(int quantity, long priceTicks) {
+        this.quantity = quantity;
+        this.priceTicks = priceTicks;
+        this.timestampNanos = EpochClock.now();
+    }
+
+    // Turns a finished offer into a new order; only for the engine's order pools
+    protected void reuse(long orderId, String clientId, Company company, int quantity, long priceTicks,
+                         boolean isBuyOffer, long timestampNanos) {
+        this.orderId = orderId;
+        this.clientId = clientId;
+        this.company = company;
+        this.quantity = quantity;
+        this.priceTicks = priceTicks;
+        this.isBuyOffer = isBuyOffer;
+        this.timestampNanos = timestampNanos;
+    }
 
 //    Update remaining quantity (used after partial trades)
     public void reduceQuantity(int amount) {
@@ -43,7 +93,7 @@ public class ShareOffer {
                 company.getSymbol(),
                 isBuyOffer ? "BUY" : "SELL",
                 quantity,
-                pricePerShare,
+                getPricePerShare(),
                 clientId);
     }
     public boolean isBuy() {return isBuyOffer;}
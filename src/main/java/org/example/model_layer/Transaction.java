@@ -8,5 +8,16 @@ public interface Transaction {
     public Company getCompany();
     public int getQuantity();
     public double getPricePerShare();
+    public long getPriceTicks();
+
+    // Exact traded value in ticks (quantity * price)
+    public default long getValueTicks() {
+        return getQuantity() * getPriceTicks();
+    }
     public LocalDateTime getTimestamp();
+
+    // Same instant as getTimestamp(), as EpochClock nanos
+    public default long getTimestampNanos() {
+        return EpochClock.toEpochNanos(getTimestamp());
+    }
 }
\ No newline at end of file
@@ -7,18 +7,39 @@ public class TransactionImpl implements Transaction {
     private final String sellerId;
     private final Company company;
     private final int quantity;
-    private final double pricePerShare;
-    private final LocalDateTime timestamp;
+    private final long priceTicks;
+    private final long timestampNanos; // see EpochClock
 
     public TransactionImpl(String buyerId, String sellerId,
                            Company company, int quantity,
                            double pricePerShare, LocalDateTime timestamp) {
+        this(buyerId, sellerId, company, EpochClock.toEpochNanos(timestamp), quantity, company.toTicks(pricePerShare));
+    }
+
+    private TransactionImpl(String buyerId, String sellerId, Company company,
+                            long timestampNanos, int quantity, long priceTicks) {
         this.buyerId = buyerId;
         this.sellerId = sellerId;
         this.company = company;
         this.quantity = quantity;
-        this.pricePerShare = pricePerShare;
-        this.timestamp = timestamp;
+        this.priceTicks = priceTicks;
+        this.timestampNanos = timestampNanos;
+    }
+
+    public static TransactionImpl ofTicks(String buyerId, String sellerId, Company company,
+                                          int quantity, long priceTicks, LocalDateTime timestamp) {
+        return new TransactionImpl(buyerId, sellerId, company, EpochClock.toEpochNanos(timestamp), quantity, priceTicks);
+    }
+
+    public static TransactionImpl ofTicks(String buyerId, String sellerId, Company company,
+                                          int quantity, long priceTicks, long timestampNanos) {
+        return new TransactionImpl(buyerId, sellerId, company, timestampNanos, quantity, priceTicks);
+    }
+
+    // Immutable copy of any transaction, e.g. of a reused trade record that has to be kept
+    public static TransactionImpl copyOf(Transaction t) {
+        return new TransactionImpl(t.getBuyerId(), t.getSellerId(), t.getCompany(),
+                t.getTimestampNanos(), t.getQuantity(), t.getPriceTicks());
     }
 
     @Override
@@ -34,14 +55,20 @@ public class TransactionImpl implements Transaction {
     public int getQuantity() { return quantity; }
 
     @Override
-    public double getPricePerShare() { return pricePerShare; }
+    public double getPricePerShare() { return company.toPrice(priceTicks); }
+
+    @Override
+    public long getPriceTicks() { return priceTicks; }
+
+    @Override
+    public LocalDateTime getTimestamp() { return EpochClock.toLocalDateTime(timestampNanos); }
 
     @Override
-    public LocalDateTime getTimestamp() { return timestamp; }
+    public long getTimestampNanos() { return timestampNanos; }
 
     @Override
     public String toString() {
         return String.format("Transaction[%s: %d shares of %s @ %.2f]",
-                timestamp, quantity, company.getSymbol(), pricePerShare);
+                getTimestamp(), quantity, company.getSymbol(), getPricePerShare());
     }
 }
@@ -0,0 +1,159 @@
+import org.example.engine.EngineConfig;
+import org.example.engine.GatewayProtocol;
+import org.example.engine.LatencyHistogram;
+import org.example.engine.OrderGateway;
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs the engine behind the binary gateway on loopback with many logged-on idle sessions,
+// then times NEW -> ACK and NEW -> FILL round trips from one buyer and one seller connection.
+// A measurement only; GatewayTest checks the protocol itself.
+public class TestGatewayLatency {
+    private static final int IDLE_CONNECTIONS = 1000;
+    private static final int WARMUP = 20_000;
+    private static final int ROUNDS = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        Company apple = new Company("Apple", "AAPL", 150, 150, 1000);
+        Company google = new Company("Google", "GOOG", 2800, 2800, 1000);
+        TradingEngine engine = new TradingEngine(List.of(apple, google), null, new EngineConfig().setPartitions(2));
+        Thread engineThread = new Thread(engine, "ExchangeEngine");
+        engineThread.start();
+
+        LatencyHistogram decode = new LatencyHistogram("gateway-decode");
+        try (OrderGateway gateway = new OrderGateway(engine, new InetSocketAddress("127.0.0.1", 0), 2)) {
+            gateway.setDecodeLatency(decode);
+            InetSocketAddress address = gateway.getAddress();
+
+            List<Client> idle = new ArrayList<>();
+            for (int i = 0; i < IDLE_CONNECTIONS; i++) idle.add(Client.logon(address, "IDLE" + i));
+            System.out.println("[Test] Sessions logged on: " + gateway.getSessionCount());
+
+            Client buyer = Client.logon(address, "BUYER");
+            Client seller = Client.logon(address, "SELLER");
+            long aapl = GatewayProtocol.encodeSymbol("AAPL");
+            long price = apple.getCurrentPriceTicks();
+
+            LatencyHistogram ackRtt = new LatencyHistogram("new-ack");
+            LatencyHistogram fillRtt = new LatencyHistogram("new-fill");
+            for (int i = 0; i < WARMUP + ROUNDS; i++) {
+                if (i == WARMUP) decode.reset();
+                seller.newOrder(10 + i, aapl, false, 1, price);
+                long start = System.nanoTime();
+                buyer.sendNew(10 + i, aapl, true, 1, price);
+                buyer.expect(GatewayProtocol.ACK);
+                long acked = System.nanoTime();
+                buyer.expect(GatewayProtocol.FILL);
+                long filled = System.nanoTime();
+                check(buyer.lastLeaves == 0 && buyer.lastPrice == price, "buyer filled");
+                seller.expect(GatewayProtocol.FILL);
+                if (i >= WARMUP) {
+                    ackRtt.record(acked - start);
+                    fillRtt.record(filled - start);
+                }
+            }
+            report(ackRtt);
+            report(fillRtt);
+            report(decode);
+
+            seller.channel.close();
+            buyer.channel.close();
+            for (Client c : idle) c.channel.close();
+            System.out.println("[Test] Messages: " + gateway.getMessageCount() + ", rejects: " + gateway.getRejectCount());
+        }
+        engine.stop();
+        engineThread.join();
+        System.out.println("[Test] OK");
+    }
+
+    private static void report(LatencyHistogram h) {
+        System.out.printf("%-15s n=%d p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n", h.getName(), h.getCount(),
+                h.percentile(50) / 1e3, h.percentile(99) / 1e3, h.percentile(99.9) / 1e3, h.getMax() / 1e3);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) throw new AssertionError("check failed: " + what);
+    }
+
+    // Blocking test client; reads replies in order
+    private static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer out = ByteBuffer.allocate(64);
+        final ByteBuffer in = ByteBuffer.allocate(64);
+        byte lastStatus;
+        long lastOrderId;
+        int lastLeaves;
+        long lastPrice;
+
+        private Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        static Client logon(InetSocketAddress address, String clientId) throws IOException {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Client client = new Client(channel);
+            client.out.clear();
+            GatewayProtocol.putLogon(client.out, clientId);
+            client.send();
+            client.expect(GatewayProtocol.ACK);
+            check(client.lastStatus == GatewayProtocol.ACCEPTED, "logon " + clientId);
+            return client;
+        }
+
+        // Returns the order id, or 0 when rejected
+        long newOrder(long requestId, long symbol, boolean buy, int quantity, long priceTicks) throws IOException {
+            sendNew(requestId, symbol, buy, quantity, priceTicks);
+            expect(GatewayProtocol.ACK);
+            return lastStatus == GatewayProtocol.ACCEPTED ? lastOrderId : 0;
+        }
+
+        void sendNew(long requestId, long symbol, boolean buy, int quantity, long priceTicks) throws IOException {
+            out.clear();
+            GatewayProtocol.putNew(out, requestId, symbol, buy, quantity, priceTicks);
+            send();
+        }
+
+        private void send() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) channel.write(out);
+        }
+
+        void expect(byte type) throws IOException {
+            read(GatewayProtocol.HEADER_BYTES);
+            int length = in.getShort() & 0xFFFF;
+            byte actual = in.get();
+            check(actual == type, "expected message type " + type + " but got " + actual);
+            read(length - GatewayProtocol.HEADER_BYTES);
+            if (type == GatewayProtocol.ACK) {
+                in.getLong();
+                lastOrderId = in.getLong();
+                lastStatus = in.get();
+            } else {
+                lastOrderId = in.getLong();
+                in.getLong();
+                in.get();
+                in.getInt();
+                lastPrice = in.getLong();
+                lastLeaves = in.getInt();
+            }
+        }
+
+        private void read(int bytes) throws IOException {
+            in.clear().limit(bytes);
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) throw new EOFException();
+            }
+            in.flip();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+import org.example.engine.EngineConfig;
+import org.example.engine.JournalShipper;
+import org.example.engine.OrderBook;
+import org.example.engine.StandbyReplica;
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Hot standby across two JVMs. This process starts a primary in a child JVM, which trades for
+// a while, opens a JournalShipper, waits for the standby, trades some more and then halts
+// without any shutdown. Here a StandbyReplica follows it: it catches up on the journal
+// written before it connected, then applies the live records. Once the primary is gone it
+// takes over and must hold exactly the primary's books, prices and trade count; its own
+// journal must recover to the same state, and it must go on trading with fresh order ids.
+// A manual harness for a real crash and the replication lag it prints; HotStandbyTest checks
+// the same in one JVM as part of the build. Run with the test classpath:
+//   java -cp target/classes:target/test-classes:<dependencies> TestHotStandby
+public class TestHotStandby {
+    private static final int PARTITIONS = 2;
+    private static final int STEPS_BEFORE_STANDBY = 50_000;
+    private static final int STEPS_WITH_STANDBY = 150_000;
+    private static final String[] CLIENTS = new String[40];
+
+    public static void main(String[] args) throws Exception {
+        for (int i = 0; i < CLIENTS.length; i++) CLIENTS[i] = "C" + i;
+        if (args.length > 0 && args[0].equals("primary")) {
+            primary(Path.of(args[1]));
+            return;
+        }
+
+        Path primaryJournal = Files.createTempDirectory("standby-test-primary");
+        Path standbyJournal = Files.createTempDirectory("standby-test-standby");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "TestHotStandby", "primary", primaryJournal.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try {
+            BufferedReader primaryOut = new BufferedReader(new InputStreamReader(child.getInputStream()));
+            int port = Integer.parseInt(expect(primaryOut, "PORT "));
+
+            List<Company> companies = companies();
+            TradingEngine engine = new TradingEngine(companies, null, config(standbyJournal));
+            StandbyReplica standby = new StandbyReplica(engine,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+            String primaryLag = expect(primaryOut, "LAG ");
+            String primaryDigest = expect(primaryOut, "DIGEST ");
+            if (!standby.awaitPrimaryLoss(10, TimeUnit.SECONDS)) throw new AssertionError("primary did not go away");
+            long lostAt = System.nanoTime();
+            standby.takeOver();
+            long tookOverMicros = (System.nanoTime() - lostAt) / 1000;
+
+            System.out.println("[Test] Primary commit lag (write -> standby applied): " + primaryLag);
+            System.out.println("[Test] Standby apply lag: " + standby.getLag() + ", " + standby.getRecords() + " records");
+            System.out.println("[Test] Took over " + tookOverMicros + " us after the primary was found gone");
+
+            String standbyDigest = digest(engine, companies);
+            if (!standbyDigest.equals(primaryDigest)) {
+                throw new AssertionError("standby state differs from the primary's:\n" + primaryDigest + "\n" + standbyDigest);
+            }
+            System.out.println("[Test] Standby matches the primary: " + standbyDigest.substring(0, 60) + "...");
+
+            // the standby's own journal holds the same history
+            List<Company> recoveredCompanies = companies();
+            TradingEngine recovered = new TradingEngine(recoveredCompanies, null, config(standbyJournal));
+            recovered.recover();
+            if (!digest(recovered, recoveredCompanies).equals(primaryDigest)) {
+                throw new AssertionError("the standby's journal does not recover the primary's state");
+            }
+            System.out.println("[Test] Standby journal recovers the same state");
+
+            // and it trades on as the new primary
+            long maxRestingId = maxRestingId(engine);
+            Thread worker = new Thread(engine, "promoted-engine");
+            worker.start();
+            long tradesBefore = engine.getTransactionHistory().size();
+            Company company = companies.get(0);
+            long buy = engine.submitOrder("after", company, 5, company.getCurrentPriceTicks() + 500, true);
+            long sell = engine.submitOrder("after", company, 5, company.getCurrentPriceTicks() - 500, false);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (engine.getTransactionHistory().size() == tradesBefore && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            engine.stop();
+            worker.join();
+            if (engine.getTransactionHistory().size() == tradesBefore) throw new AssertionError("promoted engine does not trade");
+            if (Math.min(buy, sell) <= maxRestingId) throw new AssertionError("promoted engine reuses order ids");
+            System.out.println("[Test] OK");
+        } finally {
+            child.destroyForcibly();
+            delete(primaryJournal);
+            delete(standbyJournal);
+        }
+    }
+
+    // Child JVM
+    private static void primary(Path journal) throws Exception {
+        List<Company> companies = companies();
+        TradingEngine engine = new TradingEngine(companies, null, config(journal));
+        Flow flow = new Flow(engine, companies);
+        flow.run(STEPS_BEFORE_STANDBY);
+
+        JournalShipper shipper = new JournalShipper(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        System.out.println("PORT " + shipper.getAddress().getPort());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (shipper.getStandbyCount() == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+
+        flow.run(STEPS_WITH_STANDBY);
+        while (shipper.getLagRecords() > 0 && System.nanoTime() < deadline + TimeUnit.SECONDS.toNanos(10)) {
+            Thread.sleep(1);
+        }
+        System.out.println("LAG " + shipper.getLag());
+        System.out.println("DIGEST " + digest(engine, companies));
+        System.out.flush();
+        // a crash: no stop record, no journal flush, no goodbye to the standby
+        Runtime.getRuntime().halt(0);
+    }
+
+    private static List<Company> companies() {
+        return List.of(
+                new Company("Apple", "AAPL", 150, 150, 1000),
+                new Company("Google", "GOOG", 2800, 2800, 1000),
+                new Company("Tesla", "TSLA", 250, 250, 1000));
+    }
+
+    private static EngineConfig config(Path journal) {
+        return new EngineConfig().setPartitions(PARTITIONS).setJournalDirectory(journal);
+    }
+
+    // Resting orders per side in priority order, company prices and the trade count
+    private static String digest(TradingEngine engine, List<Company> companies) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("trades=").append(engine.getTransactionHistory().size());
+        long hash = 17;
+        int resting = 0;
+        for (Company company : companies) {
+            sb.append(' ').append(company.getSymbol()).append('=').append(company.getCurrentPriceTicks());
+            OrderBook book = engine.getOrderBook(company);
+            List<ShareOffer> orders = new ArrayList<>();
+            book.collect(true, orders);
+            book.collect(false, orders);
+            for (ShareOffer o : orders) {
+                hash = hash * 31 + o.getOrderId();
+                hash = hash * 31 + o.getQuantity();
+                hash = hash * 31 + o.getPriceTicks();
+                hash = hash * 31 + o.getClientId().hashCode();
+            }
+            resting += orders.size();
+        }
+        return sb.append(" resting=").append(resting).append(" hash=").append(Long.toHexString(hash)).toString();
+    }
+
+    private static long maxRestingId(TradingEngine engine) {
+        long max = 0;
+        for (ShareOffer o : engine.getBuyOrders()) max = Math.max(max, o.getOrderId());
+        for (ShareOffer o : engine.getSellOrders()) max = Math.max(max, o.getOrderId());
+        return max;
+    }
+
+    private static String expect(BufferedReader reader, String prefix) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(prefix)) return line.substring(prefix.length());
+        }
+        throw new AssertionError("primary exited before printing " + prefix.trim());
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    // Orders near each company's base price with cancels, amends and the odd mass cancel,
+    // applied in batches on the calling thread
+    private static final class Flow {
+        private final TradingEngine engine;
+        private final List<Company> companies;
+        private final long[] recent = new long[1024];
+        private long seed = 99;
+        private long step;
+
+        Flow(TradingEngine engine, List<Company> companies) {
+            this.engine = engine;
+            this.companies = companies;
+        }
+
+        void run(int steps) {
+            for (int i = 0; i < steps; i++) {
+                Company company = companies.get(next(companies.size()));
+                boolean buy = next(2) == 0;
+                long price = company.getBasePriceTicks() + next(21) - 10;
+                int slot = (int) (step++ % recent.length);
+                if (recent[slot] != 0) engine.cancelOrder(recent[slot]);
+                recent[slot] = engine.submitOrder(CLIENTS[next(CLIENTS.length)], company, 1 + next(20), price, buy);
+                if (i % 16 == 0) {
+                    long id = recent[next(recent.length)];
+                    if (id != 0) engine.amendOrder(id, next(15), company.toPrice(price));
+                }
+                if (i % 5000 == 0) engine.cancelAllOrders(CLIENTS[next(CLIENTS.length)]);
+                if (i % 64 == 0) engine.processPending();
+            }
+            engine.processPending();
+        }
+
+        private int next(int bound) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return (int) Math.floorMod(seed, (long) bound);
+        }
+    }
+}
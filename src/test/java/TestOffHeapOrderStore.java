@@ -0,0 +1,147 @@
+import org.example.engine.EngineConfig;
+import org.example.engine.TradingEngine;
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Grows one book to several million resting orders with each order store and reports, at
+// every depth, the heap in use after a full GC and the GC work done by a fixed burst of
+// trading on top of the deep book. With the off-heap store the heap must stay flat as the
+// book deepens; the heap store's numbers are printed for comparison.
+// An optional measurement, run by hand; the off-heap store's matching is checked by
+// OffHeapOrderMatchingTest in the build.
+public class TestOffHeapOrderStore {
+    private static final int[] DEPTHS = {250_000, 500_000, 1_000_000, 2_000_000};
+    private static final int BURST = 200_000;
+    private static final int LEVELS = 200;              // price levels per side
+    private static final long MAX_OFF_HEAP_GROWTH = 16L << 20;
+
+    private static final String[] CLIENTS = new String[100];
+
+    private final TradingEngine engine;
+    private final Company company;
+    private int resting;
+    private long seed = 7;
+
+    private TestOffHeapOrderStore(TradingEngine engine, Company company) {
+        this.engine = engine;
+        this.company = company;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int i = 0; i < CLIENTS.length; i++) CLIENTS[i] = "C" + i;
+        long heapGrowth = run(EngineConfig.OrderStoreType.HEAP);
+        long offHeapGrowth = run(EngineConfig.OrderStoreType.OFF_HEAP);
+        System.out.printf("[Test] heap growth %d KB with HEAP, %d KB with OFF_HEAP%n",
+                heapGrowth >> 10, offHeapGrowth >> 10);
+        if (offHeapGrowth > MAX_OFF_HEAP_GROWTH) {
+            throw new AssertionError("heap grew by " + (offHeapGrowth >> 10) + " KB with the off-heap store");
+        }
+        System.out.println("[Test] OK");
+    }
+
+    // Returns how much the live heap grew from the first depth to the last
+    private static long run(EngineConfig.OrderStoreType type) throws IOException {
+        Company company = new Company("Apple", "AAPL", 150, 150, 1_000_000);
+        Path spill = Files.createTempDirectory("offheap-test-history");
+        TradingEngine engine = new TradingEngine(List.of(company), null, new EngineConfig()
+                .setIngressType(EngineConfig.IngressType.RING_BUFFER)
+                .setOrderStoreType(type)
+                .setPooling(true)
+                .setSnapshotsOnDemand(true)
+                .setHistoryWindow(10_000)
+                .setHistorySpillDirectory(spill));
+        try {
+            TestOffHeapOrderStore test = new TestOffHeapOrderStore(engine, company);
+            long first = -1;
+            long last = 0;
+            for (int depth : DEPTHS) {
+                test.fillTo(depth);
+                last = usedHeapAfterGc();
+                if (first < 0) first = last;
+                long[] gc = gcTotals();
+                long start = System.nanoTime();
+                test.burst();
+                long micros = (System.nanoTime() - start) / 1000;
+                long[] after = gcTotals();
+                System.out.printf("[Test] %-8s depth %,9d  heap %,7d KB  burst %,7d us  gc %d collections, %d ms%n",
+                        type, engine.getOrderBook(company).getOrderCount(), last >> 10, micros,
+                        after[0] - gc[0], after[1] - gc[1]);
+            }
+            return last - first;
+        } finally {
+            engine.getTransactionHistory().close();
+            try (Stream<Path> files = Files.walk(spill)) {
+                files.sorted(Comparator.reverseOrder()).forEach(TestOffHeapOrderStore::delete);
+            }
+        }
+    }
+
+    // Adds orders away from the touch (bids below 150, asks above) until `depth` rest
+    private void fillTo(int depth) {
+        long base = company.getBasePriceTicks();
+        while (resting < depth) {
+            boolean buy = (resting & 1) == 0;
+            long price = buy ? base - 1 - next(LEVELS) : base + 1 + next(LEVELS);
+            engine.submitOrder(CLIENTS[next(CLIENTS.length)], company, 1 + next(10), price, buy);
+            if (++resting % 1024 == 0) engine.processPending();
+        }
+        engine.processPending();
+    }
+
+    // Agent-style flow at the top of the book: new offers objects that cross and fill
+    // against the best levels, each replaced by a fresh resting order
+    private void burst() {
+        long base = company.getBasePriceTicks();
+        for (int i = 0; i < BURST; i++) {
+            boolean buy = (i & 1) == 0;
+            String client = CLIENTS[next(CLIENTS.length)];
+            ShareOffer cross = ShareOffer.ofTicks(client, company, 1 + next(5), buy ? base + LEVELS : base - LEVELS, buy);
+            if (buy) engine.submitBuyOrder(cross);
+            else engine.submitSellOrder(cross);
+            long price = buy ? base + 1 + next(LEVELS) : base - 1 - next(LEVELS);
+            engine.submitOrder(client, company, cross.getQuantity(), price, !buy);
+            if (i % 64 == 0) engine.processPending();
+        }
+        engine.processPending();
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // {collections, milliseconds} over all collectors
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+
+    private int next(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) Math.floorMod(seed, (long) bound);
+    }
+
+    private static void delete(Path p) {
+        try {
+            Files.delete(p);
+        } catch (IOException e) {
+            System.err.println("[Test] Cannot delete " + p + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// With the ledger enabled, agents' balances and portfolios are their ledger accounts:
+// fills and manual trades move them there, manual trades are checked against them, and
+// a checkpoint brings them back.
+class AccountLedgerTest {
+    @TempDir
+    Path checkpoints;
+
+    @Test
+    void agentsReadTheirAccountsFromTheLedger() {
+        Engine e = new Engine(null);
+        e.sell(20, 15_000);
+        e.buy(5, 15_000);
+        e.engine.processPending();
+
+        AccountLedger ledger = e.engine.getLedger();
+        assertEquals(1_000 - 5 * 150.0, e.buyer.getBalance(), 1e-9);
+        assertEquals(ledger.getCash("B"), e.buyer.getBalance(), 1e-9);
+        assertEquals(Map.of(e.company, 5), e.buyer.getPortfolio());
+        assertEquals(5 * 150.0, e.seller.getBalance(), 1e-9);
+        assertEquals(Map.of(e.company, 15), e.seller.getPortfolio());
+        assertEquals(0, ledger.getAvailablePosition("S", e.company));
+    }
+
+    @Test
+    void manualTradeIsCheckedAgainstTheLedger() {
+        Engine e = new Engine(null);
+        e.sell(20, 15_000);
+        e.engine.processPending();
+        ShareOffer offer = e.engine.getSellOffersForCompany(e.company).get(0);
+
+        // 7 x 150 is more than the buyer's 1000
+        assertFalse(e.engine.executeManualTrade(e.buyer, offer, 7));
+        assertEquals(1, e.engine.getLedger().getRejectedOrders());
+        assertTrue(e.engine.executeManualTrade(e.buyer, offer, 6));
+        assertEquals(100, e.buyer.getBalance(), 1e-9);
+        assertEquals(Map.of(e.company, 6), e.buyer.getPortfolio());
+        assertEquals(900, e.seller.getBalance(), 1e-9);
+    }
+
+    @Test
+    void checkpointRestoresTheAccounts() throws Exception {
+        Engine live = new Engine(checkpoints);
+        Thread worker = new Thread(live.engine);
+        worker.start();
+        live.sell(20, 15_000);
+        live.buy(5, 15_000);
+        live.buy(3, 14_000);
+        live.engine.checkpoint();
+        live.engine.stop();
+        worker.join();
+
+        Engine recovered = new Engine(checkpoints);
+        recovered.engine.recover();
+        AccountLedger ledger = recovered.engine.getLedger();
+        assertEquals(live.buyer.getBalance(), recovered.buyer.getBalance(), 1e-9);
+        assertEquals(bySymbol(live.buyer.getPortfolio()), bySymbol(recovered.buyer.getPortfolio()));
+        assertEquals(live.seller.getBalance(), recovered.seller.getBalance(), 1e-9);
+        assertEquals(bySymbol(live.seller.getPortfolio()), bySymbol(recovered.seller.getPortfolio()));
+        // the resting orders hold their reservations again
+        assertEquals(live.engine.getLedger().getBuyingPower("B"), ledger.getBuyingPower("B"), 1e-9);
+        assertEquals(live.engine.getLedger().getAvailablePosition("S", live.company),
+                ledger.getAvailablePosition("S", recovered.company));
+    }
+
+    // Each engine has its own companies
+    private static Map<String, Integer> bySymbol(Map<Company, Integer> portfolio) {
+        Map<String, Integer> holdings = new TreeMap<>();
+        portfolio.forEach((c, shares) -> holdings.put(c.getSymbol(), shares));
+        return holdings;
+    }
+
+    private static final class Engine {
+        final Company company = new Company("Apple", "AAPL", 150, 150, 1000);
+        final TradingEngine engine;
+        final Buyer buyer;
+        final Seller seller;
+
+        Engine(Path checkpoints) {
+            engine = new TradingEngine(List.of(company), null, new EngineConfig()
+                    .setLedgerEnabled(true)
+                    .setPriceFromTrades(true)
+                    .setCheckpointDirectory(checkpoints));
+            buyer = new Buyer("B", 1_000, engine);
+            seller = new Seller("S", engine, 0);
+            seller.getPortfolio().put(company, 20);
+            engine.registerBuyer(buyer);
+            engine.registerSeller(seller);
+        }
+
+        void buy(int quantity, long priceTicks) {
+            engine.submitOrder("B", company, quantity, priceTicks, true);
+        }
+
+        void sell(int quantity, long priceTicks) {
+            engine.submitOrder("S", company, quantity, priceTicks, false);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.engine;
+
+import com.sun.management.ThreadMXBean;
+import org.example.model_layer.Company;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Drives the engine with pooling on through a steady flow of orders, cancels and amends
+// and measures what the matching thread allocates once it is warm. Orders are sent as fields
+// on the ring buffer and applied with processPending on this thread, so the thread's
+// allocation counter covers submitting, matching, the trade history (spilling to disk),
+// candles and the order pools. A warm run allocates a few dozen bytes in total; the allowance
+// is far below one byte per order, so any per-order allocation fails the test.
+class AllocationFreeTest {
+    private static final int WARMUP_STEPS = 2_000_000;
+    private static final int MEASURED_STEPS = 2_000_000;
+    private static final int BATCH = 64;
+    private static final int ORDER_LIFETIME = 2048;   // steps until an order is cancelled if still open
+    private static final long ALLOWED_BYTES = 4 * 1024;
+
+    private static final String[] CLIENTS = new String[50];
+
+    private final long[] recent = new long[ORDER_LIFETIME];
+    private TradingEngine engine;
+    private List<Company> companies;
+    private long seed = 42;
+    private long step;
+
+    @TempDir
+    Path spill;
+
+    @Test
+    void warmMatchingDoesNotAllocate() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        for (int i = 0; i < CLIENTS.length; i++) CLIENTS[i] = "C" + i;
+        companies = List.of(
+                new Company("Apple", "AAPL", 150, 150, 1000),
+                new Company("Google", "GOOG", 2800, 2800, 1000));
+        engine = new TradingEngine(companies, null, new EngineConfig()
+                .setIngressType(EngineConfig.IngressType.RING_BUFFER)
+                .setPooling(true)
+                .setSnapshotsOnDemand(true)
+                .setHistoryWindow(50_000)
+                .setHistorySpillDirectory(spill));
+        try {
+            run(WARMUP_STEPS);
+
+            long tradesBefore = engine.getTransactionHistory().size();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            run(MEASURED_STEPS);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            long trades = engine.getTransactionHistory().size() - tradesBefore;
+
+            System.out.printf("[Test] %d orders, %d trades, %d bytes allocated (%.4f bytes/order)%n",
+                    MEASURED_STEPS, trades, allocated, (double) allocated / MEASURED_STEPS);
+            assertTrue(trades > 0, "no trades in the measured run");
+            assertTrue(allocated <= ALLOWED_BYTES, "matching allocated " + allocated + " bytes");
+        } finally {
+            engine.getTransactionHistory().close();
+        }
+    }
+
+    // Each step sends one order near the last price and cancels the one sent ORDER_LIFETIME steps
+    // earlier, so the books stay at a steady depth; every 16th step also amends an open order.
+    private void run(int steps) {
+        for (int i = 0; i < steps; i++) {
+            Company company = companies.get(next(2));
+            boolean buy = next(2) == 0;
+            long price = company.getBasePriceTicks() + next(11) - 5;
+            int slot = (int) (step++ % ORDER_LIFETIME);
+            if (recent[slot] != 0) engine.cancelOrder(recent[slot]);
+            recent[slot] = engine.submitOrder(CLIENTS[next(CLIENTS.length)], company, 1 + next(10), price, buy);
+            if (i % 16 == 0) {
+                long id = recent[next(ORDER_LIFETIME)];
+                if (id != 0) engine.amendOrder(id, 1 + next(5), company.toPrice(price));
+            }
+            if (i % BATCH == 0) engine.processPending();
+        }
+        engine.processPending();
+    }
+
+    // xorshift; java.util.Random would do too, this keeps the loop free of anything but the engine
+    private int next(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) Math.floorMod(seed, (long) bound);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// submitOrders hands a shard its orders as one run, applied under one lock acquisition;
+// the fills, trades and books must be exactly those of submitting the same orders one at a time.
+class BatchSubmitTest {
+    private static final int CHUNKS = 200;
+
+    @Test
+    void batchedSubmitFillsLikeOneAtATime() {
+        Run single = new Run(1, false);
+        Run batched = new Run(256, true);
+        Random singleOrders = new Random(17);
+        Random batchedOrders = new Random(17);
+        int orders = 0;
+        for (int c = 0; c < CHUNKS; c++) {
+            List<ShareOffer> chunk = chunk(singleOrders, single.company);
+            for (ShareOffer offer : chunk) {
+                single.engine.submitBuyOrder(offer);
+                single.engine.processPending();
+            }
+            batched.engine.submitOrders(chunk(batchedOrders, batched.company));
+            batched.engine.processPending();
+            orders += chunk.size();
+        }
+
+        assertEquals(single.fills.toString(), batched.fills.toString());
+        assertEquals(single.describe(), batched.describe());
+        assertEquals(single.engine.getTransactionHistory().size(), batched.engine.getTransactionHistory().size());
+
+        // one lock-hold sample per batch, one match-time sample per order
+        EngineMetrics metrics = batched.engine.getMetrics();
+        assertEquals(CHUNKS, metrics.getLockHold().getCount());
+        assertEquals(orders, metrics.getMatchTime().getCount());
+        metrics.unregister();
+    }
+
+    // 1 to 100 crossing orders around the base price
+    private static List<ShareOffer> chunk(Random random, Company company) {
+        List<ShareOffer> chunk = new ArrayList<>();
+        int size = 1 + random.nextInt(100);
+        for (int i = 0; i < size; i++) {
+            boolean buy = random.nextBoolean();
+            long priceTicks = company.getBasePriceTicks() + random.nextInt(21) - 10;
+            chunk.add(ShareOffer.ofTicks((buy ? "B" : "S") + random.nextInt(10), company,
+                    1 + random.nextInt(50), priceTicks, buy));
+        }
+        return chunk;
+    }
+
+    private static final class Run {
+        final Company company = new Company("Apple", "AAPL", 150, 150, 1000);
+        final TradingEngine engine;
+        final StringBuilder fills = new StringBuilder();
+
+        Run(int batchSize, boolean metrics) {
+            engine = new TradingEngine(List.of(company), null, new EngineConfig()
+                    .setBatchSize(batchSize)
+                    .setPriceFromTrades(true)   // the simulated price walk is random
+                    .setMetricsEnabled(metrics));
+            engine.setFillListener((order, quantity, priceTicks) -> fills.append(order.getOrderId())
+                    .append(order.isBuy() ? " B " : " S ").append(order.getClientId()).append(' ')
+                    .append(quantity).append('@').append(priceTicks).append(" leaves ")
+                    .append(order.getQuantity()).append('\n'));
+        }
+
+        String describe() {
+            StringBuilder sb = new StringBuilder().append(company.getCurrentPriceTicks()).append('\n');
+            List<ShareOffer> orders = new ArrayList<>();
+            engine.getOrderBook(company).collect(true, orders);
+            engine.getOrderBook(company).collect(false, orders);
+            for (ShareOffer o : orders) {
+                sb.append(o.getOrderId()).append(o.isBuy() ? " B " : " S ").append(o.getQuantity())
+                        .append('@').append(o.getPriceTicks()).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+}
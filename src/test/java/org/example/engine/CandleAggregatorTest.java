@@ -0,0 +1,139 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.EpochClock;
+import org.example.model_layer.TransactionImpl;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Bars and running statistics from trades with fixed timestamps: bucketing per resolution,
+// the ring of kept bars, late-stamped trades, VWAP, and the engine feeding it with the
+// company price following the trades.
+class CandleAggregatorTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final long OPEN = EpochClock.toEpochNanos(LocalDateTime.of(2024, 1, 1, 9, 30));
+
+    private final Company company = new Company("Apple", "AAPL", 1, 1, 1000);
+
+    @Test
+    void bucketsTradesIntoBarsOfEachResolution() {
+        CandleAggregator candles = new CandleAggregator();
+        trade(candles, OPEN + SECOND / 10, 100, 10);
+        trade(candles, OPEN + SECOND / 2, 105, 5);
+        trade(candles, OPEN + SECOND * 9 / 10, 98, 5);
+        trade(candles, OPEN + SECOND * 12 / 10, 101, 10);
+        trade(candles, OPEN + 61 * SECOND, 110, 20);
+        trade(candles, OPEN + 301 * SECOND, 90, 10);
+
+        assertEquals(List.of(
+                "0 O=100 H=105 L=98 C=98 V=20 T=3",
+                "1 O=101 H=101 L=101 C=101 V=10 T=1",
+                "61 O=110 H=110 L=110 C=110 V=20 T=1",
+                "301 O=90 H=90 L=90 C=90 V=10 T=1"), bars(candles, CandleAggregator.Resolution.SECOND_1));
+        assertEquals(List.of(
+                "0 O=100 H=105 L=98 C=101 V=30 T=4",
+                "60 O=110 H=110 L=110 C=110 V=20 T=1",
+                "300 O=90 H=90 L=90 C=90 V=10 T=1"), bars(candles, CandleAggregator.Resolution.MINUTE_1));
+        assertEquals(List.of(
+                "0 O=100 H=110 L=98 C=110 V=50 T=5",
+                "300 O=90 H=90 L=90 C=90 V=10 T=1"), bars(candles, CandleAggregator.Resolution.MINUTE_5));
+
+        // (10 x 100 + 5 x 105 + 5 x 98) / 20 ticks
+        Candle first = candles.getCandles(company, CandleAggregator.Resolution.SECOND_1, 4).get(0);
+        assertEquals(1.0075, first.getVwap(), 1e-12);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 9, 30), first.getStart());
+    }
+
+    @Test
+    void keepsOnlyTheNewestBars() {
+        CandleAggregator candles = new CandleAggregator(3);
+        for (int s = 0; s < 5; s++) trade(candles, OPEN + s * SECOND, 100 + s, 1);
+
+        assertEquals(List.of(
+                "2 O=102 H=102 L=102 C=102 V=1 T=1",
+                "3 O=103 H=103 L=103 C=103 V=1 T=1",
+                "4 O=104 H=104 L=104 C=104 V=1 T=1"), bars(candles, CandleAggregator.Resolution.SECOND_1));
+        assertEquals(List.of("4 O=104 H=104 L=104 C=104 V=1 T=1"),
+                describe(candles.getCandles(company, CandleAggregator.Resolution.SECOND_1, 1)));
+        // all five trades are still in the one 1-minute bar and in the stats
+        assertEquals(List.of("0 O=100 H=104 L=100 C=104 V=5 T=5"), bars(candles, CandleAggregator.Resolution.MINUTE_1));
+        assertEquals(5, candles.getStats(company).getTrades());
+    }
+
+    @Test
+    void tradeStampedBeforeTheOpenBarIsFoldedIntoIt() {
+        CandleAggregator candles = new CandleAggregator();
+        trade(candles, OPEN + 5 * SECOND, 100, 10);
+        // the clock stepped back by two seconds
+        trade(candles, OPEN + 3 * SECOND, 95, 10);
+
+        assertEquals(List.of("5 O=100 H=100 L=95 C=95 V=20 T=2"), bars(candles, CandleAggregator.Resolution.SECOND_1));
+        trade(candles, OPEN + 6 * SECOND, 97, 1);
+        assertEquals(2, candles.getCandles(company, CandleAggregator.Resolution.SECOND_1, 10).size());
+    }
+
+    @Test
+    void statsTrackLastPriceVolumeAndVwap() {
+        CandleAggregator candles = new CandleAggregator();
+        assertNull(candles.getStats(company));
+        assertNull(candles.getCurrentCandle(company, CandleAggregator.Resolution.MINUTE_1));
+        trade(candles, OPEN, 200, 30);
+        trade(candles, OPEN + 90 * SECOND, 100, 10);
+
+        TradeStats stats = candles.getStats(company);
+        assertEquals(100, stats.getLastPriceTicks());
+        assertEquals(OPEN + 90 * SECOND, stats.getLastTradeNanos());
+        assertEquals(40, stats.getVolume());
+        assertEquals(2, stats.getTrades());
+        // (30 x 200 + 10 x 100) / 40 = 175 ticks
+        assertEquals(1.75, stats.getVwap(), 1e-12);
+        assertEquals(70.0, stats.getNotional(), 1e-9);
+        assertEquals(1.0, candles.getCurrentCandle(company, CandleAggregator.Resolution.MINUTE_1).getVwap(), 1e-12);
+    }
+
+    @Test
+    void engineFeedsCandlesAndMovesThePriceToTheTrade() {
+        Company apple = new Company("Apple", "AAPL", 10, 10, 1000);
+        TradingEngine engine = new TradingEngine(List.of(apple), null, new EngineConfig().setPriceFromTrades(true));
+        engine.submitOrder("S", apple, 10, 1000, false);
+        engine.submitOrder("B", apple, 10, 1003, true);
+        engine.processPending();
+
+        // the midpoint, rounded down to a tick
+        assertEquals(1001, apple.getCurrentPriceTicks());
+        Candle bar = engine.getCandles().getCurrentCandle(apple, CandleAggregator.Resolution.SECOND_1);
+        assertEquals(1001, bar.getCloseTicks());
+        assertEquals(10, bar.getVolume());
+        assertEquals(10.01, engine.getCandles().getStats(apple).getLastPrice(), 1e-9);
+
+        engine.submitOrder("S", apple, 5, 990, false);
+        engine.submitOrder("B", apple, 5, 990, true);
+        engine.processPending();
+        assertEquals(990, apple.getCurrentPriceTicks());
+        assertEquals(15, engine.getCandles().getStats(apple).getVolume());
+    }
+
+    private void trade(CandleAggregator candles, long nanos, long priceTicks, int quantity) {
+        candles.onTrade(TransactionImpl.ofTicks("B", "S", company, quantity, priceTicks, nanos));
+    }
+
+    private List<String> bars(CandleAggregator candles, CandleAggregator.Resolution resolution) {
+        return describe(candles.getCandles(company, resolution, 100));
+    }
+
+    // Seconds from OPEN, then OHLCV in ticks and the trade count
+    private static List<String> describe(List<Candle> bars) {
+        List<String> described = new ArrayList<>();
+        for (Candle c : bars) {
+            described.add((c.getStartNanos() - OPEN) / SECOND + " O=" + c.getOpenTicks() + " H=" + c.getHighTicks()
+                    + " L=" + c.getLowTicks() + " C=" + c.getCloseTicks() + " V=" + c.getVolume() + " T=" + c.getTrades());
+        }
+        return described;
+    }
+}
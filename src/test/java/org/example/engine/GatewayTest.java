@@ -0,0 +1,223 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The binary gateway on loopback in front of a running engine: what a client is told for
+// each order it enters, and which orders it may touch afterwards.
+class GatewayTest {
+    private final Company apple = new Company("Apple", "AAPL", 150, 150, 1000);
+    private final long aapl = GatewayProtocol.encodeSymbol("AAPL");
+    private TradingEngine engine;
+    private Thread worker;
+    private OrderGateway gateway;
+
+    private void start(EngineConfig config) throws IOException {
+        engine = new TradingEngine(List.of(apple), null, config.setPriceFromTrades(true));
+        worker = new Thread(engine, "ExchangeEngine");
+        worker.start();
+        gateway = new OrderGateway(engine, new InetSocketAddress("127.0.0.1", 0), 1);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        gateway.close();
+        engine.stop();
+        worker.join();
+    }
+
+    @Test
+    void unknownSymbolIsRejected() throws Exception {
+        start(new EngineConfig());
+        Client seller = Client.logon(gateway.getAddress(), "SELLER");
+        long id = seller.newOrder(1, GatewayProtocol.encodeSymbol("MSFT"), false, 1, apple.getCurrentPriceTicks());
+        assertEquals(0, id);
+        assertEquals(GatewayProtocol.UNKNOWN_SYMBOL, seller.lastStatus);
+        assertEquals(1, gateway.getRejectCount());
+        seller.channel.close();
+    }
+
+    @Test
+    void onlyTheEnteringSessionMayCancelAnOrder() throws Exception {
+        start(new EngineConfig());
+        Client buyer = Client.logon(gateway.getAddress(), "BUYER");
+        Client seller = Client.logon(gateway.getAddress(), "SELLER");
+        long resting = seller.newOrder(1, aapl, false, 5, apple.getCurrentPriceTicks() + 100);
+        assertEquals(GatewayProtocol.ACCEPTED, seller.lastStatus);
+
+        buyer.cancel(1, resting);
+        assertEquals(GatewayProtocol.UNKNOWN_ORDER, buyer.lastStatus);
+        seller.cancel(2, resting);
+        assertEquals(GatewayProtocol.ACCEPTED, seller.lastStatus);
+        assertTrue(await(0), "order cancelled");
+        buyer.channel.close();
+        seller.channel.close();
+    }
+
+    @Test
+    void crossingOrderIsAckedThenFilledOnBothSides() throws Exception {
+        start(new EngineConfig());
+        Client buyer = Client.logon(gateway.getAddress(), "BUYER");
+        Client seller = Client.logon(gateway.getAddress(), "SELLER");
+        long price = apple.getCurrentPriceTicks();
+        long sell = seller.newOrder(1, aapl, false, 10, price);
+
+        buyer.sendNew(1, aapl, true, 4, price);
+        buyer.expect(GatewayProtocol.ACK);
+        assertEquals(GatewayProtocol.ACCEPTED, buyer.lastStatus);
+        long buy = buyer.lastOrderId;
+        buyer.expect(GatewayProtocol.FILL);
+        assertEquals(buy, buyer.lastOrderId);
+        assertEquals(price, buyer.lastPrice);
+        assertEquals(0, buyer.lastLeaves);
+        seller.expect(GatewayProtocol.FILL);
+        assertEquals(sell, seller.lastOrderId);
+        assertEquals(6, seller.lastLeaves);
+
+        // a filled order is gone: cancelling it is rejected
+        buyer.cancel(2, buy);
+        assertEquals(GatewayProtocol.UNKNOWN_ORDER, buyer.lastStatus);
+        buyer.channel.close();
+        seller.channel.close();
+    }
+
+    @Test
+    void restingOrdersAreCancelledOnDisconnect() throws Exception {
+        start(new EngineConfig());
+        Client seller = Client.logon(gateway.getAddress(), "SELLER");
+        seller.newOrder(1, aapl, false, 7, apple.getCurrentPriceTicks() + 50);
+        seller.newOrder(2, aapl, false, 3, apple.getCurrentPriceTicks() + 60);
+        // acked once the worker has applied them
+        assertTrue(await(2), "orders resting before disconnect");
+        seller.channel.close();
+        assertTrue(await(0), "orders cancelled on disconnect");
+    }
+
+    @Test
+    void orderTheAccountCannotCoverIsRejected() throws Exception {
+        start(new EngineConfig().setLedgerEnabled(true));
+        engine.registerBuyer(new Buyer("BUYER", 1_000, engine));
+        Client buyer = Client.logon(gateway.getAddress(), "BUYER");
+        long price = apple.getCurrentPriceTicks();
+
+        // 10 x 150 is more than the buyer's 1000
+        buyer.sendNew(1, aapl, true, 10, price);
+        buyer.expect(GatewayProtocol.ACK);
+        assertEquals(GatewayProtocol.REJECTED, buyer.lastStatus);
+        long rejected = buyer.lastOrderId;
+        assertEquals(1, engine.getLedger().getRejectedOrders());
+        assertEquals(1_000, engine.getLedger().getBuyingPower("BUYER"), 1e-9);
+
+        // the rejected order is not the client's to cancel
+        buyer.cancel(2, rejected);
+        assertEquals(GatewayProtocol.UNKNOWN_ORDER, buyer.lastStatus);
+
+        long covered = buyer.newOrder(3, aapl, true, 6, price);
+        assertEquals(GatewayProtocol.ACCEPTED, buyer.lastStatus);
+        buyer.cancel(4, covered);
+        assertEquals(GatewayProtocol.ACCEPTED, buyer.lastStatus);
+        buyer.channel.close();
+    }
+
+    // Waits for the number of SELLER's resting asks, which the worker changes asynchronously
+    private boolean await(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (engine.getSellOffersForCompany(apple).stream().filter(o -> o.getClientId().equals("SELLER")).count() != expected) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    // Blocking test client; reads replies in order
+    static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer out = ByteBuffer.allocate(64);
+        final ByteBuffer in = ByteBuffer.allocate(64);
+        byte lastStatus;
+        long lastOrderId;
+        int lastLeaves;
+        long lastPrice;
+
+        private Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        static Client logon(InetSocketAddress address, String clientId) throws IOException {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Client client = new Client(channel);
+            client.out.clear();
+            GatewayProtocol.putLogon(client.out, clientId);
+            client.send();
+            client.expect(GatewayProtocol.ACK);
+            assertEquals(GatewayProtocol.ACCEPTED, client.lastStatus, "logon " + clientId);
+            return client;
+        }
+
+        // Returns the order id, or 0 when rejected
+        long newOrder(long requestId, long symbol, boolean buy, int quantity, long priceTicks) throws IOException {
+            sendNew(requestId, symbol, buy, quantity, priceTicks);
+            expect(GatewayProtocol.ACK);
+            return lastStatus == GatewayProtocol.ACCEPTED ? lastOrderId : 0;
+        }
+
+        void sendNew(long requestId, long symbol, boolean buy, int quantity, long priceTicks) throws IOException {
+            out.clear();
+            GatewayProtocol.putNew(out, requestId, symbol, buy, quantity, priceTicks);
+            send();
+        }
+
+        void cancel(long requestId, long orderId) throws IOException {
+            out.clear();
+            GatewayProtocol.putCancel(out, requestId, orderId);
+            send();
+            expect(GatewayProtocol.ACK);
+        }
+
+        private void send() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) channel.write(out);
+        }
+
+        void expect(byte type) throws IOException {
+            read(GatewayProtocol.HEADER_BYTES);
+            int length = in.getShort() & 0xFFFF;
+            byte actual = in.get();
+            assertEquals(type, actual, "message type");
+            read(length - GatewayProtocol.HEADER_BYTES);
+            if (type == GatewayProtocol.ACK) {
+                in.getLong();
+                lastOrderId = in.getLong();
+                lastStatus = in.get();
+            } else {
+                lastOrderId = in.getLong();
+                in.getLong();
+                in.get();
+                in.getInt();
+                lastPrice = in.getLong();
+                lastLeaves = in.getInt();
+            }
+        }
+
+        private void read(int bytes) throws IOException {
+            in.clear().limit(bytes);
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) throw new EOFException();
+            }
+            in.flip();
+        }
+    }
+}
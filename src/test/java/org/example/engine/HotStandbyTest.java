@@ -0,0 +1,155 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A primary and a StandbyReplica in one JVM over loopback. The standby connects after the
+// primary has traded for a while, catches up on the journal and follows the live records.
+// When the primary goes away it takes over with exactly the primary's books, prices and trade
+// count, its own journal recovers the same state, and it trades on with fresh order ids.
+// TestHotStandby runs the same with the primary in a second JVM that halts.
+class HotStandbyTest {
+    private static final int STEPS_BEFORE_STANDBY = 5_000;
+    private static final int STEPS_WITH_STANDBY = 20_000;
+
+    @TempDir
+    Path primaryJournal;
+    @TempDir
+    Path standbyJournal;
+
+    @Test
+    void standbyTakesOverWithThePrimarysState() throws Exception {
+        List<Company> primaryCompanies = companies();
+        TradingEngine primary = new TradingEngine(primaryCompanies, null, config(primaryJournal));
+        Flow flow = new Flow(primary, primaryCompanies);
+        flow.run(STEPS_BEFORE_STANDBY);
+
+        List<Company> companies = companies();
+        TradingEngine engine = new TradingEngine(companies, null, config(standbyJournal));
+        StandbyReplica standby;
+        String primaryDigest;
+        try (JournalShipper shipper = new JournalShipper(primary, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            standby = new StandbyReplica(engine, shipper.getAddress());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (shipper.getStandbyCount() == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            flow.run(STEPS_WITH_STANDBY);
+            // every record acknowledged by the standby before the primary goes
+            while (shipper.getLagRecords() > 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertEquals(0, shipper.getLagRecords());
+            primaryDigest = digest(primary, primaryCompanies);
+        }
+        // the primary is gone: its shipper closed the connection
+        assertTrue(standby.awaitPrimaryLoss(10, TimeUnit.SECONDS), "primary loss detected");
+        standby.takeOver();
+        assertEquals(primaryDigest, digest(engine, companies));
+
+        // the standby's own journal holds the same history
+        List<Company> recoveredCompanies = companies();
+        TradingEngine recovered = new TradingEngine(recoveredCompanies, null, config(standbyJournal));
+        recovered.recover();
+        assertEquals(primaryDigest, digest(recovered, recoveredCompanies));
+
+        // and it trades on as the new primary
+        long maxRestingId = maxRestingId(engine);
+        long tradesBefore = engine.getTransactionHistory().size();
+        Company company = companies.get(0);
+        long buy = engine.submitOrder("after", company, 5, company.getCurrentPriceTicks() + 500, true);
+        long sell = engine.submitOrder("after", company, 5, company.getCurrentPriceTicks() - 500, false);
+        engine.processPending();
+        assertTrue(engine.getTransactionHistory().size() > tradesBefore, "promoted engine trades");
+        assertTrue(Math.min(buy, sell) > maxRestingId, "order ids are not reused");
+    }
+
+    private static List<Company> companies() {
+        return List.of(
+                new Company("Apple", "AAPL", 150, 150, 1000),
+                new Company("Google", "GOOG", 2800, 2800, 1000),
+                new Company("Tesla", "TSLA", 250, 250, 1000));
+    }
+
+    private static EngineConfig config(Path journal) {
+        return new EngineConfig().setPartitions(2).setJournalDirectory(journal);
+    }
+
+    // Resting orders per side in priority order, company prices and the trade count
+    private static String digest(TradingEngine engine, List<Company> companies) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("trades=").append(engine.getTransactionHistory().size());
+        for (Company company : companies) {
+            sb.append('\n').append(company.getSymbol()).append('=').append(company.getCurrentPriceTicks());
+            OrderBook book = engine.getOrderBook(company);
+            List<ShareOffer> orders = new ArrayList<>();
+            book.collect(true, orders);
+            book.collect(false, orders);
+            for (ShareOffer o : orders) {
+                sb.append(' ').append(o.getOrderId()).append(o.isBuy() ? "B" : "S").append(o.getClientId())
+                        .append(':').append(o.getQuantity()).append('@').append(o.getPriceTicks());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long maxRestingId(TradingEngine engine) {
+        long max = 0;
+        for (ShareOffer o : engine.getBuyOrders()) max = Math.max(max, o.getOrderId());
+        for (ShareOffer o : engine.getSellOrders()) max = Math.max(max, o.getOrderId());
+        return max;
+    }
+
+    // Orders near each company's base price with cancels, amends and the odd mass cancel,
+    // applied in batches on the calling thread
+    private static final class Flow {
+        private static final String[] CLIENTS = new String[40];
+        static {
+            for (int i = 0; i < CLIENTS.length; i++) CLIENTS[i] = "C" + i;
+        }
+
+        private final TradingEngine engine;
+        private final List<Company> companies;
+        private final long[] recent = new long[1024];
+        private long seed = 99;
+        private long step;
+
+        Flow(TradingEngine engine, List<Company> companies) {
+            this.engine = engine;
+            this.companies = companies;
+        }
+
+        void run(int steps) {
+            for (int i = 0; i < steps; i++) {
+                Company company = companies.get(next(companies.size()));
+                boolean buy = next(2) == 0;
+                long price = company.getBasePriceTicks() + next(21) - 10;
+                int slot = (int) (step++ % recent.length);
+                if (recent[slot] != 0) engine.cancelOrder(recent[slot]);
+                recent[slot] = engine.submitOrder(CLIENTS[next(CLIENTS.length)], company, 1 + next(20), price, buy);
+                if (i % 16 == 0) {
+                    long id = recent[next(recent.length)];
+                    if (id != 0) engine.amendOrder(id, next(15), company.toPrice(price));
+                }
+                if (i % 5000 == 0) engine.cancelAllOrders(CLIENTS[next(CLIENTS.length)]);
+                if (i % 64 == 0) engine.processPending();
+            }
+            engine.processPending();
+        }
+
+        private int next(int bound) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return (int) Math.floorMod(seed, (long) bound);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The incremental feed seen from a subscriber: snapshot plus level deltas rebuild the book
+// exactly, with no gaps in the sequence, and a subscriber that stalls or arrives late is
+// brought back with a snapshot instead of a backlog.
+class MarketDataTest {
+    private Company company;
+    private TradingEngine engine;
+    private MarketDataFeed feed;
+    private final Random random = new Random(5);
+
+    @BeforeEach
+    void setUp() {
+        company = new Company("Apple", "AAPL", 150, 150, 1000);
+        engine = new TradingEngine(List.of(company), null, new EngineConfig()
+                .setMarketDataEnabled(true)
+                .setSnapshotDepth(1000)
+                .setPriceFromTrades(true));
+        feed = engine.getMarketData();
+    }
+
+    @Test
+    void deltasRebuildTheBook() throws InterruptedException {
+        Replica replica = new Replica(null);
+        try (MarketDataSubscription subscription = feed.subscribe(replica, "AAPL")) {
+            trade(2_000);
+            replica.await(feed.snapshot("AAPL").getSequence());
+            assertEquals(describe(engine.getBookSnapshot(company)), replica.describe());
+            assertEquals(0, replica.gaps);
+            assertEquals(1, subscription.getSnapshotCount());
+            assertTrue(replica.trades > 0);
+        }
+    }
+
+    @Test
+    void stalledSubscriberIsConflatedNotQueued() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Replica replica = new Replica(release);
+        try (MarketDataSubscription subscription = feed.subscribe(replica, 16, "AAPL")) {
+            trade(2_000);
+            assertTrue(subscription.getQueuedCount() <= 16);
+            assertTrue(subscription.getConflatedCount() > 0);
+
+            release.countDown();
+            replica.await(feed.snapshot("AAPL").getSequence());
+            assertEquals(describe(engine.getBookSnapshot(company)), replica.describe());
+            assertEquals(0, replica.gaps);
+            // the initial snapshot and at least one resync
+            assertTrue(subscription.getSnapshotCount() >= 2);
+        }
+    }
+
+    @Test
+    void lateSubscriberStartsFromASnapshot() throws InterruptedException {
+        // the feed only sequences messages while someone listens
+        Replica early = new Replica(null);
+        try (MarketDataSubscription first = feed.subscribe(early, "AAPL")) {
+            trade(1_000);
+            long before = feed.snapshot("AAPL").getSequence();
+            assertTrue(before > 0);
+
+            Replica late = new Replica(null);
+            try (MarketDataSubscription second = feed.subscribe(late, "AAPL")) {
+                late.await(before);
+                assertEquals(before, late.firstSequence);
+                trade(1_000);
+                long last = feed.snapshot("AAPL").getSequence();
+                late.await(last);
+                early.await(last);
+                assertEquals(describe(engine.getBookSnapshot(company)), late.describe());
+                assertEquals(early.describe(), late.describe());
+                assertEquals(0, late.gaps);
+                assertEquals(1, second.getSnapshotCount());
+            }
+        }
+    }
+
+    // Random orders and cancels around the base price, applied synchronously
+    private void trade(int orders) {
+        long base = company.getBasePriceTicks();
+        for (int i = 0; i < orders; i++) {
+            boolean buy = random.nextBoolean();
+            long id = engine.submitOrder("C" + random.nextInt(10), company, 1 + random.nextInt(20),
+                    base + random.nextInt(21) - 10, buy);
+            if (random.nextInt(4) == 0) engine.cancelOrder(id - random.nextInt(8));
+            engine.processPending();
+        }
+    }
+
+    private static String describe(BookSnapshot book) {
+        StringBuilder sb = new StringBuilder("bids");
+        for (int i = 0; i < book.getBidDepth(); i++) {
+            sb.append(' ').append(book.getBidQuantity(i)).append('/').append(book.getBidOrderCount(i))
+                    .append('@').append(book.getBidPriceTicks(i));
+        }
+        sb.append("\nasks");
+        for (int i = 0; i < book.getAskDepth(); i++) {
+            sb.append(' ').append(book.getAskQuantity(i)).append('/').append(book.getAskOrderCount(i))
+                    .append('@').append(book.getAskPriceTicks(i));
+        }
+        return sb.toString();
+    }
+
+    // Keeps a full-depth copy of the book from the feed, as a subscriber would
+    private static final class Replica implements MarketDataListener {
+        private final CountDownLatch release;   // null = never stalls
+        private final TreeMap<Long, String> bids = new TreeMap<>();
+        private final TreeMap<Long, String> asks = new TreeMap<>();
+        long firstSequence = -1;
+        long sequence;
+        int gaps;
+        int trades;
+
+        Replica(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public synchronized void onSnapshot(MarketDataSnapshot snapshot) {
+            bids.clear();
+            asks.clear();
+            for (int i = 0; i < snapshot.getBidDepth(); i++) {
+                bids.put(snapshot.getBidPriceTicks(i), snapshot.getBidQuantity(i) + "/" + snapshot.getBidOrderCount(i));
+            }
+            for (int i = 0; i < snapshot.getAskDepth(); i++) {
+                asks.put(snapshot.getAskPriceTicks(i), snapshot.getAskQuantity(i) + "/" + snapshot.getAskOrderCount(i));
+            }
+            if (firstSequence < 0) firstSequence = snapshot.getSequence();
+            sequence = snapshot.getSequence();
+            notifyAll();
+        }
+
+        @Override
+        public void onEvent(MarketDataEvent event) {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            synchronized (this) {
+                if (event.getSequence() != sequence + 1) gaps++;
+                sequence = event.getSequence();
+                Map<Long, String> side = event.isBuy() ? bids : asks;
+                switch (event.getType()) {
+                    case LEVEL_ADD, LEVEL_CHANGE -> side.put(event.getPriceTicks(), event.getQuantity() + "/" + event.getOrderCount());
+                    case LEVEL_DELETE -> side.remove(event.getPriceTicks());
+                    case TRADE -> trades++;
+                    case TOP_OF_BOOK -> { }
+                }
+                notifyAll();
+            }
+        }
+
+        synchronized void await(long target) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (sequence < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) throw new AssertionError("replica at " + sequence + ", expected " + target);
+                wait(left);
+            }
+        }
+
+        synchronized String describe() {
+            StringBuilder sb = new StringBuilder("bids");
+            for (Map.Entry<Long, String> e : bids.descendingMap().entrySet()) sb.append(' ').append(e.getValue()).append('@').append(e.getKey());
+            sb.append("\nasks");
+            for (Map.Entry<Long, String> e : asks.entrySet()) sb.append(' ').append(e.getValue()).append('@').append(e.getKey());
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.engine;
+
+// The matching rules of OrderMatchingTest with the book's orders kept in OffHeapOrderStore
+class OffHeapOrderMatchingTest extends OrderMatchingTest {
+    @Override
+    EngineConfig config() {
+        return new EngineConfig().setOrderStoreType(EngineConfig.OrderStoreType.OFF_HEAP);
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.example.model_layer.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Matching rules of one book, driven synchronously with processPending():
+// price priority, then time priority within a level, partial fills, the midpoint
+// trade price in whole ticks, and how cancel and amend treat an order's place.
+class OrderMatchingTest {
+    private Company company;
+    private TradingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        company = new Company("Apple", "AAPL", 10, 10, 1000);
+        engine = new TradingEngine(List.of(company), null, config());
+    }
+
+    // The book's store; OffHeapOrderMatchingTest runs the same rules over OffHeapOrderStore
+    EngineConfig config() {
+        return new EngineConfig();
+    }
+
+    @Test
+    void fillsBestPriceFirstThenOldestWithinALevel() {
+        long far = sell("S1", 100, 1002);
+        long first = sell("S2", 100, 1001);
+        long second = sell("S3", 100, 1001);
+        buy("B", 250, 1005);
+
+        List<Transaction> trades = trades();
+        assertEquals(3, trades.size());
+        assertTrade(trades.get(0), "B", "S2", 100, 1003);
+        assertTrade(trades.get(1), "B", "S3", 100, 1003);
+        assertTrade(trades.get(2), "B", "S1", 50, 1003);
+
+        OrderBook book = engine.getOrderBook(company);
+        assertFalse(book.contains(first));
+        assertFalse(book.contains(second));
+        assertTrue(book.contains(far));
+        assertEquals(50, book.getBestAsk().getTotalQuantity());
+        assertNull(book.getBestBid());
+    }
+
+    @Test
+    void partiallyFilledOrderKeepsItsPlace() {
+        long resting = sell("S1", 100, 1000);
+        long behind = sell("S2", 100, 1000);
+        buy("B1", 30, 1000);
+        buy("B2", 50, 1000);
+
+        List<Transaction> trades = trades();
+        assertEquals(2, trades.size());
+        assertTrade(trades.get(0), "B1", "S1", 30, 1000);
+        assertTrade(trades.get(1), "B2", "S1", 50, 1000);
+
+        List<ShareOffer> asks = asks();
+        assertEquals(2, asks.size());
+        assertEquals(resting, asks.get(0).getOrderId());
+        assertEquals(20, asks.get(0).getQuantity());
+        assertEquals(behind, asks.get(1).getOrderId());
+    }
+
+    @Test
+    void tradesAtTheMidpointRoundedDownToATick() {
+        sell("S", 10, 1000);
+        buy("B", 10, 1003);
+
+        Transaction trade = trades().get(0);
+        assertEquals(1001, trade.getPriceTicks());
+        assertEquals(10 * 1001, trade.getValueTicks());
+        assertEquals(10.01, trade.getPricePerShare(), 1e-9);
+    }
+
+    @Test
+    void uncrossedOrdersRest() {
+        sell("S", 10, 1001);
+        buy("B", 10, 1000);
+
+        assertTrue(trades().isEmpty());
+        OrderBook book = engine.getOrderBook(company);
+        assertEquals(1000, book.getBestBid().getPriceTicks());
+        assertEquals(1001, book.getBestAsk().getPriceTicks());
+        assertEquals(2, book.getOrderCount());
+    }
+
+    @Test
+    void cancelledOrderDoesNotTrade() {
+        long cancelled = sell("S1", 10, 1000);
+        sell("S2", 10, 1000);
+        engine.cancelOrder(cancelled);
+        buy("B", 10, 1000);
+
+        List<Transaction> trades = trades();
+        assertEquals(1, trades.size());
+        assertEquals("S2", trades.get(0).getSellerId());
+        assertFalse(engine.getOrderBook(company).contains(cancelled));
+    }
+
+    @Test
+    void amendDownKeepsPriorityAndAmendUpLosesIt() {
+        long reduced = sell("S1", 100, 1000);
+        long grown = sell("S2", 100, 1000);
+        sell("S3", 100, 1000);
+        engine.amendOrder(reduced, 40, 10.00);
+        engine.amendOrder(grown, 150, 10.00);
+        engine.processPending();
+
+        List<ShareOffer> asks = asks();
+        assertEquals(List.of("S1", "S3", "S2"), clients(asks));
+        assertEquals(40, asks.get(0).getQuantity());
+        assertEquals(150, asks.get(2).getQuantity());
+    }
+
+    @Test
+    void amendToACrossingPriceMatches() {
+        long order = sell("S", 10, 1010);
+        buy("B", 10, 1000);
+        engine.amendOrder(order, 10, 9.98);
+        engine.processPending();
+
+        List<Transaction> trades = trades();
+        assertEquals(1, trades.size());
+        assertTrade(trades.get(0), "B", "S", 10, 999);
+    }
+
+    @Test
+    void pricesAreWholeTicksOfTheCompanysTickSize() {
+        Company coarse = new Company("Coarse", "CRS", 10, 10, 1000, 0.05);
+        assertEquals(200, coarse.toTicks(10.00));
+        assertEquals(201, coarse.toTicks(10.04));
+        assertEquals(10.05, coarse.toPrice(201), 1e-9);
+        assertEquals(1002, company.toTicks(10.02));
+        // no drift from binary fractions
+        assertEquals(30, company.toTicks(0.1 + 0.2));
+    }
+
+    private long sell(String client, int quantity, long priceTicks) {
+        long id = engine.submitOrder(client, company, quantity, priceTicks, false);
+        engine.processPending();
+        return id;
+    }
+
+    private long buy(String client, int quantity, long priceTicks) {
+        long id = engine.submitOrder(client, company, quantity, priceTicks, true);
+        engine.processPending();
+        return id;
+    }
+
+    private List<Transaction> trades() {
+        List<Transaction> trades = new ArrayList<>();
+        for (Transaction t : engine.getTransactionHistory()) trades.add(t);
+        return trades;
+    }
+
+    private List<ShareOffer> asks() {
+        List<ShareOffer> asks = new ArrayList<>();
+        engine.getOrderBook(company).collect(false, asks);
+        return asks;
+    }
+
+    private static List<String> clients(List<ShareOffer> offers) {
+        List<String> clients = new ArrayList<>();
+        for (ShareOffer o : offers) clients.add(o.getClientId());
+        return clients;
+    }
+
+    private static void assertTrade(Transaction trade, String buyer, String seller, int quantity, long priceTicks) {
+        assertEquals(buyer, trade.getBuyerId());
+        assertEquals(seller, trade.getSellerId());
+        assertEquals(quantity, trade.getQuantity());
+        assertEquals(priceTicks, trade.getPriceTicks());
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// The ladder against a TreeMap under random adds and removes: same levels, the same
+// best level and the same best-to-worst order on both sides
+class PriceLadderTest {
+
+    @Test
+    void bidsMatchASortedMap() {
+        check(true);
+    }
+
+    @Test
+    void asksMatchASortedMap() {
+        check(false);
+    }
+
+    @Test
+    void deepLadderStaysUsable() {
+        PriceLadder ladder = new PriceLadder(true, new HeapOrderStore());
+        for (long p = 0; p < 200_000; p++) ladder.getOrCreate(p * 2);
+        // new and emptied levels in the middle of a deep side
+        for (long p = 0; p < 200_000; p++) {
+            ladder.getOrCreate(p * 2 + 1);
+            ladder.remove(p * 2 + 1);
+        }
+        assertEquals(200_000, ladder.size());
+        assertEquals(399_998, ladder.best().getPriceTicks());
+        assertNull(ladder.get(7));
+    }
+
+    private static void check(boolean bidSide) {
+        PriceLadder ladder = new PriceLadder(bidSide, new HeapOrderStore());
+        TreeMap<Long, PriceLevel> expected = new TreeMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long price = random.nextInt(2_000);
+            if (random.nextInt(3) > 0) {
+                PriceLevel level = ladder.getOrCreate(price);
+                PriceLevel known = expected.putIfAbsent(price, level);
+                if (known != null) assertSame(known, level);
+            } else {
+                ladder.remove(price);
+                expected.remove(price);
+            }
+            if (i % 1_000 == 0) assertSameLevels(ladder, expected, bidSide);
+        }
+        assertSameLevels(ladder, expected, bidSide);
+    }
+
+    private static void assertSameLevels(PriceLadder ladder, TreeMap<Long, PriceLevel> expected, boolean bidSide) {
+        assertEquals(expected.size(), ladder.size());
+        NavigableMap<Long, PriceLevel> bestFirst = bidSide ? expected.descendingMap() : expected;
+        Iterator<PriceLevel> it = bestFirst.values().iterator();
+        for (PriceLevel level = ladder.best(); level != null; level = ladder.worse(level)) {
+            assertSame(it.next(), level);
+        }
+        assertFalse(it.hasNext());
+        for (Long price : expected.keySet()) assertSame(expected.get(price), ladder.get(price));
+    }
+}
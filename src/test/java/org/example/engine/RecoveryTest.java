@@ -0,0 +1,180 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A fresh engine rebuilt from what a running one left on disk must hold the same books,
+// prices and agent accounts as the engine that wrote it.
+class RecoveryTest {
+    private static final int PARTITIONS = 2;
+    private static final int AGENTS = 5;
+
+    @TempDir
+    Path journal;
+    @TempDir
+    Path checkpoints;
+
+    @Test
+    void checkpointPlusJournalTailRestoresTheLiveState() throws Exception {
+        Engine live = new Engine(journal, checkpoints);
+        Thread worker = new Thread(live.engine);
+        worker.start();
+        Random random = new Random(11);
+        List<Long> ids = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            sendOrders(live, random, ids, 2_000);
+            assertNotNull(live.engine.checkpoint());
+        }
+        sendOrders(live, random, ids, 1_000);
+        live.engine.stop();
+        worker.join();
+        String expected = live.describe();
+
+        // older checkpoints were dropped and the segments before the oldest kept one with them
+        try (Stream<Path> files = Files.list(checkpoints)) {
+            assertEquals(2, files.count());
+        }
+        Engine full = new Engine(journal, null);
+        assertThrows(IllegalStateException.class, full.engine::replayJournal);
+
+        Engine recovered = new Engine(journal, checkpoints);
+        long tail = recovered.engine.recover();
+        assertTrue(tail > 0 && tail < ids.size(), "replayed " + tail + " records");
+        assertEquals(expected, recovered.describe());
+    }
+
+    @Test
+    void journalReplayRebuildsTheLiveState() throws Exception {
+        Engine live = new Engine(journal, null);
+        Thread worker = new Thread(live.engine);
+        worker.start();
+        sendOrders(live, new Random(3), new ArrayList<>(), 5_000);
+        live.engine.stop();
+        worker.join();
+
+        Engine replayed = new Engine(journal, null);
+        assertTrue(replayed.engine.replayJournal() > 0);
+        assertEquals(live.describe(), replayed.describe());
+        assertEquals(live.engine.getTransactionHistory().size(), replayed.engine.getTransactionHistory().size());
+    }
+
+    @Test
+    void clientIdsUpToTheLengthLimitReplayAndLongerOnesAreRejected() {
+        Engine live = new Engine(journal, null, OrderJournal.DEFAULT_SEGMENT_BYTES);
+        Company apple = live.companies.get(0);
+        // past the signed 16-bit range, inside the unsigned one
+        String longId = "c".repeat(40_000);
+        String tooLong = "c".repeat(OrderJournal.MAX_STRING_BYTES + 1);
+        live.engine.submitOrder(longId, apple, 5, apple.getBasePriceTicks() - 1, true);
+        long rejected = live.engine.submitOrder(tooLong, apple, 5, apple.getBasePriceTicks() - 2, true);
+        live.engine.submitOrder("s0", apple, 5, apple.getBasePriceTicks() + 1, false);
+        live.engine.processPending();
+        List<ShareOffer> bids = new ArrayList<>();
+        live.engine.getOrderBook(apple).collect(true, bids);
+        assertEquals(1, bids.size());
+        assertEquals(longId, bids.get(0).getClientId());
+        assertTrue(bids.get(0).getOrderId() != rejected);
+
+        Engine replayed = new Engine(journal, null, OrderJournal.DEFAULT_SEGMENT_BYTES);
+        assertTrue(replayed.engine.replayJournal() > 0);
+        assertEquals(live.describe(), replayed.describe());
+
+        // the small segments of the other tests cannot take the long id at all
+        Engine small = new Engine(journal.resolve("small"), null);
+        Company smallApple = small.companies.get(0);
+        small.engine.submitOrder(longId, smallApple, 5, smallApple.getBasePriceTicks() - 1, true);
+        small.engine.processPending();
+        assertEquals(0, small.engine.getOrderBook(smallApple).getBidLevelCount());
+    }
+
+    // Orders, cancels and amends from a seeded stream, spread over every company
+    private static void sendOrders(Engine e, Random random, List<Long> ids, int count) {
+        for (int i = 0; i < count; i++) {
+            Company company = e.companies.get(random.nextInt(e.companies.size()));
+            long priceTicks = company.getBasePriceTicks() + random.nextInt(21) - 10;
+            int quantity = 1 + random.nextInt(50);
+            int kind = random.nextInt(10);
+            if (kind < 4) {
+                ids.add(e.engine.submitOrder("b" + random.nextInt(AGENTS), company, quantity, priceTicks, true));
+            } else if (kind < 8) {
+                ids.add(e.engine.submitOrder("s" + random.nextInt(AGENTS), company, quantity, priceTicks, false));
+            } else if (kind < 9) {
+                e.engine.cancelOrder(ids.get(random.nextInt(ids.size())));
+            } else {
+                e.engine.amendOrder(ids.get(random.nextInt(ids.size())), 1 + random.nextInt(20), company.toPrice(priceTicks));
+            }
+        }
+    }
+
+    // One engine with its own companies and agents, configured like the others
+    static final class Engine {
+        final List<Company> companies = List.of(
+                new Company("Apple", "AAPL", 150, 150, 1000),
+                new Company("Google", "GOOG", 2800, 2800, 1000),
+                new Company("Tesla", "TSLA", 700, 700, 1000));
+        final List<Buyer> buyers = new ArrayList<>();
+        final List<Seller> sellers = new ArrayList<>();
+        final TradingEngine engine;
+
+        Engine(Path journal, Path checkpoints) {
+            this(journal, checkpoints, 8192);
+        }
+
+        Engine(Path journal, Path checkpoints, long segmentBytes) {
+            engine = new TradingEngine(companies, null, new EngineConfig()
+                    .setPartitions(PARTITIONS)
+                    .setJournalDirectory(journal)
+                    .setJournalSegmentBytes(segmentBytes)
+                    .setCheckpointDirectory(checkpoints));
+            for (int i = 0; i < AGENTS; i++) {
+                Buyer buyer = new Buyer("b" + i, 1_000_000, engine);
+                engine.registerBuyer(buyer);
+                buyers.add(buyer);
+                Seller seller = new Seller("s" + i, engine, 0);
+                engine.registerSeller(seller);
+                sellers.add(seller);
+            }
+        }
+
+        // Books in priority order, prices and every account
+        String describe() {
+            StringBuilder sb = new StringBuilder();
+            for (Company c : companies) {
+                sb.append(c.getSymbol()).append(" @").append(c.getCurrentPriceTicks()).append('\n');
+                List<ShareOffer> orders = new ArrayList<>();
+                engine.getOrderBook(c).collect(true, orders);
+                engine.getOrderBook(c).collect(false, orders);
+                for (ShareOffer o : orders) {
+                    sb.append("  ").append(o.getOrderId()).append(o.isBuy() ? " B " : " S ").append(o.getClientId())
+                            .append(' ').append(o.getQuantity()).append('@').append(o.getPriceTicks()).append('\n');
+                }
+            }
+            for (Buyer b : buyers) sb.append(account(b.getId(), b.getBalance(), b.getPortfolio()));
+            for (Seller s : sellers) sb.append(account(s.getId(), s.getBalance(), s.getPortfolio()));
+            return sb.toString();
+        }
+
+        // Balances are sums of doubles added in a different order after recovery
+        private static String account(String id, double balance, Map<Company, Integer> portfolio) {
+            Map<String, Integer> holdings = new TreeMap<>();
+            portfolio.forEach((c, shares) -> holdings.put(c.getSymbol(), shares));
+            return String.format("%s %.4f %s%n", id, balance, holdings);
+        }
+    }
+}
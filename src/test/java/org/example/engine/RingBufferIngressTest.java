@@ -0,0 +1,113 @@
+package org.example.engine;
+
+import org.example.model_layer.Company;
+import org.example.model_layer.ShareOffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// The ring buffer hand-off on its own: each producer's events come out in the order it
+// published them, slots are reused lap after lap, publishAll can hand over more than a ring
+// at once, and the stop signal wakes a worker parked under the BLOCKING strategy.
+class RingBufferIngressTest {
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 10_000;
+
+    private final Company company = new Company("Apple", "AAPL", 150, 150, 1000);
+
+    @Test
+    void keepsEachProducersOrder() throws InterruptedException {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            // a small ring, so producers wrap and wait on the consumer all the time
+            RingBufferIngress ingress = new RingBufferIngress(256, strategy);
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                String clientId = "P" + p;
+                producers.add(new Thread(() -> {
+                    for (int i = 0; i < PER_PRODUCER; i++) {
+                        ingress.publishNew(i, clientId, company, 1, 15_000, true, 0);
+                    }
+                }));
+            }
+            producers.forEach(Thread::start);
+
+            long[] next = new long[PRODUCERS];
+            OrderEvent event = new OrderEvent();
+            for (int i = 0; i < PRODUCERS * PER_PRODUCER; i++) {
+                ingress.take(event);
+                int producer = event.getClientId().charAt(1) - '0';
+                assertEquals(next[producer]++, event.getOrderId(), strategy + " order of " + event.getClientId());
+            }
+            for (Thread t : producers) t.join();
+            assertEquals(0, ingress.size(), strategy.toString());
+            for (long n : next) assertEquals(PER_PRODUCER, n);
+        }
+    }
+
+    @Test
+    void reusesSlotsAcrossLaps() throws InterruptedException {
+        RingBufferIngress ingress = new RingBufferIngress(4, WaitStrategy.BUSY_SPIN);
+        OrderEvent event = new OrderEvent();
+        OrderEvent[] batch = {new OrderEvent(), new OrderEvent(), new OrderEvent(), new OrderEvent(), new OrderEvent()};
+        long id = 0;
+        for (int lap = 0; lap < 10; lap++) {
+            ingress.publishCancel(id);
+            ingress.publishAmend(id + 1, 5, 151.0);
+            ingress.publishMassCancel("C" + lap);
+            assertEquals(3, ingress.size());
+
+            ingress.take(event);
+            assertEquals(OrderEvent.Type.CANCEL, event.getType());
+            assertEquals(id, event.getOrderId());
+            assertEquals(2, ingress.drainTo(batch, 0, batch.length));
+            assertEquals(OrderEvent.Type.AMEND, batch[0].getType());
+            assertEquals(id + 1, batch[0].getOrderId());
+            assertEquals(5, batch[0].getQuantity());
+            assertEquals(OrderEvent.Type.MASS_CANCEL, batch[1].getType());
+            assertEquals("C" + lap, batch[1].getClientId());
+            // nothing is left over from the slots' previous laps
+            assertEquals(0, ingress.drainTo(batch, 0, batch.length));
+            assertEquals(0, ingress.size());
+            id += 2;
+        }
+    }
+
+    @Test
+    void publishAllHandsOverMoreThanOneRing() throws InterruptedException {
+        RingBufferIngress ingress = new RingBufferIngress(8, WaitStrategy.YIELDING);
+        List<ShareOffer> offers = new ArrayList<>();
+        for (int i = 0; i < 37; i++) offers.add(ShareOffer.ofTicks("C" + i, company, 1 + i, 15_000 + i, (i & 1) == 0));
+        Thread producer = new Thread(() -> ingress.publishAll(offers));
+        producer.start();
+
+        OrderEvent event = new OrderEvent();
+        for (ShareOffer expected : offers) {
+            ingress.take(event);
+            assertEquals(OrderEvent.Type.NEW, event.getType());
+            assertEquals(expected, event.getOffer());
+        }
+        producer.join();
+        assertEquals(0, ingress.size());
+    }
+
+    @Test
+    void stopWakesAWorkerBlockedOnAnEmptyRing() throws InterruptedException {
+        TradingEngine engine = new TradingEngine(List.of(company), null, new EngineConfig()
+                .setIngressType(EngineConfig.IngressType.RING_BUFFER)
+                .setWaitStrategy(WaitStrategy.BLOCKING)
+                .setPartitions(2));
+        Thread worker = new Thread(engine, "ExchangeEngine");
+        worker.start();
+        engine.submitOrder("S", company, 10, 15_000, false);
+        // long enough for the worker to give up spinning and park
+        Thread.sleep(100);
+        engine.stop();
+        worker.join(5_000);
+        assertFalse(worker.isAlive(), "worker stopped");
+        assertEquals(1, engine.getSellOffersForCompany(company).size(), "order applied before the stop");
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.engine;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import org.example.model_layer.Company;
+import org.example.model_layer.Transaction;
+import org.example.model_layer.TransactionImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Both tiers of the history with one partition per writer: queries that span the disk
+// segments and the in-memory window, trades dropped when there is nowhere to spill them,
+// and cursors that release their segment files when closed early.
+class TradeHistoryTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final Company APPLE = new Company("Apple", "AAPL", 150, 150, 1000);
+    private static final Company GOOGLE = new Company("Google", "GOOG", 2800, 2800, 1000);
+
+    @TempDir
+    Path spill;
+
+    @Test
+    void queriesSpanSpilledAndInMemoryTrades() {
+        TradeHistory history = new TradeHistory(3, 300, 0, spill, 4096);
+        List<Transaction> all = addTrades(history, 3, 5_000);
+        history.flush();
+        assertEquals(5_000, history.size());
+        assertEquals(5_000, history.getSpilledCount() + history.getInMemoryCount());
+        assertTrue(history.getSpilledCount() > 4_000);
+
+        assertSameTrades(all, iterate(history));
+        LocalDateTime from = BASE.plusSeconds(1);
+        LocalDateTime to = BASE.plusSeconds(4);
+        assertSameTrades(filter(all, from, to, "c2", null), history.forBuyer("c2", from, to));
+        assertSameTrades(filter(all, from, to, null, "c5"), history.forSeller("c5", from, to));
+        assertSameTrades(filter(all, BASE, BASE.plusSeconds(10), null, null), history.range(BASE, BASE.plusSeconds(10)));
+        // bounds beyond what a long of nanos covers saturate rather than overflow
+        assertSameTrades(all, history.range(LocalDateTime.MIN, LocalDateTime.MAX));
+        assertSameTrades(all, history.range(LocalDateTime.of(1600, 1, 1, 0, 0), LocalDateTime.of(2300, 1, 1, 0, 0)));
+        assertSameTrades(filter(all, from, LocalDateTime.MAX, null, null), history.range(from, LocalDateTime.MAX));
+        assertSameTrades(filter(all, LocalDateTime.MIN, to, "c2", null), history.forBuyer("c2", LocalDateTime.MIN, to));
+        List<Transaction> apple = new ArrayList<>();
+        for (Transaction t : all) {
+            if (t.getCompany() == APPLE && !t.getTimestamp().isBefore(from)) apple.add(t);
+        }
+        assertSameTrades(apple, history.forSymbolSince("AAPL", from));
+
+        long position = 0;
+        for (Transaction t : all) {
+            if (t.getCompany() != GOOGLE) continue;
+            if (t.getBuyerId().equals("c1")) position += t.getQuantity();
+            if (t.getSellerId().equals("c1")) position -= t.getQuantity();
+        }
+        assertEquals(position, history.getPosition("c1", GOOGLE));
+        history.close();
+    }
+
+    @Test
+    void engineHistoryKeepsEveryTradeUnlessAWindowIsSet() {
+        TradeHistory history = new EngineConfig().setPartitions(2).createTradeHistory();
+        List<Transaction> all = addTrades(history, 2, 150_000);
+        assertEquals(150_000, history.getInMemoryCount());
+        assertEquals(0, history.getDroppedCount());
+        assertSameTrades(all, iterate(history));
+        history.close();
+    }
+
+    @Test
+    void dropsTradesLeavingTheWindowWithoutASpillDirectory() {
+        TradeHistory history = new TradeHistory(2, 100, 0, null, 4096);
+        List<Transaction> all = addTrades(history, 2, 1_000);
+        assertNull(history.getSpillDirectory());
+        assertEquals(1_000, history.size());
+        assertEquals(100, history.getInMemoryCount());
+        assertEquals(900, history.getDroppedCount());
+        assertSameTrades(all.subList(900, 1_000), iterate(history));
+        history.close();
+    }
+
+    @Test
+    void spillsTradesOlderThanTheMaxAge() throws IOException {
+        TradeHistory history = new TradeHistory(1, 10_000, 100, spill, 4096);
+        List<Transaction> all = addTrades(history, 1, 1_000);
+        history.flush();
+        // one trade per millisecond: the last 101 are within 100 ms of the newest
+        assertEquals(101, history.getInMemoryCount());
+        assertEquals(899, history.getSpilledCount());
+        assertSameTrades(all, iterate(history));
+        history.close();
+        try (Stream<Path> files = Files.list(spill)) {
+            assertTrue(files.anyMatch(p -> p.getFileName().toString().endsWith(".seg")));
+        }
+    }
+
+    @Test
+    void closingACursorEarlyClosesItsSegment() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        assumeTrue(os instanceof UnixOperatingSystemMXBean);
+        UnixOperatingSystemMXBean unix = (UnixOperatingSystemMXBean) os;
+
+        TradeHistory history = new TradeHistory(1, 100, 0, spill, 1 << 20);
+        addTrades(history, 1, 10_000);
+        history.flush();
+        long before = unix.getOpenFileDescriptorCount();
+        for (int i = 0; i < 20; i++) {
+            try (TradeHistory.Cursor cursor = history.iterator()) {
+                cursor.next();
+            }
+        }
+        assertTrue(unix.getOpenFileDescriptorCount() - before < 5);
+        history.close();
+    }
+
+    // Trades one millisecond apart, written round-robin to the partitions
+    private static List<Transaction> addTrades(TradeHistory history, int partitions, int count) {
+        Random random = new Random(7);
+        List<Transaction> trades = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction t = TransactionImpl.ofTicks("c" + random.nextInt(8), "c" + random.nextInt(8),
+                    random.nextBoolean() ? APPLE : GOOGLE, 1 + random.nextInt(9), 15_000 + random.nextInt(100),
+                    BASE.plusNanos(i * 1_000_000L));
+            history.add(i % partitions, t);
+            trades.add(t);
+        }
+        return trades;
+    }
+
+    private static List<Transaction> iterate(TradeHistory history) {
+        List<Transaction> trades = new ArrayList<>();
+        history.forEach(trades::add);
+        return trades;
+    }
+
+    private static List<Transaction> filter(List<Transaction> trades, LocalDateTime from, LocalDateTime to,
+                                            String buyer, String seller) {
+        List<Transaction> result = new ArrayList<>();
+        for (Transaction t : trades) {
+            if (t.getTimestamp().isBefore(from) || !t.getTimestamp().isBefore(to)) continue;
+            if (buyer != null && !t.getBuyerId().equals(buyer)) continue;
+            if (seller != null && !t.getSellerId().equals(seller)) continue;
+            result.add(t);
+        }
+        return result;
+    }
+
+    // Trades read back from disk are new objects, so compare their fields
+    private static void assertSameTrades(List<Transaction> expected, List<Transaction> actual) {
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    private static List<String> describe(List<Transaction> trades) {
+        List<String> result = new ArrayList<>();
+        for (Transaction t : trades) {
+            result.add(t.getBuyerId() + "/" + t.getSellerId() + " " + t.getCompany().getSymbol() + " "
+                    + t.getQuantity() + "@" + t.getPriceTicks() + " " + t.getTimestampNanos());
+        }
+        return result;
+    }
+}
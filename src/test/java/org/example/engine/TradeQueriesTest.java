@@ -0,0 +1,173 @@
+package org.example.engine;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.example.model_layer.Company;
+import org.example.model_layer.Transaction;
+import org.example.model_layer.TransactionImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// TradeQueries against an in-process MongoDB stand-in holding trades written through the
+// TradeWriter, one per millisecond so every window has an exact expected content.
+// -Dtrades.mongoUri=mongodb://localhost:27017 runs it against a real server instead.
+class TradeQueriesTest {
+    private static final int TRADES = 5000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 30);
+    private static final List<Company> COMPANIES = List.of(
+            new Company("Apple", "AAPL", 150, 150, 1000),
+            new Company("Google", "GOOG", 2800, 2800, 1000));
+
+    private static MongoServer server;
+    private static MongoClient client;
+    private static MongoCollection<Document> collection;
+    private static final List<Transaction> written = new ArrayList<>();
+
+    @BeforeAll
+    static void writeTrades() {
+        String uri = System.getProperty("trades.mongoUri");
+        if (uri == null) {
+            server = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = server.bind();
+            uri = "mongodb://" + address.getHostString() + ":" + address.getPort();
+        }
+        client = MongoClients.create(uri);
+        collection = client.getDatabase("TradingTest").getCollection("Transactions");
+        collection.drop();
+        TradeQueries.ensureIndexes(collection);
+
+        Random random = new Random(42);
+        TradeWriter writer = new TradeWriter(new MongoTradeSink(collection));
+        for (int i = 0; i < TRADES; i++) {
+            Transaction t = TransactionImpl.ofTicks("B" + random.nextInt(10), "S" + random.nextInt(10),
+                    COMPANIES.get(i % 2), 1 + random.nextInt(20), 15000 + random.nextInt(100),
+                    START.plusNanos(i * 1_000_000L));
+            writer.enqueue(t);
+            written.add(t);
+        }
+        writer.close();
+    }
+
+    @AfterAll
+    static void shutdown() {
+        client.close();
+        if (server != null) server.shutdown();
+    }
+
+    @Test
+    void symbolPagesCoverTheWindowOnce() {
+        TradeQueries queries = new TradeQueries(collection, COMPANIES);
+        LocalDateTime from = START.plusSeconds(1);
+        LocalDateTime to = START.plusSeconds(3);
+
+        List<Transaction> paged = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            TradePage page = queries.symbolTrades("AAPL", from, to, 137, cursor);
+            paged.addAll(page.getTrades());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Transaction> expected = new ArrayList<>();
+        for (Transaction t : written) {
+            if (t.getCompany().getSymbol().equals("AAPL") && !t.getTimestamp().isBefore(from)
+                    && t.getTimestamp().isBefore(to)) {
+                expected.add(t);
+            }
+        }
+        assertEquals(1000, expected.size());
+        assertEquals(describe(expected), describe(paged));
+        assertEquals((expected.size() + 136) / 137, pages);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        TradeQueries queries = new TradeQueries(collection, COMPANIES);
+        // exactly one page's worth: [0 ms, 10 ms) holds 5 GOOG trades
+        TradePage page = queries.symbolTrades("GOOG", START, START.plusNanos(10_000_000L), 5, null);
+        assertEquals(5, page.getTrades().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void clientStreamAndPagesMatchTheWrittenTrades() {
+        TradeQueries queries = new TradeQueries(collection, COMPANIES);
+        List<Transaction> expected = new ArrayList<>();
+        for (Transaction t : written) {
+            if (t.getBuyerId().equals("B3") || t.getSellerId().equals("B3")) expected.add(t);
+        }
+
+        List<Transaction> streamed = new ArrayList<>();
+        queries.streamClientTrades("B3", START, START.plusSeconds(10), 100, streamed::add);
+        assertEquals(describe(expected), describe(streamed));
+
+        List<Transaction> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            TradePage page = queries.clientTrades("B3", START, START.plusSeconds(10), 64, cursor);
+            paged.addAll(page.getTrades());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(describe(expected), describe(paged));
+    }
+
+    @Test
+    void recentTradesAreCachedPerSymbol() {
+        TradeQueries queries = new TradeQueries(collection, COMPANIES);
+        List<Transaction> recent = queries.recentTrades("GOOG", 50);
+        assertEquals(describe(written.subList(TRADES - 100, TRADES).stream()
+                .filter(t -> t.getCompany().getSymbol().equals("GOOG")).toList()), describe(recent));
+
+        // a shorter window is served from the cached one, a longer one is not
+        List<Transaction> shorter = queries.recentTrades("GOOG", 20);
+        assertEquals(describe(recent.subList(30, 50)), describe(shorter));
+        assertEquals(1, queries.getCacheHits());
+        queries.recentTrades("GOOG", 60);
+        assertEquals(2, queries.getCacheMisses());
+    }
+
+    @Test
+    void cacheEvictsTheLeastRecentSymbolAndExpires() throws InterruptedException {
+        TradeQueries lru = new TradeQueries(collection, COMPANIES, 1, 60_000);
+        lru.recentTrades("AAPL", 10);
+        lru.recentTrades("GOOG", 10);
+        lru.recentTrades("AAPL", 10);   // evicted by GOOG
+        assertEquals(0, lru.getCacheHits());
+        lru.recentTrades("AAPL", 10);
+        assertEquals(1, lru.getCacheHits());
+
+        TradeQueries ttl = new TradeQueries(collection, COMPANIES, 8, 50);
+        ttl.recentTrades("AAPL", 10);
+        Thread.sleep(100);
+        ttl.recentTrades("AAPL", 10);
+        assertEquals(0, ttl.getCacheHits());
+        assertEquals(2, ttl.getCacheMisses());
+    }
+
+    // Transaction has no equals
+    private static String describe(List<Transaction> trades) {
+        StringBuilder sb = new StringBuilder();
+        for (Transaction t : trades) {
+            sb.append(t.getTimestamp()).append(' ').append(t.getCompany().getSymbol()).append(' ')
+                    .append(t.getBuyerId()).append('/').append(t.getSellerId()).append(' ')
+                    .append(t.getQuantity()).append('@').append(t.getPriceTicks()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.engine;
+
+import org.bson.Document;
+import org.example.model_layer.Company;
+import org.example.model_layer.Transaction;
+import org.example.model_layer.TransactionImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The write-behind path against the local stand-in collection: batching by size and by
+// time, retries without duplicates, backpressure on a full queue, and close() writing
+// every trade that was accepted, even while producers are still enqueuing.
+class TradeWriterTest {
+    private static final Company COMPANY = new Company("Apple", "AAPL", 150, 150, 1000);
+    private static final long NEVER = TimeUnit.MINUTES.toMillis(10);
+
+    @Test
+    void writesFullBatchesAndFlushesTheRestOnClose() throws Exception {
+        InMemoryTradeSink sink = new InMemoryTradeSink();
+        TradeWriter writer = new TradeWriter(sink, 1024, 100, NEVER, 0, 0);
+        for (int i = 0; i < 250; i++) writer.enqueue(trade(i));
+        awaitWritten(writer, 200);
+        assertEquals(2, sink.getBatchCount());
+
+        writer.close();
+        assertEquals(250, sink.getDocuments().size());
+        assertEquals(3, sink.getBatchCount());
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    void flushesAPartialBatchAfterTheInterval() throws Exception {
+        InMemoryTradeSink sink = new InMemoryTradeSink();
+        TradeWriter writer = new TradeWriter(sink, 1024, 1000, 20, 0, 0);
+        for (int i = 0; i < 5; i++) writer.enqueue(trade(i));
+        awaitWritten(writer, 5);
+        assertEquals(1, sink.getBatchCount());
+        writer.close();
+    }
+
+    @Test
+    void retriesAFailedBatchWithoutDuplicates() {
+        InMemoryTradeSink sink = new InMemoryTradeSink();
+        AtomicInteger failures = new AtomicInteger(2);
+        TradeWriter writer = new TradeWriter(documents -> {
+            if (failures.getAndDecrement() > 0) throw new IllegalStateException("not primary");
+            sink.insertMany(documents);
+        }, 1024, 10, NEVER, 5, 1);
+        for (int i = 0; i < 10; i++) writer.enqueue(trade(i));
+        writer.close();
+
+        List<Document> documents = sink.getDocuments();
+        assertEquals(10, documents.size());
+        Set<Object> ids = new HashSet<>();
+        for (Document d : documents) ids.add(d.get("_id"));
+        assertEquals(10, ids.size());
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    void countsABatchThatKeepsFailingAsDropped() {
+        TradeWriter writer = new TradeWriter(documents -> {
+            throw new IllegalStateException("down");
+        }, 1024, 10, NEVER, 2, 1);
+        for (int i = 0; i < 10; i++) writer.enqueue(trade(i));
+        writer.close();
+        assertEquals(10, writer.getDroppedCount());
+        assertEquals(0, writer.getWrittenCount());
+    }
+
+    @Test
+    void blocksProducersWhileTheQueueIsFull() throws Exception {
+        InMemoryTradeSink sink = new InMemoryTradeSink();
+        CountDownLatch release = new CountDownLatch(1);
+        TradeWriter writer = new TradeWriter(documents -> {
+            release.await();
+            sink.insertMany(documents);
+        }, 4, 1, NEVER, 0, 0);
+
+        // one trade is held by the stalled writer, four fill the queue, the sixth must wait
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 6; i++) writer.enqueue(trade(i));
+        });
+        producer.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((writer.getQueueSize() < 4 || producer.getState() != Thread.State.WAITING)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(4, writer.getQueueSize());
+        assertEquals(Thread.State.WAITING, producer.getState());
+        assertTrue(producer.isAlive());
+
+        release.countDown();
+        producer.join(5_000);
+        writer.close();
+        assertEquals(6, sink.getDocuments().size());
+    }
+
+    @Test
+    void closeWritesEveryAcceptedTradeWhileProducersRace() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            InMemoryTradeSink sink = new InMemoryTradeSink();
+            TradeWriter writer = new TradeWriter(sink, 64, 16, 1, 0, 0);
+            AtomicInteger accepted = new AtomicInteger();
+            Thread[] producers = new Thread[4];
+            for (int p = 0; p < producers.length; p++) {
+                producers[p] = new Thread(() -> {
+                    for (int i = 0; writer.enqueue(trade(i)); i++) {
+                        accepted.incrementAndGet();
+                    }
+                });
+                producers[p].start();
+            }
+            while (accepted.get() < 100) Thread.sleep(1);
+            writer.close();
+            for (Thread producer : producers) producer.join();
+
+            assertEquals(accepted.get(), sink.getDocuments().size(), "round " + round);
+        }
+    }
+
+    @Test
+    void dropsTradesAfterClose() {
+        InMemoryTradeSink sink = new InMemoryTradeSink();
+        TradeWriter writer = new TradeWriter(sink);
+        assertTrue(writer.enqueue(trade(0)));
+        writer.close();
+        // counted, not thrown at the matching thread
+        assertFalse(writer.enqueue(trade(1)));
+        assertFalse(writer.enqueue(trade(2)));
+        assertEquals(2, writer.getDroppedCount());
+        assertEquals(1, writer.getWrittenCount());
+        assertEquals(1, sink.getDocuments().size());
+    }
+
+    private static Transaction trade(int i) {
+        return TransactionImpl.ofTicks("B" + (i % 7), "S" + (i % 5), COMPANY, 1 + i % 10, 15_000 + i % 50, 1_000L + i);
+    }
+
+    private static void awaitWritten(TradeWriter writer, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getWrittenCount() < count && System.nanoTime() < deadline) Thread.sleep(1);
+        assertEquals(count, writer.getWrittenCount());
+    }
+}